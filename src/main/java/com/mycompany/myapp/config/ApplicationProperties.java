@@ -1,6 +1,11 @@
 package com.mycompany.myapp.config;
 
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Maven.
@@ -9,4 +14,657 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final EntityCache entityCache = new EntityCache();
+
+    private final Bulk bulk = new Bulk();
+
+    private final SearchIndexer searchIndexer = new SearchIndexer();
+
+    private final Reindex reindex = new Reindex();
+
+    private final Stream stream = new Stream();
+
+    private final Replica replica = new Replica();
+
+    private final Pool pool = new Pool();
+
+    private final Availability availability = new Availability();
+
+    private final Booking booking = new Booking();
+
+    private final Export export = new Export();
+
+    private final Attachments attachments = new Attachments();
+
+    private final Statistics statistics = new Statistics();
+
+    private final Count count = new Count();
+
+    private final Lookup lookup = new Lookup();
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public SearchIndexer getSearchIndexer() {
+        return searchIndexer;
+    }
+
+    public Reindex getReindex() {
+        return reindex;
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Availability getAvailability() {
+        return availability;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Attachments getAttachments() {
+        return attachments;
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    public Count getCount() {
+        return count;
+    }
+
+    public Lookup getLookup() {
+        return lookup;
+    }
+
+    /**
+     * The read-through caches of the entities by id, see {@link com.mycompany.myapp.service.EntityCacheManager}.
+     */
+    public static class EntityCache {
+
+        private final Cache especialista = new Cache(1_000, 3_600);
+
+        private final Cache paciente = new Cache(10_000, 600);
+
+        private final Cache reserva = new Cache(10_000, 60);
+
+        private final Cache historia = new Cache(10_000, 60);
+
+        /**
+         * The ids of the pacientes by normalized rut, see {@link com.mycompany.myapp.service.PacienteRutCache}.
+         */
+        private final Cache pacienteRut = new Cache(10_000, 600);
+
+        public Cache getEspecialista() {
+            return especialista;
+        }
+
+        public Cache getPaciente() {
+            return paciente;
+        }
+
+        public Cache getReserva() {
+            return reserva;
+        }
+
+        public Cache getHistoria() {
+            return historia;
+        }
+
+        public Cache getPacienteRut() {
+            return pacienteRut;
+        }
+    }
+
+    public static class Cache {
+
+        private boolean enabled = true;
+
+        private long maxEntries;
+
+        private long timeToLiveSeconds;
+
+        public Cache(long maxEntries, long timeToLiveSeconds) {
+            this.maxEntries = maxEntries;
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    /**
+     * The bulk create endpoints, see {@link com.mycompany.myapp.service.BulkInserter}.
+     */
+    public static class Bulk {
+
+        private int batchSize = 500;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * The indexing of the search outbox, see {@link com.mycompany.myapp.service.SearchIndexer}.
+     */
+    public static class SearchIndexer {
+
+        private boolean enabled = true;
+
+        private int batchSize = 500;
+
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        private int maxRetries = 3;
+
+        private Duration retryBackoff = Duration.ofMillis(500);
+
+        private int maxAttempts = 5;
+
+        private Duration retention = Duration.ofHours(24);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+    }
+
+    /**
+     * The rebuild of the search indices, see {@link com.mycompany.myapp.service.SearchReindexer}.
+     */
+    public static class Reindex {
+
+        private int slices = 4;
+
+        private int batchSize = 1_000;
+
+        private Duration replayMargin = Duration.ofMinutes(5);
+
+        public int getSlices() {
+            return slices;
+        }
+
+        public void setSlices(int slices) {
+            this.slices = slices;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getReplayMargin() {
+            return replayMargin;
+        }
+
+        public void setReplayMargin(Duration replayMargin) {
+            this.replayMargin = replayMargin;
+        }
+    }
+
+    /**
+     * The streaming endpoints, see {@link com.mycompany.myapp.service.EntityManager#fetchInBatches}.
+     */
+    public static class Stream {
+
+        private int fetchSize = 500;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    /**
+     * The read replicas of the database, see {@link ReplicaRoutingConnectionFactory}.
+     */
+    public static class Replica {
+
+        private boolean enabled = false;
+
+        private List<String> urls = new ArrayList<>();
+
+        private String username;
+
+        private String password;
+
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        private Duration lagCheckInterval = Duration.ofSeconds(2);
+
+        private String lagQuery =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+        private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public Duration getLagCheckInterval() {
+            return lagCheckInterval;
+        }
+
+        public void setLagCheckInterval(Duration lagCheckInterval) {
+            this.lagCheckInterval = lagCheckInterval;
+        }
+
+        public String getLagQuery() {
+            return lagQuery;
+        }
+
+        public void setLagQuery(String lagQuery) {
+            this.lagQuery = lagQuery;
+        }
+
+        public Duration getReadYourWritesWindow() {
+            return readYourWritesWindow;
+        }
+
+        public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+            this.readYourWritesWindow = readYourWritesWindow;
+        }
+    }
+
+    /**
+     * The connection pools of the database, in addition to the {@code spring.r2dbc.pool} properties, see
+     * {@link MeteredConnectionPool}.
+     */
+    public static class Pool {
+
+        private Duration maxLifeTime = Duration.ofMinutes(30);
+
+        private Duration maxAcquireTime = Duration.ofSeconds(5);
+
+        private Duration maxCreateConnectionTime = Duration.ofSeconds(5);
+
+        private Duration warmUpTimeout = Duration.ofSeconds(30);
+
+        private int maxPendingAcquirers = 10;
+
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public Duration getMaxAcquireTime() {
+            return maxAcquireTime;
+        }
+
+        public void setMaxAcquireTime(Duration maxAcquireTime) {
+            this.maxAcquireTime = maxAcquireTime;
+        }
+
+        public Duration getMaxCreateConnectionTime() {
+            return maxCreateConnectionTime;
+        }
+
+        public void setMaxCreateConnectionTime(Duration maxCreateConnectionTime) {
+            this.maxCreateConnectionTime = maxCreateConnectionTime;
+        }
+
+        public Duration getWarmUpTimeout() {
+            return warmUpTimeout;
+        }
+
+        public void setWarmUpTimeout(Duration warmUpTimeout) {
+            this.warmUpTimeout = warmUpTimeout;
+        }
+
+        public int getMaxPendingAcquirers() {
+            return maxPendingAcquirers;
+        }
+
+        public void setMaxPendingAcquirers(int maxPendingAcquirers) {
+            this.maxPendingAcquirers = maxPendingAcquirers;
+        }
+    }
+
+    /**
+     * The slots of the reservas, and their in-memory index, see {@link com.mycompany.myapp.service.SlotAvailabilityIndex}.
+     */
+    public static class Availability {
+
+        private ZoneId timeZone = ZoneId.systemDefault();
+
+        private Duration opensAt = Duration.ofHours(8);
+
+        private Duration closesAt = Duration.ofHours(20);
+
+        private Duration slotDuration = Duration.ofMinutes(30);
+
+        private long maxDays = 10_000;
+
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        public ZoneId getTimeZone() {
+            return timeZone;
+        }
+
+        public void setTimeZone(ZoneId timeZone) {
+            this.timeZone = timeZone;
+        }
+
+        public Duration getOpensAt() {
+            return opensAt;
+        }
+
+        public void setOpensAt(Duration opensAt) {
+            this.opensAt = opensAt;
+        }
+
+        public Duration getClosesAt() {
+            return closesAt;
+        }
+
+        public void setClosesAt(Duration closesAt) {
+            this.closesAt = closesAt;
+        }
+
+        public Duration getSlotDuration() {
+            return slotDuration;
+        }
+
+        public void setSlotDuration(Duration slotDuration) {
+            this.slotDuration = slotDuration;
+        }
+
+        public long getMaxDays() {
+            return maxDays;
+        }
+
+        public void setMaxDays(long maxDays) {
+            this.maxDays = maxDays;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * The bookings of the slots of the reservas, see {@link com.mycompany.myapp.service.ReservaBooker}.
+     */
+    public static class Booking {
+
+        private int lockStripes = 1_024;
+
+        public int getLockStripes() {
+            return lockStripes;
+        }
+
+        public void setLockStripes(int lockStripes) {
+            this.lockStripes = lockStripes;
+        }
+    }
+
+    /**
+     * The exports of the entities, see {@link com.mycompany.myapp.service.RowExporter}.
+     */
+    public static class Export {
+
+        private int batchSize = 10_000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * The attached files, e.g. the resultados of the historias, see {@link com.mycompany.myapp.service.AttachmentStore}.
+     */
+    public static class Attachments {
+
+        private String directory = "attachments";
+
+        private DataSize maxSize = DataSize.ofMegabytes(100);
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * The counters of the reservas and historias, see {@link com.mycompany.myapp.service.BookingStatistics}.
+     */
+    public static class Statistics {
+
+        private boolean rebuildOnStartup = true;
+
+        public boolean isRebuildOnStartup() {
+            return rebuildOnStartup;
+        }
+
+        public void setRebuildOnStartup(boolean rebuildOnStartup) {
+            this.rebuildOnStartup = rebuildOnStartup;
+        }
+    }
+
+    /**
+     * The totals of the list endpoints, see {@link com.mycompany.myapp.service.RowCounter}.
+     */
+    public static class Count {
+
+        private int threshold = 1_000;
+
+        private long maxCachedTotals = 1_000;
+
+        private Duration timeToLive = Duration.ofMinutes(1);
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public long getMaxCachedTotals() {
+            return maxCachedTotals;
+        }
+
+        public void setMaxCachedTotals(long maxCachedTotals) {
+            this.maxCachedTotals = maxCachedTotals;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * The type-ahead lookup of the pacientes, see {@link com.mycompany.myapp.service.PacienteLookup}.
+     */
+    public static class Lookup {
+
+        private boolean inMemory = true;
+
+        private int maxResults = 50;
+
+        public boolean isInMemory() {
+            return inMemory;
+        }
+
+        public void setInMemory(boolean inMemory) {
+            this.inMemory = inMemory;
+        }
+
+        public int getMaxResults() {
+            return maxResults;
+        }
+
+        public void setMaxResults(int maxResults) {
+            this.maxResults = maxResults;
+        }
+    }
+}
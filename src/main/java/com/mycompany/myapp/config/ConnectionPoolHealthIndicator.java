@@ -0,0 +1,50 @@
+package com.mycompany.myapp.config;
+
+import io.r2dbc.pool.PoolMetrics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.boot.actuate.health.AbstractReactiveHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reports the saturation of the connection pools of the database: the instance is out of service, and so not ready to
+ * receive more requests, while more acquirers than the configured threshold wait for a connection of one of its pools.
+ * <p>
+ * The details hold the acquired, idle and pending connections of every pool, with their utilization.
+ */
+public class ConnectionPoolHealthIndicator extends AbstractReactiveHealthIndicator {
+
+    private final List<MeteredConnectionPool> pools;
+
+    private final int maxPendingAcquirers;
+
+    public ConnectionPoolHealthIndicator(List<MeteredConnectionPool> pools, int maxPendingAcquirers) {
+        super("Connection pool health check failed");
+        this.pools = pools;
+        this.maxPendingAcquirers = maxPendingAcquirers;
+    }
+
+    @Override
+    protected Mono<Health> doHealthCheck(Health.Builder builder) {
+        boolean saturated = false;
+        for (MeteredConnectionPool pool : pools) {
+            Optional<PoolMetrics> metrics = pool.getMetrics();
+            if (metrics.isEmpty()) {
+                continue;
+            }
+            PoolMetrics poolMetrics = metrics.get();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("acquired", poolMetrics.acquiredSize());
+            details.put("idle", poolMetrics.idleSize());
+            details.put("pending", poolMetrics.pendingAcquireSize());
+            details.put("max", poolMetrics.getMaxAllocatedSize());
+            details.put("utilization", (double) poolMetrics.acquiredSize() / poolMetrics.getMaxAllocatedSize());
+            builder.withDetail(pool.getName(), details);
+            saturated |= poolMetrics.pendingAcquireSize() > maxPendingAcquirers;
+        }
+        return Mono.just(saturated ? builder.outOfService().build() : builder.up().build());
+    }
+}
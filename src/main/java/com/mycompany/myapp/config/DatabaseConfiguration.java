@@ -1,6 +1,10 @@
 package com.mycompany.myapp.config;
 
+import com.mycompany.myapp.web.filter.ReplicaRoutingWebFilter;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ValidationDepth;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
@@ -14,6 +18,9 @@ import java.util.Collections;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -33,6 +40,7 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.dialect.RenderContextFactory;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
 
@@ -78,6 +86,111 @@ public class DatabaseConfiguration {
         return String.valueOf(port);
     }
 
+    /**
+     * The pool of the connections to the database, if the read replicas are disabled.
+     *
+     * @return the connection factory of the database.
+     */
+    @Bean(name = "connectionFactory", initMethod = "warmUp", destroyMethod = "dispose")
+    @ConditionalOnProperty(prefix = "application.replica", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public MeteredConnectionPool connectionPool(R2dbcProperties r2dbcProperties, ApplicationProperties applicationProperties) {
+        return createPool(
+            ReplicaRoutingConnectionFactory.PRIMARY,
+            r2dbcProperties.getUrl(),
+            r2dbcProperties.getUsername(),
+            r2dbcProperties.getPassword(),
+            r2dbcProperties.getPool(),
+            applicationProperties.getPool()
+        );
+    }
+
+    /**
+     * Routes the safe requests to the read replicas of the database, and the other ones to the primary, if the replicas
+     * are enabled.
+     *
+     * @return the connection factory of the primary and of the replicas.
+     */
+    @Bean(name = "connectionFactory")
+    @ConditionalOnProperty(prefix = "application.replica", name = "enabled", havingValue = "true")
+    public ReplicaRoutingConnectionFactory routingConnectionFactory(
+        R2dbcProperties r2dbcProperties,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Replica properties = applicationProperties.getReplica();
+        if (properties.getUrls() == null || properties.getUrls().isEmpty()) {
+            throw new IllegalArgumentException("application.replica.enabled is true, but application.replica.urls is empty");
+        }
+        ApplicationProperties.Pool poolProperties = applicationProperties.getPool();
+        MeteredConnectionPool primary = createPool(
+            ReplicaRoutingConnectionFactory.PRIMARY,
+            r2dbcProperties.getUrl(),
+            r2dbcProperties.getUsername(),
+            r2dbcProperties.getPassword(),
+            r2dbcProperties.getPool(),
+            poolProperties
+        );
+        String username = properties.getUsername() != null ? properties.getUsername() : r2dbcProperties.getUsername();
+        String password = properties.getPassword() != null ? properties.getPassword() : r2dbcProperties.getPassword();
+        List<MeteredConnectionPool> replicas = new ArrayList<>();
+        for (String url : properties.getUrls()) {
+            replicas.add(createPool("replica-" + replicas.size(), url, username, password, r2dbcProperties.getPool(), poolProperties));
+        }
+        log.info("Routing the safe requests to {} database replicas", replicas.size());
+        return new ReplicaRoutingConnectionFactory(primary, replicas, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.replica", name = "enabled", havingValue = "true")
+    public ReplicaRoutingWebFilter replicaRoutingWebFilter(ApplicationProperties applicationProperties) {
+        return new ReplicaRoutingWebFilter(applicationProperties.getReplica().getReadYourWritesWindow());
+    }
+
+    /**
+     * Reports the saturation of the connection pools in the {@code readiness} health group.
+     *
+     * @return the health indicator of the pools.
+     */
+    @Bean
+    public ConnectionPoolHealthIndicator datasourceHealthIndicator(
+        ConnectionFactory connectionFactory,
+        ApplicationProperties applicationProperties
+    ) {
+        List<MeteredConnectionPool> pools = new ArrayList<>();
+        if (connectionFactory instanceof ReplicaRoutingConnectionFactory) {
+            pools.addAll(((ReplicaRoutingConnectionFactory) connectionFactory).getPools());
+        } else if (connectionFactory instanceof MeteredConnectionPool) {
+            pools.add((MeteredConnectionPool) connectionFactory);
+        }
+        return new ConnectionPoolHealthIndicator(pools, applicationProperties.getPool().getMaxPendingAcquirers());
+    }
+
+    private static MeteredConnectionPool createPool(
+        String name,
+        String url,
+        String username,
+        String password,
+        R2dbcProperties.Pool pool,
+        ApplicationProperties.Pool properties
+    ) {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url).username(username).password(password).build();
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration
+            .builder(connectionFactory)
+            .name(name)
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxIdleTime(pool.getMaxIdleTime())
+            .maxLifeTime(properties.getMaxLifeTime())
+            .maxAcquireTime(properties.getMaxAcquireTime())
+            .maxCreateConnectionTime(properties.getMaxCreateConnectionTime());
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            builder.validationQuery(pool.getValidationQuery());
+        } else {
+            // the connections are checked with a round trip to the database when they are acquired
+            builder.validationDepth(ValidationDepth.REMOTE);
+        }
+        return new MeteredConnectionPool(name, new ConnectionPool(builder.build()), properties.getWarmUpTimeout());
+    }
+
     // LocalDateTime seems to be the only type that is supported across all drivers atm
     // See https://github.com/r2dbc/r2dbc-h2/pull/139 https://github.com/mirromutth/r2dbc-mysql/issues/105
     @Bean
@@ -1,5 +1,7 @@
 package com.mycompany.myapp.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import javax.sql.DataSource;
@@ -34,7 +36,8 @@ public class LiquibaseConfiguration {
     public SpringLiquibase liquibase(
         @Qualifier("taskExecutor") Executor executor,
         LiquibaseProperties liquibaseProperties,
-        R2dbcProperties dataSourceProperties
+        R2dbcProperties dataSourceProperties,
+        ApplicationProperties applicationProperties
     ) {
         SpringLiquibase liquibase = createAsyncSpringLiquibase(this.env, executor, liquibaseProperties, dataSourceProperties);
         liquibase.setChangeLog("classpath:config/liquibase/master.xml");
@@ -46,7 +49,19 @@ public class LiquibaseConfiguration {
         liquibase.setDatabaseChangeLogTable(liquibaseProperties.getDatabaseChangeLogTable());
         liquibase.setDropFirst(liquibaseProperties.isDropFirst());
         liquibase.setLabels(liquibaseProperties.getLabels());
-        liquibase.setChangeLogParameters(liquibaseProperties.getParameters());
+        Map<String, String> parameters = new HashMap<>();
+        if (liquibaseProperties.getParameters() != null) {
+            parameters.putAll(liquibaseProperties.getParameters());
+        }
+        // the directory of the files of the historias, see MoveResultadoFilesChange
+        parameters.put("attachmentsDirectory", applicationProperties.getAttachments().getDirectory());
+        // the slots of the reservas, see AlignReservaSlotsChange
+        ApplicationProperties.Availability availability = applicationProperties.getAvailability();
+        parameters.put("availabilityTimeZone", availability.getTimeZone().getId());
+        parameters.put("availabilityOpensAt", availability.getOpensAt().toString());
+        parameters.put("availabilityClosesAt", availability.getClosesAt().toString());
+        parameters.put("availabilitySlotDuration", availability.getSlotDuration().toString());
+        liquibase.setChangeLogParameters(parameters);
         liquibase.setRollbackFile(liquibaseProperties.getRollbackFile());
         liquibase.setTestRollbackOnUpdate(liquibaseProperties.isTestRollbackOnUpdate());
         if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_NO_LIQUIBASE))) {
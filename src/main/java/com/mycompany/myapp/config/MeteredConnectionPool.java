@@ -0,0 +1,108 @@
+package com.mycompany.myapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link ConnectionPool} of the database, which is warmed up before the application is ready and publishes its
+ * metrics: the {@code r2dbc.pool} gauges of its acquired, idle and pending connections, tagged with its name, and the
+ * time to acquire a connection as the {@code r2dbc.pool.acquire} timer, tagged with the outcome.
+ */
+public class MeteredConnectionPool implements ConnectionFactory, MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(MeteredConnectionPool.class);
+
+    private final String name;
+
+    private final ConnectionPool pool;
+
+    private final Duration warmUpTimeout;
+
+    private volatile Timer acquired;
+
+    private volatile Timer failed;
+
+    public MeteredConnectionPool(String name, ConnectionPool pool, Duration warmUpTimeout) {
+        this.name = name;
+        this.pool = pool;
+        this.warmUpTimeout = warmUpTimeout;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the sizes of the pool, empty if they are not recorded.
+     */
+    public Optional<PoolMetrics> getMetrics() {
+        return pool.getMetrics();
+    }
+
+    /**
+     * Opens the initial connections of the pool, so that the first requests don't wait for them. A database which
+     * can't be reached doesn't prevent the start, the connections are then opened on demand.
+     */
+    public void warmUp() {
+        try {
+            Integer opened = pool.warmup().block(warmUpTimeout);
+            log.debug("Warmed up the {} connection pool with {} connections", name, opened);
+        } catch (RuntimeException e) {
+            log.warn("Unable to warm up the {} connection pool: {}", name, e.getMessage());
+        }
+    }
+
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(
+            () -> {
+                long start = System.nanoTime();
+                return pool.create().doOnSuccess(connection -> record(acquired, start)).doOnError(e -> record(failed, start));
+            }
+        );
+    }
+
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ConnectionPoolMetrics(pool, name, Tags.empty()).bindTo(registry);
+        acquired = acquireTimer("success").register(registry);
+        failed = acquireTimer("error").register(registry);
+    }
+
+    private Timer.Builder acquireTimer(String outcome) {
+        return Timer
+            .builder("r2dbc.pool.acquire")
+            .description("Time to acquire a connection from the pool, including the wait for a free connection")
+            .tag("name", name)
+            .tag("outcome", outcome);
+    }
+}
@@ -0,0 +1,72 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.service.SearchReindexer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint to rebuild the search indices, exposed as {@code /management/reindex}.
+ * <p>
+ * {@code GET} returns the progress of the reindexes, with their throughput and estimated remaining time, and
+ * {@code POST} starts a reindex with a body like {@code {"entity": "paciente", "mode": "INCREMENTAL",
+ * "since": "2021-10-08T00:00:00Z"}}. Without entity, all the entities are reindexed.
+ */
+@Component
+@Endpoint(id = "reindex")
+public class ReindexEndpoint {
+
+    private final SearchReindexer searchReindexer;
+
+    public ReindexEndpoint(SearchReindexer searchReindexer) {
+        this.searchReindexer = searchReindexer;
+    }
+
+    @ReadOperation
+    public Collection<SearchReindexer.Progress> progress() {
+        return searchReindexer.getProgress();
+    }
+
+    @ReadOperation
+    public SearchReindexer.Progress progress(@Selector String entity) {
+        return searchReindexer.getProgress(entity);
+    }
+
+    @WriteOperation
+    public List<SearchReindexer.Progress> reindex(
+        @Nullable String entity,
+        @Nullable SearchReindexer.Mode mode,
+        @Nullable OffsetDateTime since
+    ) {
+        if (entity != null && !searchReindexer.getEntityNames().contains(entity)) {
+            throw new InvalidEndpointRequestException("Unknown entity " + entity, "Unknown entity");
+        }
+        SearchReindexer.Mode reindexMode = mode != null ? mode : SearchReindexer.Mode.FULL;
+        Instant from = since != null ? since.toInstant() : null;
+        Collection<String> entities = entity != null ? List.of(entity) : searchReindexer.getEntityNames();
+        if (reindexMode == SearchReindexer.Mode.INCREMENTAL && from == null) {
+            for (String name : entities) {
+                if (searchReindexer.getLastCompleted(name) == null) {
+                    throw new InvalidEndpointRequestException(
+                        "No reindex of " + name + " was completed yet, since is required",
+                        "Missing since"
+                    );
+                }
+            }
+        }
+        List<SearchReindexer.Progress> started = new ArrayList<>();
+        for (String name : entities) {
+            started.add(searchReindexer.start(name, reindexMode, from));
+        }
+        return started;
+    }
+}
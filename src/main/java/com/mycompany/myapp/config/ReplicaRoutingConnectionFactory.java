@@ -0,0 +1,230 @@
+package com.mycompany.myapp.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Routes the connections of the read-only operations to the read replicas of the database, and the connections of the
+ * other operations to the primary.
+ * <p>
+ * An operation is read-only if its Reactor context is marked with {@link #readOnly(Context)}, e.g. by the
+ * {@link com.mycompany.myapp.web.filter.ReplicaRoutingWebFilter} for the safe requests. The replicas are used in turn,
+ * and only while their replication lag, which is checked in the background, is within the configured bound: when no
+ * replica is available, the read-only operations go to the primary too.
+ * <p>
+ * The pools of the primary and of the replicas publish their metrics, see {@link MeteredConnectionPool}, with the lag of
+ * the replicas as the {@code db.replica.lag} metric, and the number of read-only operations which went to the primary as
+ * the {@code db.replica.fallbacks} metric.
+ */
+public class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory implements MeterBinder, DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private static final String READ_ONLY_KEY = ReplicaRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    private static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaRoutingConnectionFactory.class);
+
+    private final MeteredConnectionPool primary;
+
+    private final Map<String, MeteredConnectionPool> replicas = new LinkedHashMap<>();
+
+    private final List<String> replicaNames = new ArrayList<>();
+
+    private final Map<String, AtomicLong> lagMillis = new HashMap<>();
+
+    private final ApplicationProperties.Replica properties;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    private Disposable lagMonitor;
+
+    public ReplicaRoutingConnectionFactory(
+        MeteredConnectionPool primary,
+        List<MeteredConnectionPool> replicas,
+        ApplicationProperties.Replica properties
+    ) {
+        this.primary = primary;
+        this.properties = properties;
+        Map<String, ConnectionFactory> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (MeteredConnectionPool replica : replicas) {
+            String name = replica.getName();
+            this.replicas.put(name, replica);
+            this.replicaNames.add(name);
+            // a replica is only used once its lag is known
+            this.lagMillis.put(name, new AtomicLong(UNAVAILABLE));
+            targets.put(name, replica);
+        }
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(primary);
+    }
+
+    /**
+     * Marks the operations of the given context as read-only, to use in {@code contextWrite}.
+     * @param context the Reactor context of the operations.
+     * @return the context, with the read-only mark.
+     */
+    public static Context readOnly(Context context) {
+        return context.put(READ_ONLY_KEY, Boolean.TRUE);
+    }
+
+    /**
+     * Removes the read-only mark of the operations of the given context, to use in {@code contextWrite}, e.g. for the
+     * reads which fill a shared cache: a row read from a lagging replica would be served from the cache after the
+     * replica caught up.
+     * @param context the Reactor context of the operations.
+     * @return the context, without the read-only mark.
+     */
+    public static Context primary(Context context) {
+        return context.delete(READ_ONLY_KEY);
+    }
+
+    /**
+     * @return the pools of the primary and of the replicas.
+     */
+    public Collection<MeteredConnectionPool> getPools() {
+        List<MeteredConnectionPool> pools = new ArrayList<>();
+        pools.add(primary);
+        pools.addAll(replicas.values());
+        return pools;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        getPools().forEach(MeteredConnectionPool::warmUp);
+        lagMonitor =
+            Flux
+                .interval(properties.getLagCheckInterval())
+                .startWith(0L)
+                .onBackpressureDrop()
+                .concatMap(tick -> checkLag(), 1)
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (lagMonitor != null) {
+            lagMonitor.dispose();
+        }
+        replicas.values().forEach(MeteredConnectionPool::dispose);
+        primary.dispose();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> Mono.just(context.getOrDefault(READ_ONLY_KEY, Boolean.FALSE) ? selectReplica() : PRIMARY));
+    }
+
+    /**
+     * @return the next replica whose lag is within the bound, or the primary if there is none.
+     */
+    String selectReplica() {
+        long maxLag = properties.getMaxLag().toMillis();
+        int size = replicaNames.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            String name = replicaNames.get((start + i) % size);
+            if (lagMillis.get(name).get() <= maxLag) {
+                return name;
+            }
+        }
+        fallbacks.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * @param replica the name of the replica, e.g. {@code replica-0}.
+     * @return the last measured lag of the replica in milliseconds, or {@link Long#MAX_VALUE} if it is unavailable.
+     */
+    long getLagMillis(String replica) {
+        return lagMillis.get(replica).get();
+    }
+
+    void setLagMillis(String replica, long lag) {
+        lagMillis.get(replica).set(lag);
+    }
+
+    private Mono<Void> checkLag() {
+        return Flux
+            .fromIterable(replicas.entrySet())
+            .flatMap(
+                replica ->
+                    queryLag(replica.getValue())
+                        .doOnNext(lag -> setLagMillis(replica.getKey(), lag))
+                        .onErrorResume(
+                            e -> {
+                                if (getLagMillis(replica.getKey()) != UNAVAILABLE) {
+                                    log.warn(
+                                        "The database {} is unavailable, its reads go to the primary: {}",
+                                        replica.getKey(),
+                                        e.getMessage()
+                                    );
+                                }
+                                setLagMillis(replica.getKey(), UNAVAILABLE);
+                                return Mono.empty();
+                            }
+                        )
+            )
+            .then();
+    }
+
+    private Mono<Long> queryLag(ConnectionFactory replica) {
+        return Mono
+            .usingWhen(
+                replica.create(),
+                connection ->
+                    Flux
+                        .from(connection.createStatement(properties.getLagQuery()).execute())
+                        .flatMap(result -> result.map((row, metadata) -> ((Number) row.get(0)).longValue()))
+                        .next(),
+                Connection::close
+            )
+            .timeout(properties.getLagCheckInterval());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        primary.bindTo(registry);
+        replicas.forEach(
+            (name, pool) -> {
+                pool.bindTo(registry);
+                Gauge
+                    .builder("db.replica.lag", lagMillis.get(name), lag -> lag.get() == UNAVAILABLE ? Double.NaN : lag.get())
+                    .description("Replication lag of the database replica, not a number while it is unavailable")
+                    .baseUnit("milliseconds")
+                    .tag("name", name)
+                    .register(registry);
+            }
+        );
+        FunctionCounter
+            .builder("db.replica.fallbacks", fallbacks, LongAdder::sum)
+            .description("Number of read-only operations routed to the primary, as no replica was available")
+            .register(registry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.service.BookingStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint of the counters of the reservas and historias, exposed as {@code /management/statistics}.
+ * <p>
+ * {@code GET} returns the state of the counters, and {@code POST} starts their rebuild from the tables.
+ */
+@Component
+@Endpoint(id = "statistics")
+public class StatisticsEndpoint {
+
+    private final BookingStatistics bookingStatistics;
+
+    public StatisticsEndpoint(BookingStatistics bookingStatistics) {
+        this.bookingStatistics = bookingStatistics;
+    }
+
+    @ReadOperation
+    public BookingStatistics.Status status() {
+        return bookingStatistics.getStatus();
+    }
+
+    @WriteOperation
+    public BookingStatistics.Status rebuild() {
+        bookingStatistics.startRebuild();
+        return bookingStatistics.getStatus();
+    }
+}
@@ -0,0 +1,183 @@
+package com.mycompany.myapp.config.liquibase;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.service.SlotAvailabilityIndex;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves the horas of the existing reservas to the start of their slot, with the slots of the application, see
+ * {@link SlotAvailabilityIndex#slotStartOf(Instant)}, so that the unique constraint on the slots can be created.
+ * <p>
+ * When several reservas are in the same slot, only the first one, by id, is kept: the others are moved to the
+ * {@code reserva_duplicate} table, with the id of the kept reserva, and logged, to be booked again. The changed
+ * reservas are recorded in the search outbox, so their index follows.
+ */
+public class AlignReservaSlotsChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(AlignReservaSlotsChange.class);
+
+    private String timeZone;
+
+    private String opensAt;
+
+    private String closesAt;
+
+    private String slotDuration;
+
+    private int aligned;
+
+    private int duplicates;
+
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    public void setOpensAt(String opensAt) {
+        this.opensAt = opensAt;
+    }
+
+    public void setClosesAt(String closesAt) {
+        this.closesAt = closesAt;
+    }
+
+    public void setSlotDuration(String slotDuration) {
+        this.slotDuration = slotDuration;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getAvailability().setTimeZone(ZoneId.of(timeZone));
+        properties.getAvailability().setOpensAt(Duration.parse(opensAt));
+        properties.getAvailability().setClosesAt(Duration.parse(closesAt));
+        properties.getAvailability().setSlotDuration(Duration.parse(slotDuration));
+        SlotAvailabilityIndex slots = new SlotAvailabilityIndex(null, properties);
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        // the reservas are read by day and especialidad, so only the slots of the current ones are held
+        Map<Instant, Long> booked = new HashMap<>();
+        List<Object> day = null;
+        try (
+            Statement select = connection.createStatement();
+            ResultSet rows = select.executeQuery("SELECT id, fecha, hora, especialidad FROM reserva ORDER BY fecha, especialidad, id");
+            PreparedStatement update = connection.prepareStatement("UPDATE reserva SET hora = ? WHERE id = ?");
+            PreparedStatement copy = connection.prepareStatement(
+                "INSERT INTO reserva_duplicate (id, fecha, hora, especialidad, rut_id, booked_id) " +
+                "SELECT id, fecha, hora, especialidad, rut_id, ? FROM reserva WHERE id = ?"
+            );
+            PreparedStatement delete = connection.prepareStatement("DELETE FROM reserva WHERE id = ?");
+            PreparedStatement record = connection.prepareStatement(
+                "INSERT INTO search_outbox (entity_type, entity_id, operation, created_date) VALUES (?, ?, ?, ?)"
+            )
+        ) {
+            int batched = 0;
+            while (rows.next()) {
+                long id = rows.getLong(1);
+                Date fecha = rows.getDate(2);
+                Timestamp hora = rows.getTimestamp(3);
+                String especialidad = rows.getString(4);
+                if (hora == null) {
+                    continue;
+                }
+                List<Object> current = Arrays.asList(fecha, especialidad);
+                if (!current.equals(day)) {
+                    booked.clear();
+                    day = current;
+                }
+                Instant start = slots.slotStartOf(hora.toInstant());
+                Long first = booked.putIfAbsent(start, id);
+                if (first != null) {
+                    log.warn("The reserva {} is in the slot of the reserva {}, it is moved to reserva_duplicate", id, first);
+                    copy.setLong(1, first);
+                    copy.setLong(2, id);
+                    copy.addBatch();
+                    delete.setLong(1, id);
+                    delete.addBatch();
+                    record(record, id, SearchOperation.DELETE);
+                    duplicates++;
+                } else if (start.equals(hora.toInstant())) {
+                    continue;
+                } else {
+                    update.setTimestamp(1, Timestamp.from(start));
+                    update.setLong(2, id);
+                    update.addBatch();
+                    record(record, id, SearchOperation.INDEX);
+                    aligned++;
+                }
+                if (++batched == BATCH_SIZE) {
+                    executeBatches(update, copy, delete, record);
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                executeBatches(update, copy, delete, record);
+            }
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Unable to align the horas of the reservas to their slots", e);
+        }
+    }
+
+    private static void record(PreparedStatement record, long id, SearchOperation operation) throws SQLException {
+        record.setString(1, Reserva.class.getSimpleName());
+        record.setLong(2, id);
+        record.setString(3, operation.name());
+        record.setTimestamp(4, Timestamp.from(Instant.now()));
+        record.addBatch();
+    }
+
+    /**
+     * Executes the batches in order: the duplicates are copied before they are deleted.
+     */
+    private static void executeBatches(PreparedStatement... batches) throws SQLException {
+        for (PreparedStatement batch : batches) {
+            batch.executeBatch();
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Aligned the hora of " + aligned + " reservas to their slot, " + duplicates + " duplicates moved to reserva_duplicate";
+    }
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        for (String value : new String[] { timeZone, opensAt, closesAt, slotDuration }) {
+            if (value == null || value.isEmpty() || value.contains("${")) {
+                errors.addError("The slots of the reservas are not set, see the availability changelog parameters");
+                break;
+            }
+        }
+        return errors;
+    }
+}
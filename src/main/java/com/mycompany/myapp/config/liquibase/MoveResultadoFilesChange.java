@@ -0,0 +1,111 @@
+package com.mycompany.myapp.config.liquibase;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.service.AttachmentStore;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+/**
+ * Moves the resultados of the existing historias, stored as text in {@code resultado_file}, to the
+ * {@link AttachmentStore}, and replaces them by the references of their files. The historias are recorded in the search
+ * outbox, so their index holds the references.
+ */
+public class MoveResultadoFilesChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 500;
+
+    private String directory;
+
+    private int moved;
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getAttachments().setDirectory(directory);
+        // the resultados are moved whatever their size
+        properties.getAttachments().setMaxSize(DataSize.ofBytes(Long.MAX_VALUE));
+        AttachmentStore attachmentStore = new AttachmentStore(properties);
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (
+            Statement select = connection.createStatement();
+            ResultSet rows = select.executeQuery("SELECT id, resultado_file FROM historia WHERE resultado_file IS NOT NULL ORDER BY id");
+            PreparedStatement update = connection.prepareStatement("UPDATE historia SET resultado_file = ? WHERE id = ?");
+            PreparedStatement record = connection.prepareStatement(
+                "INSERT INTO search_outbox (entity_type, entity_id, operation, created_date, attempts) VALUES (?, ?, ?, ?, 0)"
+            )
+        ) {
+            int batched = 0;
+            while (rows.next()) {
+                long id = rows.getLong(1);
+                String resultado = rows.getString(2);
+                if (AttachmentStore.isReference(resultado)) {
+                    continue;
+                }
+                String reference = attachmentStore
+                    .store(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(resultado.getBytes(StandardCharsets.UTF_8))))
+                    .block();
+                update.setString(1, reference);
+                update.setLong(2, id);
+                update.addBatch();
+                record.setString(1, Historia.class.getSimpleName());
+                record.setLong(2, id);
+                record.setString(3, SearchOperation.INDEX.name());
+                record.setTimestamp(4, Timestamp.from(Instant.now()));
+                record.addBatch();
+                moved++;
+                if (++batched == BATCH_SIZE) {
+                    update.executeBatch();
+                    record.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                update.executeBatch();
+                record.executeBatch();
+            }
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Unable to move the resultados of the historias to files", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Moved the resultados of " + moved + " historias to files";
+    }
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        if (directory == null || directory.isEmpty() || directory.contains("${")) {
+            errors.addError("The directory of the files is not set, see the attachmentsDirectory changelog parameter");
+        }
+        return errors;
+    }
+}
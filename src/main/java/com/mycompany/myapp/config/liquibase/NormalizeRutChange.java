@@ -0,0 +1,91 @@
+package com.mycompany.myapp.config.liquibase;
+
+import com.mycompany.myapp.service.Rut;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills the normalized rut of the existing pacientes, with the normalization of the application, see {@link Rut}.
+ * <p>
+ * When several pacientes have the same rut, only the first one, by id, gets the normalized rut, so that its unique
+ * index can be created: the others are logged, to be merged or corrected. Until then, their full updates are
+ * rejected as their rut is taken, or not valid, while the updates of their other fields are not.
+ */
+public class NormalizeRutChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(NormalizeRutChange.class);
+
+    private int normalized;
+
+    private int duplicates;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        Map<String, Long> ids = new HashMap<>();
+        try (
+            Statement select = connection.createStatement();
+            ResultSet rows = select.executeQuery("SELECT id, rut FROM paciente ORDER BY id");
+            PreparedStatement update = connection.prepareStatement("UPDATE paciente SET rut_normalizado = ? WHERE id = ?")
+        ) {
+            int batched = 0;
+            while (rows.next()) {
+                long id = rows.getLong(1);
+                String rut = Rut.normalize(rows.getString(2));
+                if (rut == null) {
+                    continue;
+                }
+                Long first = ids.putIfAbsent(rut, id);
+                if (first != null) {
+                    log.warn("The paciente {} has the rut {} of the paciente {}, it is not normalized", id, rut, first);
+                    duplicates++;
+                    continue;
+                }
+                update.setString(1, rut);
+                update.setLong(2, id);
+                update.addBatch();
+                normalized++;
+                if (++batched == BATCH_SIZE) {
+                    update.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                update.executeBatch();
+            }
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Unable to normalize the ruts of the pacientes", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Normalized the rut of " + normalized + " pacientes, " + duplicates + " duplicates left unnormalized";
+    }
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase changes which can't be written in SQL.
+ */
+package com.mycompany.myapp.config.liquibase;
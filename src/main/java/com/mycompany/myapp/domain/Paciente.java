@@ -1,13 +1,19 @@
 package com.mycompany.myapp.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -16,6 +22,7 @@ import org.springframework.data.relational.core.mapping.Table;
  */
 @Table("paciente")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "paciente")
+@Setting(settingPath = "config/elasticsearch/paciente-settings.json")
 public class Paciente implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -24,14 +31,45 @@ public class Paciente implements Serializable {
     private Long id;
 
     @Column("nombre")
+    @MultiField(
+        mainField = @Field(type = FieldType.Text),
+        otherFields = {
+            @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 256),
+            @InnerField(suffix = "autocomplete", type = FieldType.Text, analyzer = "autocomplete", searchAnalyzer = "autocomplete_search"),
+        }
+    )
     private String nombre;
 
     @Column("apellidos")
+    @MultiField(
+        mainField = @Field(type = FieldType.Text),
+        otherFields = {
+            @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 256),
+            @InnerField(suffix = "autocomplete", type = FieldType.Text, analyzer = "autocomplete", searchAnalyzer = "autocomplete_search"),
+        }
+    )
     private String apellidos;
 
     @Column("rut")
+    @MultiField(
+        mainField = @Field(type = FieldType.Text),
+        otherFields = {
+            @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 256),
+            @InnerField(suffix = "autocomplete", type = FieldType.Text, analyzer = "rut_autocomplete", searchAnalyzer = "rut_search"),
+        }
+    )
     private String rut;
 
+    /**
+     * The canonical form of the rut, unique, see {@link com.mycompany.myapp.service.Rut}. It is derived from the rut
+     * on every write, which rejects the ruts which are not valid. It is {@code null} without rut, and for the pacientes
+     * whose rut was not valid, or taken, before it was normalized.
+     */
+    @Column("rut_normalizado")
+    @Field(type = FieldType.Keyword)
+    @JsonIgnore
+    private String rutNormalizado;
+
     @Column("fecha_nacimiento")
     private LocalDate fechaNacimiento;
 
@@ -50,6 +88,10 @@ public class Paciente implements Serializable {
     @Column("rut_id")
     private Long rutId;
 
+    @Column("last_modified_date")
+    @JsonIgnore
+    private Instant lastModifiedDate;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -103,6 +145,19 @@ public class Paciente implements Serializable {
         this.rut = rut;
     }
 
+    public String getRutNormalizado() {
+        return this.rutNormalizado;
+    }
+
+    public Paciente rutNormalizado(String rutNormalizado) {
+        this.rutNormalizado = rutNormalizado;
+        return this;
+    }
+
+    public void setRutNormalizado(String rutNormalizado) {
+        this.rutNormalizado = rutNormalizado;
+    }
+
     public LocalDate getFechaNacimiento() {
         return this.fechaNacimiento;
     }
@@ -201,6 +256,19 @@ public class Paciente implements Serializable {
         this.rutId = especialista;
     }
 
+    public Instant getLastModifiedDate() {
+        return this.lastModifiedDate;
+    }
+
+    public Paciente lastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+        return this;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -0,0 +1,166 @@
+package com.mycompany.myapp.domain;
+
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A SearchOutboxEntry: a pending change of the search index, written in the same transaction as the entity.
+ */
+@Table("search_outbox")
+public class SearchOutboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column("entity_type")
+    private String entityType;
+
+    @Column("entity_id")
+    private Long entityId;
+
+    @Column("operation")
+    private SearchOperation operation;
+
+    @Column("created_date")
+    private Instant createdDate;
+
+    /**
+     * The number of times the entry failed when applied on its own, see {@link com.mycompany.myapp.service.SearchIndexer}.
+     */
+    @Column("attempts")
+    private Integer attempts;
+
+    /**
+     * The date at which the entry was applied to the index, or null while it is pending.
+     */
+    @Column("applied_date")
+    private Instant appliedDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SearchOutboxEntry id(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getEntityType() {
+        return this.entityType;
+    }
+
+    public SearchOutboxEntry entityType(String entityType) {
+        this.entityType = entityType;
+        return this;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return this.entityId;
+    }
+
+    public SearchOutboxEntry entityId(Long entityId) {
+        this.entityId = entityId;
+        return this;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public SearchOperation getOperation() {
+        return this.operation;
+    }
+
+    public SearchOutboxEntry operation(SearchOperation operation) {
+        this.operation = operation;
+        return this;
+    }
+
+    public void setOperation(SearchOperation operation) {
+        this.operation = operation;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public SearchOutboxEntry createdDate(Instant createdDate) {
+        this.createdDate = createdDate;
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Integer getAttempts() {
+        return this.attempts;
+    }
+
+    public SearchOutboxEntry attempts(Integer attempts) {
+        this.attempts = attempts;
+        return this;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getAppliedDate() {
+        return this.appliedDate;
+    }
+
+    public SearchOutboxEntry appliedDate(Instant appliedDate) {
+        this.appliedDate = appliedDate;
+        return this;
+    }
+
+    public void setAppliedDate(Instant appliedDate) {
+        this.appliedDate = appliedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchOutboxEntry)) {
+            return false;
+        }
+        return id != null && id.equals(((SearchOutboxEntry) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchOutboxEntry{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", operation='" + getOperation() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", attempts=" + getAttempts() +
+            ", appliedDate='" + getAppliedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,9 @@
+package com.mycompany.myapp.domain.enumeration;
+
+/**
+ * The SearchOperation enumeration: the change to apply to the search index.
+ */
+public enum SearchOperation {
+    INDEX,
+    DELETE,
+}
@@ -1,6 +1,10 @@
 package com.mycompany.myapp.repository;
 
 import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.criteria.EspecialistaCriteria;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -30,9 +34,18 @@ interface EspecialistaRepositoryInternal {
     <S extends Especialista> Mono<S> insert(S entity);
     <S extends Especialista> Mono<S> save(S entity);
     Mono<Integer> update(Especialista entity);
+    Mono<Especialista> partialUpdate(Especialista patch);
+    Mono<Void> deleteById(Long id);
 
     Flux<Especialista> findAll();
+    Flux<Especialista> streamAll();
     Mono<Especialista> findById(Long id);
     Flux<Especialista> findAllBy(Pageable pageable);
     Flux<Especialista> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Especialista> findAllBy(KeysetPageable keyset);
+    Flux<Especialista> findAllBy(KeysetPageable keyset, Criteria criteria);
+    Flux<Especialista> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection);
+    Flux<Especialista> findByCriteria(EspecialistaCriteria criteria, KeysetPageable keyset, Projection projection);
+    Mono<Long> countByCriteria(EspecialistaCriteria criteria);
+    Mono<RowCount> countTotalByCriteria(EspecialistaCriteria criteria);
 }
@@ -5,10 +5,21 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import com.mycompany.myapp.domain.Especialista;
 import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.repository.rowmapper.CompiledRowMappers;
 import com.mycompany.myapp.repository.rowmapper.EspecialistaRowMapper;
+import com.mycompany.myapp.service.BoundCriteria;
+import com.mycompany.myapp.service.EntityCache;
+import com.mycompany.myapp.service.EntityCacheManager;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.RowCounter;
+import com.mycompany.myapp.service.SearchOutbox;
+import com.mycompany.myapp.service.criteria.EspecialistaCriteria;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,15 +27,19 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -38,19 +53,35 @@ class EspecialistaRepositoryInternalImpl implements EspecialistaRepositoryIntern
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final EntityCache<Especialista> entityCache;
+    private final EntityCacheManager entityCacheManager;
+    private final SearchOutbox searchOutbox;
+    private final RowCounter rowCounter;
+    private final CompiledRowMappers compiledRowMappers;
 
     private final EspecialistaRowMapper especialistaMapper;
 
     private static final Table entityTable = Table.aliased("especialista", EntityManager.ENTITY_ALIAS);
+    private static final String joinShape = "";
+    private static final List<String> keysetColumns = List.of("id");
 
     public EspecialistaRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        EntityCacheManager entityCacheManager,
+        SearchOutbox searchOutbox,
+        RowCounter rowCounter,
+        CompiledRowMappers compiledRowMappers,
         EspecialistaRowMapper especialistaMapper
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.entityCache = entityCacheManager.getCache(Especialista.class);
+        this.entityCacheManager = entityCacheManager;
+        this.searchOutbox = searchOutbox;
+        this.rowCounter = rowCounter;
+        this.compiledRowMappers = compiledRowMappers;
         this.especialistaMapper = especialistaMapper;
     }
 
@@ -64,47 +95,117 @@ class EspecialistaRepositoryInternalImpl implements EspecialistaRepositoryIntern
         return createQuery(pageable, criteria).all();
     }
 
+    @Override
+    public Flux<Especialista> findAllBy(KeysetPageable keyset) {
+        return findAllBy(keyset, null);
+    }
+
+    @Override
+    public Flux<Especialista> findAllBy(KeysetPageable keyset, Criteria criteria) {
+        return findAllBy(keyset, criteria, Projection.ALL);
+    }
+
+    @Override
+    public Flux<Especialista> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection) {
+        return createQuery(keyset, criteria, projection).all();
+    }
+
+    @Override
+    public Flux<Especialista> findByCriteria(EspecialistaCriteria criteria, KeysetPageable keyset, Projection projection) {
+        return findAllBy(keyset, buildCriteria(criteria), projection);
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(EspecialistaCriteria criteria) {
+        Criteria where = buildCriteria(criteria);
+        return r2dbcEntityTemplate.count(where == null ? Query.empty() : Query.query(where), Especialista.class);
+    }
+
+    @Override
+    public Mono<RowCount> countTotalByCriteria(EspecialistaCriteria criteria) {
+        return rowCounter.count(Especialista.class, buildCriteria(criteria));
+    }
+
+    private static Criteria buildCriteria(EspecialistaCriteria criteria) {
+        return new FilterCriteriaBuilder()
+            .filter("id", criteria.getId())
+            .filter("nombre", criteria.getNombre())
+            .filter("apellidos", criteria.getApellidos())
+            .filter("rut", criteria.getRut())
+            .filter("fechaNacimiento", criteria.getFechaNacimiento())
+            .filter("registroMedico", criteria.getRegistroMedico())
+            .filter("especialidad", criteria.getEspecialidad())
+            .build();
+    }
+
     RowsFetchSpec<Especialista> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = EspecialistaSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
-
-        String select = entityManager.createSelect(selectFrom, Especialista.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+        return createQuery(pageable, criteria, false);
+    }
+
+    /**
+     * @param stream whether the rows are read from a cursor, by batches, see {@link EntityManager#fetchInBatches}.
+     */
+    RowsFetchSpec<Especialista> createQuery(Pageable pageable, Criteria criteria, boolean stream) {
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Especialista.class, criteria, pageable);
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Especialista.class, joinShape, pageable, boundCriteria),
+            () -> entityManager.createSelect(createSelectFrom(), Especialista.class, pageable, boundCriteria)
+        );
+        GenericExecuteSpec spec = boundCriteria.bindTo(db.sql(select));
+        return (stream ? entityManager.fetchInBatches(spec) : spec).map(
+            compiledRowMappers.forStatement(Especialista.class, select, this::compile)
+        );
+    }
+
+    RowsFetchSpec<Especialista> createQuery(KeysetPageable keyset, Criteria criteria) {
+        return createQuery(keyset, criteria, Projection.ALL);
+    }
+
+    RowsFetchSpec<Especialista> createQuery(KeysetPageable keyset, Criteria criteria, Projection projection) {
+        // the sort key is read to create the cursor of the next page
+        Projection selected = projection.with(keysetColumns);
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Especialista.class, criteria, keyset, keysetColumns);
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Especialista.class, joinShape + selected.getShape(), keyset, boundCriteria),
+            () -> entityManager.createSelect(createSelectFrom(selected), Especialista.class, keyset, keysetColumns, boundCriteria)
+        );
+        return boundCriteria.bindTo(db.sql(select)).map(compiledRowMappers.forStatement(Especialista.class, select, this::compile));
+    }
+
+    private SelectFromAndJoin createSelectFrom() {
+        return createSelectFrom(Projection.ALL);
+    }
+
+    private SelectFromAndJoin createSelectFrom(Projection projection) {
+        List<Expression> columns = EspecialistaSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, projection);
+        return Select.builder().select(columns).from(entityTable);
     }
 
     @Override
     public Flux<Especialista> findAll() {
-        return findAllBy(null, null);
+        return findAllBy((Pageable) null, null);
+    }
+
+    @Override
+    public Flux<Especialista> streamAll() {
+        return createQuery((Pageable) null, null, true).all();
     }
 
     @Override
     public Mono<Especialista> findById(Long id) {
-        return createQuery(null, where("id").is(id)).one();
+        return entityCache.get(id, key -> createQuery((Pageable) null, where("id").is(key)).one());
     }
 
-    private Especialista process(Row row, RowMetadata metadata) {
-        Especialista entity = especialistaMapper.apply(row, "e");
-        return entity;
+    private Function<Row, Especialista> compile(RowMetadata metadata) {
+        return especialistaMapper.compile(metadata, "e");
     }
 
     @Override
     public <S extends Especialista> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        entity.setLastModifiedDate(Instant.now());
+        return entityManager
+            .insert(entity)
+            .flatMap(inserted -> searchOutbox.index(Especialista.class, inserted.getId()).thenReturn(inserted));
     }
 
     @Override
@@ -127,22 +228,94 @@ class EspecialistaRepositoryInternalImpl implements EspecialistaRepositoryIntern
     @Override
     public Mono<Integer> update(Especialista entity) {
         //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        entity.setLastModifiedDate(Instant.now());
+        return entityCacheManager.invalidate(
+            Especialista.class,
+            entity.getId(),
+            r2dbcEntityTemplate.update(entity).then(searchOutbox.index(Especialista.class, entity.getId())).thenReturn(1)
+        );
+    }
+
+    @Override
+    public Mono<Especialista> partialUpdate(Especialista patch) {
+        Update update = Update.update("lastModifiedDate", Instant.now());
+        if (patch.getNombre() != null) {
+            update = update.set("nombre", patch.getNombre());
+        }
+        if (patch.getApellidos() != null) {
+            update = update.set("apellidos", patch.getApellidos());
+        }
+        if (patch.getRut() != null) {
+            update = update.set("rut", patch.getRut());
+        }
+        if (patch.getFechaNacimiento() != null) {
+            update = update.set("fechaNacimiento", patch.getFechaNacimiento());
+        }
+        if (patch.getRegistroMedico() != null) {
+            update = update.set("registroMedico", patch.getRegistroMedico());
+        }
+        if (patch.getEspecialidad() != null) {
+            update = update.set("especialidad", patch.getEspecialidad());
+        }
+        return entityCacheManager.invalidate(
+            Especialista.class,
+            patch.getId(),
+            entityManager
+                .updateReturning(
+                    Especialista.class,
+                    patch.getId(),
+                    update,
+                    table -> EspecialistaSqlHelper.getColumns(table, EntityManager.ENTITY_ALIAS),
+                    statement -> compiledRowMappers.forStatement(Especialista.class, statement, this::compile)
+                )
+                .flatMap(updated -> searchOutbox.index(Especialista.class, updated.getId()).thenReturn(updated))
+        );
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return entityCacheManager.invalidate(
+            Especialista.class,
+            id,
+            r2dbcEntityTemplate
+                .delete(Especialista.class)
+                .matching(query(where("id").is(id)))
+                .all()
+                .then(searchOutbox.delete(Especialista.class, id))
+        );
     }
 }
 
 class EspecialistaSqlHelper {
 
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, Projection.ALL);
+    }
+
+    static List<Expression> getColumns(Table table, String columnPrefix, Projection projection) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("nombre", table, columnPrefix + "_nombre"));
-        columns.add(Column.aliased("apellidos", table, columnPrefix + "_apellidos"));
-        columns.add(Column.aliased("rut", table, columnPrefix + "_rut"));
-        columns.add(Column.aliased("fecha_nacimiento", table, columnPrefix + "_fecha_nacimiento"));
-        columns.add(Column.aliased("registro_medico", table, columnPrefix + "_registro_medico"));
-        columns.add(Column.aliased("especialidad", table, columnPrefix + "_especialidad"));
-
+        if (projection.includes("nombre")) {
+            columns.add(Column.aliased("nombre", table, columnPrefix + "_nombre"));
+        }
+        if (projection.includes("apellidos")) {
+            columns.add(Column.aliased("apellidos", table, columnPrefix + "_apellidos"));
+        }
+        if (projection.includes("rut")) {
+            columns.add(Column.aliased("rut", table, columnPrefix + "_rut"));
+        }
+        if (projection.includes("fechaNacimiento")) {
+            columns.add(Column.aliased("fecha_nacimiento", table, columnPrefix + "_fecha_nacimiento"));
+        }
+        if (projection.includes("registroMedico")) {
+            columns.add(Column.aliased("registro_medico", table, columnPrefix + "_registro_medico"));
+        }
+        if (projection.includes("especialidad")) {
+            columns.add(Column.aliased("especialidad", table, columnPrefix + "_especialidad"));
+        }
+        if (projection.isAll()) {
+            columns.add(Column.aliased("last_modified_date", table, columnPrefix + "_last_modified_date"));
+        }
         return columns;
     }
 }
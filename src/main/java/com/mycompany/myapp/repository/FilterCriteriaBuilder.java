@@ -0,0 +1,98 @@
+package com.mycompany.myapp.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.lang.Nullable;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Compiles the {@link Filter}s of the query parameters to a {@link Criteria} on the properties of an entity. The
+ * values are bound by {@link com.mycompany.myapp.service.EntityManager#bindCriteria}, they never end up in the SQL text.
+ * <p>
+ * All the conditions must match.
+ */
+final class FilterCriteriaBuilder {
+
+    private final List<Criteria> criteria = new ArrayList<>();
+
+    /**
+     * Adds the conditions of the filter on the given property.
+     * @param property the name of the property of the entity, which is mapped to its column.
+     * @param filter the filter, or null if the property is not filtered.
+     * @return this builder.
+     */
+    FilterCriteriaBuilder filter(String property, @Nullable Filter<?> filter) {
+        if (filter == null) {
+            return this;
+        }
+        if (filter.getEquals() != null) {
+            criteria.add(Criteria.where(property).is(filter.getEquals()));
+        }
+        if (filter.getNotEquals() != null) {
+            criteria.add(Criteria.where(property).not(filter.getNotEquals()));
+        }
+        if (filter.getSpecified() != null) {
+            criteria.add(filter.getSpecified() ? Criteria.where(property).isNotNull() : Criteria.where(property).isNull());
+        }
+        if (filter.getIn() != null && !filter.getIn().isEmpty()) {
+            criteria.add(Criteria.where(property).in(filter.getIn()));
+        }
+        if (filter.getNotIn() != null && !filter.getNotIn().isEmpty()) {
+            criteria.add(Criteria.where(property).notIn(filter.getNotIn()));
+        }
+        if (filter instanceof RangeFilter) {
+            addRange(property, (RangeFilter<?>) filter);
+        }
+        if (filter instanceof StringFilter) {
+            addContains(property, (StringFilter) filter);
+        }
+        return this;
+    }
+
+    private void addRange(String property, RangeFilter<?> filter) {
+        if (filter.getGreaterThan() != null) {
+            criteria.add(Criteria.where(property).greaterThan(filter.getGreaterThan()));
+        }
+        if (filter.getGreaterThanOrEqual() != null) {
+            criteria.add(Criteria.where(property).greaterThanOrEquals(filter.getGreaterThanOrEqual()));
+        }
+        if (filter.getLessThan() != null) {
+            criteria.add(Criteria.where(property).lessThan(filter.getLessThan()));
+        }
+        if (filter.getLessThanOrEqual() != null) {
+            criteria.add(Criteria.where(property).lessThanOrEquals(filter.getLessThanOrEqual()));
+        }
+    }
+
+    /**
+     * Adds the {@code contains} conditions, which ignore the case, as those of the JPA criteria of JHipster, and match
+     * the wildcards of the value literally.
+     */
+    private void addContains(String property, StringFilter filter) {
+        if (filter.getContains() != null) {
+            criteria.add(Criteria.where(property).like(containing(filter.getContains())).ignoreCase(true));
+        }
+        if (filter.getDoesNotContain() != null) {
+            criteria.add(Criteria.where(property).notLike(containing(filter.getDoesNotContain())).ignoreCase(true));
+        }
+    }
+
+    /**
+     * @return the LIKE pattern of the values containing the given one, escaped with the default escape character of
+     * the LIKE operator, {@code \}.
+     */
+    private static String containing(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * @return the conjunction of the conditions, or null if there is no condition.
+     */
+    @Nullable
+    Criteria build() {
+        return criteria.isEmpty() ? null : Criteria.from(criteria);
+    }
+}
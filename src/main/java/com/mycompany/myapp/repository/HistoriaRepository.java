@@ -1,6 +1,16 @@
 package com.mycompany.myapp.repository;
 
 import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.service.DailyCount;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.criteria.HistoriaCriteria;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -34,11 +44,24 @@ public interface HistoriaRepository extends R2dbcRepository<Historia, Long>, His
 
 interface HistoriaRepositoryInternal {
     <S extends Historia> Mono<S> insert(S entity);
+    <S extends Historia> Flux<S> insertAll(List<S> entities);
     <S extends Historia> Mono<S> save(S entity);
     Mono<Integer> update(Historia entity);
+    Mono<Historia> partialUpdate(Historia patch);
+    Mono<Void> deleteById(Long id);
 
     Flux<Historia> findAll();
+    Flux<Historia> streamAll();
     Mono<Historia> findById(Long id);
     Flux<Historia> findAllBy(Pageable pageable);
     Flux<Historia> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Historia> findAllBy(KeysetPageable keyset);
+    Flux<Historia> findAllBy(KeysetPageable keyset, Criteria criteria);
+    Flux<Historia> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection);
+    Flux<Historia> findByCriteria(HistoriaCriteria criteria, KeysetPageable keyset, Projection projection);
+    Mono<Long> countByCriteria(HistoriaCriteria criteria);
+    Mono<RowCount> countTotalByCriteria(HistoriaCriteria criteria);
+    Flux<Historia> findAllByRutIdIn(Collection<Long> rutIds);
+    <R> Flux<R> exportByCriteria(HistoriaCriteria criteria, BiFunction<Row, RowMetadata, R> mapper);
+    Flux<DailyCount> countByFecha();
 }
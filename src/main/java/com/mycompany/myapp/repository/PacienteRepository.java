@@ -1,6 +1,12 @@
 package com.mycompany.myapp.repository;
 
 import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.criteria.PacienteCriteria;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -34,11 +40,23 @@ public interface PacienteRepository extends R2dbcRepository<Paciente, Long>, Pac
 
 interface PacienteRepositoryInternal {
     <S extends Paciente> Mono<S> insert(S entity);
+    <S extends Paciente> Flux<S> insertAll(List<S> entities);
     <S extends Paciente> Mono<S> save(S entity);
     Mono<Integer> update(Paciente entity);
+    Mono<Paciente> partialUpdate(Paciente patch);
+    Mono<Void> deleteById(Long id);
 
     Flux<Paciente> findAll();
+    Flux<Paciente> streamAll();
     Mono<Paciente> findById(Long id);
     Flux<Paciente> findAllBy(Pageable pageable);
     Flux<Paciente> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Paciente> findAllBy(KeysetPageable keyset);
+    Flux<Paciente> findAllBy(KeysetPageable keyset, Criteria criteria);
+    Flux<Paciente> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection);
+    Flux<Paciente> findByCriteria(PacienteCriteria criteria, KeysetPageable keyset, Projection projection);
+    Mono<Long> countByCriteria(PacienteCriteria criteria);
+    Mono<RowCount> countTotalByCriteria(PacienteCriteria criteria);
+    Mono<Paciente> findByRutNormalizado(String rut);
+    Flux<Paciente> findAllByRutIdIn(Collection<Long> rutIds);
 }
@@ -4,27 +4,46 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
 import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.repository.rowmapper.CompiledRowMapper;
+import com.mycompany.myapp.repository.rowmapper.CompiledRowMappers;
 import com.mycompany.myapp.repository.rowmapper.EspecialistaRowMapper;
 import com.mycompany.myapp.repository.rowmapper.PacienteRowMapper;
+import com.mycompany.myapp.service.BoundCriteria;
+import com.mycompany.myapp.service.EntityCache;
+import com.mycompany.myapp.service.EntityCacheManager;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.RowCounter;
+import com.mycompany.myapp.service.Rut;
+import com.mycompany.myapp.service.SearchOutbox;
+import com.mycompany.myapp.service.criteria.PacienteCriteria;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -38,22 +57,38 @@ class PacienteRepositoryInternalImpl implements PacienteRepositoryInternal {
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final EntityCache<Paciente> entityCache;
+    private final EntityCacheManager entityCacheManager;
+    private final SearchOutbox searchOutbox;
+    private final RowCounter rowCounter;
+    private final CompiledRowMappers compiledRowMappers;
 
     private final EspecialistaRowMapper especialistaMapper;
     private final PacienteRowMapper pacienteMapper;
 
     private static final Table entityTable = Table.aliased("paciente", EntityManager.ENTITY_ALIAS);
     private static final Table rutTable = Table.aliased("especialista", "rut");
+    private static final String joinShape = "especialista rut";
+    private static final List<String> keysetColumns = List.of("id");
 
     public PacienteRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        EntityCacheManager entityCacheManager,
+        SearchOutbox searchOutbox,
+        RowCounter rowCounter,
+        CompiledRowMappers compiledRowMappers,
         EspecialistaRowMapper especialistaMapper,
         PacienteRowMapper pacienteMapper
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.entityCache = entityCacheManager.getCache(Paciente.class);
+        this.entityCacheManager = entityCacheManager;
+        this.searchOutbox = searchOutbox;
+        this.rowCounter = rowCounter;
+        this.compiledRowMappers = compiledRowMappers;
         this.especialistaMapper = especialistaMapper;
         this.pacienteMapper = pacienteMapper;
     }
@@ -68,55 +103,182 @@ class PacienteRepositoryInternalImpl implements PacienteRepositoryInternal {
         return createQuery(pageable, criteria).all();
     }
 
+    @Override
+    public Flux<Paciente> findAllBy(KeysetPageable keyset) {
+        return findAllBy(keyset, null);
+    }
+
+    @Override
+    public Flux<Paciente> findAllBy(KeysetPageable keyset, Criteria criteria) {
+        return findAllBy(keyset, criteria, Projection.ALL);
+    }
+
+    @Override
+    public Flux<Paciente> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection) {
+        return createQuery(keyset, criteria, projection).all();
+    }
+
+    @Override
+    public Flux<Paciente> findByCriteria(PacienteCriteria criteria, KeysetPageable keyset, Projection projection) {
+        return findAllBy(keyset, buildCriteria(criteria), projection);
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(PacienteCriteria criteria) {
+        Criteria where = buildCriteria(criteria);
+        return r2dbcEntityTemplate.count(where == null ? Query.empty() : Query.query(where), Paciente.class);
+    }
+
+    @Override
+    public Mono<RowCount> countTotalByCriteria(PacienteCriteria criteria) {
+        return rowCounter.count(Paciente.class, buildCriteria(criteria));
+    }
+
+    @Override
+    public Mono<Paciente> findByRutNormalizado(String rut) {
+        return createQuery((Pageable) null, where("rutNormalizado").is(rut)).one();
+    }
+
+    @Override
+    public Flux<Paciente> findAllByRutIdIn(Collection<Long> rutIds) {
+        return createQuery((Pageable) null, where("rutId").in(rutIds)).all();
+    }
+
+    private static Criteria buildCriteria(PacienteCriteria criteria) {
+        return new FilterCriteriaBuilder()
+            .filter("id", criteria.getId())
+            .filter("nombre", criteria.getNombre())
+            .filter("apellidos", criteria.getApellidos())
+            .filter("fechaNacimiento", criteria.getFechaNacimiento())
+            .filter("rutId", criteria.getRutId())
+            .build();
+    }
+
     RowsFetchSpec<Paciente> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = PacienteSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return createQuery(pageable, criteria, false);
+    }
+
+    /**
+     * @param stream whether the rows are read from a cursor, by batches, see {@link EntityManager#fetchInBatches}.
+     */
+    RowsFetchSpec<Paciente> createQuery(Pageable pageable, Criteria criteria, boolean stream) {
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Paciente.class, criteria, pageable);
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Paciente.class, joinShape, pageable, boundCriteria),
+            () -> entityManager.createSelect(createSelectFrom(), Paciente.class, pageable, boundCriteria)
+        );
+        GenericExecuteSpec spec = boundCriteria.bindTo(db.sql(select));
+        return (stream ? entityManager.fetchInBatches(spec) : spec).map(
+            compiledRowMappers.forStatement(Paciente.class, select, this::compile)
+        );
+    }
+
+    RowsFetchSpec<Paciente> createQuery(KeysetPageable keyset, Criteria criteria) {
+        return createQuery(keyset, criteria, Projection.ALL);
+    }
+
+    RowsFetchSpec<Paciente> createQuery(KeysetPageable keyset, Criteria criteria, Projection projection) {
+        // the sort key is read to create the cursor of the next page
+        Projection selected = projection.with(keysetColumns);
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Paciente.class, criteria, keyset, keysetColumns);
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Paciente.class, joinShape(selected), keyset, boundCriteria),
+            () ->
+                selected.includes("rut")
+                    ? entityManager.createSelect(createSelectFrom(selected), Paciente.class, keyset, keysetColumns, boundCriteria)
+                    : entityManager.createSelect(createSelectFromEntity(selected), Paciente.class, keyset, keysetColumns, boundCriteria)
+        );
+        return boundCriteria.bindTo(db.sql(select)).map(compiledRowMappers.forStatement(Paciente.class, select, this::compile));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
+        return createSelectFrom(Projection.ALL);
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom(Projection projection) {
+        List<Expression> columns = PacienteSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, projection);
         columns.addAll(EspecialistaSqlHelper.getColumns(rutTable, "rut"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(rutTable)
             .on(Column.create("rut_id", entityTable))
             .equals(Column.create("id", rutTable));
+    }
 
-        String select = entityManager.createSelect(selectFrom, Paciente.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+    /**
+     * Selects the columns of the projection, without the join of the rut, which is not part of it.
+     */
+    private SelectFromAndJoin createSelectFromEntity(Projection projection) {
+        List<Expression> columns = PacienteSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, projection);
+        return Select.builder().select(columns).from(entityTable);
+    }
+
+    private static String joinShape(Projection projection) {
+        String shape = projection.includes("rut") ? joinShape : "";
+        return projection.isAll() ? shape : shape + " " + projection.getShape();
     }
 
     @Override
     public Flux<Paciente> findAll() {
-        return findAllBy(null, null);
+        return findAllBy((Pageable) null, null);
+    }
+
+    @Override
+    public Flux<Paciente> streamAll() {
+        return createQuery((Pageable) null, null, true).all();
     }
 
     @Override
     public Mono<Paciente> findById(Long id) {
-        return createQuery(null, where("id").is(id)).one();
+        return entityCache.get(id, key -> createQuery((Pageable) null, where("id").is(key)).one());
     }
 
-    private Paciente process(Row row, RowMetadata metadata) {
-        Paciente entity = pacienteMapper.apply(row, "e");
-        entity.setRut(especialistaMapper.apply(row, "rut"));
-        return entity;
+    /**
+     * Resolves the columns of the rows of a statement, the rut is only mapped if its table is joined.
+     */
+    private Function<Row, Paciente> compile(RowMetadata metadata) {
+        CompiledRowMapper<Paciente> entityRows = pacienteMapper.compile(metadata, "e");
+        CompiledRowMapper<Especialista> rutRows = especialistaMapper.compile(metadata, "rut");
+        if (rutRows.isEmpty()) {
+            return entityRows;
+        }
+        return row -> {
+            Paciente entity = entityRows.apply(row);
+            entity.setRut(rutRows.apply(row));
+            return entity;
+        };
     }
 
     @Override
     public <S extends Paciente> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        entity.setRutNormalizado(Rut.normalize(entity.getRut()));
+        entity.setLastModifiedDate(Instant.now());
+        return entityManager
+            .insert(entity)
+            .flatMap(inserted -> searchOutbox.index(Paciente.class, inserted.getId()).thenReturn(inserted));
+    }
+
+    @Override
+    public <S extends Paciente> Flux<S> insertAll(List<S> entities) {
+        Instant now = Instant.now();
+        entities.forEach(
+            entity -> {
+                entity.setRutNormalizado(Rut.normalize(entity.getRut()));
+                entity.setLastModifiedDate(now);
+            }
+        );
+        return entityManager
+            .insertAll(entities)
+            .collectList()
+            .flatMapMany(
+                inserted -> {
+                    List<Long> ids = new ArrayList<>(inserted.size());
+                    inserted.forEach(entity -> ids.add(entity.getId()));
+                    return searchOutbox.index(Paciente.class, ids).thenMany(Flux.fromIterable(inserted));
+                }
+            );
     }
 
     @Override
@@ -139,21 +301,87 @@ class PacienteRepositoryInternalImpl implements PacienteRepositoryInternal {
     @Override
     public Mono<Integer> update(Paciente entity) {
         //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        entity.setRutNormalizado(Rut.normalize(entity.getRut()));
+        entity.setLastModifiedDate(Instant.now());
+        return entityCacheManager.invalidate(
+            Paciente.class,
+            entity.getId(),
+            r2dbcEntityTemplate.update(entity).then(searchOutbox.index(Paciente.class, entity.getId())).thenReturn(1)
+        );
+    }
+
+    @Override
+    public Mono<Paciente> partialUpdate(Paciente patch) {
+        Update update = Update.update("lastModifiedDate", Instant.now());
+        if (patch.getNombre() != null) {
+            update = update.set("nombre", patch.getNombre());
+        }
+        if (patch.getApellidos() != null) {
+            update = update.set("apellidos", patch.getApellidos());
+        }
+        if (patch.getRut() != null) {
+            update = update.set("rut", patch.getRut()).set("rutNormalizado", Rut.normalize(patch.getRut()));
+        }
+        if (patch.getFechaNacimiento() != null) {
+            update = update.set("fechaNacimiento", patch.getFechaNacimiento());
+        }
+        return entityCacheManager.invalidate(
+            Paciente.class,
+            patch.getId(),
+            entityManager
+                .updateReturning(
+                    Paciente.class,
+                    patch.getId(),
+                    update,
+                    table -> PacienteSqlHelper.getColumns(table, EntityManager.ENTITY_ALIAS),
+                    statement -> compiledRowMappers.forStatement(Paciente.class, statement, this::compile)
+                )
+                .flatMap(updated -> searchOutbox.index(Paciente.class, updated.getId()).thenReturn(updated))
+        );
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return entityCacheManager.invalidate(
+            Paciente.class,
+            id,
+            r2dbcEntityTemplate
+                .delete(Paciente.class)
+                .matching(query(where("id").is(id)))
+                .all()
+                .then(searchOutbox.delete(Paciente.class, id))
+        );
     }
 }
 
 class PacienteSqlHelper {
 
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, Projection.ALL);
+    }
+
+    static List<Expression> getColumns(Table table, String columnPrefix, Projection projection) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("nombre", table, columnPrefix + "_nombre"));
-        columns.add(Column.aliased("apellidos", table, columnPrefix + "_apellidos"));
-        columns.add(Column.aliased("rut", table, columnPrefix + "_rut"));
-        columns.add(Column.aliased("fecha_nacimiento", table, columnPrefix + "_fecha_nacimiento"));
-
-        columns.add(Column.aliased("rut_id", table, columnPrefix + "_rut_id"));
+        if (projection.includes("nombre")) {
+            columns.add(Column.aliased("nombre", table, columnPrefix + "_nombre"));
+        }
+        if (projection.includes("apellidos")) {
+            columns.add(Column.aliased("apellidos", table, columnPrefix + "_apellidos"));
+        }
+        if (projection.includes("rut")) {
+            columns.add(Column.aliased("rut", table, columnPrefix + "_rut"));
+        }
+        if (projection.includes("fechaNacimiento")) {
+            columns.add(Column.aliased("fecha_nacimiento", table, columnPrefix + "_fecha_nacimiento"));
+        }
+        if (projection.isAll()) {
+            columns.add(Column.aliased("rut_normalizado", table, columnPrefix + "_rut_normalizado"));
+            columns.add(Column.aliased("last_modified_date", table, columnPrefix + "_last_modified_date"));
+        }
+        if (projection.includes("rutId") || projection.includes("rut")) {
+            columns.add(Column.aliased("rut_id", table, columnPrefix + "_rut_id"));
+        }
         return columns;
     }
 }
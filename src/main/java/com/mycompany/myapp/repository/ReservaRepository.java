@@ -1,6 +1,19 @@
 package com.mycompany.myapp.repository;
 
 import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.service.DailyCount;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.criteria.ReservaCriteria;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -34,11 +47,25 @@ public interface ReservaRepository extends R2dbcRepository<Reserva, Long>, Reser
 
 interface ReservaRepositoryInternal {
     <S extends Reserva> Mono<S> insert(S entity);
+    <S extends Reserva> Flux<S> insertAll(List<S> entities);
     <S extends Reserva> Mono<S> save(S entity);
     Mono<Integer> update(Reserva entity);
+    Mono<Reserva> partialUpdate(Reserva patch);
+    Mono<Void> deleteById(Long id);
 
     Flux<Reserva> findAll();
+    Flux<Reserva> streamAll();
     Mono<Reserva> findById(Long id);
     Flux<Reserva> findAllBy(Pageable pageable);
     Flux<Reserva> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Reserva> findAllBy(KeysetPageable keyset);
+    Flux<Reserva> findAllBy(KeysetPageable keyset, Criteria criteria);
+    Flux<Reserva> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection);
+    Flux<Reserva> findByCriteria(ReservaCriteria criteria, KeysetPageable keyset, Projection projection);
+    Mono<Long> countByCriteria(ReservaCriteria criteria);
+    Mono<RowCount> countTotalByCriteria(ReservaCriteria criteria);
+    Flux<Reserva> findAllByRutIdIn(Collection<Long> rutIds);
+    Flux<Instant> findHorasByEspecialidadAndFecha(Especialidad especialidad, LocalDate fecha);
+    <R> Flux<R> exportByCriteria(ReservaCriteria criteria, BiFunction<Row, RowMetadata, R> mapper);
+    Flux<DailyCount> countByFechaAndEspecialidad();
 }
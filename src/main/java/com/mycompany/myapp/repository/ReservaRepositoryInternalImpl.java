@@ -5,28 +5,46 @@ import static org.springframework.data.relational.core.query.Query.query;
 
 import com.mycompany.myapp.domain.Reserva;
 import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.repository.rowmapper.CompiledRowMapper;
+import com.mycompany.myapp.repository.rowmapper.CompiledRowMappers;
 import com.mycompany.myapp.repository.rowmapper.PacienteRowMapper;
 import com.mycompany.myapp.repository.rowmapper.ReservaRowMapper;
+import com.mycompany.myapp.service.BoundCriteria;
+import com.mycompany.myapp.service.DailyCount;
+import com.mycompany.myapp.service.EntityCache;
+import com.mycompany.myapp.service.EntityCacheManager;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.service.RowCounter;
+import com.mycompany.myapp.service.SearchOutbox;
+import com.mycompany.myapp.service.criteria.ReservaCriteria;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -40,22 +58,38 @@ class ReservaRepositoryInternalImpl implements ReservaRepositoryInternal {
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
+    private final EntityCache<Reserva> entityCache;
+    private final EntityCacheManager entityCacheManager;
+    private final SearchOutbox searchOutbox;
+    private final RowCounter rowCounter;
+    private final CompiledRowMappers compiledRowMappers;
 
     private final PacienteRowMapper pacienteMapper;
     private final ReservaRowMapper reservaMapper;
 
     private static final Table entityTable = Table.aliased("reserva", EntityManager.ENTITY_ALIAS);
     private static final Table rutTable = Table.aliased("paciente", "rut");
+    private static final String joinShape = "paciente rut";
+    private static final List<String> keysetColumns = List.of("fecha", "hora", "id");
 
     public ReservaRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
+        EntityCacheManager entityCacheManager,
+        SearchOutbox searchOutbox,
+        RowCounter rowCounter,
+        CompiledRowMappers compiledRowMappers,
         PacienteRowMapper pacienteMapper,
         ReservaRowMapper reservaMapper
     ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
+        this.entityCache = entityCacheManager.getCache(Reserva.class);
+        this.entityCacheManager = entityCacheManager;
+        this.searchOutbox = searchOutbox;
+        this.rowCounter = rowCounter;
+        this.compiledRowMappers = compiledRowMappers;
         this.pacienteMapper = pacienteMapper;
         this.reservaMapper = reservaMapper;
     }
@@ -70,55 +104,210 @@ class ReservaRepositoryInternalImpl implements ReservaRepositoryInternal {
         return createQuery(pageable, criteria).all();
     }
 
+    @Override
+    public Flux<Reserva> findAllBy(KeysetPageable keyset) {
+        return findAllBy(keyset, null);
+    }
+
+    @Override
+    public Flux<Reserva> findAllBy(KeysetPageable keyset, Criteria criteria) {
+        return findAllBy(keyset, criteria, Projection.ALL);
+    }
+
+    @Override
+    public Flux<Reserva> findAllBy(KeysetPageable keyset, Criteria criteria, Projection projection) {
+        return createQuery(keyset, criteria, projection).all();
+    }
+
+    @Override
+    public Flux<Reserva> findByCriteria(ReservaCriteria criteria, KeysetPageable keyset, Projection projection) {
+        return findAllBy(keyset, buildCriteria(criteria), projection);
+    }
+
+    @Override
+    public Mono<Long> countByCriteria(ReservaCriteria criteria) {
+        Criteria where = buildCriteria(criteria);
+        return r2dbcEntityTemplate.count(where == null ? Query.empty() : Query.query(where), Reserva.class);
+    }
+
+    @Override
+    public Mono<RowCount> countTotalByCriteria(ReservaCriteria criteria) {
+        return rowCounter.count(Reserva.class, buildCriteria(criteria));
+    }
+
+    @Override
+    public Flux<Reserva> findAllByRutIdIn(Collection<Long> rutIds) {
+        return createQuery((Pageable) null, where("rutId").in(rutIds)).all();
+    }
+
+    @Override
+    public Flux<Instant> findHorasByEspecialidadAndFecha(Especialidad especialidad, LocalDate fecha) {
+        return r2dbcEntityTemplate
+            .select(Reserva.class)
+            .matching(query(where("fecha").is(fecha).and("especialidad").is(especialidad).and("hora").isNotNull()).columns("hora"))
+            .all()
+            .map(Reserva::getHora);
+    }
+
+    @Override
+    public <R> Flux<R> exportByCriteria(ReservaCriteria criteria, BiFunction<Row, RowMetadata, R> mapper) {
+        // the rows are read in the order of the table, from a cursor, and mapped without building the entities
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Reserva.class, buildCriteria(criteria));
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Reserva.class, "export", (Pageable) null, boundCriteria),
+            () -> entityManager.createSelect(createSelectFromEntity(Projection.ALL), Reserva.class, (Pageable) null, boundCriteria)
+        );
+        return entityManager.fetchInBatches(boundCriteria.bindTo(db.sql(select))).map(mapper).all();
+    }
+
+    @Override
+    public Flux<DailyCount> countByFechaAndEspecialidad() {
+        return entityManager
+            .fetchInBatches(
+                db.sql("SELECT fecha, especialidad, COUNT(*) AS total FROM reserva WHERE fecha IS NOT NULL GROUP BY fecha, especialidad")
+            )
+            .map(
+                (row, metadata) -> {
+                    String especialidad = row.get("especialidad", String.class);
+                    return new DailyCount(
+                        row.get("fecha", LocalDate.class),
+                        especialidad == null ? null : Especialidad.valueOf(especialidad),
+                        row.get("total", Long.class)
+                    );
+                }
+            )
+            .all();
+    }
+
+    private static Criteria buildCriteria(ReservaCriteria criteria) {
+        return new FilterCriteriaBuilder()
+            .filter("id", criteria.getId())
+            .filter("fecha", criteria.getFecha())
+            .filter("hora", criteria.getHora())
+            .filter("especialidad", criteria.getEspecialidad())
+            .filter("rutId", criteria.getRutId())
+            .build();
+    }
+
     RowsFetchSpec<Reserva> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = ReservaSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        return createQuery(pageable, criteria, false);
+    }
+
+    /**
+     * @param stream whether the rows are read from a cursor, by batches, see {@link EntityManager#fetchInBatches}.
+     */
+    RowsFetchSpec<Reserva> createQuery(Pageable pageable, Criteria criteria, boolean stream) {
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Reserva.class, criteria, pageable);
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Reserva.class, joinShape, pageable, boundCriteria),
+            () -> entityManager.createSelect(createSelectFrom(), Reserva.class, pageable, boundCriteria)
+        );
+        GenericExecuteSpec spec = boundCriteria.bindTo(db.sql(select));
+        return (stream ? entityManager.fetchInBatches(spec) : spec).map(
+            compiledRowMappers.forStatement(Reserva.class, select, this::compile)
+        );
+    }
+
+    RowsFetchSpec<Reserva> createQuery(KeysetPageable keyset, Criteria criteria) {
+        return createQuery(keyset, criteria, Projection.ALL);
+    }
+
+    RowsFetchSpec<Reserva> createQuery(KeysetPageable keyset, Criteria criteria, Projection projection) {
+        // the sort key is read to create the cursor of the next page
+        Projection selected = projection.with(keysetColumns);
+        BoundCriteria boundCriteria = entityManager.bindCriteria(Reserva.class, criteria, keyset, keysetColumns);
+        String select = entityManager.getCachedSelect(
+            EntityManager.StatementKey.of(Reserva.class, joinShape(selected), keyset, boundCriteria),
+            () ->
+                selected.includes("rut")
+                    ? entityManager.createSelect(createSelectFrom(selected), Reserva.class, keyset, keysetColumns, boundCriteria)
+                    : entityManager.createSelect(createSelectFromEntity(selected), Reserva.class, keyset, keysetColumns, boundCriteria)
+        );
+        return boundCriteria.bindTo(db.sql(select)).map(compiledRowMappers.forStatement(Reserva.class, select, this::compile));
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom() {
+        return createSelectFrom(Projection.ALL);
+    }
+
+    private SelectFromAndJoinCondition createSelectFrom(Projection projection) {
+        List<Expression> columns = ReservaSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, projection);
         columns.addAll(PacienteSqlHelper.getColumns(rutTable, "rut"));
-        SelectFromAndJoinCondition selectFrom = Select
+        return Select
             .builder()
             .select(columns)
             .from(entityTable)
             .leftOuterJoin(rutTable)
             .on(Column.create("rut_id", entityTable))
             .equals(Column.create("id", rutTable));
+    }
 
-        String select = entityManager.createSelect(selectFrom, Reserva.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
-            )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+    /**
+     * Selects the columns of the projection, without the join of the rut, which is not part of it.
+     */
+    private SelectFromAndJoin createSelectFromEntity(Projection projection) {
+        List<Expression> columns = ReservaSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, projection);
+        return Select.builder().select(columns).from(entityTable);
+    }
+
+    private static String joinShape(Projection projection) {
+        String shape = projection.includes("rut") ? joinShape : "";
+        return projection.isAll() ? shape : shape + " " + projection.getShape();
     }
 
     @Override
     public Flux<Reserva> findAll() {
-        return findAllBy(null, null);
+        return findAllBy((Pageable) null, null);
+    }
+
+    @Override
+    public Flux<Reserva> streamAll() {
+        return createQuery((Pageable) null, null, true).all();
     }
 
     @Override
     public Mono<Reserva> findById(Long id) {
-        return createQuery(null, where("id").is(id)).one();
+        return entityCache.get(id, key -> createQuery((Pageable) null, where("id").is(key)).one());
     }
 
-    private Reserva process(Row row, RowMetadata metadata) {
-        Reserva entity = reservaMapper.apply(row, "e");
-        entity.setRut(pacienteMapper.apply(row, "rut"));
-        return entity;
+    /**
+     * Resolves the columns of the rows of a statement, the rut is only mapped if its table is joined.
+     */
+    private Function<Row, Reserva> compile(RowMetadata metadata) {
+        CompiledRowMapper<Reserva> entityRows = reservaMapper.compile(metadata, "e");
+        CompiledRowMapper<Paciente> rutRows = pacienteMapper.compile(metadata, "rut");
+        if (rutRows.isEmpty()) {
+            return entityRows;
+        }
+        return row -> {
+            Reserva entity = entityRows.apply(row);
+            entity.setRut(rutRows.apply(row));
+            return entity;
+        };
     }
 
     @Override
     public <S extends Reserva> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        entity.setLastModifiedDate(Instant.now());
+        return entityManager
+            .insert(entity)
+            .flatMap(inserted -> searchOutbox.index(Reserva.class, inserted.getId()).thenReturn(inserted));
+    }
+
+    @Override
+    public <S extends Reserva> Flux<S> insertAll(List<S> entities) {
+        Instant now = Instant.now();
+        entities.forEach(entity -> entity.setLastModifiedDate(now));
+        return entityManager
+            .insertAll(entities)
+            .collectList()
+            .flatMapMany(
+                inserted -> {
+                    List<Long> ids = new ArrayList<>(inserted.size());
+                    inserted.forEach(entity -> ids.add(entity.getId()));
+                    return searchOutbox.index(Reserva.class, ids).thenMany(Flux.fromIterable(inserted));
+                }
+            );
     }
 
     @Override
@@ -141,20 +330,79 @@ class ReservaRepositoryInternalImpl implements ReservaRepositoryInternal {
     @Override
     public Mono<Integer> update(Reserva entity) {
         //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        entity.setLastModifiedDate(Instant.now());
+        return entityCacheManager.invalidate(
+            Reserva.class,
+            entity.getId(),
+            r2dbcEntityTemplate.update(entity).then(searchOutbox.index(Reserva.class, entity.getId())).thenReturn(1)
+        );
+    }
+
+    @Override
+    public Mono<Reserva> partialUpdate(Reserva patch) {
+        Update update = Update.update("lastModifiedDate", Instant.now());
+        if (patch.getFecha() != null) {
+            update = update.set("fecha", patch.getFecha());
+        }
+        if (patch.getHora() != null) {
+            update = update.set("hora", patch.getHora());
+        }
+        if (patch.getEspecialidad() != null) {
+            update = update.set("especialidad", patch.getEspecialidad());
+        }
+        return entityCacheManager.invalidate(
+            Reserva.class,
+            patch.getId(),
+            entityManager
+                .updateReturning(
+                    Reserva.class,
+                    patch.getId(),
+                    update,
+                    table -> ReservaSqlHelper.getColumns(table, EntityManager.ENTITY_ALIAS),
+                    statement -> compiledRowMappers.forStatement(Reserva.class, statement, this::compile)
+                )
+                .flatMap(updated -> searchOutbox.index(Reserva.class, updated.getId()).thenReturn(updated))
+        );
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return entityCacheManager.invalidate(
+            Reserva.class,
+            id,
+            r2dbcEntityTemplate
+                .delete(Reserva.class)
+                .matching(query(where("id").is(id)))
+                .all()
+                .then(searchOutbox.delete(Reserva.class, id))
+        );
     }
 }
 
 class ReservaSqlHelper {
 
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, Projection.ALL);
+    }
+
+    static List<Expression> getColumns(Table table, String columnPrefix, Projection projection) {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("fecha", table, columnPrefix + "_fecha"));
-        columns.add(Column.aliased("hora", table, columnPrefix + "_hora"));
-        columns.add(Column.aliased("especialidad", table, columnPrefix + "_especialidad"));
-
-        columns.add(Column.aliased("rut_id", table, columnPrefix + "_rut_id"));
+        if (projection.includes("fecha")) {
+            columns.add(Column.aliased("fecha", table, columnPrefix + "_fecha"));
+        }
+        if (projection.includes("hora")) {
+            columns.add(Column.aliased("hora", table, columnPrefix + "_hora"));
+        }
+        if (projection.includes("especialidad")) {
+            columns.add(Column.aliased("especialidad", table, columnPrefix + "_especialidad"));
+        }
+        if (projection.isAll()) {
+            columns.add(Column.aliased("last_modified_date", table, columnPrefix + "_last_modified_date"));
+        }
+        if (projection.includes("rutId") || projection.includes("rut")) {
+            columns.add(Column.aliased("rut_id", table, columnPrefix + "_rut_id"));
+        }
         return columns;
     }
 }
@@ -0,0 +1,44 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.domain.SearchOutboxEntry;
+import java.time.Instant;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data SQL reactive repository for the SearchOutboxEntry entity.
+ */
+@Repository
+public interface SearchOutboxRepository extends R2dbcRepository<SearchOutboxEntry, Long> {
+    @Query("SELECT * FROM search_outbox WHERE applied_date IS NULL AND attempts < :maxAttempts ORDER BY id LIMIT :limit")
+    Flux<SearchOutboxEntry> findOldest(int limit, int maxAttempts);
+
+    @Query("SELECT COUNT(*) FROM search_outbox WHERE applied_date IS NULL AND attempts < :maxAttempts")
+    Mono<Long> countPending(int maxAttempts);
+
+    @Query("SELECT COUNT(*) FROM search_outbox WHERE applied_date IS NULL AND attempts >= :maxAttempts")
+    Mono<Long> countDeadLetters(int maxAttempts);
+
+    /**
+     * @return the ids of the entities of the given type with an entry recorded since the given instant, applied or not.
+     */
+    @Query("SELECT DISTINCT entity_id FROM search_outbox WHERE entity_type = :entityType AND created_date >= :since")
+    Flux<Long> findEntityIdsRecordedSince(String entityType, Instant since);
+
+    @Modifying
+    @Query("UPDATE search_outbox SET attempts = attempts + 1 WHERE id IN (:ids)")
+    Mono<Integer> incrementAttemptsByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE search_outbox SET applied_date = :appliedDate WHERE id IN (:ids)")
+    Mono<Integer> markAppliedByIdIn(Collection<Long> ids, Instant appliedDate);
+
+    @Modifying
+    @Query("DELETE FROM search_outbox WHERE applied_date < :appliedDate")
+    Mono<Integer> deleteAppliedBefore(Instant appliedDate);
+}
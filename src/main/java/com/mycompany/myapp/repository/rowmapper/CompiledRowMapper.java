@@ -0,0 +1,105 @@
+package com.mycompany.myapp.repository.rowmapper;
+
+import com.mycompany.myapp.service.ColumnConverter;
+import com.mycompany.myapp.service.ColumnReader;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Maps the rows of one shape to entities, with the positions of the columns and their conversions resolved once, when
+ * the mapper is compiled from the {@link RowMetadata} of the result.
+ * <p>
+ * Only the columns which are in the result are mapped, so the same {@link RowMapping} reads the projections and the
+ * selects without the joined tables. Mapping a row builds no column name, throws no exception and looks up no
+ * conversion.
+ *
+ * @param <T> the type of the entity.
+ */
+public final class CompiledRowMapper<T> implements Function<Row, T> {
+
+    /**
+     * Reads one column and sets its property.
+     */
+    private static final class Binding<T, V> {
+
+        private final ColumnReader<V> reader;
+        private final BiConsumer<T, V> setter;
+
+        Binding(ColumnReader<V> reader, BiConsumer<T, V> setter) {
+            this.reader = reader;
+            this.setter = setter;
+        }
+
+        void apply(T entity, Row row) {
+            setter.accept(entity, reader.read(row));
+        }
+    }
+
+    private final Supplier<T> factory;
+    private final Binding<T, ?>[] bindings;
+
+    private CompiledRowMapper(Supplier<T> factory, Binding<T, ?>[] bindings) {
+        this.factory = factory;
+        this.bindings = bindings;
+    }
+
+    /**
+     * Resolves the columns of the mapping in the rows of the given shape.
+     * @param mapping the columns of the entity.
+     * @param metadata the metadata of the rows of the result.
+     * @param prefix the alias prefix of the columns of the entity in the select, e.g. {@code e}.
+     * @param converter converts the values of the driver to the types of the properties.
+     * @param <T> the type of the entity.
+     * @return the mapper of the rows of this shape.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompiledRowMapper<T> compile(RowMapping<T> mapping, RowMetadata metadata, String prefix, ColumnConverter converter) {
+        // the case of the column labels depends on the database, e.g. H2 reports them in upper case
+        Map<String, Integer> indexes = new HashMap<>();
+        Map<String, Class<?>> driverTypes = new HashMap<>();
+        int index = 0;
+        for (ColumnMetadata column : metadata.getColumnMetadatas()) {
+            String label = column.getName().toLowerCase(Locale.ROOT);
+            indexes.putIfAbsent(label, index++);
+            driverTypes.putIfAbsent(label, column.getJavaType());
+        }
+        List<Binding<T, ?>> bindings = new ArrayList<>();
+        for (RowMapping.Column<T, ?> column : mapping.getColumns()) {
+            String label = (prefix + "_" + column.getName()).toLowerCase(Locale.ROOT);
+            Integer position = indexes.get(label);
+            if (position != null) {
+                bindings.add(bind(column, converter.reader(position, driverTypes.get(label), column.getType())));
+            }
+        }
+        return new CompiledRowMapper<>(mapping.getFactory(), bindings.toArray(new Binding[0]));
+    }
+
+    private static <T, V> Binding<T, V> bind(RowMapping.Column<T, V> column, ColumnReader<V> reader) {
+        return new Binding<>(reader, column.getSetter());
+    }
+
+    /**
+     * @return true if none of the columns of the entity is in the rows, e.g. as its table is not joined.
+     */
+    public boolean isEmpty() {
+        return bindings.length == 0;
+    }
+
+    @Override
+    public T apply(Row row) {
+        T entity = factory.get();
+        for (Binding<T, ?> binding : bindings) {
+            binding.apply(entity, row);
+        }
+        return entity;
+    }
+}
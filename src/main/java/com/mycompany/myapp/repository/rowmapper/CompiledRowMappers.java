@@ -0,0 +1,96 @@
+package com.mycompany.myapp.repository.rowmapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of the compiled row mappers, keyed by the SQL statement of the rows: the statement determines the columns of
+ * its rows, so a mapper is compiled once per statement, from the metadata of its first row. The cache is bounded, the
+ * mappers used the least are evicted first.
+ */
+@Service
+public class CompiledRowMappers {
+
+    /**
+     * The statements are cached by {@link com.mycompany.myapp.service.StatementCache}, with the same bound.
+     */
+    static final int MAX_SIZE = 1024;
+
+    private static final class Key {
+
+        private final Class<?> entityType;
+        private final String statement;
+
+        Key(Class<?> entityType, String statement) {
+            this.entityType = entityType;
+            this.statement = statement;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return entityType.equals(key.entityType) && statement.equals(key.statement);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, statement);
+        }
+    }
+
+    private final Cache<Key, Function<Row, ?>> mappers = Caffeine.newBuilder().maximumSize(MAX_SIZE).build();
+
+    /**
+     * Returns the mapping function of the rows of the given statement, to use in
+     * {@link org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec#map(BiFunction)}.
+     * @param entityType the type of the entities.
+     * @param statement the SQL statement which selects the rows.
+     * @param compiler compiles the mapper of the rows, from the metadata of the first one, if it isn't cached yet.
+     * @param <T> the type of the entities.
+     * @return the mapping function.
+     */
+    public <T> BiFunction<Row, RowMetadata, T> forStatement(
+        Class<T> entityType,
+        String statement,
+        Function<RowMetadata, Function<Row, T>> compiler
+    ) {
+        Key key = new Key(entityType, statement);
+        return new BiFunction<>() {
+            // the rows of a result are mapped one after the other, so the first row compiles the mapper for the others
+            private Function<Row, T> mapper;
+
+            @Override
+            public T apply(Row row, RowMetadata metadata) {
+                if (mapper == null) {
+                    mapper = get(key, metadata, compiler);
+                }
+                return mapper.apply(row);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Function<Row, T> get(Key key, RowMetadata metadata, Function<RowMetadata, Function<Row, T>> compiler) {
+        return (Function<Row, T>) mappers.get(key, k -> compiler.apply(metadata));
+    }
+
+    public long size() {
+        return mappers.estimatedSize();
+    }
+
+    public void clear() {
+        mappers.invalidateAll();
+    }
+}
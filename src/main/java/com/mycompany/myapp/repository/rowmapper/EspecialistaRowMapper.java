@@ -4,6 +4,8 @@ import com.mycompany.myapp.domain.Especialista;
 import com.mycompany.myapp.domain.enumeration.Especialidad;
 import com.mycompany.myapp.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
@@ -14,6 +16,17 @@ import org.springframework.stereotype.Service;
 @Service
 public class EspecialistaRowMapper implements BiFunction<Row, String, Especialista> {
 
+    private static final RowMapping<Especialista> mapping = RowMapping
+        .of(Especialista::new)
+        .column("id", Long.class, Especialista::setId)
+        .column("nombre", String.class, Especialista::setNombre)
+        .column("apellidos", String.class, Especialista::setApellidos)
+        .column("rut", String.class, Especialista::setRut)
+        .column("fecha_nacimiento", LocalDate.class, Especialista::setFechaNacimiento)
+        .column("registro_medico", String.class, Especialista::setRegistroMedico)
+        .column("especialidad", Especialidad.class, Especialista::setEspecialidad)
+        .column("last_modified_date", Instant.class, Especialista::setLastModifiedDate);
+
     private final ColumnConverter converter;
 
     public EspecialistaRowMapper(ColumnConverter converter) {
@@ -34,6 +47,17 @@ public class EspecialistaRowMapper implements BiFunction<Row, String, Especialis
         entity.setFechaNacimiento(converter.fromRow(row, prefix + "_fecha_nacimiento", LocalDate.class));
         entity.setRegistroMedico(converter.fromRow(row, prefix + "_registro_medico", String.class));
         entity.setEspecialidad(converter.fromRow(row, prefix + "_especialidad", Especialidad.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
         return entity;
     }
+
+    /**
+     * Resolves the columns of the {@link Especialista} in the rows of the given shape, once for all these rows.
+     * @param metadata the metadata of the rows.
+     * @param prefix the column prefix.
+     * @return the mapper of the rows, which only reads the columns which are in the rows.
+     */
+    public CompiledRowMapper<Especialista> compile(RowMetadata metadata, String prefix) {
+        return CompiledRowMapper.compile(mapping, metadata, prefix, converter);
+    }
 }
@@ -3,6 +3,8 @@ package com.mycompany.myapp.repository.rowmapper;
 import com.mycompany.myapp.domain.Historia;
 import com.mycompany.myapp.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,16 @@ import org.springframework.stereotype.Service;
 @Service
 public class HistoriaRowMapper implements BiFunction<Row, String, Historia> {
 
+    private static final RowMapping<Historia> mapping = RowMapping
+        .of(Historia::new)
+        .column("id", Long.class, Historia::setId)
+        .column("fecha", LocalDate.class, Historia::setFecha)
+        .column("diagnostico", String.class, Historia::setDiagnostico)
+        .column("descripcion", String.class, Historia::setDescripcion)
+        .column("resultado_file", String.class, Historia::setResultadoFile)
+        .column("last_modified_date", Instant.class, Historia::setLastModifiedDate)
+        .column("rut_id", Long.class, Historia::setRutId);
+
     private final ColumnConverter converter;
 
     public HistoriaRowMapper(ColumnConverter converter) {
@@ -31,7 +43,18 @@ public class HistoriaRowMapper implements BiFunction<Row, String, Historia> {
         entity.setDiagnostico(converter.fromRow(row, prefix + "_diagnostico", String.class));
         entity.setDescripcion(converter.fromRow(row, prefix + "_descripcion", String.class));
         entity.setResultadoFile(converter.fromRow(row, prefix + "_resultado_file", String.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
         entity.setRutId(converter.fromRow(row, prefix + "_rut_id", Long.class));
         return entity;
     }
+
+    /**
+     * Resolves the columns of the {@link Historia} in the rows of the given shape, once for all these rows.
+     * @param metadata the metadata of the rows.
+     * @param prefix the column prefix.
+     * @return the mapper of the rows, which only reads the columns which are in the rows.
+     */
+    public CompiledRowMapper<Historia> compile(RowMetadata metadata, String prefix) {
+        return CompiledRowMapper.compile(mapping, metadata, prefix, converter);
+    }
 }
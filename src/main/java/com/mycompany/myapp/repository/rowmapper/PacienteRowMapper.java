@@ -3,6 +3,8 @@ package com.mycompany.myapp.repository.rowmapper;
 import com.mycompany.myapp.domain.Paciente;
 import com.mycompany.myapp.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,17 @@ import org.springframework.stereotype.Service;
 @Service
 public class PacienteRowMapper implements BiFunction<Row, String, Paciente> {
 
+    private static final RowMapping<Paciente> mapping = RowMapping
+        .of(Paciente::new)
+        .column("id", Long.class, Paciente::setId)
+        .column("nombre", String.class, Paciente::setNombre)
+        .column("apellidos", String.class, Paciente::setApellidos)
+        .column("rut", String.class, Paciente::setRut)
+        .column("rut_normalizado", String.class, Paciente::setRutNormalizado)
+        .column("fecha_nacimiento", LocalDate.class, Paciente::setFechaNacimiento)
+        .column("last_modified_date", Instant.class, Paciente::setLastModifiedDate)
+        .column("rut_id", Long.class, Paciente::setRutId);
+
     private final ColumnConverter converter;
 
     public PacienteRowMapper(ColumnConverter converter) {
@@ -30,8 +43,20 @@ public class PacienteRowMapper implements BiFunction<Row, String, Paciente> {
         entity.setNombre(converter.fromRow(row, prefix + "_nombre", String.class));
         entity.setApellidos(converter.fromRow(row, prefix + "_apellidos", String.class));
         entity.setRut(converter.fromRow(row, prefix + "_rut", String.class));
+        entity.setRutNormalizado(converter.fromRow(row, prefix + "_rut_normalizado", String.class));
         entity.setFechaNacimiento(converter.fromRow(row, prefix + "_fecha_nacimiento", LocalDate.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
         entity.setRutId(converter.fromRow(row, prefix + "_rut_id", Long.class));
         return entity;
     }
+
+    /**
+     * Resolves the columns of the {@link Paciente} in the rows of the given shape, once for all these rows.
+     * @param metadata the metadata of the rows.
+     * @param prefix the column prefix.
+     * @return the mapper of the rows, which only reads the columns which are in the rows.
+     */
+    public CompiledRowMapper<Paciente> compile(RowMetadata metadata, String prefix) {
+        return CompiledRowMapper.compile(mapping, metadata, prefix, converter);
+    }
 }
@@ -4,6 +4,7 @@ import com.mycompany.myapp.domain.Reserva;
 import com.mycompany.myapp.domain.enumeration.Especialidad;
 import com.mycompany.myapp.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.function.BiFunction;
@@ -15,6 +16,15 @@ import org.springframework.stereotype.Service;
 @Service
 public class ReservaRowMapper implements BiFunction<Row, String, Reserva> {
 
+    private static final RowMapping<Reserva> mapping = RowMapping
+        .of(Reserva::new)
+        .column("id", Long.class, Reserva::setId)
+        .column("fecha", LocalDate.class, Reserva::setFecha)
+        .column("hora", Instant.class, Reserva::setHora)
+        .column("especialidad", Especialidad.class, Reserva::setEspecialidad)
+        .column("last_modified_date", Instant.class, Reserva::setLastModifiedDate)
+        .column("rut_id", Long.class, Reserva::setRutId);
+
     private final ColumnConverter converter;
 
     public ReservaRowMapper(ColumnConverter converter) {
@@ -32,7 +42,18 @@ public class ReservaRowMapper implements BiFunction<Row, String, Reserva> {
         entity.setFecha(converter.fromRow(row, prefix + "_fecha", LocalDate.class));
         entity.setHora(converter.fromRow(row, prefix + "_hora", Instant.class));
         entity.setEspecialidad(converter.fromRow(row, prefix + "_especialidad", Especialidad.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
         entity.setRutId(converter.fromRow(row, prefix + "_rut_id", Long.class));
         return entity;
     }
+
+    /**
+     * Resolves the columns of the {@link Reserva} in the rows of the given shape, once for all these rows.
+     * @param metadata the metadata of the rows.
+     * @param prefix the column prefix.
+     * @return the mapper of the rows, which only reads the columns which are in the rows.
+     */
+    public CompiledRowMapper<Reserva> compile(RowMetadata metadata, String prefix) {
+        return CompiledRowMapper.compile(mapping, metadata, prefix, converter);
+    }
 }
@@ -0,0 +1,82 @@
+package com.mycompany.myapp.repository.rowmapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The columns of the table of an entity, with the types and the setters of their properties, which a
+ * {@link CompiledRowMapper} resolves in the rows of a result.
+ *
+ * @param <T> the type of the entity.
+ */
+public final class RowMapping<T> {
+
+    /**
+     * A column and the property it is mapped to.
+     */
+    static final class Column<T, V> {
+
+        private final String name;
+        private final Class<V> type;
+        private final BiConsumer<T, V> setter;
+
+        Column(String name, Class<V> type, BiConsumer<T, V> setter) {
+            this.name = name;
+            this.type = type;
+            this.setter = setter;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Class<V> getType() {
+            return type;
+        }
+
+        BiConsumer<T, V> getSetter() {
+            return setter;
+        }
+    }
+
+    private final Supplier<T> factory;
+    private final List<Column<T, ?>> columns = new ArrayList<>();
+
+    private RowMapping(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates the mapping of an entity, to declare its columns on.
+     * @param factory creates an empty entity.
+     * @param <T> the type of the entity.
+     * @return the mapping, without columns.
+     */
+    public static <T> RowMapping<T> of(Supplier<T> factory) {
+        return new RowMapping<>(factory);
+    }
+
+    /**
+     * Declares a column of the table.
+     * @param name the name of the column, without the alias prefix of the select.
+     * @param type the type of the property.
+     * @param setter sets the property on the entity.
+     * @param <V> the type of the property.
+     * @return this mapping.
+     */
+    public <V> RowMapping<T> column(String name, Class<V> type, BiConsumer<T, V> setter) {
+        columns.add(new Column<>(name, type, setter));
+        return this;
+    }
+
+    Supplier<T> getFactory() {
+        return factory;
+    }
+
+    List<Column<T, ?>> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+}
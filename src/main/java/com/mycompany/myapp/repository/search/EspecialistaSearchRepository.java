@@ -3,11 +3,13 @@ package com.mycompany.myapp.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.mycompany.myapp.domain.Especialista;
+import java.util.List;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Especialista} entity.
@@ -17,6 +19,10 @@ public interface EspecialistaSearchRepository
 
 interface EspecialistaSearchRepositoryInternal {
     Flux<Especialista> search(String query);
+
+    Flux<SearchAfterHit<Especialista>> search(String query, int size, List<Object> searchAfter);
+
+    Mono<Long> countSearch(String query);
 }
 
 class EspecialistaSearchRepositoryInternalImpl implements EspecialistaSearchRepositoryInternal {
@@ -32,4 +38,14 @@ class EspecialistaSearchRepositoryInternalImpl implements EspecialistaSearchRepo
         NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
         return reactiveElasticsearchTemplate.search(nativeSearchQuery, Especialista.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<SearchAfterHit<Especialista>> search(String query, int size, List<Object> searchAfter) {
+        return SearchAfterSupport.search(reactiveElasticsearchTemplate, Especialista.class, queryStringQuery(query), size, searchAfter);
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return SearchAfterSupport.count(reactiveElasticsearchTemplate, Especialista.class, queryStringQuery(query));
+    }
 }
@@ -3,11 +3,13 @@ package com.mycompany.myapp.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.mycompany.myapp.domain.Historia;
+import java.util.List;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Historia} entity.
@@ -16,6 +18,10 @@ public interface HistoriaSearchRepository extends ReactiveElasticsearchRepositor
 
 interface HistoriaSearchRepositoryInternal {
     Flux<Historia> search(String query);
+
+    Flux<SearchAfterHit<Historia>> search(String query, int size, List<Object> searchAfter);
+
+    Mono<Long> countSearch(String query);
 }
 
 class HistoriaSearchRepositoryInternalImpl implements HistoriaSearchRepositoryInternal {
@@ -31,4 +37,14 @@ class HistoriaSearchRepositoryInternalImpl implements HistoriaSearchRepositoryIn
         NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
         return reactiveElasticsearchTemplate.search(nativeSearchQuery, Historia.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<SearchAfterHit<Historia>> search(String query, int size, List<Object> searchAfter) {
+        return SearchAfterSupport.search(reactiveElasticsearchTemplate, Historia.class, queryStringQuery(query), size, searchAfter);
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return SearchAfterSupport.count(reactiveElasticsearchTemplate, Historia.class, queryStringQuery(query));
+    }
 }
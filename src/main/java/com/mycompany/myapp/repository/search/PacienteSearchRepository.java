@@ -1,13 +1,23 @@
 package com.mycompany.myapp.repository.search;
 
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.mycompany.myapp.domain.Paciente;
+import java.util.List;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Paciente} entity.
@@ -16,6 +26,12 @@ public interface PacienteSearchRepository extends ReactiveElasticsearchRepositor
 
 interface PacienteSearchRepositoryInternal {
     Flux<Paciente> search(String query);
+
+    Flux<SearchAfterHit<Paciente>> search(String query, int size, List<Object> searchAfter);
+
+    Mono<Long> countSearch(String query);
+
+    Flux<Paciente> autocomplete(String query, int size);
 }
 
 class PacienteSearchRepositoryInternalImpl implements PacienteSearchRepositoryInternal {
@@ -31,4 +47,27 @@ class PacienteSearchRepositoryInternalImpl implements PacienteSearchRepositoryIn
         NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
         return reactiveElasticsearchTemplate.search(nativeSearchQuery, Paciente.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<SearchAfterHit<Paciente>> search(String query, int size, List<Object> searchAfter) {
+        return SearchAfterSupport.search(reactiveElasticsearchTemplate, Paciente.class, queryStringQuery(query), size, searchAfter);
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return SearchAfterSupport.count(reactiveElasticsearchTemplate, Paciente.class, queryStringQuery(query));
+    }
+
+    @Override
+    public Flux<Paciente> autocomplete(String query, int size) {
+        // the words of the query are matched as prefixes by the edge-ngram subfields, see paciente-settings.json
+        QueryBuilder names = multiMatchQuery(query, "nombre.autocomplete", "apellidos.autocomplete")
+            .type(MultiMatchQueryBuilder.Type.CROSS_FIELDS)
+            .operator(Operator.AND);
+        NativeSearchQuery nativeSearchQuery = new NativeSearchQueryBuilder()
+            .withQuery(boolQuery().should(names).should(matchQuery("rut.autocomplete", query)).minimumShouldMatch(1))
+            .withPageable(PageRequest.of(0, size))
+            .build();
+        return reactiveElasticsearchTemplate.search(nativeSearchQuery, Paciente.class).map(SearchHit::getContent);
+    }
 }
@@ -3,11 +3,13 @@ package com.mycompany.myapp.repository.search;
 import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import com.mycompany.myapp.domain.Reserva;
+import java.util.List;
 import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Reserva} entity.
@@ -16,6 +18,10 @@ public interface ReservaSearchRepository extends ReactiveElasticsearchRepository
 
 interface ReservaSearchRepositoryInternal {
     Flux<Reserva> search(String query);
+
+    Flux<SearchAfterHit<Reserva>> search(String query, int size, List<Object> searchAfter);
+
+    Mono<Long> countSearch(String query);
 }
 
 class ReservaSearchRepositoryInternalImpl implements ReservaSearchRepositoryInternal {
@@ -31,4 +37,14 @@ class ReservaSearchRepositoryInternalImpl implements ReservaSearchRepositoryInte
         NativeSearchQuery nativeSearchQuery = new NativeSearchQuery(queryStringQuery(query));
         return reactiveElasticsearchTemplate.search(nativeSearchQuery, Reserva.class).map(SearchHit::getContent);
     }
+
+    @Override
+    public Flux<SearchAfterHit<Reserva>> search(String query, int size, List<Object> searchAfter) {
+        return SearchAfterSupport.search(reactiveElasticsearchTemplate, Reserva.class, queryStringQuery(query), size, searchAfter);
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return SearchAfterSupport.count(reactiveElasticsearchTemplate, Reserva.class, queryStringQuery(query));
+    }
 }
@@ -0,0 +1,25 @@
+package com.mycompany.myapp.repository.search;
+
+import java.util.List;
+
+/**
+ * A search hit, with the sort values to pass as {@code search_after} to get the hits following it.
+ */
+public final class SearchAfterHit<T> {
+
+    private final T content;
+    private final List<Object> sortValues;
+
+    public SearchAfterHit(T content, List<Object> sortValues) {
+        this.content = content;
+        this.sortValues = sortValues;
+    }
+
+    public T getContent() {
+        return content;
+    }
+
+    public List<Object> getSortValues() {
+        return sortValues;
+    }
+}
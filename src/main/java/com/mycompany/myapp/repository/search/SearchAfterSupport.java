@@ -0,0 +1,54 @@
+package com.mycompany.myapp.repository.search;
+
+import java.util.Arrays;
+import java.util.List;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.DocumentAdapters;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Paged searches with {@code search_after}: the hits are sorted by relevance then by id, and every page starts after the
+ * sort values of the last hit of the previous page, so deep pages cost as much as the first one.
+ * <p>
+ * Spring Data Elasticsearch 4.1 queries can't carry {@code search_after}, so the request is sent through the client,
+ * and the documents are read with the converter of the template.
+ */
+final class SearchAfterSupport {
+
+    private SearchAfterSupport() {}
+
+    static <T> Flux<SearchAfterHit<T>> search(
+        ReactiveElasticsearchTemplate template,
+        Class<T> entityType,
+        QueryBuilder query,
+        int size,
+        List<Object> searchAfter
+    ) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(query)
+            .size(size)
+            .trackTotalHits(false)
+            .sort(SortBuilders.scoreSort())
+            .sort(SortBuilders.fieldSort("id").order(SortOrder.ASC));
+        if (!searchAfter.isEmpty()) {
+            source.searchAfter(searchAfter.toArray());
+        }
+        SearchRequest request = new SearchRequest(template.getIndexCoordinatesFor(entityType).getIndexNames()).source(source);
+        ElasticsearchConverter converter = template.getElasticsearchConverter();
+        return Flux
+            .from(template.execute(client -> client.search(request)))
+            .map(hit -> new SearchAfterHit<>(converter.read(entityType, DocumentAdapters.from(hit)), Arrays.asList(hit.getSortValues())));
+    }
+
+    static Mono<Long> count(ReactiveElasticsearchTemplate template, Class<?> entityType, QueryBuilder query) {
+        return template.count(new NativeSearchQuery(query), entityType);
+    }
+}
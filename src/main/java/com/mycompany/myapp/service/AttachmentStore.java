@@ -0,0 +1,155 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Stores the attached files on the local disk, under the SHA-256 of their content: the reference of a file is the hex
+ * of its digest, which also gives its path, e.g. {@code ab/cd/abcd…}, so the same content is stored once.
+ * <p>
+ * An upload is streamed to a temporary file while its digest is computed, then moved to its path, so a file is never
+ * read before it is complete. The files are read as {@link FileSystemResource}s, which the web layer writes with
+ * zero-copy, and by ranges.
+ */
+@Service
+public class AttachmentStore {
+
+    private static final Pattern REFERENCE = Pattern.compile("[0-9a-f]{64}");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Logger log = LoggerFactory.getLogger(AttachmentStore.class);
+
+    private final Path directory;
+
+    private final Path uploads;
+
+    private final long maxSize;
+
+    public AttachmentStore(ApplicationProperties applicationProperties) {
+        this.directory = Paths.get(applicationProperties.getAttachments().getDirectory()).toAbsolutePath();
+        this.uploads = directory.resolve("uploads");
+        this.maxSize = applicationProperties.getAttachments().getMaxSize().toBytes();
+    }
+
+    /**
+     * Stores a file.
+     * @param content the content of the file, which is released once written.
+     * @return the reference of the file, or a {@link DataBufferLimitException} if the file exceeds the maximum size.
+     */
+    public Mono<String> store(Flux<DataBuffer> content) {
+        return Mono
+            .fromCallable(
+                () -> {
+                    Files.createDirectories(uploads);
+                    return Files.createTempFile(uploads, "upload", ".part");
+                }
+            )
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(
+                upload -> {
+                    MessageDigest digest = sha256();
+                    AtomicLong size = new AtomicLong();
+                    Flux<DataBuffer> digested = content.doOnNext(
+                        buffer -> {
+                            if (size.addAndGet(buffer.readableByteCount()) > maxSize) {
+                                DataBufferUtils.release(buffer);
+                                throw new DataBufferLimitException("The file exceeds the maximum size of " + maxSize + " bytes");
+                            }
+                            // reads a view of the buffer, which is still written in full
+                            digest.update(buffer.asByteBuffer());
+                        }
+                    );
+                    return DataBufferUtils
+                        .write(digested, upload)
+                        .then(Mono.fromCallable(() -> moveTo(upload, hex(digest.digest()))).subscribeOn(Schedulers.boundedElastic()))
+                        .doFinally(signal -> Schedulers.boundedElastic().schedule(() -> deleteIfExists(upload)));
+                }
+            );
+    }
+
+    /**
+     * Finds a file.
+     * @param reference the reference of the file, may be {@code null}.
+     * @return the file, or empty if the reference is not one of a stored file.
+     */
+    public Mono<FileSystemResource> find(String reference) {
+        if (!isReference(reference)) {
+            return Mono.empty();
+        }
+        return Mono
+            .fromCallable(
+                () -> {
+                    Path file = pathOf(reference);
+                    return Files.isRegularFile(file) ? new FileSystemResource(file) : null;
+                }
+            )
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @param value a value, e.g. the {@code resultadoFile} of a historia.
+     * @return whether the value is the reference of a file.
+     */
+    public static boolean isReference(String value) {
+        return value != null && REFERENCE.matcher(value).matches();
+    }
+
+    Path pathOf(String reference) {
+        return directory.resolve(reference.substring(0, 2)).resolve(reference.substring(2, 4)).resolve(reference);
+    }
+
+    private String moveTo(Path upload, String reference) throws IOException {
+        Path file = pathOf(reference);
+        if (Files.exists(file)) {
+            // the same content is already stored, the upload is deleted
+            return reference;
+        }
+        Files.createDirectories(file.getParent());
+        Files.move(upload, file, StandardCopyOption.ATOMIC_MOVE);
+        return reference;
+    }
+
+    private void deleteIfExists(Path upload) {
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Unable to delete the upload {}", upload, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,335 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory counters of the reservas, by day and especialidad, and of the historias, by day, which answer the
+ * statistics of the dashboards without reading the tables.
+ * <p>
+ * Every day holds one counter per especialidad, one for the reservas without especialidad and one for the historias,
+ * in a map sorted by day, so the buckets of a week or a month are summed from consecutive days. The counters are
+ * rebuilt from the counts of the tables, grouped by the database, at startup or on demand, and are kept up to date by
+ * the writes of this instance once their transaction is committed. The writes committed during a rebuild, and the
+ * writes of the other instances, may be missed until the next rebuild.
+ */
+@Service
+public class BookingStatistics implements MeterBinder {
+
+    private static final Especialidad[] especialidades = Especialidad.values();
+    private static final int noEspecialidad = especialidades.length;
+    private static final int historias = especialidades.length + 1;
+    private static final int columns = especialidades.length + 2;
+
+    private final Logger log = LoggerFactory.getLogger(BookingStatistics.class);
+
+    private final ReservaRepository reservaRepository;
+
+    private final HistoriaRepository historiaRepository;
+
+    private final boolean rebuildOnStartup;
+
+    private volatile ConcurrentSkipListMap<LocalDate, AtomicLongArray> days = new ConcurrentSkipListMap<>();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Instant rebuiltAt;
+
+    private final LongAdder rebuilds = new LongAdder();
+
+    public BookingStatistics(
+        ReservaRepository reservaRepository,
+        HistoriaRepository historiaRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.reservaRepository = reservaRepository;
+        this.historiaRepository = historiaRepository;
+        this.rebuildOnStartup = applicationProperties.getStatistics().isRebuildOnStartup();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (rebuildOnStartup) {
+            startRebuild();
+        }
+    }
+
+    /**
+     * Starts a rebuild of the counters in the background, unless one is already running.
+     * @return whether the rebuild was started.
+     */
+    public boolean startRebuild() {
+        if (rebuilding.get()) {
+            return false;
+        }
+        rebuild().subscribe(null, e -> log.error("Unable to rebuild the booking statistics: {}", e.getMessage()));
+        return true;
+    }
+
+    /**
+     * Rebuilds the counters from the tables, unless a rebuild is already running, and replaces them once complete.
+     * @return a {@link Mono} which completes when the counters are replaced.
+     */
+    public Mono<Void> rebuild() {
+        return Mono.defer(
+            () -> {
+                if (!rebuilding.compareAndSet(false, true)) {
+                    return Mono.empty();
+                }
+                Instant started = Instant.now();
+                ConcurrentSkipListMap<LocalDate, AtomicLongArray> loaded = new ConcurrentSkipListMap<>();
+                return Flux
+                    .concat(
+                        reservaRepository
+                            .countByFechaAndEspecialidad()
+                            .doOnNext(count -> add(loaded, count.getFecha(), columnOf(count.getEspecialidad()), count.getCount())),
+                        historiaRepository.countByFecha().doOnNext(count -> add(loaded, count.getFecha(), historias, count.getCount()))
+                    )
+                    .then(
+                        Mono.fromRunnable(
+                            () -> {
+                                days = loaded;
+                                rebuiltAt = started;
+                                rebuilds.increment();
+                                log.info(
+                                    "Rebuilt the booking statistics of {} days in {} ms",
+                                    loaded.size(),
+                                    Duration.between(started, Instant.now()).toMillis()
+                                );
+                            }
+                        )
+                    )
+                    .doFinally(signal -> rebuilding.set(false))
+                    .then();
+            }
+        );
+    }
+
+    /**
+     * Counts a new reserva, once the current transaction, if any, is committed.
+     * @param reserva the created reserva.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> add(Reserva reserva) {
+        return count(reserva.getFecha(), columnOf(reserva.getEspecialidad()), 1);
+    }
+
+    /**
+     * Uncounts a deleted reserva, once the current transaction, if any, is committed.
+     * @param reserva the reserva as it was before it was deleted.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> remove(Reserva reserva) {
+        return count(reserva.getFecha(), columnOf(reserva.getEspecialidad()), -1);
+    }
+
+    /**
+     * Moves the count of an updated reserva, if it changed of day or especialidad.
+     * @param previous the reserva before its update.
+     * @param current the reserva after its update.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> move(Reserva previous, Reserva current) {
+        if (Objects.equals(previous.getFecha(), current.getFecha()) && previous.getEspecialidad() == current.getEspecialidad()) {
+            return Mono.empty();
+        }
+        return remove(previous).then(add(current));
+    }
+
+    /**
+     * Counts a new historia, once the current transaction, if any, is committed.
+     * @param historia the created historia.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> add(Historia historia) {
+        return count(historia.getFecha(), historias, 1);
+    }
+
+    /**
+     * Uncounts a deleted historia, once the current transaction, if any, is committed.
+     * @param historia the historia as it was before it was deleted.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> remove(Historia historia) {
+        return count(historia.getFecha(), historias, -1);
+    }
+
+    /**
+     * Moves the count of an updated historia, if it changed of day.
+     * @param previous the historia before its update.
+     * @param current the historia after its update.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> move(Historia previous, Historia current) {
+        if (Objects.equals(previous.getFecha(), current.getFecha())) {
+            return Mono.empty();
+        }
+        return remove(previous).then(add(current));
+    }
+
+    /**
+     * Returns the number of reservas by bucket, and by especialidad.
+     * @param granularity the span of the buckets.
+     * @param from the first day to count, or {@code null} to count from the first reserva.
+     * @param to the day after the last day to count, or {@code null} to count until the last reserva.
+     * @return the buckets which hold reservas, in order.
+     */
+    public List<StatisticsBucket> getReservas(StatisticsBucket.Granularity granularity, LocalDate from, LocalDate to) {
+        return buckets(granularity, from, to, true);
+    }
+
+    /**
+     * Returns the number of historias by bucket.
+     * @param granularity the span of the buckets.
+     * @param from the first day to count, or {@code null} to count from the first historia.
+     * @param to the day after the last day to count, or {@code null} to count until the last historia.
+     * @return the buckets which hold historias, in order.
+     */
+    public List<StatisticsBucket> getHistorias(StatisticsBucket.Granularity granularity, LocalDate from, LocalDate to) {
+        return buckets(granularity, from, to, false);
+    }
+
+    public Status getStatus() {
+        return new Status(rebuilding.get(), rebuiltAt, days.size());
+    }
+
+    private List<StatisticsBucket> buckets(StatisticsBucket.Granularity granularity, LocalDate from, LocalDate to, boolean reservas) {
+        NavigableMap<LocalDate, AtomicLongArray> range = days;
+        if (from != null) {
+            range = range.tailMap(from, true);
+        }
+        if (to != null) {
+            range = range.headMap(to, false);
+        }
+        List<StatisticsBucket> buckets = new ArrayList<>();
+        LocalDate start = null;
+        long[] sums = new long[columns];
+        for (Map.Entry<LocalDate, AtomicLongArray> day : range.entrySet()) {
+            LocalDate dayStart = granularity.startOf(day.getKey());
+            if (!dayStart.equals(start)) {
+                addBucket(buckets, start, sums, reservas);
+                start = dayStart;
+                sums = new long[columns];
+            }
+            AtomicLongArray counts = day.getValue();
+            for (int column = 0; column < columns; column++) {
+                sums[column] += counts.get(column);
+            }
+        }
+        addBucket(buckets, start, sums, reservas);
+        return buckets;
+    }
+
+    private static void addBucket(List<StatisticsBucket> buckets, LocalDate start, long[] sums, boolean reservas) {
+        if (start == null) {
+            return;
+        }
+        if (!reservas) {
+            if (sums[historias] != 0) {
+                buckets.add(new StatisticsBucket(start, sums[historias], null));
+            }
+            return;
+        }
+        Map<Especialidad, Long> byEspecialidad = new EnumMap<>(Especialidad.class);
+        long total = sums[noEspecialidad];
+        for (Especialidad especialidad : especialidades) {
+            long count = sums[especialidad.ordinal()];
+            if (count != 0) {
+                byEspecialidad.put(especialidad, count);
+                total += count;
+            }
+        }
+        if (total != 0) {
+            buckets.add(new StatisticsBucket(start, total, byEspecialidad));
+        }
+    }
+
+    private Mono<Void> count(LocalDate fecha, int column, long delta) {
+        if (fecha == null) {
+            return Mono.empty();
+        }
+        // the counters are read once the transaction is committed, as a rebuild may have replaced them meanwhile
+        return TransactionHooks.afterCommit(() -> add(days, fecha, column, delta));
+    }
+
+    private static void add(ConcurrentSkipListMap<LocalDate, AtomicLongArray> days, LocalDate fecha, int column, long delta) {
+        if (fecha != null) {
+            days.computeIfAbsent(fecha, day -> new AtomicLongArray(columns)).addAndGet(column, delta);
+        }
+    }
+
+    private static int columnOf(Especialidad especialidad) {
+        return especialidad == null ? noEspecialidad : especialidad.ordinal();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder("statistics.days", this, statistics -> statistics.days.size())
+            .description("The number of days whose reservas and historias are counted")
+            .register(registry);
+        FunctionCounter
+            .builder("statistics.rebuilds", rebuilds, LongAdder::sum)
+            .description("The number of rebuilds of the counters from the database")
+            .register(registry);
+    }
+
+    /**
+     * The state of the counters.
+     */
+    public static final class Status {
+
+        private final boolean rebuilding;
+        private final Instant rebuiltAt;
+        private final int days;
+
+        Status(boolean rebuilding, Instant rebuiltAt, int days) {
+            this.rebuilding = rebuilding;
+            this.rebuiltAt = rebuiltAt;
+            this.days = days;
+        }
+
+        public boolean isRebuilding() {
+            return rebuilding;
+        }
+
+        /**
+         * @return the start of the last completed rebuild, or {@code null} if none completed yet.
+         */
+        public Instant getRebuiltAt() {
+            return rebuiltAt;
+        }
+
+        public int getDays() {
+            return days;
+        }
+    }
+}
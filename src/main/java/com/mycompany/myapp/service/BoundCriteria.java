@@ -0,0 +1,110 @@
+package com.mycompany.myapp.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.data.relational.core.sql.Condition;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.r2dbc.core.Parameter;
+
+/**
+ * A where condition which references its values through the bind markers of the database dialect, together with the
+ * values to bind, in the order of the markers.
+ * <p>
+ * The SQL text of the condition only depends on the shape of the criteria, not on the values, so the statement can be
+ * cached and the database can reuse its prepared plan. The limit and offset of the page, if any, are bound the same
+ * way, after the values of the condition. Instances are created by {@link EntityManager#bindCriteria}.
+ */
+public final class BoundCriteria {
+
+    static final BoundCriteria EMPTY = new BoundCriteria(null, Collections.emptyList());
+
+    private final Condition condition;
+    private final List<Parameter> bindings;
+    private final int pageBindingCount;
+
+    BoundCriteria(@Nullable Condition condition, List<Parameter> bindings) {
+        this(condition, bindings, 0);
+    }
+
+    private BoundCriteria(@Nullable Condition condition, List<Parameter> bindings, int pageBindingCount) {
+        this.condition = condition;
+        this.bindings = Collections.unmodifiableList(bindings);
+        this.pageBindingCount = pageBindingCount;
+    }
+
+    /**
+     * @param values the values of the paging markers, e.g. the limit and the offset, in the order of their markers.
+     * @return this condition, with the given values bound after the values of the condition.
+     */
+    BoundCriteria withPage(Object... values) {
+        List<Parameter> paged = new ArrayList<>(bindings);
+        for (Object value : values) {
+            paged.add(Parameter.from(value));
+        }
+        return new BoundCriteria(condition, paged, pageBindingCount + values.length);
+    }
+
+    /**
+     * @return the number of values bound to the markers of the condition, the paging markers come after them.
+     */
+    int getConditionBindingCount() {
+        return bindings.size() - pageBindingCount;
+    }
+
+    /**
+     * @return the number of values bound to the paging markers.
+     */
+    int getPageBindingCount() {
+        return pageBindingCount;
+    }
+
+    /**
+     * @return the condition, or null if there is no condition.
+     */
+    @Nullable
+    public Condition getCondition() {
+        return condition;
+    }
+
+    /**
+     * @return the values to bind, the value at index {@code i} is bound to the marker at index {@code i}.
+     */
+    public List<Parameter> getBindings() {
+        return bindings;
+    }
+
+    public boolean isEmpty() {
+        return condition == null;
+    }
+
+    /**
+     * @return the shape of the condition, which contains the bind markers but not the values.
+     */
+    public String getShape() {
+        return condition == null ? "" : condition.toString();
+    }
+
+    /**
+     * Binds the values to the given statement, by index.
+     * @param spec the statement, created from a select containing this condition.
+     * @return the bound statement.
+     */
+    public GenericExecuteSpec bindTo(GenericExecuteSpec spec) {
+        for (int i = 0; i < bindings.size(); i++) {
+            Parameter binding = bindings.get(i);
+            if (binding.hasValue()) {
+                spec = spec.bind(i, binding.getValue());
+            } else {
+                spec = spec.bindNull(i, binding.getType());
+            }
+        }
+        return spec;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundCriteria{" + getShape() + ", bindings=" + bindings + "}";
+    }
+}
@@ -0,0 +1,115 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+
+/**
+ * Creates a stream of entities in batches: every batch is inserted with one batched statement in its own transaction,
+ * along with its {@link SearchOutbox} entries.
+ * <p>
+ * The records are read from the stream only as fast as the batches are written, and a result is emitted for every
+ * record, so neither side has to buffer more than a batch. When a batch fails, its records are inserted one by one, so
+ * only the faulty records fail.
+ */
+@Service
+public class BulkInserter {
+
+    private final Logger log = LoggerFactory.getLogger(BulkInserter.class);
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final int batchSize;
+
+    public BulkInserter(TransactionalOperator transactionalOperator, ApplicationProperties applicationProperties) {
+        this.transactionalOperator = transactionalOperator;
+        this.batchSize = applicationProperties.getBulk().getBatchSize();
+    }
+
+    /**
+     * Creates the given entities.
+     * @param <T> the type of the entities.
+     * @param entities the entities to create, which must not have an id yet.
+     * @param idOf returns the id of an entity.
+     * @param insert inserts a batch of entities into the database, e.g. {@link EntityManager#insertAll(List)}.
+     * @return the result of the creation of every entity, in the order of the entities.
+     */
+    public <T> Flux<BulkResult> insertAll(Flux<T> entities, Function<T, Long> idOf, Function<List<T>, Flux<T>> insert) {
+        return insertAll(entities, idOf, entity -> null, insert);
+    }
+
+    /**
+     * Creates the given entities, except the invalid ones, which are rejected.
+     * @param <T> the type of the entities.
+     * @param entities the entities to create, which must not have an id yet.
+     * @param idOf returns the id of an entity.
+     * @param validate returns the error key of an invalid entity, or {@code null} if the entity is valid.
+     * @param insert inserts a batch of entities into the database, e.g. {@link EntityManager#insertAll(List)}.
+     * @return the result of the creation of every entity, in the order of the entities.
+     */
+    public <T> Flux<BulkResult> insertAll(
+        Flux<T> entities,
+        Function<T, Long> idOf,
+        Function<T, String> validate,
+        Function<List<T>, Flux<T>> insert
+    ) {
+        return entities
+            .index()
+            .buffer(batchSize)
+            .concatMap(
+                batch -> {
+                    List<BulkResult> rejected = new ArrayList<>();
+                    List<Tuple2<Long, T>> valid = new ArrayList<>(batch.size());
+                    for (Tuple2<Long, T> record : batch) {
+                        String error = idOf.apply(record.getT2()) != null ? "idexists" : validate.apply(record.getT2());
+                        if (error != null) {
+                            rejected.add(BulkResult.rejected(record.getT1(), error));
+                        } else {
+                            valid.add(record);
+                        }
+                    }
+                    return Flux
+                        .concat(Flux.fromIterable(rejected), insertBatch(valid, idOf, insert))
+                        .sort(Comparator.comparingLong(BulkResult::getIndex));
+                },
+                1
+            );
+    }
+
+    private <T> Flux<BulkResult> insertBatch(List<Tuple2<Long, T>> batch, Function<T, Long> idOf, Function<List<T>, Flux<T>> insert) {
+        if (batch.isEmpty()) {
+            return Flux.empty();
+        }
+        List<T> entities = new ArrayList<>(batch.size());
+        batch.forEach(record -> entities.add(record.getT2()));
+        return transactionalOperator
+            .transactional(Flux.defer(() -> insert.apply(entities)).collectList())
+            .flatMapIterable(
+                inserted -> {
+                    List<BulkResult> results = new ArrayList<>(inserted.size());
+                    for (int i = 0; i < inserted.size(); i++) {
+                        results.add(BulkResult.created(batch.get(i).getT1(), idOf.apply(inserted.get(i))));
+                    }
+                    return results;
+                }
+            )
+            .onErrorResume(
+                e -> {
+                    if (batch.size() == 1) {
+                        log.warn("Unable to create the record {}: {}", batch.get(0).getT1(), e.getMessage());
+                        return Flux.just(BulkResult.failed(batch.get(0).getT1(), "createfailed"));
+                    }
+                    log.debug("Unable to create a batch of {} records, creating them one by one: {}", batch.size(), e.getMessage());
+                    return Flux.fromIterable(batch).concatMap(record -> insertBatch(List.of(record), idOf, insert));
+                }
+            );
+    }
+}
@@ -0,0 +1,73 @@
+package com.mycompany.myapp.service;
+
+/**
+ * The outcome of the creation of one record of a bulk create request.
+ */
+public final class BulkResult {
+
+    public enum Status {
+        CREATED,
+        REJECTED,
+        FAILED,
+    }
+
+    private final long index;
+    private final Status status;
+    private final Long id;
+    private final String error;
+
+    private BulkResult(long index, Status status, Long id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    /**
+     * @param index the position of the record in the request.
+     * @param id the id of the created entity.
+     * @return the result of a created record.
+     */
+    public static BulkResult created(long index, Long id) {
+        return new BulkResult(index, Status.CREATED, id, null);
+    }
+
+    /**
+     * @param index the position of the record in the request.
+     * @param error the error key, e.g. {@code idexists}.
+     * @return the result of a record which is not valid, and wasn't created.
+     */
+    public static BulkResult rejected(long index, String error) {
+        return new BulkResult(index, Status.REJECTED, null, error);
+    }
+
+    /**
+     * @param index the position of the record in the request.
+     * @param error the error key.
+     * @return the result of a record which couldn't be created.
+     */
+    public static BulkResult failed(long index, String error) {
+        return new BulkResult(index, Status.FAILED, null, error);
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{index=" + index + ", status=" + status + ", id=" + id + ", error=" + error + "}";
+    }
+}
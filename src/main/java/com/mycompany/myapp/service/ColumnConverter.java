@@ -1,7 +1,10 @@
 package com.mycompany.myapp.service;
 
 import io.r2dbc.spi.Row;
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
 import org.springframework.lang.Nullable;
@@ -46,6 +49,46 @@ public class ColumnConverter {
         return conversionService.convert(value, target);
     }
 
+    /**
+     * Resolves how to read the column at the given index as the target type, once for all the rows of the same shape:
+     * the rows are then read without trying the driver first, catching its exception, or looking up the conversion.
+     * @param index the index of the column in the rows.
+     * @param driverType the type of the values which the driver returns for the column, or null if it is unknown.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the reader of the column.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ColumnReader<T> reader(int index, @Nullable Class<?> driverType, Class<T> target) {
+        Class<?> source = driverType == null ? Object.class : ClassUtils.resolvePrimitiveIfNecessary(driverType);
+        if (source != Object.class && target.isAssignableFrom(source)) {
+            return row -> row.get(index, target);
+        }
+        if (target.isEnum()) {
+            Map<String, T> constants = new HashMap<>();
+            for (T constant : target.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+            return row -> {
+                Object value = row.get(index);
+                if (value == null) {
+                    return null;
+                }
+                T constant = constants.get(value.toString());
+                if (constant == null) {
+                    throw new IllegalArgumentException("No enum constant " + target.getCanonicalName() + "." + value);
+                }
+                return constant;
+            };
+        }
+        if (source != Object.class && conversionService.canConvert(source, target)) {
+            TypeDescriptor sourceType = TypeDescriptor.valueOf(source);
+            TypeDescriptor targetType = TypeDescriptor.valueOf(target);
+            return row -> (T) conversionService.convert(row.get(index), sourceType, targetType);
+        }
+        return row -> convert(row.get(index), target);
+    }
+
     /**
      * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
      * @param row which contains the column values.
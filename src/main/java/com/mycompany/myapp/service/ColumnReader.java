@@ -0,0 +1,14 @@
+package com.mycompany.myapp.service;
+
+import io.r2dbc.spi.Row;
+
+/**
+ * Reads the value of one column of a {@link Row}, by index, already converted to the type of its property. Created
+ * once per shape of the rows by {@link ColumnConverter#reader(int, Class, Class)}.
+ *
+ * @param <T> the type of the value.
+ */
+@FunctionalInterface
+public interface ColumnReader<T> {
+    T read(Row row);
+}
@@ -0,0 +1,40 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import java.time.LocalDate;
+
+/**
+ * The number of rows of a table on one day, and of one especialidad if the table has one, see {@link BookingStatistics}.
+ */
+public final class DailyCount {
+
+    private final LocalDate fecha;
+    private final Especialidad especialidad;
+    private final long count;
+
+    public DailyCount(LocalDate fecha, Especialidad especialidad, long count) {
+        this.fecha = fecha;
+        this.especialidad = especialidad;
+        this.count = count;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * @return the especialidad, or {@code null} for the rows without one.
+     */
+    public Especialidad getEspecialidad() {
+        return especialidad;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyCount{fecha=" + fecha + ", especialidad=" + especialidad + ", count=" + count + "}";
+    }
+}
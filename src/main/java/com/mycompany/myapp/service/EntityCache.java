@@ -0,0 +1,200 @@
+package com.mycompany.myapp.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.config.ReplicaRoutingConnectionFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Read-through cache of the entities of one type, by id, bounded in size and time to live.
+ * <p>
+ * The cache holds the pending loads as futures, so concurrent requests for the same id share a single query, and
+ * nothing waits on a lock: the callers are never blocked, which keeps the cache safe on the event loop threads. The
+ * load itself is subscribed by the first caller, in its own reactive context, e.g. its transaction, but always on the
+ * primary database, see {@link ReplicaRoutingConnectionFactory#primary(Context)}, so a read replica which lags behind
+ * never fills the cache with a stale entity. Missing entities are not cached.
+ * <p>
+ * The cached instances are shared between the callers, so they must not be modified. The caches are created and
+ * invalidated by the {@link EntityCacheManager}.
+ *
+ * @param <T> the type of the entity.
+ */
+public final class EntityCache<T> implements MeterBinder {
+
+    private final String name;
+    private final AsyncCache<Long, T> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    EntityCache(String name, ApplicationProperties.Cache properties) {
+        this.name = name;
+        this.cache =
+            properties.isEnabled()
+                ? Caffeine
+                    .newBuilder()
+                    .maximumSize(properties.getMaxEntries())
+                    .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+                    .removalListener(
+                        (Object key, Object value, RemovalCause cause) -> {
+                            if (cause.wasEvicted()) {
+                                evictions.increment();
+                            }
+                        }
+                    )
+                    .buildAsync()
+                : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Returns the cached entity with the given id, or loads it and caches it.
+     * @param id the id of the entity.
+     * @param loader loads the entity, only called on a cache miss.
+     * @return the entity, or an empty {@link Mono} if there is no entity with the given id.
+     */
+    public Mono<T> get(Long id, Function<Long, Mono<T>> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        return Mono.defer(
+            () -> {
+                CompletableFuture<T> cached = cache.getIfPresent(id);
+                if (cached != null) {
+                    hits.increment();
+                    return fromFuture(cached, id, loader);
+                }
+                misses.increment();
+                CompletableFuture<T> loading = new CompletableFuture<>();
+                CompletableFuture<T> concurrent = cache.asMap().putIfAbsent(id, loading);
+                if (concurrent != null) {
+                    return fromFuture(concurrent, id, loader);
+                }
+                long start = System.nanoTime();
+                return loader
+                    .apply(id)
+                    .contextWrite(ReplicaRoutingConnectionFactory::primary)
+                    .doOnSuccess(
+                        entity -> {
+                            loads.increment();
+                            loadNanos.add(System.nanoTime() - start);
+                            if (entity == null) {
+                                cache.asMap().remove(id, loading);
+                            }
+                            loading.complete(entity);
+                        }
+                    )
+                    .doOnError(
+                        e -> {
+                            cache.asMap().remove(id, loading);
+                            loading.completeExceptionally(e);
+                        }
+                    )
+                    .doOnCancel(
+                        () -> {
+                            cache.asMap().remove(id, loading);
+                            loading.cancel(false);
+                        }
+                    );
+            }
+        );
+    }
+
+    private Mono<T> fromFuture(CompletableFuture<T> future, Long id, Function<Long, Mono<T>> loader) {
+        // the load of another caller was cancelled, so this caller loads the entity itself
+        return Mono.fromFuture(future).onErrorResume(CancellationException.class, e -> loader.apply(id));
+    }
+
+    /**
+     * Removes the entity with the given id from the cache.
+     * @param id the id of the entity.
+     */
+    public void evict(Long id) {
+        if (cache != null) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    /**
+     * Removes all the entities from the cache.
+     */
+    public void evictAll() {
+        if (cache != null) {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.synchronous().estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter
+            .builder("cache.gets", hits, LongAdder::sum)
+            .tags("cache", name, "result", "hit")
+            .description("The number of times an entity was found in the cache")
+            .register(registry);
+        FunctionCounter
+            .builder("cache.gets", misses, LongAdder::sum)
+            .tags("cache", name, "result", "miss")
+            .description("The number of times an entity had to be loaded")
+            .register(registry);
+        Gauge
+            .builder("cache.hit.ratio", this, EntityCache::hitRatio)
+            .tags("cache", name)
+            .description("The ratio of the gets which found the entity in the cache")
+            .register(registry);
+        FunctionCounter
+            .builder("cache.evictions", evictions, LongAdder::sum)
+            .tags("cache", name)
+            .description("The number of entities evicted because of the size or time to live bounds")
+            .register(registry);
+        FunctionTimer
+            .builder(
+                "cache.load",
+                this,
+                entityCache -> entityCache.loads.sum(),
+                entityCache -> entityCache.loadNanos.sum(),
+                TimeUnit.NANOSECONDS
+            )
+            .tags("cache", name)
+            .description("The time spent loading the entities")
+            .register(registry);
+        Gauge
+            .builder("cache.size", this, EntityCache::size)
+            .tags("cache", name)
+            .description("The number of cached entities")
+            .register(registry);
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.Reserva;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds the read-through {@link EntityCache}s of the entities, and invalidates them when the entities are written.
+ * <p>
+ * A cached entity embeds the entities it references, e.g. a cached reserva holds its paciente, so writing an entity
+ * also invalidates the caches of the entities which reference it.
+ */
+@Service
+public class EntityCacheManager implements MeterBinder {
+
+    private final Map<Class<?>, EntityCache<?>> caches = new HashMap<>();
+    private final Map<Class<?>, List<Class<?>>> referencedBy = new HashMap<>();
+
+    public EntityCacheManager(ApplicationProperties applicationProperties) {
+        ApplicationProperties.EntityCache properties = applicationProperties.getEntityCache();
+        register(Especialista.class, properties.getEspecialista(), List.of(Paciente.class));
+        register(Paciente.class, properties.getPaciente(), List.of(Reserva.class, Historia.class));
+        register(Reserva.class, properties.getReserva(), List.of());
+        register(Historia.class, properties.getHistoria(), List.of());
+    }
+
+    private void register(Class<?> entityType, ApplicationProperties.Cache properties, List<Class<?>> referencingTypes) {
+        caches.put(entityType, new EntityCache<>(entityType.getSimpleName().toLowerCase(), properties));
+        referencedBy.put(entityType, referencingTypes);
+    }
+
+    /**
+     * @param <T> the type of the entity.
+     * @param entityType the type of the entity.
+     * @return the cache of the entities of the given type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> EntityCache<T> getCache(Class<T> entityType) {
+        EntityCache<T> cache = (EntityCache<T>) caches.get(entityType);
+        if (cache == null) {
+            throw new IllegalArgumentException("No cache for " + entityType.getName());
+        }
+        return cache;
+    }
+
+    /**
+     * Wraps a write of the entity with the given id, so the entity is evicted from the cache before and after the
+     * write, and again after the completion of the current transaction, if any: a concurrent read can't cache the
+     * entity as it was before the write.
+     * @param <R> the result type of the write.
+     * @param entityType the type of the written entity.
+     * @param id the id of the written entity.
+     * @param write the write.
+     * @return the write, with the invalidation.
+     */
+    public <R> Mono<R> invalidate(Class<?> entityType, Long id, Mono<R> write) {
+        return evictAfterCompletion(entityType, id).then(write).doFinally(signal -> evict(entityType, id));
+    }
+
+    /**
+     * Evicts the entity with the given id, and the entities which reference it.
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     */
+    public void evict(Class<?> entityType, Long id) {
+        getCache(entityType).evict(id);
+        for (Class<?> referencingType : referencedBy.get(entityType)) {
+            evictAll(referencingType);
+        }
+    }
+
+    /**
+     * Evicts all the entities of the given type, and the entities which reference them.
+     * @param entityType the type of the entities.
+     */
+    public void evictAll(Class<?> entityType) {
+        getCache(entityType).evictAll();
+        for (Class<?> referencingType : referencedBy.get(entityType)) {
+            evictAll(referencingType);
+        }
+    }
+
+    private Mono<Void> evictAfterCompletion(Class<?> entityType, Long id) {
+        return Mono
+            .fromRunnable(() -> evict(entityType, id))
+            .then(TransactionSynchronizationManager.forCurrentTransaction())
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(
+                synchronizationManager ->
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                return Mono.fromRunnable(() -> evict(entityType, id));
+                            }
+                        }
+                    )
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .then();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        caches.values().forEach(cache -> cache.bindTo(registry));
+    }
+}
@@ -1,22 +1,44 @@
 package com.mycompany.myapp.service;
 
+import com.mycompany.myapp.config.ApplicationProperties;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.query.BoundCondition;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.data.relational.core.sql.Aliased;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.IdentifierProcessing;
 import org.springframework.data.relational.core.sql.OrderByField;
+import org.springframework.data.relational.core.sql.SQL;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
@@ -24,7 +46,12 @@ import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
 import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindTarget;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
@@ -56,16 +83,243 @@ public class EntityManager {
         }
     }
 
+    /**
+     * The shape of a select statement: all the statements with the same shape have the same SQL text, only their
+     * bound values differ.
+     */
+    public static final class StatementKey {
+
+        private final Class<?> entityType;
+        private final String joinShape;
+        private final String criteriaShape;
+        private final Sort sort;
+        private final String paging;
+
+        private StatementKey(Class<?> entityType, String joinShape, String criteriaShape, Sort sort, String paging) {
+            Assert.notNull(entityType, "entityType is null");
+            Assert.notNull(joinShape, "joinShape is null");
+            this.entityType = entityType;
+            this.joinShape = joinShape;
+            this.criteriaShape = criteriaShape;
+            this.sort = sort;
+            this.paging = paging;
+        }
+
+        /**
+         * @param entityType the entity type which holds the table name.
+         * @param joinShape identifies the joined tables and the selected columns, e.g. the alias of the joined table.
+         * @param pageable page parameter, or null, if everything needs to be returned.
+         * @param where the condition of the select.
+         * @return the shape of a select by page.
+         */
+        public static StatementKey of(Class<?> entityType, String joinShape, Pageable pageable, BoundCriteria where) {
+            if (pageable == null || pageable.isUnpaged()) {
+                return new StatementKey(entityType, joinShape, where.getShape(), Sort.unsorted(), "");
+            }
+            // the limit and the offset are bound, so all the pages share the statement
+            return new StatementKey(entityType, joinShape, where.getShape(), pageable.getSort(), "paged");
+        }
+
+        /**
+         * @param entityType the entity type which holds the table name.
+         * @param joinShape identifies the joined tables and the selected columns, e.g. the alias of the joined table.
+         * @param keyset keyset page parameter.
+         * @param where the condition of the select, including the seek of the keyset page.
+         * @return the shape of a select by keyset page.
+         */
+        public static StatementKey of(Class<?> entityType, String joinShape, KeysetPageable keyset, BoundCriteria where) {
+            return new StatementKey(entityType, joinShape, where.getShape(), Sort.unsorted(), "keyset");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return (
+                entityType.equals(that.entityType) &&
+                joinShape.equals(that.joinShape) &&
+                criteriaShape.equals(that.criteriaShape) &&
+                sort.equals(that.sort) &&
+                paging.equals(that.paging)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, joinShape, criteriaShape, sort, paging);
+        }
+
+        @Override
+        public String toString() {
+            return (
+                "StatementKey{" +
+                entityType.getSimpleName() +
+                ", join=" +
+                joinShape +
+                ", criteria=" +
+                criteriaShape +
+                ", sort=" +
+                sort +
+                ", paging=" +
+                paging +
+                "}"
+            );
+        }
+    }
+
+    private static final Pattern planRows = Pattern.compile("rows=(\\d+)");
+
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final StatementCache statementCache;
+    private final R2dbcDialect dialect;
+    private final int fetchSize;
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        StatementCache statementCache,
+        R2dbcDialect dialect,
+        ApplicationProperties applicationProperties
+    ) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
+        this.statementCache = statementCache;
+        this.dialect = dialect;
+        this.fetchSize = applicationProperties.getStream().getFetchSize();
+    }
+
+    /**
+     * Returns the SQL select statement with the given shape from the statement cache, the statement is created
+     * by the given renderer, only if it isn't cached yet.
+     * @param key the shape of the statement.
+     * @param renderer creates the statement, e.g. with one of the {@code createSelect} methods.
+     * @return sql select statement
+     */
+    public String getCachedSelect(StatementKey key, Supplier<String> renderer) {
+        return statementCache.get(key, renderer);
+    }
+
+    /**
+     * Reads the rows of the given statement from a database cursor, by batches of the configured fetch size, instead
+     * of receiving the whole result at once: the next batch is only fetched when the subscriber has consumed the
+     * previous one. Outside of a transaction, the connection goes back to the pool as soon as the last row is read.
+     * @param spec the statement, with its bound values.
+     * @return the statement, which fetches its rows by batches.
+     */
+    public GenericExecuteSpec fetchInBatches(GenericExecuteSpec spec) {
+        return spec.filter(statement -> statement.fetchSize(fetchSize));
+    }
+
+    /**
+     * Maps the given criteria to a where condition of the entity table, which references the values through the bind
+     * markers of the database dialect, so the SQL text doesn't depend on the values.
+     * @param entityType the entity type which holds the table name.
+     * @param criteria the criteria, or null, if every row matches.
+     * @return the condition and the values to bind.
+     */
+    public BoundCriteria bindCriteria(Class<?> entityType, Criteria criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            return BoundCriteria.EMPTY;
+        }
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        BoundCondition condition = updateMapper.getMappedObject(
+            dialect.getBindMarkersFactory().create(),
+            criteria,
+            Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS),
+            entity
+        );
+        IndexedBindings bindings = new IndexedBindings();
+        condition.getBindings().apply(bindings);
+        return new BoundCriteria(condition.getCondition(), bindings.toList());
+    }
+
+    /**
+     * Maps the given criteria to a where condition of the entity table, like {@link #bindCriteria(Class, Criteria)}, and
+     * binds the limit and the offset of the page after the values of the condition.
+     * @param entityType the entity type which holds the table name.
+     * @param criteria the criteria, or null, if every row matches.
+     * @param pageable page parameter, or null, if everything needs to be returned.
+     * @return the condition and the values to bind.
+     */
+    public BoundCriteria bindCriteria(Class<?> entityType, Criteria criteria, Pageable pageable) {
+        BoundCriteria where = bindCriteria(entityType, criteria);
+        if (pageable == null || pageable.isUnpaged()) {
+            return where;
+        }
+        return where.withPage(pageable.getPageSize(), pageable.getOffset());
+    }
+
+    /**
+     * Maps the given criteria, and the seek of the keyset page request, to a where condition of the entity table: only
+     * the rows which match the criteria and come after the key values of the page request are selected.
+     * @param entityType the entity type which holds the table name.
+     * @param criteria the criteria, or null, if every row matches.
+     * @param keyset the keyset page parameter.
+     * @param keyColumns the columns of the sort key, the last one must be unique and not null, e.g. the id.
+     * @return the condition and the values to bind, followed by the page size.
+     */
+    public BoundCriteria bindCriteria(Class<?> entityType, Criteria criteria, KeysetPageable keyset, List<String> keyColumns) {
+        Assert.notEmpty(keyColumns, "keyColumns is empty");
+        if (keyset.isFirst()) {
+            return bindCriteria(entityType, criteria).withPage(keyset.getPageSize());
+        }
+        if (keyset.getAfter().size() != keyColumns.size()) {
+            throw new IllegalArgumentException("Expected " + keyColumns.size() + " key values, got " + keyset.getAfter().size());
+        }
+        Criteria seek = createSeekCriteria(keyColumns, keyset.getAfter(), 0);
+        return bindCriteria(entityType, criteria == null || criteria.isEmpty() ? seek : criteria.and(seek)).withPage(keyset.getPageSize());
+    }
+
+    /**
+     * The row value comparison {@code (c0, c1, ...) > (v0, v1, ...)}, expanded so that it is null-safe and can use
+     * a composite index on the key columns.
+     */
+    private static Criteria createSeekCriteria(List<String> keyColumns, List<Object> after, int index) {
+        String column = keyColumns.get(index);
+        Object value = after.get(index);
+        if (index == keyColumns.size() - 1) {
+            Assert.notNull(value, "the last key value is null");
+            return Criteria.where(column).greaterThan(value);
+        }
+        Criteria tail = createSeekCriteria(keyColumns, after, index + 1);
+        if (value == null) {
+            return Criteria.where(column).isNull().and(tail);
+        }
+        return Criteria
+            .where(column)
+            .greaterThan(value)
+            .or(Criteria.where(column).isNull())
+            .or(Criteria.where(column).is(value).and(tail));
+    }
+
+    /**
+     * Repeats the last id up to the next power of two, so the {@code IN} conditions on the ids of all the sizes only
+     * have a few distinct numbers of bind markers, and share their cached statements.
+     * @param ids the ids, not empty.
+     * @return the ids, padded.
+     */
+    public static List<Long> paddedIds(Collection<Long> ids) {
+        List<Long> padded = new ArrayList<>(ids);
+        int size = Integer.highestOneBit(padded.size());
+        if (size < padded.size()) {
+            size <<= 1;
+        }
+        Long last = padded.get(padded.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
     }
 
     /**
@@ -73,30 +327,15 @@ public class EntityManager {
      * @param selectFrom a representation of a select statement.
      * @param entityType the entity type which holds the table name.
      * @param pageable page parameter, or null, if everything needs to be returned
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria, Pageable)}.
      * @return sql select statement
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, BoundCriteria where) {
+        SelectOrdered select = where.isEmpty() ? selectFrom : selectFrom.where(where.getCondition());
+        if (pageable == null || pageable.isUnpaged()) {
+            return createSelectImpl(select, entityType, null);
         }
+        return createSelectImpl(select, entityType, pageable.getSort()) + createPageClause(where, true);
     }
 
     /**
@@ -104,30 +343,81 @@ public class EntityManager {
      * @param selectFrom a representation of a select statement.
      * @param entityType the entity type which holds the table name.
      * @param pageable page parameter, or null, if everything needs to be returned
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria, Pageable)}.
      * @return sql select statement
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, BoundCriteria where) {
+        SelectOrdered select = where.isEmpty() ? selectFrom : selectFrom.where(where.getCondition());
+        if (pageable == null || pageable.isUnpaged()) {
+            return createSelectImpl(select, entityType, null);
         }
+        return createSelectImpl(select, entityType, pageable.getSort()) + createPageClause(where, true);
+    }
+
+    /**
+     * Creates an SQL select statement for a keyset page: the rows are ordered by the given key columns, and only the
+     * rows matching the given condition are returned.
+     * @param selectFrom a representation of a select statement.
+     * @param entityType the entity type which holds the table name.
+     * @param keyset the keyset page parameter.
+     * @param keyColumns the columns of the sort key, the last one must be unique and not null, e.g. the id.
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria, KeysetPageable, List)}.
+     * @return sql select statement
+     */
+    public String createSelect(
+        SelectFromAndJoin selectFrom,
+        Class<?> entityType,
+        KeysetPageable keyset,
+        List<String> keyColumns,
+        BoundCriteria where
+    ) {
+        return createKeysetSelectImpl(selectFrom, entityType, keyColumns, where);
+    }
+
+    /**
+     * Creates an SQL select statement for a keyset page: the rows are ordered by the given key columns, and only the
+     * rows matching the given condition are returned.
+     * @param selectFrom a representation of a select statement.
+     * @param entityType the entity type which holds the table name.
+     * @param keyset the keyset page parameter.
+     * @param keyColumns the columns of the sort key, the last one must be unique and not null, e.g. the id.
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria, KeysetPageable, List)}.
+     * @return sql select statement
+     */
+    public String createSelect(
+        SelectFromAndJoinCondition selectFrom,
+        Class<?> entityType,
+        KeysetPageable keyset,
+        List<String> keyColumns,
+        BoundCriteria where
+    ) {
+        return createKeysetSelectImpl(selectFrom, entityType, keyColumns, where);
+    }
+
+    private String createKeysetSelectImpl(SelectFromAndJoin selectFrom, Class<?> entityType, List<String> keyColumns, BoundCriteria where) {
+        Assert.notEmpty(keyColumns, "keyColumns is empty");
+        Table table = Table.create(getPersistentEntity(entityType).getTableName()).as(EntityManager.ENTITY_ALIAS);
+        List<OrderByField> orderBy = new ArrayList<>();
+        for (String keyColumn : keyColumns) {
+            // nulls are explicitly sorted last, so the order is the same whatever the database default is
+            orderBy.add(OrderByField.from(table.column(keyColumn)).asc().withNullHandling(Sort.NullHandling.NULLS_LAST));
+        }
+        SelectOrdered select = where.isEmpty() ? selectFrom : selectFrom.where(where.getCondition());
+        return createSelect(select.orderBy(orderBy).build()) + createPageClause(where, false);
+    }
+
+    /**
+     * The limit, and the offset, of a page, referenced through the bind markers which follow the markers of the
+     * condition, in the syntax shared by PostgreSQL and H2.
+     */
+    private String createPageClause(BoundCriteria where, boolean withOffset) {
+        Assert.isTrue(where.getPageBindingCount() == (withOffset ? 2 : 1), "the page is not bound, see bindCriteria");
+        BindMarkers markers = dialect.getBindMarkersFactory().create();
+        for (int i = 0; i < where.getConditionBindingCount(); i++) {
+            markers.next();
+        }
+        String limit = " LIMIT " + markers.next().getPlaceholder();
+        return withOffset ? limit + " OFFSET " + markers.next().getPlaceholder() : limit;
     }
 
     private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
@@ -142,6 +432,84 @@ public class EntityManager {
         return createSelect(selectFrom.build());
     }
 
+    /**
+     * Counts the rows of the entity table which match the given condition.
+     * @param entityType the entity type which holds the table name.
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria)}.
+     * @return the number of matching rows.
+     */
+    public Mono<Long> count(Class<?> entityType, BoundCriteria where) {
+        String select = getCachedSelect(
+            StatementKey.of(entityType, "count", (Pageable) null, where),
+            () -> createCount(entityType, where, null)
+        );
+        return where.bindTo(r2dbcEntityTemplate.getDatabaseClient().sql(select)).map(row -> row.get(0, Long.class)).one();
+    }
+
+    /**
+     * Counts the rows of the entity table which match the given condition, but stops at the given limit: the database
+     * reads at most {@code limit} matching rows, whatever the size of the table.
+     * @param entityType the entity type which holds the table name.
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria)}.
+     * @param limit the maximum number of rows to count.
+     * @return the number of matching rows, or the limit if there are at least as many.
+     */
+    public Mono<Long> countAtMost(Class<?> entityType, BoundCriteria where, int limit) {
+        String select = getCachedSelect(
+            StatementKey.of(entityType, "count " + limit, (Pageable) null, where),
+            () -> createCount(entityType, where, limit)
+        );
+        return where.bindTo(r2dbcEntityTemplate.getDatabaseClient().sql(select)).map(row -> row.get(0, Long.class)).one();
+    }
+
+    /**
+     * Estimates the number of rows of the entity table which match the given condition, from the plan of the query
+     * planner, without reading the rows. The estimate relies on the statistics of the table, which PostgreSQL refreshes
+     * by {@code ANALYZE}, run by autovacuum as the table changes.
+     * @param entityType the entity type which holds the table name.
+     * @param where the condition created by {@link #bindCriteria(Class, Criteria)}.
+     * @return the estimate, or an empty Mono, if the database doesn't provide the estimates of its planner.
+     */
+    public Mono<Long> estimateCount(Class<?> entityType, BoundCriteria where) {
+        if (!supportsPlanEstimates()) {
+            return Mono.empty();
+        }
+        String explain = getCachedSelect(
+            StatementKey.of(entityType, "estimate", (Pageable) null, where),
+            () -> "EXPLAIN " + createSelect(selectOne(entityType, where, null).build())
+        );
+        // the first line of the plan is its root node, e.g. "Seq Scan on reserva e  (cost=0.00..18.50 rows=850 width=4)"
+        return where
+            .bindTo(r2dbcEntityTemplate.getDatabaseClient().sql(explain))
+            .map(row -> row.get(0, String.class))
+            .first()
+            .flatMap(
+                plan -> {
+                    Matcher rows = planRows.matcher(plan);
+                    return rows.find() ? Mono.just(Long.parseLong(rows.group(1))) : Mono.empty();
+                }
+            );
+    }
+
+    private String createCount(Class<?> entityType, BoundCriteria where, Integer limit) {
+        if (limit == null) {
+            Table table = Table.create(getPersistentEntity(entityType).getTableName()).as(EntityManager.ENTITY_ALIAS);
+            SelectFromAndJoin selectFrom = Select.builder().select(Functions.count(SQL.literalOf(1))).from(table);
+            return createSelect((where.isEmpty() ? selectFrom : selectFrom.where(where.getCondition())).build());
+        }
+        // the limit applies to the rows before they are counted, so it bounds the rows read
+        return "SELECT COUNT(*) FROM (" + createSelect(selectOne(entityType, where, limit).build()) + ") counted";
+    }
+
+    private SelectOrdered selectOne(Class<?> entityType, BoundCriteria where, Integer limit) {
+        Table table = Table.create(getPersistentEntity(entityType).getTableName()).as(EntityManager.ENTITY_ALIAS);
+        SelectFromAndJoin selectFrom = Select.builder().select(SQL.literalOf(1)).from(table);
+        if (limit != null) {
+            selectFrom = selectFrom.limit(limit);
+        }
+        return where.isEmpty() ? selectFrom : selectFrom.where(where.getCondition());
+    }
+
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
         return r2dbcEntityTemplate.getConverter().getMappingContext().getPersistentEntity(entityType);
     }
@@ -184,6 +552,139 @@ public class EntityManager {
         return r2dbcEntityTemplate.insert(entity);
     }
 
+    /**
+     * Inserts the given entities into the database with a single batched statement - and sets their ids, if it's an
+     * autoincrement field.
+     * @param <S> the type of the persisted entities.
+     * @param entities the entities to be inserted into the database, all of them with or all of them without an id.
+     * @return the persisted entities, in the given order.
+     */
+    public <S> Flux<S> insertAll(List<S> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entities.get(0).getClass());
+        RelationalPersistentProperty idProperty = entity.getRequiredIdProperty();
+        List<PreparedOperation<?>> inserts = new ArrayList<>(entities.size());
+        for (S toInsert : entities) {
+            OutboundRow row = new OutboundRow();
+            r2dbcEntityTemplate.getConverter().write(toInsert, row);
+            Parameter id = row.get(idProperty.getColumnName());
+            if (id == null || !id.hasValue()) {
+                row.remove(idProperty.getColumnName());
+            }
+            StatementMapper.InsertSpec insert = statementMapper.createInsert(entity.getTableName());
+            for (Entry<SqlIdentifier, Parameter> column : row.entrySet()) {
+                insert = insert.withColumn(column.getKey(), column.getValue());
+            }
+            inserts.add(statementMapper.getMappedObject(insert));
+        }
+        String sql = inserts.get(0).toQuery();
+        for (PreparedOperation<?> insert : inserts) {
+            if (!sql.equals(insert.toQuery())) {
+                throw new IllegalArgumentException("The entities must all have the same columns, either with or without an id");
+            }
+        }
+        String idColumn = r2dbcEntityTemplate.getDataAccessStrategy().toSql(idProperty.getColumnName());
+        Flux<Object> ids = r2dbcEntityTemplate
+            .getDatabaseClient()
+            .inConnectionMany(
+                connection -> {
+                    Statement statement = connection.createStatement(sql).returnGeneratedValues(idColumn);
+                    for (int i = 0; i < inserts.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        inserts.get(i).bindTo(new StatementBindTarget(statement));
+                    }
+                    return Flux
+                        .from(statement.execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, idProperty.getType())));
+                }
+            );
+        return Flux
+            .fromIterable(entities)
+            .zipWith(
+                ids,
+                (S inserted, Object id) -> {
+                    entity.getPropertyAccessor(inserted).setProperty(idProperty, id);
+                    return inserted;
+                }
+            );
+    }
+
+    /**
+     * Updates the given columns of the row with the given id, and reads its columns back: in the same statement with
+     * {@code UPDATE ... RETURNING} on PostgreSQL, otherwise with a select by id, only if a row was updated. The other
+     * columns of the row are neither read nor written.
+     * @param entityType the entity type which holds the table name.
+     * @param id the id of the row to update.
+     * @param update the columns to set, by property name.
+     * @param columns the columns to read back, aliased like in the selects, e.g. {@code table -> XSqlHelper.getColumns(table, "e")}.
+     * @param mapper returns the mapping function of the rows of the given statement.
+     * @param <T> the type of the entity.
+     * @return the updated entity, or an empty Mono, if there's no row with the given id.
+     */
+    public <T> Mono<T> updateReturning(
+        Class<T> entityType,
+        Long id,
+        Update update,
+        Function<Table, List<Expression>> columns,
+        Function<String, BiFunction<Row, RowMetadata, T>> mapper
+    ) {
+        Assert.notNull(id, "id is null");
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        RelationalPersistentProperty idProperty = entity.getRequiredIdProperty();
+        Table table = Table.create(entity.getTableName());
+        StatementMapper.TypedStatementMapper<T> typedMapper = statementMapper.forType(entityType);
+        PreparedOperation<?> operation = typedMapper.getMappedObject(
+            typedMapper.createUpdate(entity.getTableName(), update).withCriteria(Criteria.where(idProperty.getName()).is(id))
+        );
+        DatabaseClient db = r2dbcEntityTemplate.getDatabaseClient();
+        if (supportsReturning()) {
+            PreparedOperation<?> returning = new ReturningOperation(operation, renderReturning(columns.apply(table)));
+            return db.sql(returning).map(mapper.apply(returning.toQuery())).one();
+        }
+        String select = createSelect(
+            Select
+                .builder()
+                .select(columns.apply(table))
+                .from(table)
+                .where(
+                    Column
+                        .create(idProperty.getColumnName(), table)
+                        .isEqualTo(SQL.bindMarker(dialect.getBindMarkersFactory().create().next().getPlaceholder()))
+                )
+                .build()
+        );
+        return db
+            .sql(operation)
+            .fetch()
+            .rowsUpdated()
+            .flatMap(updated -> updated == 0 ? Mono.<T>empty() : db.sql(select).bind(0, id).map(mapper.apply(select)).one());
+    }
+
+    private boolean supportsPlanEstimates() {
+        // the H2 dialect extends the PostgreSQL one, but the plans of H2 carry no estimate of the rows
+        return dialect instanceof PostgresDialect && !(dialect instanceof H2Dialect);
+    }
+
+    private boolean supportsReturning() {
+        // the H2 dialect extends the PostgreSQL one, but H2 has no RETURNING clause
+        return dialect instanceof PostgresDialect && !(dialect instanceof H2Dialect);
+    }
+
+    private String renderReturning(List<Expression> columns) {
+        IdentifierProcessing processing = dialect.getIdentifierProcessing();
+        List<String> returning = new ArrayList<>(columns.size());
+        for (Expression expression : columns) {
+            Column column = (Column) expression;
+            String name = column.getName().toSql(processing);
+            returning.add(column instanceof Aliased ? name + " AS " + ((Aliased) column).getAlias().toSql(processing) : name);
+        }
+        return String.join(", ", returning);
+    }
+
     /**
      * Updates the table, which links the entity with the referred entities.
      * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
@@ -239,4 +740,97 @@ public class EntityManager {
 
         return fields;
     }
+
+    /**
+     * Collects the values bound by a {@link BoundCondition}, in the order of the indexed bind markers.
+     */
+    private static final class IndexedBindings implements BindTarget {
+
+        private final Map<Integer, Parameter> bindings = new TreeMap<>();
+
+        @Override
+        public void bind(String identifier, Object value) {
+            throw new UnsupportedOperationException("Named bind markers are not supported: " + identifier);
+        }
+
+        @Override
+        public void bind(int index, Object value) {
+            bindings.put(index, Parameter.from(value));
+        }
+
+        @Override
+        public void bindNull(String identifier, Class<?> type) {
+            throw new UnsupportedOperationException("Named bind markers are not supported: " + identifier);
+        }
+
+        @Override
+        public void bindNull(int index, Class<?> type) {
+            bindings.put(index, Parameter.empty(type));
+        }
+
+        List<Parameter> toList() {
+            return new ArrayList<>(bindings.values());
+        }
+    }
+
+    /**
+     * Appends a {@code RETURNING} clause to a {@link PreparedOperation}, the bound values are unchanged.
+     */
+    private static final class ReturningOperation implements PreparedOperation<Object> {
+
+        private final PreparedOperation<?> operation;
+        private final String returning;
+
+        ReturningOperation(PreparedOperation<?> operation, String returning) {
+            this.operation = operation;
+            this.returning = returning;
+        }
+
+        @Override
+        public Object getSource() {
+            return operation.getSource();
+        }
+
+        @Override
+        public void bindTo(BindTarget target) {
+            operation.bindTo(target);
+        }
+
+        @Override
+        public String toQuery() {
+            return operation.toQuery() + " RETURNING " + returning;
+        }
+    }
+
+    /**
+     * Binds the values of a {@link PreparedOperation} to an R2DBC statement.
+     */
+    private static final class StatementBindTarget implements BindTarget {
+
+        private final Statement statement;
+
+        StatementBindTarget(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public void bind(String identifier, Object value) {
+            statement.bind(identifier, value);
+        }
+
+        @Override
+        public void bind(int index, Object value) {
+            statement.bind(index, value);
+        }
+
+        @Override
+        public void bindNull(String identifier, Class<?> type) {
+            statement.bindNull(identifier, type);
+        }
+
+        @Override
+        public void bindNull(int index, Class<?> type) {
+            statement.bindNull(index, type);
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.mycompany.myapp.service;
+
+/**
+ * A column of an export, see {@link RowExporter}: the name of the column in the table of the entity, which is also its
+ * name in the export, and the type its values are read as.
+ */
+public final class ExportColumn {
+
+    private final String name;
+    private final Class<?> type;
+
+    private ExportColumn(String name, Class<?> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * @param name the name of the column, e.g. {@code rut_id}.
+     * @param type the type of its values: a {@link Number} is exported as a number, any other value as its string.
+     * @return the column.
+     */
+    public static ExportColumn of(String name, Class<?> type) {
+        return new ExportColumn(name, type);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,49 @@
+package com.mycompany.myapp.service;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The formats of the exports, see {@link RowExporter}.
+ */
+public enum ExportFormat {
+    /**
+     * RFC 4180 CSV, with a header line.
+     */
+    CSV("text/csv;charset=UTF-8", "csv"),
+
+    /**
+     * A gzip stream of JSON lines, one per row group, with the values of every column in an array, e.g.
+     * {@code {"rows":2,"id":[1,2],"fecha":["2031-03-03",null]}}.
+     */
+    COLUMNAR("application/gzip", "columns.ndjson.gz");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name the name of the format, in any case, e.g. {@code csv}.
+     * @return the format, or empty if the name is unknown.
+     */
+    public static Optional<ExportFormat> of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equals(name.toUpperCase(Locale.ROOT))) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
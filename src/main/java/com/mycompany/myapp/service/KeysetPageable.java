@@ -0,0 +1,163 @@
+package com.mycompany.myapp.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Page request for keyset (seek) pagination.
+ * <p>
+ * Instead of an offset, it carries the sort key values of the last row of the previous page, so the database can seek
+ * directly to the first row of the next page through an index, whatever the depth of the page. The key values are
+ * handed to clients as an opaque cursor, see {@link #cursorOf(Object...)} and {@link #of(int, String)}.
+ */
+public final class KeysetPageable {
+
+    private static final char SEPARATOR = '\u001f';
+
+    private final int pageSize;
+    private final List<Object> after;
+
+    private KeysetPageable(int pageSize, List<Object> after) {
+        Assert.isTrue(pageSize > 0, "pageSize must be greater than zero");
+        this.pageSize = pageSize;
+        this.after = Collections.unmodifiableList(after);
+    }
+
+    /**
+     * Creates a page request for the first page.
+     * @param pageSize the maximum number of rows to return.
+     * @return the page request.
+     */
+    public static KeysetPageable first(int pageSize) {
+        return new KeysetPageable(pageSize, Collections.emptyList());
+    }
+
+    /**
+     * Creates a page request for the page following the given key values.
+     * @param pageSize the maximum number of rows to return.
+     * @param keyValues the sort key values of the last row of the previous page, in the order of the key columns.
+     * @return the page request.
+     */
+    public static KeysetPageable after(int pageSize, Object... keyValues) {
+        return new KeysetPageable(pageSize, Arrays.asList(keyValues));
+    }
+
+    /**
+     * Creates a page request from a cursor previously returned by {@link #cursorOf(Object...)}.
+     * @param pageSize the maximum number of rows to return.
+     * @param cursor the cursor, or null for the first page.
+     * @return the page request.
+     * @throws IllegalArgumentException if the cursor can't be decoded.
+     */
+    public static KeysetPageable of(int pageSize, @Nullable String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return first(pageSize);
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        List<Object> keyValues = new ArrayList<>();
+        int start = 0;
+        while (start <= decoded.length()) {
+            int end = decoded.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = decoded.length();
+            }
+            keyValues.add(decodeValue(decoded.substring(start, end)));
+            start = end + 1;
+        }
+        return new KeysetPageable(pageSize, keyValues);
+    }
+
+    /**
+     * Encodes the sort key values of a row as an opaque cursor.
+     * @param keyValues the sort key values, in the order of the key columns.
+     * @return the cursor, which can be safely used as an URL query parameter.
+     */
+    public static String cursorOf(Object... keyValues) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < keyValues.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(encodeValue(keyValues[i]));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return the sort key values of the last row of the previous page, or an empty list for the first page.
+     */
+    public List<Object> getAfter() {
+        return after;
+    }
+
+    public boolean isFirst() {
+        return after.isEmpty();
+    }
+
+    private static String encodeValue(@Nullable Object value) {
+        if (value == null) {
+            return "n";
+        }
+        // the search engine returns the integral sort values which fit in an int as integers
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return "l" + ((Number) value).longValue();
+        }
+        if (value instanceof LocalDate) {
+            return "d" + value;
+        }
+        if (value instanceof Instant) {
+            return "t" + value;
+        }
+        if (value instanceof String) {
+            return "s" + value;
+        }
+        if (value instanceof Float || value instanceof Double) {
+            return "f" + value;
+        }
+        throw new IllegalArgumentException("Unsupported key value type: " + value.getClass().getName());
+    }
+
+    private static Object decodeValue(String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Empty key value in cursor");
+        }
+        String text = value.substring(1);
+        try {
+            switch (value.charAt(0)) {
+                case 'n':
+                    return null;
+                case 'l':
+                    return Long.valueOf(text);
+                case 'd':
+                    return LocalDate.parse(text);
+                case 't':
+                    return Instant.parse(text);
+                case 's':
+                    return text;
+                case 'f':
+                    return Double.valueOf(text);
+                default:
+                    throw new IllegalArgumentException("Unknown key value type in cursor: " + value.charAt(0));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid key value in cursor: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPageable{pageSize=" + pageSize + ", after=" + after + "}";
+    }
+}
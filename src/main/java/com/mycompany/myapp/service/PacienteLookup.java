@@ -0,0 +1,331 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.repository.PacienteRepository;
+import com.mycompany.myapp.repository.search.PacienteSearchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Type-ahead lookup of the pacientes by the prefixes of the words of their nombre and apellidos, and of their rut.
+ * <p>
+ * The words and the rut are normalized, without case, accents, nor separators, e.g. {@code 12.345.678-K} is held as
+ * {@code 12345678k}, and held in memory in a map sorted by word, so the words starting with a prefix are a range of
+ * the map. Every word of the query must start a word of the paciente. The pacientes are loaded at startup, then kept up
+ * to date by the changes recorded in the {@link SearchOutbox} by this instance, once committed; the changes of the other
+ * instances are only seen by the next load.
+ * <p>
+ * Until the pacientes are loaded, or when they are not held in memory, the lookup queries the autocomplete fields of
+ * the search index, see {@link PacienteSearchRepository#autocomplete(String, int)}.
+ */
+@Service
+public class PacienteLookup implements MeterBinder {
+
+    private static final Pattern marks = Pattern.compile("\\p{M}+");
+    private static final Pattern separators = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern spaces = Pattern.compile("\\s+");
+
+    private final Logger log = LoggerFactory.getLogger(PacienteLookup.class);
+
+    private final PacienteRepository pacienteRepository;
+
+    private final PacienteSearchRepository pacienteSearchRepository;
+
+    private final boolean inMemory;
+
+    private final int maxResults;
+
+    private volatile Index index = new Index();
+
+    private volatile boolean loaded;
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    /**
+     * The pacientes changed while the index is loaded, which are read again once it is loaded.
+     */
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    public PacienteLookup(
+        PacienteRepository pacienteRepository,
+        PacienteSearchRepository pacienteSearchRepository,
+        SearchOutbox searchOutbox,
+        ApplicationProperties applicationProperties
+    ) {
+        this.pacienteRepository = pacienteRepository;
+        this.pacienteSearchRepository = pacienteSearchRepository;
+        this.inMemory = applicationProperties.getLookup().isInMemory();
+        this.maxResults = applicationProperties.getLookup().getMaxResults();
+        if (inMemory) {
+            searchOutbox.addListener(this::changed);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (inMemory) {
+            reload().subscribe(null, e -> log.error("Unable to load the lookup of the pacientes: {}", e.getMessage()));
+        }
+    }
+
+    /**
+     * Loads the pacientes into a new index, unless a load is already running, and replaces the index once complete.
+     * @return a {@link Mono} which completes when the index is replaced.
+     */
+    public Mono<Void> reload() {
+        return Mono.defer(
+            () -> {
+                if (!loading.compareAndSet(false, true)) {
+                    return Mono.empty();
+                }
+                Instant started = Instant.now();
+                changedWhileLoading.clear();
+                Index reloaded = new Index();
+                return pacienteRepository
+                    .streamAll()
+                    .doOnNext(reloaded::put)
+                    .then(
+                        Mono.defer(
+                            () -> {
+                                index = reloaded;
+                                loaded = true;
+                                log.info(
+                                    "Loaded the lookup of {} pacientes in {} ms",
+                                    reloaded.size(),
+                                    Duration.between(started, Instant.now()).toMillis()
+                                );
+                                List<Long> changed = new ArrayList<>(changedWhileLoading);
+                                changedWhileLoading.removeAll(changed);
+                                return changed.isEmpty() ? Mono.<Void>empty() : refresh(changed);
+                            }
+                        )
+                    )
+                    .doFinally(signal -> loading.set(false));
+            }
+        );
+    }
+
+    /**
+     * @return the maximum number of pacientes returned by a lookup.
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the pacientes whose nombre, apellidos or rut start with the words of the query.
+     * @param query the words typed so far, e.g. {@code "juan pe"} or {@code "12.345"}.
+     * @param size the maximum number of pacientes to return.
+     * @return the pacientes, in the order of their matching word.
+     */
+    public Mono<List<PacienteSuggestion>> lookup(String query, int size) {
+        if (inMemory && loaded) {
+            return Mono.just(index.lookup(wordsOf(query), size));
+        }
+        return pacienteSearchRepository.autocomplete(query, size).map(PacienteSuggestion::new).collectList();
+    }
+
+    private void changed(Class<?> entityType, List<Long> ids, SearchOperation operation) {
+        if (entityType != Paciente.class) {
+            return;
+        }
+        if (loading.get()) {
+            changedWhileLoading.addAll(ids);
+        }
+        if (operation == SearchOperation.DELETE) {
+            ids.forEach(id -> index.remove(id));
+        } else {
+            refresh(ids).subscribe(null, e -> log.warn("Unable to refresh the lookup of the pacientes {}: {}", ids, e.getMessage()));
+        }
+    }
+
+    private Mono<Void> refresh(List<Long> ids) {
+        return Mono.defer(
+            () -> {
+                Set<Long> missing = new HashSet<>(ids);
+                return pacienteRepository
+                    .findAllById(ids)
+                    .doOnNext(
+                        paciente -> {
+                            missing.remove(paciente.getId());
+                            index.put(paciente);
+                        }
+                    )
+                    .then(Mono.fromRunnable(() -> missing.forEach(id -> index.remove(id))));
+            }
+        );
+    }
+
+    /**
+     * @param query the words typed so far.
+     * @return the normalized words of the query.
+     */
+    static List<String> wordsOf(String query) {
+        List<String> words = new ArrayList<>();
+        if (query == null) {
+            return words;
+        }
+        for (String word : spaces.split(query)) {
+            String normalized = normalize(word);
+            if (!normalized.isEmpty()) {
+                words.add(normalized);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @param paciente a paciente.
+     * @return the normalized words of the nombre and apellidos of the paciente, and its normalized rut.
+     */
+    static Set<String> wordsOf(Paciente paciente) {
+        Set<String> words = new HashSet<>(wordsOf(paciente.getNombre()));
+        words.addAll(wordsOf(paciente.getApellidos()));
+        if (paciente.getRut() != null) {
+            String rut = normalize(paciente.getRut());
+            if (!rut.isEmpty()) {
+                words.add(rut);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @param word a word, or a rut.
+     * @return the word, in lower case, without accents nor separators.
+     */
+    static String normalize(String word) {
+        String decomposed = Normalizer.normalize(word, Normalizer.Form.NFD);
+        return separators.matcher(marks.matcher(decomposed).replaceAll("")).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder("lookup.pacientes", this, lookup -> lookup.index.size())
+            .description("The number of pacientes held by the type-ahead lookup")
+            .register(registry);
+    }
+
+    /**
+     * The words of the pacientes, sorted, and the pacientes by id. The reads don't lock, the writes are serialized.
+     */
+    static final class Index {
+
+        private final ConcurrentSkipListMap<String, Set<Long>> words = new ConcurrentSkipListMap<>();
+
+        private final Map<Long, Entry> pacientes = new ConcurrentHashMap<>();
+
+        synchronized void put(Paciente paciente) {
+            remove(paciente.getId());
+            Entry entry = new Entry(new PacienteSuggestion(paciente), wordsOf(paciente));
+            pacientes.put(paciente.getId(), entry);
+            for (String word : entry.words) {
+                words.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(paciente.getId());
+            }
+        }
+
+        synchronized void remove(Long id) {
+            Entry entry = pacientes.remove(id);
+            if (entry == null) {
+                return;
+            }
+            for (String word : entry.words) {
+                Set<Long> ids = words.get(word);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        words.remove(word);
+                    }
+                }
+            }
+        }
+
+        List<PacienteSuggestion> lookup(List<String> query, int size) {
+            if (query.isEmpty()) {
+                return new ArrayList<>();
+            }
+            // the longest word has the fewest candidates
+            String longest = query.get(0);
+            for (String word : query) {
+                if (word.length() > longest.length()) {
+                    longest = word;
+                }
+            }
+            Map<Long, PacienteSuggestion> found = new LinkedHashMap<>();
+            for (Set<Long> ids : words.subMap(longest, true, longest + Character.MAX_VALUE, false).values()) {
+                for (Long id : ids) {
+                    Entry entry = pacientes.get(id);
+                    if (entry != null && !found.containsKey(id) && entry.matches(query)) {
+                        found.put(id, entry.suggestion);
+                        if (found.size() >= size) {
+                            return new ArrayList<>(found.values());
+                        }
+                    }
+                }
+            }
+            return new ArrayList<>(found.values());
+        }
+
+        int size() {
+            return pacientes.size();
+        }
+    }
+
+    private static final class Entry {
+
+        private final PacienteSuggestion suggestion;
+        private final Set<String> words;
+
+        Entry(PacienteSuggestion suggestion, Set<String> words) {
+            this.suggestion = suggestion;
+            this.words = words;
+        }
+
+        /**
+         * @return whether every word of the query starts a word of the paciente.
+         */
+        boolean matches(List<String> query) {
+            for (String prefix : query) {
+                boolean matched = false;
+                for (String word : words) {
+                    if (word.startsWith(prefix)) {
+                        matched = true;
+                        break;
+                    }
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mycompany.myapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.config.ReplicaRoutingConnectionFactory;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.repository.PacienteRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Finds the pacientes by their normalized rut, see {@link Rut}, through a bounded cache of their ids by rut.
+ * <p>
+ * The cached id is resolved through {@link PacienteRepository#findById(Long)}, so the paciente itself comes from its
+ * own {@link EntityCache}, and the rut of the paciente is checked against the requested rut: a paciente deleted, or
+ * whose rut changed, by this instance or another one, is never returned under its former rut, it is looked up again.
+ * The writes of this instance also evict their pacientes once committed, from the changes of the {@link SearchOutbox}.
+ * The ids are always read from the primary database, see {@link ReplicaRoutingConnectionFactory#primary}.
+ */
+@Service
+public class PacienteRutCache implements MeterBinder {
+
+    private final PacienteRepository pacienteRepository;
+
+    private final Cache<String, Long> ids;
+
+    /**
+     * The cached ruts by id, so the changed pacientes are evicted by key.
+     */
+    private final Map<Long, String> ruts = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PacienteRutCache(PacienteRepository pacienteRepository, SearchOutbox searchOutbox, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Cache properties = applicationProperties.getEntityCache().getPacienteRut();
+        this.pacienteRepository = pacienteRepository;
+        this.ids =
+            properties.isEnabled()
+                ? Caffeine
+                    .newBuilder()
+                    .maximumSize(properties.getMaxEntries())
+                    .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+                    // the ruts are removed in the thread of the removal, before the id can be cached again
+                    .executor(Runnable::run)
+                    .removalListener(
+                        (String rut, Long id, RemovalCause cause) -> {
+                            if (cause != RemovalCause.REPLACED) {
+                                ruts.remove(id, rut);
+                            }
+                        }
+                    )
+                    .build()
+                : null;
+        if (ids != null) {
+            searchOutbox.addListener(this::changed);
+        }
+    }
+
+    /**
+     * @param rut the normalized rut of the paciente.
+     * @return the paciente with the given rut, or an empty {@link Mono} if there is none.
+     */
+    public Mono<Paciente> findByRut(String rut) {
+        if (ids == null) {
+            return pacienteRepository.findByRutNormalizado(rut);
+        }
+        return Mono.defer(
+            () -> {
+                Long id = ids.getIfPresent(rut);
+                if (id == null) {
+                    misses.increment();
+                    return load(rut);
+                }
+                hits.increment();
+                return pacienteRepository
+                    .findById(id)
+                    .filter(paciente -> rut.equals(paciente.getRutNormalizado()))
+                    .switchIfEmpty(
+                        Mono.defer(
+                            () -> {
+                                ids.asMap().remove(rut, id);
+                                return load(rut);
+                            }
+                        )
+                    );
+            }
+        );
+    }
+
+    private Mono<Paciente> load(String rut) {
+        return pacienteRepository
+            .findByRutNormalizado(rut)
+            .contextWrite(ReplicaRoutingConnectionFactory::primary)
+            .doOnNext(
+                paciente -> {
+                    ruts.put(paciente.getId(), rut);
+                    ids.put(rut, paciente.getId());
+                }
+            );
+    }
+
+    private void changed(Class<?> entityType, List<Long> changedIds, SearchOperation operation) {
+        if (entityType == Paciente.class) {
+            for (Long id : changedIds) {
+                String rut = ruts.remove(id);
+                if (rut != null) {
+                    ids.asMap().remove(rut, id);
+                }
+            }
+        }
+    }
+
+    public long size() {
+        return ids == null ? 0 : ids.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter
+            .builder("cache.gets", hits, LongAdder::sum)
+            .tags("cache", "paciente_rut", "result", "hit")
+            .description("The number of times the id of a rut was found in the cache")
+            .register(registry);
+        FunctionCounter
+            .builder("cache.gets", misses, LongAdder::sum)
+            .tags("cache", "paciente_rut", "result", "miss")
+            .description("The number of times the paciente of a rut had to be queried")
+            .register(registry);
+        Gauge
+            .builder("cache.size", this, PacienteRutCache::size)
+            .tags("cache", "paciente_rut")
+            .description("The number of cached ids by rut")
+            .register(registry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.domain.Paciente;
+
+/**
+ * A paciente proposed while its nombre, apellidos or rut is typed, see {@link PacienteLookup}.
+ */
+public final class PacienteSuggestion {
+
+    private final Long id;
+    private final String nombre;
+    private final String apellidos;
+    private final String rut;
+
+    PacienteSuggestion(Paciente paciente) {
+        this.id = paciente.getId();
+        this.nombre = paciente.getNombre();
+        this.apellidos = paciente.getApellidos();
+        this.rut = paciente.getRut();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getApellidos() {
+        return apellidos;
+    }
+
+    public String getRut() {
+        return rut;
+    }
+
+    @Override
+    public String toString() {
+        return "PacienteSuggestion{id=" + id + ", nombre='" + nombre + "', apellidos='" + apellidos + "', rut='" + rut + "'}";
+    }
+}
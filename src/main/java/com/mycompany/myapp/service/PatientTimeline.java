@@ -0,0 +1,104 @@
+package com.mycompany.myapp.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * The historias and reservas of a paciente, merged in a single feed ordered by fecha.
+ * <p>
+ * The historias and the reservas of the paciente are read by two keyset queries, ordered by their own sort key, through
+ * the indexes by paciente and fecha, and merged as they arrive: at most one page of each is read, whatever the length
+ * of the history of the paciente. The entries without fecha come last, and the historias come before the reservas of
+ * the same day.
+ * <p>
+ * The cursor of an entry carries the sort keys of the last historia and of the last reserva up to that entry, so both
+ * queries resume from where the merge stopped.
+ */
+@Service
+public class PatientTimeline {
+
+    /**
+     * The number of key values of a cursor: fecha and id of the last historia, fecha, hora and id of the last reserva.
+     */
+    static final int CURSOR_SIZE = 5;
+
+    /**
+     * The number of rows requested in advance from each query.
+     */
+    private static final int PREFETCH = 32;
+
+    private static final Comparator<TimelineEntry> order = Comparator
+        .comparing(TimelineEntry::getFecha, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(TimelineEntry::getType);
+
+    private final HistoriaRepository historiaRepository;
+
+    private final ReservaRepository reservaRepository;
+
+    public PatientTimeline(HistoriaRepository historiaRepository, ReservaRepository reservaRepository) {
+        this.historiaRepository = historiaRepository;
+        this.reservaRepository = reservaRepository;
+    }
+
+    /**
+     * Returns the entries of the timeline of the given paciente, after the cursor of the page request.
+     * <p>
+     * The queries run concurrently, so they must not share the connection of a transaction.
+     * @param pacienteId the id of the paciente.
+     * @param keyset the page request, whose cursor was returned by {@link TimelineEntry#getCursor()}.
+     * @return the entries of the page, in order.
+     * @throws IllegalArgumentException if the cursor isn't a cursor of the timeline.
+     */
+    public Flux<TimelineEntry> getTimeline(Long pacienteId, KeysetPageable keyset) {
+        List<Object> after = keyset.getAfter();
+        if (!keyset.isFirst() && after.size() != CURSOR_SIZE) {
+            throw new IllegalArgumentException("Expected " + CURSOR_SIZE + " key values, got " + after.size());
+        }
+        int size = keyset.getPageSize();
+        // the id is the last key value, and is never null, unless the query hasn't returned any row yet
+        KeysetPageable historias = keyset.isFirst() || after.get(1) == null
+            ? KeysetPageable.first(size)
+            : KeysetPageable.after(size, after.get(0), after.get(1));
+        KeysetPageable reservas = keyset.isFirst() || after.get(4) == null
+            ? KeysetPageable.first(size)
+            : KeysetPageable.after(size, after.get(2), after.get(3), after.get(4));
+        Flux<TimelineEntry> historiaEntries = historiaRepository
+            .findAllBy(historias, where("rutId").is(pacienteId))
+            .map(historia -> new TimelineEntry(historia, null));
+        Flux<TimelineEntry> reservaEntries = reservaRepository
+            .findAllBy(reservas, where("rutId").is(pacienteId))
+            .map(reserva -> new TimelineEntry(reserva, null));
+        return Flux.defer(
+            () -> {
+                // the positions of both queries, as of the last merged entry
+                Object[] position = keyset.isFirst() ? new Object[CURSOR_SIZE] : after.toArray();
+                return Flux
+                    .mergeComparing(PREFETCH, order, historiaEntries, reservaEntries)
+                    .take(size)
+                    .map(entry -> withCursor(entry, position));
+            }
+        );
+    }
+
+    private static TimelineEntry withCursor(TimelineEntry entry, Object[] position) {
+        if (entry.getType() == TimelineEntry.Type.HISTORIA) {
+            Historia historia = entry.getHistoria();
+            position[0] = historia.getFecha();
+            position[1] = historia.getId();
+            return new TimelineEntry(historia, KeysetPageable.cursorOf(position));
+        }
+        Reserva reserva = entry.getReserva();
+        position[2] = reserva.getFecha();
+        position[3] = reserva.getHora();
+        position[4] = reserva.getId();
+        return new TimelineEntry(reserva, KeysetPageable.cursorOf(position));
+    }
+}
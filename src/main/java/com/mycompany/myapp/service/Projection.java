@@ -0,0 +1,78 @@
+package com.mycompany.myapp.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The properties of an entity to read, so the repositories select only their columns and skip the joins of the
+ * relationships which are not requested. The properties which are not read are left {@code null}.
+ * <p>
+ * The id is always read.
+ */
+public final class Projection {
+
+    /**
+     * Reads all the properties.
+     */
+    public static final Projection ALL = new Projection(null);
+
+    private final Set<String> properties;
+
+    private Projection(Set<String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Creates a projection on the given properties.
+     * @param properties the names of the properties, as in the JSON representation of the entity.
+     * @return the projection.
+     */
+    public static Projection of(Collection<String> properties) {
+        Set<String> sorted = new TreeSet<>(properties);
+        sorted.add("id");
+        return new Projection(Collections.unmodifiableSet(sorted));
+    }
+
+    /**
+     * Adds properties to the projection, e.g. the sort key which must be read even if it is not requested.
+     * @param others the names of the properties to add.
+     * @return the projection on the properties of both.
+     */
+    public Projection with(Collection<String> others) {
+        if (isAll() || properties.containsAll(others)) {
+            return this;
+        }
+        Set<String> union = new TreeSet<>(properties);
+        union.addAll(others);
+        return of(union);
+    }
+
+    public boolean isAll() {
+        return properties == null;
+    }
+
+    public boolean includes(String property) {
+        return properties == null || properties.contains(property);
+    }
+
+    /**
+     * @return the names of the properties, or null if all the properties are read.
+     */
+    public Set<String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return a string which identifies the selected columns, to use in {@link EntityManager.StatementKey} join shapes.
+     */
+    public String getShape() {
+        return isAll() ? "" : String.join(",", properties);
+    }
+
+    @Override
+    public String toString() {
+        return "Projection{" + (isAll() ? "*" : getShape()) + "}";
+    }
+}
@@ -0,0 +1,183 @@
+package com.mycompany.myapp.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.repository.EspecialistaRepository;
+import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.PacienteRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads the one-to-many relationships which are not read with the entities, e.g. the pacientes of the especialistas.
+ * <p>
+ * The children of all the given parents are read with one {@code WHERE rut_id IN (...)} query per relationship, and
+ * set on their parents, instead of one query per parent.
+ */
+@Service
+public class RelationshipLoader {
+
+    public static final String PACIENTES = "pacientes";
+    public static final String HISTORIAS = "historias";
+    public static final String RESERVAS = "reservas";
+
+    /**
+     * The relationships of an especialista which can be expanded.
+     */
+    public static final Set<String> ESPECIALISTA_RELATIONSHIPS = Set.of(PACIENTES);
+
+    /**
+     * The relationships of a paciente which can be expanded.
+     */
+    public static final Set<String> PACIENTE_RELATIONSHIPS = Set.of(HISTORIAS, RESERVAS);
+
+    private final EspecialistaRepository especialistaRepository;
+
+    private final PacienteRepository pacienteRepository;
+
+    private final HistoriaRepository historiaRepository;
+
+    private final ReservaRepository reservaRepository;
+
+    public RelationshipLoader(
+        EspecialistaRepository especialistaRepository,
+        PacienteRepository pacienteRepository,
+        HistoriaRepository historiaRepository,
+        ReservaRepository reservaRepository
+    ) {
+        this.especialistaRepository = especialistaRepository;
+        this.pacienteRepository = pacienteRepository;
+        this.historiaRepository = historiaRepository;
+        this.reservaRepository = reservaRepository;
+    }
+
+    /**
+     * Gets an especialista with the given relationships.
+     * <p>
+     * The especialista is not read from the {@link EntityCache} if a relationship is expanded, as the cached instances
+     * must not be modified.
+     *
+     * @param id the id of the especialista.
+     * @param expand the relationships to load, among {@link #ESPECIALISTA_RELATIONSHIPS}.
+     * @return the especialista, or an empty {@link Mono} if there is no especialista with the given id.
+     */
+    public Mono<Especialista> findEspecialista(Long id, Set<String> expand) {
+        if (expand.isEmpty()) {
+            return especialistaRepository.findById(id);
+        }
+        return especialistaRepository
+            .findAllBy((Pageable) null, where("id").is(id))
+            .collectList()
+            .flatMap(especialistas -> expandEspecialistas(especialistas, expand))
+            .flatMapIterable(Function.identity())
+            .next();
+    }
+
+    /**
+     * Gets a paciente with the given relationships.
+     * <p>
+     * The paciente is not read from the {@link EntityCache} if a relationship is expanded, as the cached instances must
+     * not be modified.
+     *
+     * @param id the id of the paciente.
+     * @param expand the relationships to load, among {@link #PACIENTE_RELATIONSHIPS}.
+     * @return the paciente, or an empty {@link Mono} if there is no paciente with the given id.
+     */
+    public Mono<Paciente> findPaciente(Long id, Set<String> expand) {
+        if (expand.isEmpty()) {
+            return pacienteRepository.findById(id);
+        }
+        return pacienteRepository
+            .findAllBy((Pageable) null, where("id").is(id))
+            .collectList()
+            .flatMap(pacientes -> expandPacientes(pacientes, expand))
+            .flatMapIterable(Function.identity())
+            .next();
+    }
+
+    /**
+     * Loads the given relationships of the especialistas, which must not come from the {@link EntityCache}.
+     * @param especialistas the especialistas.
+     * @param expand the relationships to load, among {@link #ESPECIALISTA_RELATIONSHIPS}.
+     * @return the especialistas, with their relationships.
+     */
+    public Mono<List<Especialista>> expandEspecialistas(List<Especialista> especialistas, Set<String> expand) {
+        if (!expand.contains(PACIENTES)) {
+            return Mono.just(especialistas);
+        }
+        return load(
+            especialistas,
+            Especialista::getId,
+            pacienteRepository::findAllByRutIdIn,
+            Paciente::getRutId,
+            Especialista::setPacientes
+        );
+    }
+
+    /**
+     * Loads the given relationships of the pacientes, which must not come from the {@link EntityCache}.
+     * @param pacientes the pacientes.
+     * @param expand the relationships to load, among {@link #PACIENTE_RELATIONSHIPS}.
+     * @return the pacientes, with their relationships.
+     */
+    public Mono<List<Paciente>> expandPacientes(List<Paciente> pacientes, Set<String> expand) {
+        Mono<List<Paciente>> loaded = Mono.just(pacientes);
+        if (expand.contains(HISTORIAS)) {
+            loaded =
+                loaded.flatMap(
+                    parents ->
+                        load(parents, Paciente::getId, historiaRepository::findAllByRutIdIn, Historia::getRutId, Paciente::setHistorias)
+                );
+        }
+        if (expand.contains(RESERVAS)) {
+            loaded =
+                loaded.flatMap(
+                    parents ->
+                        load(parents, Paciente::getId, reservaRepository::findAllByRutIdIn, Reserva::getRutId, Paciente::setReservas)
+                );
+        }
+        return loaded;
+    }
+
+    private static <P, C> Mono<List<P>> load(
+        List<P> parents,
+        Function<P, Long> parentId,
+        Function<Collection<Long>, Flux<C>> findChildren,
+        Function<C, Long> childParentId,
+        BiConsumer<P, Set<C>> setChildren
+    ) {
+        if (parents.isEmpty()) {
+            return Mono.just(parents);
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        parents.forEach(parent -> ids.add(parentId.apply(parent)));
+        return findChildren
+            .apply(EntityManager.paddedIds(ids))
+            .collect(
+                HashMap<Long, Set<C>>::new,
+                (children, child) -> children.computeIfAbsent(childParentId.apply(child), id -> new LinkedHashSet<>()).add(child)
+            )
+            .map(
+                children -> {
+                    for (P parent : parents) {
+                        setChildren.accept(parent, children.getOrDefault(parentId.apply(parent), new LinkedHashSet<>()));
+                    }
+                    return parents;
+                }
+            );
+    }
+}
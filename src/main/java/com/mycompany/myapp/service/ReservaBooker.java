@@ -0,0 +1,75 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.repository.ReservaRepository;
+import java.time.Instant;
+import java.util.Arrays;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Books the slots of the reservas: a slot, i.e. a fecha, hora and especialidad, holds at most one reserva.
+ * <p>
+ * The uniqueness of the slots is guaranteed by the {@code ux_reserva__fecha_especialidad_hora} constraint of the
+ * database. The bookings of this instance are also serialized by slot, through {@link StripedLocks} held until their
+ * transaction is committed: a conflicting booking waits for the previous one instead of waiting on its row lock with a
+ * connection of the pool, and then fails on the constraint at once. The bookings of different slots rarely share a
+ * stripe, so they run concurrently.
+ * <p>
+ * The hora of a reserva is expected at the start of its slot, see {@link SlotAvailabilityIndex#isSlotStart(Instant)},
+ * so the lock, the constraint and the index agree on its slot.
+ */
+@Service
+public class ReservaBooker {
+
+    private final ReservaRepository reservaRepository;
+
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final BookingStatistics bookingStatistics;
+
+    private final StripedLocks slotLocks;
+
+    public ReservaBooker(
+        ReservaRepository reservaRepository,
+        SlotAvailabilityIndex slotAvailabilityIndex,
+        BookingStatistics bookingStatistics,
+        TransactionalOperator transactionalOperator,
+        ApplicationProperties applicationProperties
+    ) {
+        this.reservaRepository = reservaRepository;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
+        this.bookingStatistics = bookingStatistics;
+        this.transactionalOperator = transactionalOperator;
+        this.slotLocks = new StripedLocks(applicationProperties.getBooking().getLockStripes());
+    }
+
+    /**
+     * Creates the given reserva, in its own transaction, if its slot is free.
+     * @param reserva the reserva to create.
+     * @return the created reserva, or a {@link DuplicateKeyException} if its slot is already booked.
+     */
+    public Mono<Reserva> book(Reserva reserva) {
+        return slotLocks
+            .withLock(
+                Arrays.asList(reserva.getFecha(), reserva.getHora(), reserva.getEspecialidad()),
+                () ->
+                    transactionalOperator.transactional(
+                        reservaRepository
+                            .save(reserva)
+                            .flatMap(
+                                created -> slotAvailabilityIndex.occupy(created).then(bookingStatistics.add(created)).thenReturn(created)
+                            )
+                    )
+            )
+            .onErrorMap(
+                e -> UniqueViolations.isUniqueViolation(e) && !(e instanceof DuplicateKeyException),
+                e -> new DuplicateKeyException("The slot of the reserva is already booked", e)
+            );
+    }
+}
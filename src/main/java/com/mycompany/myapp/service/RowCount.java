@@ -0,0 +1,55 @@
+package com.mycompany.myapp.service;
+
+import java.util.Locale;
+
+/**
+ * The total number of rows matching the criteria of a list, and how precise it is, see {@link RowCounter}.
+ */
+public final class RowCount {
+
+    /**
+     * How the total was obtained.
+     */
+    public enum Precision {
+        /**
+         * Counted for this request.
+         */
+        EXACT,
+        /**
+         * Counted for a previous request, at most the time to live of the cache ago.
+         */
+        CACHED,
+        /**
+         * Estimated by the query planner of the database, from the statistics of the table.
+         */
+        ESTIMATE;
+
+        /**
+         * @return the value of the precision in the {@code X-Total-Count-Precision} header, e.g. {@code estimate}.
+         */
+        public String getHeaderValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final long total;
+    private final Precision precision;
+
+    RowCount(long total, Precision precision) {
+        this.total = total;
+        this.precision = precision;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public String toString() {
+        return "RowCount{total=" + total + ", precision=" + precision + "}";
+    }
+}
@@ -0,0 +1,70 @@
+package com.mycompany.myapp.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.myapp.config.ApplicationProperties;
+import java.util.List;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts the rows matching the criteria of the list endpoints, for their {@code X-Total-Count} header, without
+ * scanning the large tables on every page.
+ * <p>
+ * The rows are first counted up to the threshold: below it, the count is exact and its cost is bounded by the
+ * threshold. Above it, the count is estimated by the query planner of the database, from the statistics of the table,
+ * with or without criteria. When the database provides no estimate, e.g. H2, the exact count is cached, by criteria,
+ * for its time to live.
+ */
+@Service
+public class RowCounter {
+
+    private final EntityManager entityManager;
+
+    private final int threshold;
+
+    private final AsyncCache<List<Object>, Long> totals;
+
+    public RowCounter(EntityManager entityManager, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Count properties = applicationProperties.getCount();
+        this.entityManager = entityManager;
+        this.threshold = properties.getThreshold();
+        this.totals =
+            Caffeine.newBuilder().maximumSize(properties.getMaxCachedTotals()).expireAfterWrite(properties.getTimeToLive()).buildAsync();
+    }
+
+    /**
+     * Counts the rows of the entity table which match the given criteria.
+     * @param entityType the entity type which holds the table name.
+     * @param criteria the criteria, or null, if every row matches.
+     * @return the number of matching rows, and how precise it is.
+     */
+    public Mono<RowCount> count(Class<?> entityType, Criteria criteria) {
+        BoundCriteria where = entityManager.bindCriteria(entityType, criteria);
+        return entityManager
+            .countAtMost(entityType, where, threshold + 1)
+            .flatMap(
+                count -> {
+                    if (count <= threshold) {
+                        return Mono.just(new RowCount(count, RowCount.Precision.EXACT));
+                    }
+                    return entityManager
+                        .estimateCount(entityType, where)
+                        // the estimate of a large table can still fall below the rows already counted
+                        .map(estimate -> new RowCount(Math.max(estimate, count), RowCount.Precision.ESTIMATE))
+                        .switchIfEmpty(Mono.defer(() -> countAndCache(entityType, where)));
+                }
+            );
+    }
+
+    private Mono<RowCount> countAndCache(Class<?> entityType, BoundCriteria where) {
+        List<Object> key = List.of(entityType, where.getShape(), where.getBindings());
+        return Mono
+            .fromFuture(
+                // a copy, so that a cancelled request doesn't cancel the count shared with the other requests
+                () -> totals.get(key, (k, executor) -> entityManager.count(entityType, where).toFuture()).copy()
+            )
+            .map(total -> new RowCount(total, RowCount.Precision.CACHED));
+    }
+}
@@ -0,0 +1,303 @@
+package com.mycompany.myapp.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.myapp.config.ApplicationProperties;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Exports the rows of a query, see {@link ExportFormat}.
+ * <p>
+ * The rows are read as arrays of the values of their columns, without building the entities, and are encoded by
+ * batches, each into one {@link DataBuffer} of the response: only a batch of rows is held in memory at a time, and the
+ * database cursor is only read as fast as the client reads the export.
+ */
+@Service
+public class RowExporter {
+
+    private static final int GZIP_BUFFER_SIZE = 8_192;
+
+    private final ColumnConverter converter;
+
+    private final JsonFactory jsonFactory;
+
+    private final int batchSize;
+
+    public RowExporter(ColumnConverter converter, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.converter = converter;
+        this.jsonFactory = objectMapper.getFactory();
+        this.batchSize = applicationProperties.getExport().getBatchSize();
+    }
+
+    /**
+     * Creates the mapper of the rows of an export, whose columns are resolved from the metadata of the first row.
+     * @param columns the columns of the export, selected from the entity table.
+     * @return the mapper of the rows to the values of the columns, in order.
+     */
+    public BiFunction<Row, RowMetadata, Object[]> values(List<ExportColumn> columns) {
+        return new BiFunction<>() {
+            private ColumnReader<?>[] readers;
+
+            @Override
+            public Object[] apply(Row row, RowMetadata metadata) {
+                if (readers == null) {
+                    readers = compile(columns, metadata);
+                }
+                Object[] values = new Object[readers.length];
+                for (int i = 0; i < readers.length; i++) {
+                    values[i] = readers[i].read(row);
+                }
+                return values;
+            }
+        };
+    }
+
+    private ColumnReader<?>[] compile(List<ExportColumn> columns, RowMetadata metadata) {
+        Map<String, Integer> indexes = new HashMap<>();
+        Map<String, Class<?>> driverTypes = new HashMap<>();
+        int index = 0;
+        for (ColumnMetadata column : metadata.getColumnMetadatas()) {
+            String label = column.getName().toLowerCase(Locale.ROOT);
+            indexes.putIfAbsent(label, index++);
+            driverTypes.putIfAbsent(label, column.getJavaType());
+        }
+        ColumnReader<?>[] readers = new ColumnReader<?>[columns.size()];
+        for (int i = 0; i < readers.length; i++) {
+            ExportColumn column = columns.get(i);
+            String label = (EntityManager.ENTITY_ALIAS + "_" + column.getName()).toLowerCase(Locale.ROOT);
+            Integer position = indexes.get(label);
+            if (position == null) {
+                throw new IllegalArgumentException("The rows have no column " + label);
+            }
+            readers[i] = converter.reader(position, driverTypes.get(label), column.getType());
+        }
+        return readers;
+    }
+
+    /**
+     * Encodes the rows of an export.
+     * @param format the format of the export.
+     * @param columns the columns of the export.
+     * @param rows the values of the rows, as mapped by {@link #values(List)}.
+     * @param bufferFactory the factory of the buffers of the response.
+     * @return the buffers of the export.
+     */
+    public Flux<DataBuffer> export(ExportFormat format, List<ExportColumn> columns, Flux<Object[]> rows, DataBufferFactory bufferFactory) {
+        switch (format) {
+            case CSV:
+                return csv(columns, rows, bufferFactory);
+            case COLUMNAR:
+                return columnar(columns, rows, bufferFactory);
+            default:
+                throw new IllegalArgumentException("Unknown export format " + format);
+        }
+    }
+
+    private Flux<DataBuffer> csv(List<ExportColumn> columns, Flux<Object[]> rows, DataBufferFactory bufferFactory) {
+        Mono<DataBuffer> header = Mono.fromSupplier(
+            () -> {
+                StringBuilder line = new StringBuilder();
+                for (ExportColumn column : columns) {
+                    appendCsv(line.length() == 0 ? line : line.append(','), column.getName());
+                }
+                return write(bufferFactory, line.append("\r\n"));
+            }
+        );
+        Flux<DataBuffer> body = rows
+            .buffer(batchSize)
+            .map(
+                batch -> {
+                    StringBuilder lines = new StringBuilder(batch.size() * columns.size() * 16);
+                    for (Object[] values : batch) {
+                        for (int i = 0; i < values.length; i++) {
+                            appendCsv(i == 0 ? lines : lines.append(','), values[i]);
+                        }
+                        lines.append("\r\n");
+                    }
+                    return write(bufferFactory, lines);
+                }
+            );
+        return Flux.concat(header, body);
+    }
+
+    private static DataBuffer write(DataBufferFactory bufferFactory, CharSequence chars) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(chars.length());
+        return buffer.write(chars, StandardCharsets.UTF_8);
+    }
+
+    static void appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            char c = text.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            line.append(c);
+            if (c == '"') {
+                line.append('"');
+            }
+        }
+        line.append('"');
+    }
+
+    private Flux<DataBuffer> columnar(List<ExportColumn> columns, Flux<Object[]> rows, DataBufferFactory bufferFactory) {
+        return Flux.using(
+            () -> new ColumnarWriter(columns, bufferFactory),
+            writer -> rows.buffer(batchSize).map(writer::write).concatWith(Mono.fromSupplier(writer::finish)),
+            ColumnarWriter::release
+        );
+    }
+
+    /**
+     * Writes the row groups of one columnar export into a single gzip stream, flushed at the end of every group, so each
+     * group is sent in its own buffer while the compression keeps its dictionary across the groups.
+     */
+    private final class ColumnarWriter {
+
+        private final List<ExportColumn> columns;
+
+        private final DataBufferFactory bufferFactory;
+
+        private final BufferOutputStream target = new BufferOutputStream();
+
+        private ReleasableGZIPOutputStream gzip;
+
+        private JsonGenerator generator;
+
+        ColumnarWriter(List<ExportColumn> columns, DataBufferFactory bufferFactory) {
+            this.columns = columns;
+            this.bufferFactory = bufferFactory;
+        }
+
+        DataBuffer write(List<Object[]> rows) {
+            return encode(
+                () -> {
+                    generator.writeStartObject();
+                    generator.writeNumberField("rows", rows.size());
+                    for (int i = 0; i < columns.size(); i++) {
+                        generator.writeArrayFieldStart(columns.get(i).getName());
+                        for (Object[] values : rows) {
+                            writeValue(values[i]);
+                        }
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            );
+        }
+
+        DataBuffer finish() {
+            return encode(
+                () -> {
+                    generator.close();
+                    gzip.finish();
+                }
+            );
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Long) {
+                generator.writeNumber((Long) value);
+            } else if (value instanceof Number) {
+                generator.writeNumber(value.toString());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+
+        private DataBuffer encode(Encoding encoding) {
+            DataBuffer buffer = bufferFactory.allocateBuffer();
+            target.buffer = buffer;
+            try {
+                if (gzip == null) {
+                    gzip = new ReleasableGZIPOutputStream(target);
+                    generator = jsonFactory.createGenerator(gzip).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.setRootValueSeparator(null);
+                }
+                encoding.run();
+                return buffer;
+            } catch (IOException e) {
+                DataBufferUtils.release(buffer);
+                throw new UncheckedIOException(e);
+            } finally {
+                target.buffer = null;
+            }
+        }
+
+        void release() {
+            if (gzip != null) {
+                gzip.release();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Encoding {
+        void run() throws IOException;
+    }
+
+    /**
+     * Writes into the current buffer of a {@link ColumnarWriter}.
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private DataBuffer buffer;
+
+        @Override
+        public void write(int b) {
+            buffer.write((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.write(bytes, offset, length);
+        }
+    }
+
+    private static final class ReleasableGZIPOutputStream extends GZIPOutputStream {
+
+        ReleasableGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, GZIP_BUFFER_SIZE, true);
+        }
+
+        /**
+         * Frees the native memory of the compression, also when the export is cancelled before it is finished.
+         */
+        void release() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.mycompany.myapp.service;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The canonical form of the RUT, the national id, under which the pacientes are uniquely indexed.
+ * <p>
+ * The canonical form has no dots nor leading zeros, and an upper case check digit after a dash, e.g.
+ * {@code 12.345.678-5}, {@code 012345678-5} and {@code 123456785} are all {@code 12345678-5}.
+ */
+public final class Rut {
+
+    private static final Pattern separators = Pattern.compile("[.\\s-]+");
+    private static final Pattern rut = Pattern.compile("0*([1-9][0-9]{0,8})([0-9K])");
+
+    private Rut() {}
+
+    /**
+     * @param value a rut, as typed.
+     * @return the canonical form of the rut, or {@code null} if the value is not a rut, or its check digit is wrong.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = rut.matcher(separators.matcher(value).replaceAll("").toUpperCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            return null;
+        }
+        String body = matcher.group(1);
+        char checkDigit = matcher.group(2).charAt(0);
+        return checkDigitOf(body) == checkDigit ? body + "-" + checkDigit : null;
+    }
+
+    /**
+     * The check digit of the body of a rut, by the modulo 11 of the sum of its digits, from the right, weighted by
+     * 2 to 7 in a cycle.
+     */
+    static char checkDigitOf(String body) {
+        int sum = 0;
+        int weight = 2;
+        for (int i = body.length() - 1; i >= 0; i--) {
+            sum += (body.charAt(i) - '0') * weight;
+            weight = weight == 7 ? 2 : weight + 1;
+        }
+        int checkDigit = 11 - sum % 11;
+        return checkDigit == 11 ? '0' : checkDigit == 10 ? 'K' : (char) ('0' + checkDigit);
+    }
+}
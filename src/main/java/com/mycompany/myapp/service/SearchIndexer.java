@@ -0,0 +1,371 @@
+package com.mycompany.myapp.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.SearchOutboxEntry;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.repository.EspecialistaRepository;
+import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.PacienteRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
+import com.mycompany.myapp.repository.search.EspecialistaSearchRepository;
+import com.mycompany.myapp.repository.search.HistoriaSearchRepository;
+import com.mycompany.myapp.repository.search.PacienteSearchRepository;
+import com.mycompany.myapp.repository.search.ReservaSearchRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Applies the changes recorded in the {@link SearchOutbox} to the search index, in the background.
+ * <p>
+ * The outbox is drained in batches, oldest first: the entries of a batch are coalesced, so only the latest operation
+ * of each entity is applied, then the entities to index are loaded in one query per type and indexed with one bulk
+ * request per type. The entries are marked as applied once the index is written, and removed once older than the
+ * retention, so a full reindex can replay them, see {@link SearchReindexer}. A failed batch is retried with a backoff.
+ * If the retries are exhausted, the entities of the batch are applied one by one, so a single failing entity doesn't
+ * hold back the others: the entries of the failing entities stay in the outbox for the next poll, with their number of
+ * attempts incremented, and are left as dead letters once they reach the maximum number of attempts. Applying an entry
+ * twice is harmless, as the current state of the entity is indexed.
+ * <p>
+ * The lag of the index is published as the {@code search.outbox.lag} metric, with the number of pending and dead
+ * entries and the number of indexed, deleted, coalesced and failed entries. The dead letters are drained again once
+ * their attempts are reset to zero.
+ */
+@Service
+public class SearchIndexer implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final ApplicationProperties.SearchIndexer properties;
+
+    private final Map<String, EntityIndexer<?>> indexers = new HashMap<>();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private final LongAdder indexed = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private Disposable subscription;
+
+    public SearchIndexer(
+        SearchOutboxRepository searchOutboxRepository,
+        ApplicationProperties applicationProperties,
+        EspecialistaRepository especialistaRepository,
+        EspecialistaSearchRepository especialistaSearchRepository,
+        PacienteRepository pacienteRepository,
+        PacienteSearchRepository pacienteSearchRepository,
+        ReservaRepository reservaRepository,
+        ReservaSearchRepository reservaSearchRepository,
+        HistoriaRepository historiaRepository,
+        HistoriaSearchRepository historiaSearchRepository
+    ) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.properties = applicationProperties.getSearchIndexer();
+        register(
+            Especialista.class,
+            ids -> especialistaRepository.findAllBy((Pageable) null, where("id").in(ids)),
+            Especialista::getId,
+            especialistaSearchRepository
+        );
+        register(
+            Paciente.class,
+            ids -> pacienteRepository.findAllBy((Pageable) null, where("id").in(ids)),
+            Paciente::getId,
+            pacienteSearchRepository
+        );
+        register(
+            Reserva.class,
+            ids -> reservaRepository.findAllBy((Pageable) null, where("id").in(ids)),
+            Reserva::getId,
+            reservaSearchRepository
+        );
+        register(
+            Historia.class,
+            ids -> historiaRepository.findAllBy((Pageable) null, where("id").in(ids)),
+            Historia::getId,
+            historiaSearchRepository
+        );
+    }
+
+    private <T> void register(
+        Class<T> entityType,
+        Function<List<Long>, Flux<T>> loader,
+        Function<T, Long> idOf,
+        ReactiveElasticsearchRepository<T, Long> searchRepository
+    ) {
+        indexers.put(entityType.getSimpleName(), new EntityIndexer<>(loader, idOf, searchRepository));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("The search indexer is disabled, the search outbox is not drained");
+            return;
+        }
+        subscription =
+            Flux
+                .interval(properties.getPollInterval())
+                .onBackpressureDrop()
+                .concatMap(
+                    tick ->
+                        drainAll()
+                            .onErrorResume(
+                                e -> {
+                                    log.error("Unable to drain the search outbox, it will be retried: {}", e.getMessage());
+                                    return Mono.empty();
+                                }
+                            ),
+                    1
+                )
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Drains the outbox, until it is empty.
+     * @return a {@link Mono} which completes when the outbox is empty.
+     */
+    public Mono<Void> drainAll() {
+        return searchOutboxRepository
+            .deleteAppliedBefore(Instant.now().minus(properties.getRetention()))
+            .then(searchOutboxRepository.countPending(properties.getMaxAttempts()))
+            .doOnNext(pending::set)
+            .then(searchOutboxRepository.countDeadLetters(properties.getMaxAttempts()))
+            .doOnNext(deadLetters::set)
+            .then(drain().expand(count -> count >= properties.getBatchSize() ? drain() : Mono.empty()).then());
+    }
+
+    /**
+     * Applies the oldest batch of entries of the outbox to the index.
+     * @return the number of applied entries, zero if the outbox is empty.
+     */
+    public Mono<Integer> drain() {
+        return searchOutboxRepository
+            .findOldest(properties.getBatchSize(), properties.getMaxAttempts())
+            .collectList()
+            .flatMap(
+                entries -> {
+                    if (entries.isEmpty()) {
+                        lagMillis.set(0);
+                        return Mono.just(0);
+                    }
+                    lagMillis.set(Math.max(0, Duration.between(entries.get(0).getCreatedDate(), Instant.now()).toMillis()));
+                    // the later entries of an entity overwrite the earlier ones
+                    Map<String, Map<Long, SearchOperation>> latest = new LinkedHashMap<>();
+                    Map<String, Map<Long, List<Long>>> entryIdsByEntity = new HashMap<>();
+                    List<Long> entryIds = new ArrayList<>(entries.size());
+                    int distinct = 0;
+                    for (SearchOutboxEntry entry : entries) {
+                        Map<Long, SearchOperation> operations = latest.computeIfAbsent(
+                            entry.getEntityType(),
+                            type -> new LinkedHashMap<>()
+                        );
+                        if (operations.put(entry.getEntityId(), entry.getOperation()) == null) {
+                            distinct++;
+                        }
+                        entryIdsByEntity
+                            .computeIfAbsent(entry.getEntityType(), type -> new HashMap<>())
+                            .computeIfAbsent(entry.getEntityId(), id -> new ArrayList<>())
+                            .add(entry.getId());
+                        entryIds.add(entry.getId());
+                    }
+                    long coalescedEntries = entries.size() - distinct;
+                    return Flux
+                        .fromIterable(latest.entrySet())
+                        .concatMap(operations -> apply(operations.getKey(), operations.getValue()))
+                        .then(Mono.defer(() -> searchOutboxRepository.markAppliedByIdIn(entryIds, Instant.now())))
+                        .retryWhen(
+                            Retry
+                                .backoff(properties.getMaxRetries(), properties.getRetryBackoff())
+                                .doBeforeRetry(signal -> retries.increment())
+                        )
+                        .then()
+                        .onErrorResume(
+                            e -> {
+                                log.warn(
+                                    "Unable to apply a batch of {} search outbox entries, applying them one by one",
+                                    entries.size(),
+                                    e
+                                );
+                                return applyOneByOne(latest, entryIdsByEntity);
+                            }
+                        )
+                        .doOnSuccess(done -> coalesced.add(coalescedEntries))
+                        .thenReturn(entries.size());
+                }
+            );
+    }
+
+    /**
+     * Applies the latest operation of each entity on its own: the entries of the entities which fail stay in the outbox,
+     * with one more attempt, so the entries after them are drained.
+     */
+    private Mono<Void> applyOneByOne(Map<String, Map<Long, SearchOperation>> latest, Map<String, Map<Long, List<Long>>> entryIds) {
+        return Flux
+            .fromIterable(latest.entrySet())
+            .concatMap(
+                operations ->
+                    Flux
+                        .fromIterable(operations.getValue().entrySet())
+                        .concatMap(
+                            operation -> {
+                                String entityType = operations.getKey();
+                                List<Long> ids = entryIds.get(entityType).get(operation.getKey());
+                                return apply(entityType, Map.of(operation.getKey(), operation.getValue()))
+                                    .then(Mono.defer(() -> searchOutboxRepository.markAppliedByIdIn(ids, Instant.now())))
+                                    .then()
+                                    .onErrorResume(
+                                        e -> {
+                                            log.error(
+                                                "Unable to apply the search outbox entries {} of {} {}: {}",
+                                                ids,
+                                                entityType,
+                                                operation.getKey(),
+                                                e.getMessage()
+                                            );
+                                            failed.add(ids.size());
+                                            return searchOutboxRepository.incrementAttemptsByIdIn(ids).then();
+                                        }
+                                    );
+                            }
+                        )
+            )
+            .then();
+    }
+
+    private Mono<Void> apply(String entityType, Map<Long, SearchOperation> operations) {
+        EntityIndexer<?> indexer = indexers.get(entityType);
+        if (indexer == null) {
+            log.warn("Ignoring the search outbox entries of the unknown entity type {}", entityType);
+            return Mono.empty();
+        }
+        Set<Long> toIndex = new HashSet<>();
+        Set<Long> toDelete = new HashSet<>();
+        operations.forEach((id, operation) -> (operation == SearchOperation.INDEX ? toIndex : toDelete).add(id));
+        return indexer.apply(toIndex, toDelete);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder("search.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+            .baseUnit("seconds")
+            .description("The age of the oldest entry of the search outbox, at the last poll")
+            .register(registry);
+        Gauge
+            .builder("search.outbox.pending", pending, AtomicLong::get)
+            .description("The number of entries of the search outbox, at the last poll")
+            .register(registry);
+        Gauge
+            .builder("search.outbox.dead", deadLetters, AtomicLong::get)
+            .description("The number of entries of the search outbox which reached the maximum number of attempts, at the last poll")
+            .register(registry);
+        FunctionCounter
+            .builder("search.outbox.applied", indexed, LongAdder::sum)
+            .tag("operation", "index")
+            .description("The number of indexed entities")
+            .register(registry);
+        FunctionCounter
+            .builder("search.outbox.applied", deleted, LongAdder::sum)
+            .tag("operation", "delete")
+            .description("The number of entities removed from the index")
+            .register(registry);
+        FunctionCounter
+            .builder("search.outbox.coalesced", coalesced, LongAdder::sum)
+            .description("The number of entries skipped, because a later entry of the same entity was applied")
+            .register(registry);
+        FunctionCounter
+            .builder("search.outbox.retries", retries, LongAdder::sum)
+            .description("The number of retried batches")
+            .register(registry);
+        FunctionCounter
+            .builder("search.outbox.failed", failed, LongAdder::sum)
+            .description("The number of entries which failed when applied on their own")
+            .register(registry);
+    }
+
+    private final class EntityIndexer<T> {
+
+        private final Function<List<Long>, Flux<T>> loader;
+        private final Function<T, Long> idOf;
+        private final ReactiveElasticsearchRepository<T, Long> searchRepository;
+
+        EntityIndexer(
+            Function<List<Long>, Flux<T>> loader,
+            Function<T, Long> idOf,
+            ReactiveElasticsearchRepository<T, Long> searchRepository
+        ) {
+            this.loader = loader;
+            this.idOf = idOf;
+            this.searchRepository = searchRepository;
+        }
+
+        Mono<Void> apply(Set<Long> toIndex, Set<Long> toDelete) {
+            Mono<List<T>> entities = toIndex.isEmpty()
+                ? Mono.just(List.of())
+                : loader.apply(EntityManager.paddedIds(toIndex)).collectList();
+            return entities.flatMap(
+                found -> {
+                    // the entities which don't exist anymore were deleted after they were recorded
+                    Set<Long> missing = new HashSet<>(toIndex);
+                    found.forEach(entity -> missing.remove(idOf.apply(entity)));
+                    List<Long> toRemove = new ArrayList<>(toDelete);
+                    toRemove.addAll(missing);
+                    Mono<Void> index = found.isEmpty()
+                        ? Mono.empty()
+                        : searchRepository.saveAll(found).then().doOnSuccess(done -> indexed.add(found.size()));
+                    Mono<Void> remove = Flux
+                        .fromIterable(toRemove)
+                        .flatMap(searchRepository::deleteById)
+                        .then()
+                        .doOnSuccess(done -> deleted.add(toRemove.size()));
+                    return index.then(remove);
+                }
+            );
+        }
+    }
+}
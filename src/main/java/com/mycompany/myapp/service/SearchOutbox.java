@@ -0,0 +1,104 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.domain.SearchOutboxEntry;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records the changes of the search index in the {@code search_outbox} table.
+ * <p>
+ * The entries are written with the entity, in the transaction of the caller, so the index can't miss a committed
+ * change, nor see a rolled back one. They are applied to the index asynchronously by the {@link SearchIndexer}.
+ * <p>
+ * The in-memory views of the entities of this instance, e.g. {@link PacienteLookup}, are notified of the changes once
+ * they are committed.
+ */
+@Service
+public class SearchOutbox {
+
+    /**
+     * Receives the changes of the entities recorded in the outbox, once their transaction is committed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param entityType the type of the entities.
+         * @param ids the ids of the changed entities.
+         * @param operation the change to apply.
+         */
+        void changed(Class<?> entityType, List<Long> ids, SearchOperation operation);
+    }
+
+    private final EntityManager entityManager;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public SearchOutbox(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Registers a listener of the committed changes.
+     * @param listener the listener, which must not block.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Records that the entity with the given id has to be (re)indexed.
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @return a {@link Mono} which completes when the entry is written.
+     */
+    public Mono<Void> index(Class<?> entityType, Long id) {
+        return entityManager
+            .insert(createEntry(entityType, id, SearchOperation.INDEX))
+            .then(notifyListeners(entityType, List.of(id), SearchOperation.INDEX));
+    }
+
+    /**
+     * Records that the entities with the given ids have to be (re)indexed.
+     * @param entityType the type of the entities.
+     * @param ids the ids of the entities.
+     * @return a {@link Mono} which completes when the entries are written.
+     */
+    public Mono<Void> index(Class<?> entityType, List<Long> ids) {
+        List<SearchOutboxEntry> entries = new ArrayList<>(ids.size());
+        ids.forEach(id -> entries.add(createEntry(entityType, id, SearchOperation.INDEX)));
+        return entityManager.insertAll(entries).then(notifyListeners(entityType, List.copyOf(ids), SearchOperation.INDEX));
+    }
+
+    /**
+     * Records that the entity with the given id has to be removed from the index.
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @return a {@link Mono} which completes when the entry is written.
+     */
+    public Mono<Void> delete(Class<?> entityType, Long id) {
+        return entityManager
+            .insert(createEntry(entityType, id, SearchOperation.DELETE))
+            .then(notifyListeners(entityType, List.of(id), SearchOperation.DELETE));
+    }
+
+    private Mono<Void> notifyListeners(Class<?> entityType, List<Long> ids, SearchOperation operation) {
+        if (listeners.isEmpty()) {
+            return Mono.empty();
+        }
+        return TransactionHooks.afterCommit(() -> listeners.forEach(listener -> listener.changed(entityType, ids, operation)));
+    }
+
+    private static SearchOutboxEntry createEntry(Class<?> entityType, Long id, SearchOperation operation) {
+        return new SearchOutboxEntry()
+            .entityType(entityType.getSimpleName())
+            .entityId(id)
+            .operation(operation)
+            .createdDate(Instant.now())
+            .attempts(0);
+    }
+}
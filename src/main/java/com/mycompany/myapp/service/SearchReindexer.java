@@ -0,0 +1,566 @@
+package com.mycompany.myapp.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.repository.EspecialistaRepository;
+import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.PacienteRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ReactiveIndexOperations;
+import org.springframework.data.elasticsearch.core.ResourceUtil;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rebuilds the search indices from the database.
+ * <p>
+ * A {@link Mode#FULL full} reindex loads every row into a new index, named after the alias used by the application and
+ * the start time of the reindex, then atomically moves the alias to it, so searches keep using the previous index until
+ * the new one is complete. The changes committed while the index is loaded were applied to the previous index, or may
+ * have been overwritten by the load: they are read back from the {@link SearchOutbox}, which keeps the applied entries
+ * for the retention of the {@link SearchIndexer}, and the current state of their entities is indexed again, before the
+ * alias is moved, and after, for the changes committed in between. A full reindex must complete within the retention.
+ * An {@link Mode#INCREMENTAL incremental} reindex only loads the rows modified since a given instant into the current
+ * index.
+ * <p>
+ * The table is split into id ranges, loaded in parallel through the repositories, in batches of consecutive ids, and
+ * every batch is written with one bulk request. The progress of the reindex of every entity is available through
+ * {@link #getProgress()}.
+ */
+@Service
+public class SearchReindexer {
+
+    private static final DateTimeFormatter versionFormat = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexer.class);
+
+    private final ReactiveElasticsearchOperations elasticsearchOperations;
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final ApplicationProperties.Reindex properties;
+
+    private final Map<String, EntityReindexer<?>> reindexers = new LinkedHashMap<>();
+
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+
+    private final Map<String, Instant> lastCompleted = new ConcurrentHashMap<>();
+
+    public SearchReindexer(
+        ReactiveElasticsearchOperations elasticsearchOperations,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        SearchOutboxRepository searchOutboxRepository,
+        ApplicationProperties applicationProperties,
+        EspecialistaRepository especialistaRepository,
+        PacienteRepository pacienteRepository,
+        ReservaRepository reservaRepository,
+        HistoriaRepository historiaRepository
+    ) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.properties = applicationProperties.getReindex();
+        register(
+            Especialista.class,
+            "especialista",
+            Especialista::getId,
+            criteria -> especialistaRepository.findAllBy((Pageable) null, criteria)
+        );
+        register(Paciente.class, "paciente", Paciente::getId, criteria -> pacienteRepository.findAllBy((Pageable) null, criteria));
+        register(Reserva.class, "reserva", Reserva::getId, criteria -> reservaRepository.findAllBy((Pageable) null, criteria));
+        register(Historia.class, "historia", Historia::getId, criteria -> historiaRepository.findAllBy((Pageable) null, criteria));
+    }
+
+    private <T> void register(Class<T> entityType, String tableName, Function<T, Long> idOf, Function<Criteria, Flux<T>> loader) {
+        String alias = elasticsearchOperations.getIndexCoordinatesFor(entityType).getIndexName();
+        reindexers.put(alias, new EntityReindexer<>(entityType, tableName, alias, idOf, loader));
+    }
+
+    /**
+     * Returns the names of the entities which can be reindexed, which are also the names of their indices.
+     * @return the names of the entities.
+     */
+    public Set<String> getEntityNames() {
+        return reindexers.keySet();
+    }
+
+    /**
+     * Returns the progress of the last reindex of every entity.
+     * @return the progress of the reindexes, running or not.
+     */
+    public Collection<Progress> getProgress() {
+        return progress.values();
+    }
+
+    /**
+     * Returns the progress of the last reindex of an entity.
+     * @param entityName the name of the entity.
+     * @return the progress of the reindex, or {@code null} if the entity was never reindexed.
+     */
+    @Nullable
+    public Progress getProgress(String entityName) {
+        return progress.get(entityName);
+    }
+
+    /**
+     * Returns the start of the last completed reindex of an entity, from which an incremental reindex continues when no
+     * other instant is given.
+     * @param entityName the name of the entity.
+     * @return the start of the last completed reindex, or {@code null} if the entity was not reindexed since the
+     * application started.
+     */
+    @Nullable
+    public Instant getLastCompleted(String entityName) {
+        return lastCompleted.get(entityName);
+    }
+
+    /**
+     * Starts the reindex of an entity in the background, unless it is already running.
+     * @param entityName the name of the entity.
+     * @param mode the kind of reindex.
+     * @param since the instant from which the rows are loaded by an incremental reindex, ignored by a full reindex.
+     * @return the progress of the reindex.
+     */
+    public Progress start(String entityName, Mode mode, @Nullable Instant since) {
+        EntityReindexer<?> reindexer = getReindexer(entityName);
+        Instant from = resolveSince(entityName, mode, since);
+        Progress started = new Progress(entityName, mode);
+        Progress running = progress.compute(
+            entityName,
+            (name, current) -> current != null && current.isRunning() ? current : started
+        );
+        if (running == started) {
+            reindexer
+                .reindex(started, from)
+                .subscribe(null, e -> log.error("Unable to reindex {}: {}", entityName, e.getMessage()));
+        }
+        return running;
+    }
+
+    /**
+     * Reindexes an entity.
+     * @param entityName the name of the entity.
+     * @param mode the kind of reindex.
+     * @param since the instant from which the rows are loaded by an incremental reindex, ignored by a full reindex.
+     * @return the progress of the reindex, emitted when it is completed.
+     */
+    public Mono<Progress> reindex(String entityName, Mode mode, @Nullable Instant since) {
+        EntityReindexer<?> reindexer = getReindexer(entityName);
+        return Mono.defer(
+            () -> {
+                Instant from = resolveSince(entityName, mode, since);
+                Progress started = new Progress(entityName, mode);
+                progress.put(entityName, started);
+                return reindexer.reindex(started, from).thenReturn(started);
+            }
+        );
+    }
+
+    private EntityReindexer<?> getReindexer(String entityName) {
+        EntityReindexer<?> reindexer = reindexers.get(entityName);
+        if (reindexer == null) {
+            throw new IllegalArgumentException("Unknown entity " + entityName + ", expected one of " + reindexers.keySet());
+        }
+        return reindexer;
+    }
+
+    @Nullable
+    private Instant resolveSince(String entityName, Mode mode, @Nullable Instant since) {
+        if (mode == Mode.FULL || since != null) {
+            return since;
+        }
+        Instant last = lastCompleted.get(entityName);
+        if (last == null) {
+            throw new IllegalArgumentException(
+                "No reindex of " + entityName + " was completed yet, the start of the incremental reindex is required"
+            );
+        }
+        return last;
+    }
+
+    /**
+     * The kinds of reindex.
+     */
+    public enum Mode {
+        /**
+         * Loads all the rows into a new index, then makes it the current one.
+         */
+        FULL,
+        /**
+         * Loads the rows modified since a given instant into the current index.
+         */
+        INCREMENTAL,
+    }
+
+    /**
+     * The state of a reindex.
+     */
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    /**
+     * The progress of the reindex of an entity.
+     */
+    public static final class Progress {
+
+        private final String entityName;
+        private final Mode mode;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong total = new AtomicLong(-1);
+        private final AtomicLong indexed = new AtomicLong();
+        private volatile String index;
+        private volatile Status status = Status.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        Progress(String entityName, Mode mode) {
+            this.entityName = entityName;
+            this.mode = mode;
+        }
+
+        public String getEntityName() {
+            return entityName;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isRunning() {
+            return status == Status.RUNNING;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return the number of rows to load, or {@code -1} while they are counted.
+         */
+        public long getTotal() {
+            return total.get();
+        }
+
+        public long getIndexed() {
+            return indexed.get();
+        }
+
+        /**
+         * @return the number of rows indexed per second, since the start of the reindex.
+         */
+        public double getThroughput() {
+            long elapsedMillis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+            return elapsedMillis == 0 ? 0 : indexed.get() * 1000.0 / elapsedMillis;
+        }
+
+        /**
+         * @return the estimated number of seconds until the reindex is completed, or {@code null} when it can't be
+         * estimated yet.
+         */
+        public Long getEtaSeconds() {
+            if (!isRunning()) {
+                return 0L;
+            }
+            double throughput = getThroughput();
+            long remaining = total.get() - indexed.get();
+            if (total.get() < 0 || throughput == 0) {
+                return null;
+            }
+            return (long) Math.ceil(Math.max(0, remaining) / throughput);
+        }
+
+        void finish(Status status, String error) {
+            this.finishedAt = Instant.now();
+            this.error = error;
+            this.status = status;
+        }
+    }
+
+    private final class EntityReindexer<T> {
+
+        private final Class<T> entityType;
+        private final String tableName;
+        private final String alias;
+        private final Function<T, Long> idOf;
+        private final Function<Criteria, Flux<T>> loader;
+
+        EntityReindexer(Class<T> entityType, String tableName, String alias, Function<T, Long> idOf, Function<Criteria, Flux<T>> loader) {
+            this.entityType = entityType;
+            this.tableName = tableName;
+            this.alias = alias;
+            this.idOf = idOf;
+            this.loader = loader;
+        }
+
+        Mono<Void> reindex(Progress progress, @Nullable Instant since) {
+            Mono<Void> reindex;
+            if (progress.getMode() == Mode.FULL) {
+                String index = alias + "_" + versionFormat.format(progress.getStartedAt());
+                progress.index = index;
+                log.info("Reindexing {} into {}", alias, index);
+                reindex =
+                    createIndex(index)
+                        .then(load(index, null, progress))
+                        .then(
+                            Mono.defer(
+                                () -> {
+                                    Instant replayedAt = Instant.now();
+                                    // a change is recorded before its transaction commits, which may be after its rows were read
+                                    return replay(index, progress.getStartedAt().minus(properties.getReplayMargin()))
+                                        .then(elasticsearchOperations.indexOps(IndexCoordinates.of(index)).refresh())
+                                        .then(moveAlias(index))
+                                        // the changes committed since the first replay may have reached the previous index only
+                                        .then(replay(index, replayedAt.minus(properties.getReplayMargin())));
+                                }
+                            )
+                        );
+            } else {
+                progress.index = alias;
+                log.info("Reindexing the {} modified since {}", alias, since);
+                reindex = load(alias, where("lastModifiedDate").greaterThanOrEquals(since), progress);
+            }
+            return reindex
+                .doOnSuccess(
+                    done -> {
+                        progress.finish(Status.COMPLETED, null);
+                        lastCompleted.put(alias, progress.getStartedAt());
+                        Duration duration = Duration.between(progress.getStartedAt(), progress.getFinishedAt());
+                        log.info("Reindexed {} rows of {} in {}", progress.getIndexed(), alias, duration);
+                    }
+                )
+                .doOnError(e -> progress.finish(Status.FAILED, e.getMessage()));
+        }
+
+        private Mono<Void> createIndex(String index) {
+            ReactiveIndexOperations indexOperations = elasticsearchOperations.indexOps(IndexCoordinates.of(index));
+            // the index is created by name, so the settings of the entity, e.g. its analyzers, are read here
+            Setting setting = AnnotatedElementUtils.findMergedAnnotation(entityType, Setting.class);
+            Mono<Boolean> created = setting == null || setting.settingPath().isEmpty()
+                ? indexOperations.create()
+                : indexOperations.create(Document.parse(ResourceUtil.readFileFromClasspath(setting.settingPath())));
+            return created.then(indexOperations.putMapping(indexOperations.createMapping(entityType))).then();
+        }
+
+        /**
+         * Moves the alias to the given index, and deletes the indices it pointed to. An index created by the repository,
+         * before the first reindex, has the name of the alias and is replaced by it.
+         */
+        private Mono<Void> moveAlias(String index) {
+            ReactiveIndexOperations aliasOperations = elasticsearchOperations.indexOps(IndexCoordinates.of(alias));
+            return aliasOperations
+                .exists()
+                .flatMap(exists -> exists ? aliasOperations.getAliasesForIndex(alias).map(Map::keySet) : Mono.just(Set.<String>of()))
+                .flatMap(
+                    previous -> {
+                        List<AliasAction> actions = new ArrayList<>();
+                        actions.add(new AliasAction.Add(AliasActionParameters.builder().withIndices(index).withAliases(alias).build()));
+                        List<String> toDelete = new ArrayList<>();
+                        for (String previousIndex : previous) {
+                            if (previousIndex.equals(alias)) {
+                                actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+                            } else {
+                                actions.add(
+                                    new AliasAction.Remove(
+                                        AliasActionParameters.builder().withIndices(previousIndex).withAliases(alias).build()
+                                    )
+                                );
+                                toDelete.add(previousIndex);
+                            }
+                        }
+                        return elasticsearchOperations
+                            .indexOps(IndexCoordinates.of(index))
+                            .alias(new AliasActions(actions.toArray(new AliasAction[0])))
+                            .thenMany(
+                                Flux
+                                    .fromIterable(toDelete)
+                                    .concatMap(
+                                        previousIndex -> elasticsearchOperations.indexOps(IndexCoordinates.of(previousIndex)).delete()
+                                    )
+                            )
+                            .then();
+                    }
+                );
+        }
+
+        /**
+         * Indexes the current state of the entities with a change recorded in the search outbox since the given instant,
+         * and removes from the index those which don't exist anymore.
+         */
+        private Mono<Void> replay(String index, Instant since) {
+            return searchOutboxRepository
+                .findEntityIdsRecordedSince(entityType.getSimpleName(), since)
+                .buffer(properties.getBatchSize())
+                .concatMap(
+                    ids ->
+                        loader
+                            .apply(where("id").in(ids))
+                            .collectList()
+                            .flatMap(
+                                found -> {
+                                    Set<Long> missing = new HashSet<>(ids);
+                                    found.forEach(entity -> missing.remove(idOf.apply(entity)));
+                                    Mono<Void> save = found.isEmpty()
+                                        ? Mono.empty()
+                                        : elasticsearchOperations.saveAll(Mono.just(found), IndexCoordinates.of(index)).then();
+                                    Mono<Void> remove = Flux
+                                        .fromIterable(missing)
+                                        .concatMap(id -> elasticsearchOperations.delete(String.valueOf(id), IndexCoordinates.of(index)))
+                                        .then();
+                                    return save.then(remove);
+                                }
+                            )
+                )
+                .then();
+        }
+
+        /**
+         * Loads the rows matching the criteria into the index, splitting the id range of the table into slices loaded in
+         * parallel.
+         */
+        private Mono<Void> load(String index, @Nullable Criteria criteria, @Nullable Progress progress) {
+            Mono<Long> count = r2dbcEntityTemplate.count(criteria == null ? Query.empty() : Query.query(criteria), entityType);
+            return count
+                .doOnNext(
+                    rows -> {
+                        if (progress != null) {
+                            progress.total.set(rows);
+                        }
+                    }
+                )
+                .then(idRange())
+                .flatMapMany(
+                    range -> {
+                        int slices = Math.max(1, properties.getSlices());
+                        long sliceSize = (range[1] - range[0]) / slices + 1;
+                        return Flux
+                            .range(0, slices)
+                            .flatMap(
+                                slice -> {
+                                    long from = range[0] + slice * sliceSize;
+                                    long to = Math.min(range[1], from + sliceSize - 1);
+                                    return loadSlice(index, criteria, from, to, progress);
+                                },
+                                slices
+                            );
+                    }
+                )
+                .then();
+        }
+
+        private Flux<Void> loadSlice(String index, @Nullable Criteria criteria, long from, long to, @Nullable Progress progress) {
+            int batchSize = properties.getBatchSize();
+            return Flux
+                .<Long, Long>generate(
+                    () -> from,
+                    (batchStart, sink) -> {
+                        if (batchStart > to) {
+                            sink.complete();
+                        } else {
+                            sink.next(batchStart);
+                        }
+                        return batchStart + batchSize;
+                    }
+                )
+                .concatMap(
+                    batchStart -> {
+                        Criteria batch = where("id").between(batchStart, Math.min(to, batchStart + batchSize - 1));
+                        return loader
+                            .apply(criteria == null ? batch : batch.and(criteria))
+                            .collectList()
+                            .flatMap(
+                                entities -> {
+                                    if (entities.isEmpty()) {
+                                        return Mono.empty();
+                                    }
+                                    return elasticsearchOperations
+                                        .saveAll(Mono.just(entities), IndexCoordinates.of(index))
+                                        .then()
+                                        .doOnSuccess(
+                                            done -> {
+                                                if (progress != null) {
+                                                    progress.indexed.addAndGet(entities.size());
+                                                }
+                                            }
+                                        );
+                                }
+                            );
+                    }
+                );
+        }
+
+        /**
+         * Returns the smallest and largest ids of the table, nothing if it is empty.
+         */
+        private Mono<long[]> idRange() {
+            return r2dbcEntityTemplate
+                .getDatabaseClient()
+                .sql("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM " + tableName)
+                .map(
+                    (row, metadata) -> {
+                        Long min = row.get("min_id", Long.class);
+                        Long max = row.get("max_id", Long.class);
+                        return min == null ? new long[0] : new long[] { min, max };
+                    }
+                )
+                .one()
+                .filter(range -> range.length == 2);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The free slots of one especialidad on one day, see {@link SlotAvailabilityIndex}.
+ */
+public final class SlotAvailability {
+
+    private final Especialidad especialidad;
+    private final LocalDate fecha;
+    private final long slotMinutes;
+    private final List<Instant> free;
+
+    SlotAvailability(Especialidad especialidad, LocalDate fecha, long slotMinutes, List<Instant> free) {
+        this.especialidad = especialidad;
+        this.fecha = fecha;
+        this.slotMinutes = slotMinutes;
+        this.free = free;
+    }
+
+    public Especialidad getEspecialidad() {
+        return especialidad;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public long getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    /**
+     * @return the start of every free slot, in order.
+     */
+    public List<Instant> getFree() {
+        return free;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotAvailability{especialidad=" + especialidad + ", fecha=" + fecha + ", free=" + free.size() + "}";
+    }
+}
@@ -0,0 +1,272 @@
+package com.mycompany.myapp.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.repository.ReservaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory index of the occupied slots of the reservas, by especialidad and day, which answers the free slots without
+ * reading the {@code reserva} table.
+ * <p>
+ * A day is divided into slots of the configured duration between its opening and closing times, and a reserva occupies
+ * the slot of its hora. The occupancy of a day is a bitset of its slots, loaded from the table on the first request for
+ * that day, and kept up to date by the writes of the reservas: a new reserva sets its bit once its transaction is
+ * committed. A cancelled or moved reserva doesn't clear its bit, as another reserva may hold the same slot, its day is
+ * reloaded instead. The days are bounded in number and in time to live, which also bounds the staleness of the writes
+ * made by the other instances.
+ */
+@Service
+public class SlotAvailabilityIndex implements MeterBinder {
+
+    private final ReservaRepository reservaRepository;
+
+    private final ZoneId timeZone;
+    private final long opensAtSeconds;
+    private final long slotSeconds;
+    private final int slots;
+
+    private final AsyncCache<Day, Occupancy> days;
+
+    private final LongAdder loads = new LongAdder();
+
+    public SlotAvailabilityIndex(ReservaRepository reservaRepository, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Availability properties = applicationProperties.getAvailability();
+        this.reservaRepository = reservaRepository;
+        this.timeZone = properties.getTimeZone();
+        this.opensAtSeconds = properties.getOpensAt().toSeconds();
+        this.slotSeconds = properties.getSlotDuration().toSeconds();
+        this.slots = (int) ((properties.getClosesAt().toSeconds() - opensAtSeconds) / slotSeconds);
+        if (slotSeconds <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("The day of the reservas must hold at least one slot");
+        }
+        this.days = Caffeine.newBuilder().maximumSize(properties.getMaxDays()).expireAfterWrite(properties.getTimeToLive()).buildAsync();
+    }
+
+    /**
+     * Returns the free slots of the given especialidad on the given day, and loads the day if it isn't indexed yet.
+     * @param especialidad the especialidad.
+     * @param fecha the day.
+     * @return the free slots.
+     */
+    public Mono<SlotAvailability> getAvailability(Especialidad especialidad, LocalDate fecha) {
+        return Mono
+            .fromFuture(
+                // a copy, so that a cancelled request doesn't cancel the load shared with the other requests
+                () -> days.get(new Day(especialidad, fecha), (day, executor) -> load(day).toFuture()).copy()
+            )
+            .map(occupancy -> toAvailability(especialidad, fecha, occupancy));
+    }
+
+    /**
+     * Records that the given reserva occupies its slot, once the current transaction, if any, is committed.
+     * @param reserva the created reserva.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> occupy(Reserva reserva) {
+        return TransactionHooks.afterCommit(
+            () -> {
+                int slot = slotOf(reserva.getHora());
+                Day day = dayOf(reserva);
+                if (slot < 0 || day == null) {
+                    return;
+                }
+                CompletableFuture<Occupancy> loaded = days.getIfPresent(day);
+                if (loaded == null) {
+                    // the day is loaded on demand, with the reserva
+                    return;
+                }
+                if (loaded.isDone() && !loaded.isCompletedExceptionally()) {
+                    loaded.join().occupy(slot);
+                } else {
+                    // the pending load may have read the table before the reserva was committed
+                    days.synchronous().invalidate(day);
+                }
+            }
+        );
+    }
+
+    /**
+     * Records that the given reserva no longer occupies its slot, once the current transaction, if any, is committed.
+     * @param reserva the reserva as it was before it was deleted or moved.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> release(Reserva reserva) {
+        return TransactionHooks.afterCommit(
+            () -> {
+                Day day = dayOf(reserva);
+                if (day != null) {
+                    days.synchronous().invalidate(day);
+                }
+            }
+        );
+    }
+
+    /**
+     * Records that the given reserva moved from one slot to another, if it did.
+     * @param previous the reserva before its update.
+     * @param current the reserva after its update.
+     * @return a {@link Mono} which completes when the change is recorded.
+     */
+    public Mono<Void> move(Reserva previous, Reserva current) {
+        if (Objects.equals(dayOf(previous), dayOf(current)) && slotOf(previous.getHora()) == slotOf(current.getHora())) {
+            return Mono.empty();
+        }
+        return release(previous).then(occupy(current));
+    }
+
+    private Mono<Occupancy> load(Day day) {
+        // subscribed outside of the context of the caller, so the day is read from the primary, out of any transaction
+        return reservaRepository
+            .findHorasByEspecialidadAndFecha(day.especialidad, day.fecha)
+            .reduce(
+                new Occupancy(slots),
+                (occupancy, hora) -> {
+                    int slot = slotOf(hora);
+                    if (slot >= 0) {
+                        occupancy.occupy(slot);
+                    }
+                    return occupancy;
+                }
+            )
+            .doOnSuccess(occupancy -> loads.increment());
+    }
+
+    private SlotAvailability toAvailability(Especialidad especialidad, LocalDate fecha, Occupancy occupancy) {
+        List<Instant> free = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            if (occupancy.isFree(slot)) {
+                free.add(startOf(fecha, slot));
+            }
+        }
+        return new SlotAvailability(especialidad, fecha, slotSeconds / 60, free);
+    }
+
+    /**
+     * @param hora the hora of a reserva.
+     * @return the start of the slot of the hora, or the hora itself if it is outside of the opening hours.
+     */
+    public Instant slotStartOf(Instant hora) {
+        int slot = slotOf(hora);
+        return slot < 0 ? hora : startOf(hora.atZone(timeZone).toLocalDate(), slot);
+    }
+
+    /**
+     * The reservas are booked at the start of their slot, so that the reservas of a slot are also the same slot for
+     * the uniqueness constraint of the database.
+     * @param hora the hora of a reserva, or {@code null}.
+     * @return whether the hora is the start of its slot, or is outside of the opening hours.
+     */
+    public boolean isSlotStart(Instant hora) {
+        return Objects.equals(slotStartOf(hora), hora);
+    }
+
+    /**
+     * @param hora the hora of a reserva.
+     * @return the slot of the hora, or {@code -1} if there is none, or if it is outside of the opening hours.
+     */
+    int slotOf(Instant hora) {
+        if (hora == null) {
+            return -1;
+        }
+        long seconds = hora.atZone(timeZone).toLocalTime().toSecondOfDay() - opensAtSeconds;
+        if (seconds < 0) {
+            return -1;
+        }
+        long slot = seconds / slotSeconds;
+        return slot < slots ? (int) slot : -1;
+    }
+
+    /**
+     * @param fecha the day.
+     * @param slot the slot.
+     * @return the start of the slot on the given day.
+     */
+    Instant startOf(LocalDate fecha, int slot) {
+        return fecha.atStartOfDay().plusSeconds(opensAtSeconds + slot * slotSeconds).atZone(timeZone).toInstant();
+    }
+
+    private static Day dayOf(Reserva reserva) {
+        if (reserva.getEspecialidad() == null || reserva.getFecha() == null) {
+            return null;
+        }
+        return new Day(reserva.getEspecialidad(), reserva.getFecha());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder("availability.days", days, cache -> cache.synchronous().estimatedSize())
+            .description("The number of days whose slots are indexed")
+            .register(registry);
+        FunctionCounter
+            .builder("availability.loads", loads, LongAdder::sum)
+            .description("The number of days whose slots were loaded from the database")
+            .register(registry);
+    }
+
+    private static final class Day {
+
+        private final Especialidad especialidad;
+        private final LocalDate fecha;
+
+        Day(Especialidad especialidad, LocalDate fecha) {
+            this.especialidad = especialidad;
+            this.fecha = fecha;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Day)) {
+                return false;
+            }
+            Day day = (Day) o;
+            return especialidad == day.especialidad && fecha.equals(day.fecha);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * especialidad.hashCode() + fecha.hashCode();
+        }
+    }
+
+    /**
+     * The occupied slots of a day, one bit per slot, updated without locks.
+     */
+    static final class Occupancy {
+
+        private final AtomicLongArray words;
+
+        Occupancy(int slots) {
+            this.words = new AtomicLongArray((slots + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        void occupy(int slot) {
+            words.getAndUpdate(slot / Long.SIZE, word -> word | (1L << slot));
+        }
+
+        boolean isFree(int slot) {
+            return (words.get(slot / Long.SIZE) & (1L << slot)) == 0;
+        }
+    }
+}
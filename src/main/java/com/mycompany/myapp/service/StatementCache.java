@@ -0,0 +1,91 @@
+package com.mycompany.myapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of the rendered SQL select statements, keyed by the shape of the statement, see {@link EntityManager.StatementKey}.
+ * <p>
+ * The cached statements reference their values through bind markers, including the limit and offset of the pages, so
+ * the SQL text of a given shape is produced once, stays stable, and the driver can reuse its prepared statements. The
+ * cache is bounded, the statements used the least are evicted first. The hits and misses are published as the
+ * {@code cache.gets} metric, with the {@code cache=sqlStatements} tag.
+ */
+@Service
+public class StatementCache implements MeterBinder {
+
+    /**
+     * The cache is not expected to grow past the number of distinct shapes, this bound only protects against an
+     * unbounded number of shapes, e.g. of criteria.
+     */
+    static final int MAX_SIZE = 1024;
+
+    private static final String CACHE_NAME = "sqlStatements";
+
+    private final Cache<Object, String> statements;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StatementCache() {
+        this(Caffeine.newBuilder());
+    }
+
+    /**
+     * @param builder the builder of the cache, e.g. with a synchronous executor, for the tests.
+     */
+    StatementCache(Caffeine<Object, Object> builder) {
+        this.statements = builder.maximumSize(MAX_SIZE).build();
+    }
+
+    /**
+     * Returns the cached statement for the given key, or renders and caches it.
+     * @param key the shape of the statement.
+     * @param renderer renders the statement, only called on a cache miss.
+     * @return the SQL statement.
+     */
+    public String get(Object key, Supplier<String> renderer) {
+        String statement = statements.getIfPresent(key);
+        if (statement != null) {
+            hits.increment();
+            return statement;
+        }
+        misses.increment();
+        statement = renderer.get();
+        statements.put(key, statement);
+        return statement;
+    }
+
+    public long size() {
+        return statements.estimatedSize();
+    }
+
+    public void clear() {
+        statements.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter
+            .builder("cache.gets", hits, LongAdder::sum)
+            .tags("cache", CACHE_NAME, "result", "hit")
+            .description("The number of times a rendered SQL statement was found in the cache")
+            .register(registry);
+        FunctionCounter
+            .builder("cache.gets", misses, LongAdder::sum)
+            .tags("cache", CACHE_NAME, "result", "miss")
+            .description("The number of times a SQL statement had to be rendered")
+            .register(registry);
+        Gauge
+            .builder("cache.size", this, StatementCache::size)
+            .tags("cache", CACHE_NAME)
+            .description("The number of rendered SQL statements in the cache")
+            .register(registry);
+    }
+}
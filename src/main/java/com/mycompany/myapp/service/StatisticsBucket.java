@@ -0,0 +1,92 @@
+package com.mycompany.myapp.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The number of reservas or historias of a day, week or month, see {@link BookingStatistics}.
+ */
+public final class StatisticsBucket {
+
+    /**
+     * The span of the buckets.
+     */
+    public enum Granularity {
+        DAY,
+        /**
+         * ISO weeks, from monday.
+         */
+        WEEK,
+        MONTH;
+
+        /**
+         * @param fecha a day.
+         * @return the first day of the bucket of the day.
+         */
+        public LocalDate startOf(LocalDate fecha) {
+            switch (this) {
+                case WEEK:
+                    return fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH:
+                    return fecha.withDayOfMonth(1);
+                default:
+                    return fecha;
+            }
+        }
+
+        /**
+         * @param name the name of the granularity, in any case, e.g. {@code week}.
+         * @return the granularity, or empty if the name is unknown.
+         */
+        public static Optional<Granularity> of(String name) {
+            for (Granularity granularity : values()) {
+                if (granularity.name().equals(name.toUpperCase(Locale.ROOT))) {
+                    return Optional.of(granularity);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private final LocalDate start;
+    private final long total;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Map<Especialidad, Long> especialidades;
+
+    StatisticsBucket(LocalDate start, long total, Map<Especialidad, Long> especialidades) {
+        this.start = start;
+        this.total = total;
+        this.especialidades = especialidades;
+    }
+
+    /**
+     * @return the first day of the bucket.
+     */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the number of reservas by especialidad, without the especialidades which have none, or {@code null} for
+     * the historias.
+     */
+    public Map<Especialidad, Long> getEspecialidades() {
+        return especialidades;
+    }
+
+    @Override
+    public String toString() {
+        return "StatisticsBucket{start=" + start + ", total=" + total + ", especialidades=" + especialidades + "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.mycompany.myapp.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * A fixed number of reactive locks, selected by the hash of a key: the operations on the same key run one at a time,
+ * in the order of their subscription, while the operations on keys of different stripes don't wait for each other.
+ * <p>
+ * A stripe is the queue of its holders: every acquirer waits for the release of the previous one, without blocking any
+ * thread, so the locks are safe on the event loop threads. The locks only exclude the operations of this instance.
+ */
+public final class StripedLocks {
+
+    private final AtomicReference<Mono<Void>>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("The number of stripes must be positive");
+        }
+        this.stripes = new AtomicReference[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new AtomicReference<>(Mono.empty());
+        }
+    }
+
+    /**
+     * Runs the given operation with the lock of the given key.
+     * @param <T> the result type of the operation.
+     * @param key the key, e.g. the slot of a reserva.
+     * @param operation the operation, subscribed once the lock is acquired, which holds it until it terminates.
+     * @return the result of the operation.
+     */
+    public <T> Mono<T> withLock(Object key, Supplier<Mono<T>> operation) {
+        AtomicReference<Mono<Void>> stripe = stripes[stripeOf(key)];
+        return Mono.defer(
+            () -> {
+                Sinks.Empty<Void> released = Sinks.empty();
+                Mono<Void> previous = stripe.getAndSet(released.asMono());
+                AtomicBoolean acquired = new AtomicBoolean();
+                return previous
+                    .then(
+                        Mono.defer(
+                            () -> {
+                                acquired.set(true);
+                                return operation.get();
+                            }
+                        )
+                    )
+                    .doFinally(
+                        signal -> {
+                            if (acquired.get()) {
+                                released.tryEmitEmpty();
+                            } else {
+                                // cancelled while waiting: the next acquirer still waits for the previous holder
+                                previous.subscribe(null, null, released::tryEmitEmpty);
+                            }
+                        }
+                    );
+            }
+        );
+    }
+
+    int stripeOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // mixes the high bits of the hash into the low ones, which select the stripe
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
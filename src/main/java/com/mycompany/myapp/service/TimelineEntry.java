@@ -0,0 +1,79 @@
+package com.mycompany.myapp.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Reserva;
+import java.time.LocalDate;
+
+/**
+ * A historia or a reserva of the timeline of a paciente, see {@link PatientTimeline}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class TimelineEntry {
+
+    /**
+     * The kind of the entry, the historias come before the reservas of the same day.
+     */
+    public enum Type {
+        HISTORIA,
+        RESERVA,
+    }
+
+    private final Type type;
+    private final LocalDate fecha;
+    private final Historia historia;
+    private final Reserva reserva;
+    private final String cursor;
+
+    TimelineEntry(Historia historia, String cursor) {
+        this(Type.HISTORIA, historia.getFecha(), historia, null, cursor);
+    }
+
+    TimelineEntry(Reserva reserva, String cursor) {
+        this(Type.RESERVA, reserva.getFecha(), null, reserva, cursor);
+    }
+
+    private TimelineEntry(Type type, LocalDate fecha, Historia historia, Reserva reserva, String cursor) {
+        this.type = type;
+        this.fecha = fecha;
+        this.historia = historia;
+        this.reserva = reserva;
+        this.cursor = cursor;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * @return the historia, or {@code null} if the entry is a reserva.
+     */
+    public Historia getHistoria() {
+        return historia;
+    }
+
+    /**
+     * @return the reserva, or {@code null} if the entry is a historia.
+     */
+    public Reserva getReserva() {
+        return reserva;
+    }
+
+    /**
+     * @return the cursor of the entries which follow this one.
+     */
+    @JsonIgnore
+    public String getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public String toString() {
+        return "TimelineEntry{type=" + type + ", fecha=" + fecha + "}";
+    }
+}
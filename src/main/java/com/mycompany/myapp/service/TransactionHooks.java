@@ -0,0 +1,41 @@
+package com.mycompany.myapp.service;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Defers the updates of the in-memory views of the tables, e.g. {@link SlotAvailabilityIndex}, until the transaction
+ * of the write they follow is committed.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    /**
+     * @param action the action to run once the current transaction, if any, is committed.
+     * @return a {@link Mono} which registers the action, or runs it at once if there is no transaction.
+     */
+    static Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .map(
+                synchronizationManager -> {
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCommit() {
+                                return Mono.fromRunnable(action);
+                            }
+                        }
+                    );
+                    return Boolean.TRUE;
+                }
+            )
+            .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+            .switchIfEmpty(Mono.fromRunnable(action))
+            .then();
+    }
+}
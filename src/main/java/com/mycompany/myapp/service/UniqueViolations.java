@@ -0,0 +1,30 @@
+package com.mycompany.myapp.service;
+
+import io.r2dbc.spi.R2dbcException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * Recognizes the violations of the unique constraints of the database, e.g. of the slots of the reservas, see
+ * {@link ReservaBooker}, or of the normalized rut of the pacientes, see {@link Rut}, so they can be reported as
+ * conflicts.
+ */
+public final class UniqueViolations {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private UniqueViolations() {}
+
+    /**
+     * @param e an error of a write.
+     * @return whether the error is the violation of a unique constraint, as translated by Spring, or as raised by the
+     * driver.
+     */
+    public static boolean isUniqueViolation(Throwable e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        Throwable cause = e instanceof DataIntegrityViolationException ? e.getCause() : e;
+        return cause instanceof R2dbcException && UNIQUE_VIOLATION.equals(((R2dbcException) cause).getSqlState());
+    }
+}
@@ -0,0 +1,216 @@
+package com.mycompany.myapp.service.criteria;
+
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import java.io.Serializable;
+import java.util.Objects;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.LocalDateFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Criteria class for the {@link com.mycompany.myapp.domain.Especialista} entity. This class is used
+ * in {@link com.mycompany.myapp.web.rest.EspecialistaResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /especialistas?especialidad.in=LABORATORIO,MEDICINA_GENERAL&nombre.specified=true}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+public class EspecialistaCriteria implements Serializable, Criteria {
+
+    /**
+     * Class for filtering Especialidad
+     */
+    public static class EspecialidadFilter extends Filter<Especialidad> {
+
+        public EspecialidadFilter() {}
+
+        public EspecialidadFilter(EspecialidadFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public EspecialidadFilter copy() {
+            return new EspecialidadFilter(this);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private StringFilter nombre;
+
+    private StringFilter apellidos;
+
+    private StringFilter rut;
+
+    private LocalDateFilter fechaNacimiento;
+
+    private StringFilter registroMedico;
+
+    private EspecialidadFilter especialidad;
+
+    public EspecialistaCriteria() {}
+
+    public EspecialistaCriteria(EspecialistaCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.nombre = other.nombre == null ? null : other.nombre.copy();
+        this.apellidos = other.apellidos == null ? null : other.apellidos.copy();
+        this.rut = other.rut == null ? null : other.rut.copy();
+        this.fechaNacimiento = other.fechaNacimiento == null ? null : other.fechaNacimiento.copy();
+        this.registroMedico = other.registroMedico == null ? null : other.registroMedico.copy();
+        this.especialidad = other.especialidad == null ? null : other.especialidad.copy();
+    }
+
+    @Override
+    public EspecialistaCriteria copy() {
+        return new EspecialistaCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getNombre() {
+        return nombre;
+    }
+
+    public StringFilter nombre() {
+        if (nombre == null) {
+            nombre = new StringFilter();
+        }
+        return nombre;
+    }
+
+    public void setNombre(StringFilter nombre) {
+        this.nombre = nombre;
+    }
+
+    public StringFilter getApellidos() {
+        return apellidos;
+    }
+
+    public StringFilter apellidos() {
+        if (apellidos == null) {
+            apellidos = new StringFilter();
+        }
+        return apellidos;
+    }
+
+    public void setApellidos(StringFilter apellidos) {
+        this.apellidos = apellidos;
+    }
+
+    public StringFilter getRut() {
+        return rut;
+    }
+
+    public StringFilter rut() {
+        if (rut == null) {
+            rut = new StringFilter();
+        }
+        return rut;
+    }
+
+    public void setRut(StringFilter rut) {
+        this.rut = rut;
+    }
+
+    public LocalDateFilter getFechaNacimiento() {
+        return fechaNacimiento;
+    }
+
+    public LocalDateFilter fechaNacimiento() {
+        if (fechaNacimiento == null) {
+            fechaNacimiento = new LocalDateFilter();
+        }
+        return fechaNacimiento;
+    }
+
+    public void setFechaNacimiento(LocalDateFilter fechaNacimiento) {
+        this.fechaNacimiento = fechaNacimiento;
+    }
+
+    public StringFilter getRegistroMedico() {
+        return registroMedico;
+    }
+
+    public StringFilter registroMedico() {
+        if (registroMedico == null) {
+            registroMedico = new StringFilter();
+        }
+        return registroMedico;
+    }
+
+    public void setRegistroMedico(StringFilter registroMedico) {
+        this.registroMedico = registroMedico;
+    }
+
+    public EspecialidadFilter getEspecialidad() {
+        return especialidad;
+    }
+
+    public EspecialidadFilter especialidad() {
+        if (especialidad == null) {
+            especialidad = new EspecialidadFilter();
+        }
+        return especialidad;
+    }
+
+    public void setEspecialidad(EspecialidadFilter especialidad) {
+        this.especialidad = especialidad;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final EspecialistaCriteria that = (EspecialistaCriteria) o;
+        return (
+            Objects.equals(id, that.id)
+            && Objects.equals(nombre, that.nombre)
+            && Objects.equals(apellidos, that.apellidos)
+            && Objects.equals(rut, that.rut)
+            && Objects.equals(fechaNacimiento, that.fechaNacimiento)
+            && Objects.equals(registroMedico, that.registroMedico)
+            && Objects.equals(especialidad, that.especialidad)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, nombre, apellidos, rut, fechaNacimiento, registroMedico, especialidad);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EspecialistaCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (nombre != null ? "nombre=" + nombre + ", " : "") +
+            (apellidos != null ? "apellidos=" + apellidos + ", " : "") +
+            (rut != null ? "rut=" + rut + ", " : "") +
+            (fechaNacimiento != null ? "fechaNacimiento=" + fechaNacimiento + ", " : "") +
+            (registroMedico != null ? "registroMedico=" + registroMedico + ", " : "") +
+            (especialidad != null ? "especialidad=" + especialidad + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,157 @@
+package com.mycompany.myapp.service.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.LocalDateFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Criteria class for the {@link com.mycompany.myapp.domain.Historia} entity. This class is used
+ * in {@link com.mycompany.myapp.web.rest.HistoriaResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /historias?rutId.equals=5&fecha.greaterThanOrEqual=2026-01-01}
+ * As Spring is unable to properly convert the types, unless specific {@link tech.jhipster.service.filter.Filter} class
+ * are used, we need to use fix type specific filters.
+ */
+public class HistoriaCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private LocalDateFilter fecha;
+
+    private StringFilter diagnostico;
+
+    private StringFilter descripcion;
+
+    private LongFilter rutId;
+
+    public HistoriaCriteria() {}
+
+    public HistoriaCriteria(HistoriaCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.fecha = other.fecha == null ? null : other.fecha.copy();
+        this.diagnostico = other.diagnostico == null ? null : other.diagnostico.copy();
+        this.descripcion = other.descripcion == null ? null : other.descripcion.copy();
+        this.rutId = other.rutId == null ? null : other.rutId.copy();
+    }
+
+    @Override
+    public HistoriaCriteria copy() {
+        return new HistoriaCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public LocalDateFilter getFecha() {
+        return fecha;
+    }
+
+    public LocalDateFilter fecha() {
+        if (fecha == null) {
+            fecha = new LocalDateFilter();
+        }
+        return fecha;
+    }
+
+    public void setFecha(LocalDateFilter fecha) {
+        this.fecha = fecha;
+    }
+
+    public StringFilter getDiagnostico() {
+        return diagnostico;
+    }
+
+    public StringFilter diagnostico() {
+        if (diagnostico == null) {
+            diagnostico = new StringFilter();
+        }
+        return diagnostico;
+    }
+
+    public void setDiagnostico(StringFilter diagnostico) {
+        this.diagnostico = diagnostico;
+    }
+
+    public StringFilter getDescripcion() {
+        return descripcion;
+    }
+
+    public StringFilter descripcion() {
+        if (descripcion == null) {
+            descripcion = new StringFilter();
+        }
+        return descripcion;
+    }
+
+    public void setDescripcion(StringFilter descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public LongFilter getRutId() {
+        return rutId;
+    }
+
+    public LongFilter rutId() {
+        if (rutId == null) {
+            rutId = new LongFilter();
+        }
+        return rutId;
+    }
+
+    public void setRutId(LongFilter rutId) {
+        this.rutId = rutId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final HistoriaCriteria that = (HistoriaCriteria) o;
+        return (
+            Objects.equals(id, that.id)
+            && Objects.equals(fecha, that.fecha)
+            && Objects.equals(diagnostico, that.diagnostico)
+            && Objects.equals(descripcion, that.descripcion)
+            && Objects.equals(rutId, that.rutId)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, fecha, diagnostico, descripcion, rutId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "HistoriaCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (fecha != null ? "fecha=" + fecha + ", " : "") +
+            (diagnostico != null ? "diagnostico=" + diagnostico + ", " : "") +
+            (descripcion != null ? "descripcion=" + descripcion + ", " : "") +
+            (rutId != null ? "rutId=" + rutId + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,157 @@
+package com.mycompany.myapp.service.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.LocalDateFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Criteria class for the {@link com.mycompany.myapp.domain.Paciente} entity. This class is used
+ * in {@link com.mycompany.myapp.web.rest.PacienteResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /pacientes?apellidos.contains=soto&fechaNacimiento.lessThan=2000-01-01}
+ * As Spring is unable to properly convert the types, unless specific {@link tech.jhipster.service.filter.Filter} class
+ * are used, we need to use fix type specific filters.
+ */
+public class PacienteCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private StringFilter nombre;
+
+    private StringFilter apellidos;
+
+    private LocalDateFilter fechaNacimiento;
+
+    private LongFilter rutId;
+
+    public PacienteCriteria() {}
+
+    public PacienteCriteria(PacienteCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.nombre = other.nombre == null ? null : other.nombre.copy();
+        this.apellidos = other.apellidos == null ? null : other.apellidos.copy();
+        this.fechaNacimiento = other.fechaNacimiento == null ? null : other.fechaNacimiento.copy();
+        this.rutId = other.rutId == null ? null : other.rutId.copy();
+    }
+
+    @Override
+    public PacienteCriteria copy() {
+        return new PacienteCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public StringFilter getNombre() {
+        return nombre;
+    }
+
+    public StringFilter nombre() {
+        if (nombre == null) {
+            nombre = new StringFilter();
+        }
+        return nombre;
+    }
+
+    public void setNombre(StringFilter nombre) {
+        this.nombre = nombre;
+    }
+
+    public StringFilter getApellidos() {
+        return apellidos;
+    }
+
+    public StringFilter apellidos() {
+        if (apellidos == null) {
+            apellidos = new StringFilter();
+        }
+        return apellidos;
+    }
+
+    public void setApellidos(StringFilter apellidos) {
+        this.apellidos = apellidos;
+    }
+
+    public LocalDateFilter getFechaNacimiento() {
+        return fechaNacimiento;
+    }
+
+    public LocalDateFilter fechaNacimiento() {
+        if (fechaNacimiento == null) {
+            fechaNacimiento = new LocalDateFilter();
+        }
+        return fechaNacimiento;
+    }
+
+    public void setFechaNacimiento(LocalDateFilter fechaNacimiento) {
+        this.fechaNacimiento = fechaNacimiento;
+    }
+
+    public LongFilter getRutId() {
+        return rutId;
+    }
+
+    public LongFilter rutId() {
+        if (rutId == null) {
+            rutId = new LongFilter();
+        }
+        return rutId;
+    }
+
+    public void setRutId(LongFilter rutId) {
+        this.rutId = rutId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final PacienteCriteria that = (PacienteCriteria) o;
+        return (
+            Objects.equals(id, that.id)
+            && Objects.equals(nombre, that.nombre)
+            && Objects.equals(apellidos, that.apellidos)
+            && Objects.equals(fechaNacimiento, that.fechaNacimiento)
+            && Objects.equals(rutId, that.rutId)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, nombre, apellidos, fechaNacimiento, rutId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PacienteCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (nombre != null ? "nombre=" + nombre + ", " : "") +
+            (apellidos != null ? "apellidos=" + apellidos + ", " : "") +
+            (fechaNacimiento != null ? "fechaNacimiento=" + fechaNacimiento + ", " : "") +
+            (rutId != null ? "rutId=" + rutId + ", " : "") +
+            "}";
+    }
+}
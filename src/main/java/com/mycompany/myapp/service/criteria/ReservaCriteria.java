@@ -0,0 +1,176 @@
+package com.mycompany.myapp.service.criteria;
+
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import java.io.Serializable;
+import java.util.Objects;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.InstantFilter;
+import tech.jhipster.service.filter.LocalDateFilter;
+import tech.jhipster.service.filter.LongFilter;
+
+/**
+ * Criteria class for the {@link com.mycompany.myapp.domain.Reserva} entity. This class is used
+ * in {@link com.mycompany.myapp.web.rest.ReservaResource} to receive all the possible filtering options from
+ * the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /reservas?especialidad.equals=LABORATORIO&fecha.equals=2026-10-20}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+public class ReservaCriteria implements Serializable, Criteria {
+
+    /**
+     * Class for filtering Especialidad
+     */
+    public static class EspecialidadFilter extends Filter<Especialidad> {
+
+        public EspecialidadFilter() {}
+
+        public EspecialidadFilter(EspecialidadFilter filter) {
+            super(filter);
+        }
+
+        @Override
+        public EspecialidadFilter copy() {
+            return new EspecialidadFilter(this);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private LocalDateFilter fecha;
+
+    private InstantFilter hora;
+
+    private EspecialidadFilter especialidad;
+
+    private LongFilter rutId;
+
+    public ReservaCriteria() {}
+
+    public ReservaCriteria(ReservaCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.fecha = other.fecha == null ? null : other.fecha.copy();
+        this.hora = other.hora == null ? null : other.hora.copy();
+        this.especialidad = other.especialidad == null ? null : other.especialidad.copy();
+        this.rutId = other.rutId == null ? null : other.rutId.copy();
+    }
+
+    @Override
+    public ReservaCriteria copy() {
+        return new ReservaCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public LocalDateFilter getFecha() {
+        return fecha;
+    }
+
+    public LocalDateFilter fecha() {
+        if (fecha == null) {
+            fecha = new LocalDateFilter();
+        }
+        return fecha;
+    }
+
+    public void setFecha(LocalDateFilter fecha) {
+        this.fecha = fecha;
+    }
+
+    public InstantFilter getHora() {
+        return hora;
+    }
+
+    public InstantFilter hora() {
+        if (hora == null) {
+            hora = new InstantFilter();
+        }
+        return hora;
+    }
+
+    public void setHora(InstantFilter hora) {
+        this.hora = hora;
+    }
+
+    public EspecialidadFilter getEspecialidad() {
+        return especialidad;
+    }
+
+    public EspecialidadFilter especialidad() {
+        if (especialidad == null) {
+            especialidad = new EspecialidadFilter();
+        }
+        return especialidad;
+    }
+
+    public void setEspecialidad(EspecialidadFilter especialidad) {
+        this.especialidad = especialidad;
+    }
+
+    public LongFilter getRutId() {
+        return rutId;
+    }
+
+    public LongFilter rutId() {
+        if (rutId == null) {
+            rutId = new LongFilter();
+        }
+        return rutId;
+    }
+
+    public void setRutId(LongFilter rutId) {
+        this.rutId = rutId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ReservaCriteria that = (ReservaCriteria) o;
+        return (
+            Objects.equals(id, that.id)
+            && Objects.equals(fecha, that.fecha)
+            && Objects.equals(hora, that.hora)
+            && Objects.equals(especialidad, that.especialidad)
+            && Objects.equals(rutId, that.rutId)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, fecha, hora, especialidad, rutId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ReservaCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (fecha != null ? "fecha=" + fecha + ", " : "") +
+            (hora != null ? "hora=" + hora + ", " : "") +
+            (especialidad != null ? "especialidad=" + especialidad + ", " : "") +
+            (rutId != null ? "rutId=" + rutId + ", " : "") +
+            "}";
+    }
+}
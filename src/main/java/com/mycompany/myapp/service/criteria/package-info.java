@@ -0,0 +1,4 @@
+/**
+ * Criteria of the query parameters which filter the entities.
+ */
+package com.mycompany.myapp.service.criteria;
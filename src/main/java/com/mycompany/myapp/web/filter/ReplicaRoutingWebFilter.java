@@ -0,0 +1,63 @@
+package com.mycompany.myapp.web.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.myapp.config.ReplicaRoutingConnectionFactory;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Marks the safe requests as read-only, so that their database connections go to the read replicas, see
+ * {@link ReplicaRoutingConnectionFactory}.
+ * <p>
+ * The requests which change data go to the primary. So do the requests of their user during the read-your-writes
+ * window that follows, so that a user reads their own writes even if the replicas lag behind. The writes are tracked by
+ * this instance only, so the window assumes that the requests of a user stay on the same instance.
+ */
+public class ReplicaRoutingWebFilter implements WebFilter {
+
+    private static final Set<HttpMethod> SAFE_METHODS = EnumSet.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private static final long MAX_USERS = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReplicaRoutingWebFilter(Duration readYourWritesWindow) {
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).maximumSize(MAX_USERS).build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        boolean safe = SAFE_METHODS.contains(exchange.getRequest().getMethod());
+        return exchange
+            .getPrincipal()
+            .map(Principal::getName)
+            .defaultIfEmpty("")
+            .flatMap(
+                user -> {
+                    if (!safe) {
+                        // the window starts with the request, and is extended once it's done
+                        markWriter(user);
+                        return chain.filter(exchange).doFinally(signal -> markWriter(user));
+                    }
+                    if (!user.isEmpty() && recentWriters.getIfPresent(user) != null) {
+                        return chain.filter(exchange);
+                    }
+                    return chain.filter(exchange).contextWrite(ReplicaRoutingConnectionFactory::readOnly);
+                }
+            );
+    }
+
+    private void markWriter(String user) {
+        if (!user.isEmpty()) {
+            recentWriters.put(user, Boolean.TRUE);
+        }
+    }
+}
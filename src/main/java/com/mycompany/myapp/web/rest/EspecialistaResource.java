@@ -1,23 +1,36 @@
 package com.mycompany.myapp.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.myapp.domain.Especialista;
 import com.mycompany.myapp.repository.EspecialistaRepository;
 import com.mycompany.myapp.repository.search.EspecialistaSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RelationshipLoader;
+import com.mycompany.myapp.service.criteria.EspecialistaCriteria;
 import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import com.mycompany.myapp.web.rest.util.ProjectionUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -42,9 +55,20 @@ public class EspecialistaResource {
 
     private final EspecialistaSearchRepository especialistaSearchRepository;
 
-    public EspecialistaResource(EspecialistaRepository especialistaRepository, EspecialistaSearchRepository especialistaSearchRepository) {
+    private final ObjectMapper objectMapper;
+
+    private final RelationshipLoader relationshipLoader;
+
+    public EspecialistaResource(
+        EspecialistaRepository especialistaRepository,
+        EspecialistaSearchRepository especialistaSearchRepository,
+        ObjectMapper objectMapper,
+        RelationshipLoader relationshipLoader
+    ) {
         this.especialistaRepository = especialistaRepository;
         this.especialistaSearchRepository = especialistaSearchRepository;
+        this.objectMapper = objectMapper;
+        this.relationshipLoader = relationshipLoader;
     }
 
     /**
@@ -62,7 +86,6 @@ public class EspecialistaResource {
         }
         return especialistaRepository
             .save(especialista)
-            .flatMap(especialistaSearchRepository::save)
             .map(
                 result -> {
                     try {
@@ -110,7 +133,6 @@ public class EspecialistaResource {
 
                     return especialistaRepository
                         .save(especialista)
-                        .flatMap(especialistaSearchRepository::save)
                         .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
                         .map(
                             result ->
@@ -150,72 +172,77 @@ public class EspecialistaResource {
         }
 
         return especialistaRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    Mono<Especialista> result = especialistaRepository
-                        .findById(especialista.getId())
-                        .map(
-                            existingEspecialista -> {
-                                if (especialista.getNombre() != null) {
-                                    existingEspecialista.setNombre(especialista.getNombre());
-                                }
-                                if (especialista.getApellidos() != null) {
-                                    existingEspecialista.setApellidos(especialista.getApellidos());
-                                }
-                                if (especialista.getRut() != null) {
-                                    existingEspecialista.setRut(especialista.getRut());
-                                }
-                                if (especialista.getFechaNacimiento() != null) {
-                                    existingEspecialista.setFechaNacimiento(especialista.getFechaNacimiento());
-                                }
-                                if (especialista.getRegistroMedico() != null) {
-                                    existingEspecialista.setRegistroMedico(especialista.getRegistroMedico());
-                                }
-                                if (especialista.getEspecialidad() != null) {
-                                    existingEspecialista.setEspecialidad(especialista.getEspecialidad());
-                                }
+            .partialUpdate(especialista)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
+            );
+    }
 
-                                return existingEspecialista;
-                            }
+    /**
+     * {@code GET  /especialistas} : get a page of especialistas, ordered by id.
+     *
+     * @param cursor the cursor of the page, taken from the {@code next} link of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param fields the properties of the especialistas to return, or none for all of them.
+     * @param expand the relationships to load with the especialistas, e.g. {@code pacientes}.
+     * @param criteria the criteria which the requested entities should match.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the list of especialistas in body, and the total number of especialistas matching the criteria in the {@code X-Total-Count} header, see {@link com.mycompany.myapp.service.RowCounter}.
+     */
+    @GetMapping("/especialistas")
+    public Mono<ResponseEntity<List<?>>> getAllEspecialistas(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        @RequestParam(required = false) List<String> fields,
+        @RequestParam(required = false) List<String> expand,
+        EspecialistaCriteria criteria,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Especialistas by criteria: {}", criteria);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        Set<String> expansion = ProjectionUtil.createExpansion(expand, RelationshipLoader.ESPECIALISTA_RELATIONSHIPS, ENTITY_NAME);
+        Projection projection = ProjectionUtil.createProjection(fields, Especialista.class, objectMapper, ENTITY_NAME).with(expansion);
+        return especialistaRepository
+            .findByCriteria(criteria, keyset, projection)
+            .collectList()
+            .flatMap(especialistas -> relationshipLoader.expandEspecialistas(especialistas, expansion))
+            .zipWhen(especialistas -> especialistaRepository.countTotalByCriteria(criteria))
+            .map(
+                page -> {
+                    List<Especialista> especialistas = page.getT1();
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                especialistas,
+                                especialista -> KeysetPageable.cursorOf(especialista.getId()),
+                                page.getT2()
+                            )
                         )
-                        .flatMap(especialistaRepository::save)
-                        .flatMap(
-                            savedEspecialista -> {
-                                especialistaSearchRepository.save(savedEspecialista);
-
-                                return Mono.just(savedEspecialista);
-                            }
-                        );
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString())
-                                    )
-                                    .body(res)
+                        .body(
+                            ProjectionUtil.project(objectMapper, KeysetPaginationUtil.getPageContent(keyset, especialistas), projection)
                         );
                 }
             );
     }
 
     /**
-     * {@code GET  /especialistas} : get all the especialistas.
+     * {@code GET  /especialistas/count} : count all the especialistas.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of especialistas in body.
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
      */
-    @GetMapping("/especialistas")
-    public Mono<List<Especialista>> getAllEspecialistas() {
-        log.debug("REST request to get all Especialistas");
-        return especialistaRepository.findAll().collectList();
+    @GetMapping("/especialistas/count")
+    public Mono<ResponseEntity<Long>> countEspecialistas(EspecialistaCriteria criteria) {
+        log.debug("REST request to count Especialistas by criteria: {}", criteria);
+        return especialistaRepository.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
     }
 
     /**
@@ -223,21 +250,24 @@ public class EspecialistaResource {
      * @return the {@link Flux} of especialistas.
      */
     @GetMapping(value = "/especialistas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Flux<Especialista> getAllEspecialistasAsStream() {
         log.debug("REST request to get all Especialistas as a stream");
-        return especialistaRepository.findAll();
+        return especialistaRepository.streamAll();
     }
 
     /**
      * {@code GET  /especialistas/:id} : get the "id" especialista.
      *
      * @param id the id of the especialista to retrieve.
+     * @param expand the relationships to load with the especialista, e.g. {@code pacientes}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the especialista, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/especialistas/{id}")
-    public Mono<ResponseEntity<Especialista>> getEspecialista(@PathVariable Long id) {
+    public Mono<ResponseEntity<Especialista>> getEspecialista(@PathVariable Long id, @RequestParam(required = false) List<String> expand) {
         log.debug("REST request to get Especialista : {}", id);
-        Mono<Especialista> especialista = especialistaRepository.findById(id);
+        Set<String> expansion = ProjectionUtil.createExpansion(expand, RelationshipLoader.ESPECIALISTA_RELATIONSHIPS, ENTITY_NAME);
+        Mono<Especialista> especialista = relationshipLoader.findEspecialista(id, expansion);
         return ResponseUtil.wrapOrNotFound(especialista);
     }
 
@@ -253,7 +283,6 @@ public class EspecialistaResource {
         log.debug("REST request to delete Especialista : {}", id);
         return especialistaRepository
             .deleteById(id)
-            .then(especialistaSearchRepository.deleteById(id))
             .map(
                 result ->
                     ResponseEntity
@@ -264,15 +293,75 @@ public class EspecialistaResource {
     }
 
     /**
-     * {@code SEARCH  /_search/especialistas?query=:query} : search for the especialista corresponding
+     * {@code SEARCH  /_search/especialistas?query=:query} : search for a page of the especialistas corresponding
      * to the query.
+     * <p>
+     * The hits are sorted by relevance, and the next page is reachable through the {@code next} link, which resumes the
+     * search after the last hit of the page.
      *
      * @param query the query of the especialista search.
-     * @return the result of the search.
+     * @param cursor the cursor of the page, from the {@code next} link of the previous page.
+     * @param size the size of the page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the page of the result of the search in body, and
+     * the total number of hits in the {@code X-Total-Count} header.
      */
     @GetMapping("/_search/especialistas")
-    public Mono<List<Especialista>> searchEspecialistas(@RequestParam String query) {
-        log.debug("REST request to search Especialistas for query {}", query);
-        return especialistaSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Especialista>>> searchEspecialistas(
+        @RequestParam String query,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search a page of Especialistas for query {}", query);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        return Mono
+            .zip(
+                especialistaSearchRepository.search(query, keyset.getPageSize(), keyset.getAfter()).collectList(),
+                especialistaSearchRepository.countSearch(query)
+            )
+            .map(
+                result -> {
+                    List<SearchAfterHit<Especialista>> hits = result.getT1();
+                    List<Especialista> especialistas = new ArrayList<>();
+                    KeysetPaginationUtil.getPageContent(keyset, hits).forEach(hit -> especialistas.add(hit.getContent()));
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                hits,
+                                hit -> KeysetPageable.cursorOf(hit.getSortValues().toArray()),
+                                result.getT2()
+                            )
+                        )
+                        .body(especialistas);
+                }
+            );
+    }
+
+    /**
+     * {@code SEARCH  /_search/especialistas?query=:query} : stream all the especialistas corresponding to the query.
+     * <p>
+     * The hits are read through a scroll, as fast as the client consumes them.
+     *
+     * @param query the query of the especialista search.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the result of the search in body, and the total
+     * number of hits in the {@code X-Total-Count} header.
+     */
+    @GetMapping(value = "/_search/especialistas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Flux<Especialista>>> searchEspecialistasAsStream(@RequestParam String query) {
+        log.debug("REST request to stream the Especialistas for query {}", query);
+        return especialistaSearchRepository
+            .countSearch(query)
+            .map(
+                total ->
+                    ResponseEntity
+                        .ok()
+                        .header(KeysetPaginationUtil.TOTAL_COUNT_HEADER, Long.toString(total))
+                        .body(especialistaSearchRepository.search(query))
+            );
     }
 }
@@ -1,23 +1,50 @@
 package com.mycompany.myapp.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.myapp.domain.Historia;
 import com.mycompany.myapp.repository.HistoriaRepository;
 import com.mycompany.myapp.repository.search.HistoriaSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
+import com.mycompany.myapp.service.AttachmentStore;
+import com.mycompany.myapp.service.BookingStatistics;
+import com.mycompany.myapp.service.BulkInserter;
+import com.mycompany.myapp.service.BulkResult;
+import com.mycompany.myapp.service.ExportColumn;
+import com.mycompany.myapp.service.ExportFormat;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RowExporter;
+import com.mycompany.myapp.service.StatisticsBucket;
+import com.mycompany.myapp.service.criteria.HistoriaCriteria;
 import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import com.mycompany.myapp.web.rest.util.ProjectionUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -35,6 +62,18 @@ public class HistoriaResource {
 
     private static final String ENTITY_NAME = "mavenHistoria";
 
+    private static final String RESULTADO_FILE_INVALID = "resultadofileinvalid";
+
+    private static final List<ExportColumn> EXPORT_COLUMNS = List.of(
+        ExportColumn.of("id", Long.class),
+        ExportColumn.of("fecha", LocalDate.class),
+        ExportColumn.of("diagnostico", String.class),
+        ExportColumn.of("descripcion", String.class),
+        ExportColumn.of("resultado_file", String.class),
+        ExportColumn.of("rut_id", Long.class),
+        ExportColumn.of("last_modified_date", Instant.class)
+    );
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -42,9 +81,32 @@ public class HistoriaResource {
 
     private final HistoriaSearchRepository historiaSearchRepository;
 
-    public HistoriaResource(HistoriaRepository historiaRepository, HistoriaSearchRepository historiaSearchRepository) {
+    private final BulkInserter bulkInserter;
+
+    private final ObjectMapper objectMapper;
+
+    private final RowExporter rowExporter;
+
+    private final AttachmentStore attachmentStore;
+
+    private final BookingStatistics bookingStatistics;
+
+    public HistoriaResource(
+        HistoriaRepository historiaRepository,
+        HistoriaSearchRepository historiaSearchRepository,
+        BulkInserter bulkInserter,
+        ObjectMapper objectMapper,
+        RowExporter rowExporter,
+        AttachmentStore attachmentStore,
+        BookingStatistics bookingStatistics
+    ) {
         this.historiaRepository = historiaRepository;
         this.historiaSearchRepository = historiaSearchRepository;
+        this.bulkInserter = bulkInserter;
+        this.objectMapper = objectMapper;
+        this.rowExporter = rowExporter;
+        this.attachmentStore = attachmentStore;
+        this.bookingStatistics = bookingStatistics;
     }
 
     /**
@@ -60,9 +122,10 @@ public class HistoriaResource {
         if (historia.getId() != null) {
             throw new BadRequestAlertException("A new historia cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        validateResultadoFile(historia);
         return historiaRepository
             .save(historia)
-            .flatMap(historiaSearchRepository::save)
+            .flatMap(result -> bookingStatistics.add(result).thenReturn(result))
             .map(
                 result -> {
                     try {
@@ -77,6 +140,28 @@ public class HistoriaResource {
             );
     }
 
+    /**
+     * {@code POST  /historias/bulk} : Create new historias in batches.
+     *
+     * @param historias the historias to create, as a JSON array or as newline delimited JSON.
+     * @return the result of the creation of every historia, in the order of the request, as newline delimited JSON.
+     */
+    @PostMapping(
+        value = "/historias/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkResult> createHistorias(@RequestBody Flux<Historia> historias) {
+        log.debug("REST request to save Historias in bulk");
+        return bulkInserter.insertAll(
+            historias,
+            Historia::getId,
+            historia -> isResultadoFileValid(historia) ? null : RESULTADO_FILE_INVALID,
+            batch -> historiaRepository.insertAll(batch).concatMap(result -> bookingStatistics.add(result).thenReturn(result))
+        );
+    }
+
     /**
      * {@code PUT  /historias/:id} : Updates an existing historia.
      *
@@ -99,19 +184,17 @@ public class HistoriaResource {
         if (!Objects.equals(id, historia.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        validateResultadoFile(historia);
 
         return historiaRepository
-            .existsById(id)
+            .findById(id)
+            .switchIfEmpty(Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")))
             .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return historiaRepository
+                existingHistoria ->
+                    historiaRepository
                         .save(historia)
-                        .flatMap(historiaSearchRepository::save)
                         .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                        .flatMap(result -> bookingStatistics.move(existingHistoria, result).thenReturn(result))
                         .map(
                             result ->
                                 ResponseEntity
@@ -120,8 +203,7 @@ public class HistoriaResource {
                                         HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString())
                                     )
                                     .body(result)
-                        );
-                }
+                        )
             );
     }
 
@@ -148,68 +230,140 @@ public class HistoriaResource {
         if (!Objects.equals(id, historia.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        validateResultadoFile(historia);
 
-        return historiaRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
+        // the previous day of the historia is only needed if the patch changes it
+        Mono<Historia> result = historia.getFecha() == null
+            ? historiaRepository.partialUpdate(historia)
+            : historiaRepository
+                .findById(id)
+                .flatMap(
+                    existingHistoria ->
+                        historiaRepository
+                            .partialUpdate(historia)
+                            .flatMap(updated -> bookingStatistics.move(existingHistoria, updated).thenReturn(updated))
+                );
+        return result
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
+            );
+    }
 
-                    Mono<Historia> result = historiaRepository
-                        .findById(historia.getId())
-                        .map(
-                            existingHistoria -> {
-                                if (historia.getFecha() != null) {
-                                    existingHistoria.setFecha(historia.getFecha());
-                                }
-                                if (historia.getDiagnostico() != null) {
-                                    existingHistoria.setDiagnostico(historia.getDiagnostico());
-                                }
-                                if (historia.getDescripcion() != null) {
-                                    existingHistoria.setDescripcion(historia.getDescripcion());
-                                }
-                                if (historia.getResultadoFile() != null) {
-                                    existingHistoria.setResultadoFile(historia.getResultadoFile());
-                                }
-
-                                return existingHistoria;
-                            }
+    /**
+     * {@code GET  /historias} : get a page of historias, ordered by fecha, id.
+     *
+     * @param cursor the cursor of the page, taken from the {@code next} link of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param fields the properties of the historias to return, or none for all of them.
+     * @param criteria the criteria which the requested entities should match.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the list of historias in body, and the total number of historias matching the criteria in the {@code X-Total-Count} header, see {@link com.mycompany.myapp.service.RowCounter}.
+     */
+    @GetMapping("/historias")
+    public Mono<ResponseEntity<List<?>>> getAllHistorias(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        @RequestParam(required = false) List<String> fields,
+        HistoriaCriteria criteria,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Historias by criteria: {}", criteria);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        Projection projection = ProjectionUtil.createProjection(fields, Historia.class, objectMapper, ENTITY_NAME);
+        return historiaRepository
+            .findByCriteria(criteria, keyset, projection)
+            .collectList()
+            .zipWhen(historias -> historiaRepository.countTotalByCriteria(criteria))
+            .map(
+                page -> {
+                    List<Historia> historias = page.getT1();
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                historias,
+                                historia -> KeysetPageable.cursorOf(historia.getFecha(), historia.getId()),
+                                page.getT2()
+                            )
                         )
-                        .flatMap(historiaRepository::save)
-                        .flatMap(
-                            savedHistoria -> {
-                                historiaSearchRepository.save(savedHistoria);
-
-                                return Mono.just(savedHistoria);
-                            }
-                        );
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString())
-                                    )
-                                    .body(res)
-                        );
+                        .body(ProjectionUtil.project(objectMapper, KeysetPaginationUtil.getPageContent(keyset, historias), projection));
                 }
             );
     }
 
     /**
-     * {@code GET  /historias} : get all the historias.
+     * {@code GET  /historias/count} : count all the historias.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of historias in body.
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
      */
-    @GetMapping("/historias")
-    public Mono<List<Historia>> getAllHistorias() {
-        log.debug("REST request to get all Historias");
-        return historiaRepository.findAll().collectList();
+    @GetMapping("/historias/count")
+    public Mono<ResponseEntity<Long>> countHistorias(HistoriaCriteria criteria) {
+        log.debug("REST request to count Historias by criteria: {}", criteria);
+        return historiaRepository.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
+    }
+
+    /**
+     * {@code GET  /historias/export} : export the historias, as CSV or as compressed columnar row groups.
+     * <p>
+     * The rows are streamed from a database cursor into the response, see {@link RowExporter}.
+     *
+     * @param format the format of the export, {@code csv} or {@code columnar}.
+     * @param criteria the criteria which the exported historias should match, e.g. a range of {@code fecha}.
+     * @param response the response, whose buffers the export is written into.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the export in body, or with status {@code 400 (Bad Request)} if the format is unknown.
+     */
+    @GetMapping("/historias/export")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<Flux<DataBuffer>> exportHistorias(
+        @RequestParam(defaultValue = "csv") String format,
+        HistoriaCriteria criteria,
+        ServerHttpResponse response
+    ) {
+        log.debug("REST request to export Historias as {} by criteria: {}", format, criteria);
+        ExportFormat exportFormat = ExportFormat
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown export format", ENTITY_NAME, "formatinvalid"));
+        Flux<Object[]> rows = historiaRepository.exportByCriteria(criteria, rowExporter.values(EXPORT_COLUMNS));
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("historias." + exportFormat.getExtension()).build().toString()
+            )
+            .body(rowExporter.export(exportFormat, EXPORT_COLUMNS, rows, response.bufferFactory()));
+    }
+
+    /**
+     * {@code GET  /historias/statistics} : get the number of historias by day, week or month.
+     * <p>
+     * The counts are answered from in-memory counters, see {@link BookingStatistics}.
+     *
+     * @param bucket the span of the buckets, {@code day}, {@code week} or {@code month}.
+     * @param from the first day to count, if any.
+     * @param to the day after the last day to count, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the buckets which hold historias in body, or with status {@code 400 (Bad Request)} if the bucket is unknown.
+     */
+    @GetMapping("/historias/statistics")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<StatisticsBucket>> getHistoriaStatistics(
+        @RequestParam(defaultValue = "day") String bucket,
+        @RequestParam(required = false) LocalDate from,
+        @RequestParam(required = false) LocalDate to
+    ) {
+        log.debug("REST request to get the statistics of the Historias by {} from {} to {}", bucket, from, to);
+        StatisticsBucket.Granularity granularity = StatisticsBucket.Granularity
+            .of(bucket)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown statistics bucket", ENTITY_NAME, "bucketinvalid"));
+        return ResponseEntity.ok().body(bookingStatistics.getHistorias(granularity, from, to));
     }
 
     /**
@@ -217,9 +371,10 @@ public class HistoriaResource {
      * @return the {@link Flux} of historias.
      */
     @GetMapping(value = "/historias", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Flux<Historia> getAllHistoriasAsStream() {
         log.debug("REST request to get all Historias as a stream");
-        return historiaRepository.findAll();
+        return historiaRepository.streamAll();
     }
 
     /**
@@ -235,6 +390,71 @@ public class HistoriaResource {
         return ResponseUtil.wrapOrNotFound(historia);
     }
 
+    /**
+     * {@code PUT  /historias/:id/resultado} : upload the resultado file of the "id" historia.
+     * <p>
+     * The file is streamed to the {@link AttachmentStore}, and the historia keeps its reference in {@code resultadoFile}.
+     *
+     * @param id the id of the historia.
+     * @param content the content of the file.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated historia, or with status {@code 404 (Not Found)},
+     * or with status {@code 413 (Payload Too Large)} if the file exceeds the maximum size.
+     */
+    @PutMapping(value = "/historias/{id}/resultado", consumes = MediaType.ALL_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Historia>> uploadResultado(@PathVariable Long id, @RequestBody Flux<DataBuffer> content) {
+        log.debug("REST request to upload the resultado of Historia : {}", id);
+        return historiaRepository
+            .existsById(id)
+            .flatMap(exists -> exists ? attachmentStore.store(content) : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .flatMap(reference -> historiaRepository.partialUpdate(new Historia().id(id).resultadoFile(reference)))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .onErrorMap(DataBufferLimitException.class, e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage()))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, id.toString()))
+                        .body(result)
+            );
+    }
+
+    /**
+     * {@code GET  /historias/:id/resultado} : download the resultado file of the "id" historia.
+     * <p>
+     * The file is sent from the disk with zero-copy, and the {@code Range} header is supported.
+     *
+     * @param id the id of the historia.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, or {@code 206 (Partial Content)} for a range, and with the file in body,
+     * or with status {@code 404 (Not Found)} if the historia has no uploaded resultado.
+     */
+    @GetMapping("/historias/{id}/resultado")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Resource>> getResultado(@PathVariable Long id) {
+        log.debug("REST request to get the resultado of Historia : {}", id);
+        return historiaRepository
+            .findById(id)
+            .flatMap(
+                historia ->
+                    attachmentStore
+                        .find(historia.getResultadoFile())
+                        .map(
+                            file ->
+                                ResponseEntity
+                                    .ok()
+                                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                                    // the content of a reference never changes
+                                    .eTag(historia.getResultadoFile())
+                                    .header(
+                                        HttpHeaders.CONTENT_DISPOSITION,
+                                        ContentDisposition.attachment().filename("resultado-" + id).build().toString()
+                                    )
+                                    .body((Resource) file)
+                        )
+            )
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
     /**
      * {@code DELETE  /historias/:id} : delete the "id" historia.
      *
@@ -246,8 +466,9 @@ public class HistoriaResource {
     public Mono<ResponseEntity<Void>> deleteHistoria(@PathVariable Long id) {
         log.debug("REST request to delete Historia : {}", id);
         return historiaRepository
-            .deleteById(id)
-            .then(historiaSearchRepository.deleteById(id))
+            .findById(id)
+            .flatMap(bookingStatistics::remove)
+            .then(historiaRepository.deleteById(id))
             .map(
                 result ->
                     ResponseEntity
@@ -258,15 +479,93 @@ public class HistoriaResource {
     }
 
     /**
-     * {@code SEARCH  /_search/historias?query=:query} : search for the historia corresponding
+     * {@code SEARCH  /_search/historias?query=:query} : search for a page of the historias corresponding
      * to the query.
+     * <p>
+     * The hits are sorted by relevance, and the next page is reachable through the {@code next} link, which resumes the
+     * search after the last hit of the page.
      *
      * @param query the query of the historia search.
-     * @return the result of the search.
+     * @param cursor the cursor of the page, from the {@code next} link of the previous page.
+     * @param size the size of the page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the page of the result of the search in body, and
+     * the total number of hits in the {@code X-Total-Count} header.
      */
     @GetMapping("/_search/historias")
-    public Mono<List<Historia>> searchHistorias(@RequestParam String query) {
-        log.debug("REST request to search Historias for query {}", query);
-        return historiaSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Historia>>> searchHistorias(
+        @RequestParam String query,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search a page of Historias for query {}", query);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        return Mono
+            .zip(
+                historiaSearchRepository.search(query, keyset.getPageSize(), keyset.getAfter()).collectList(),
+                historiaSearchRepository.countSearch(query)
+            )
+            .map(
+                result -> {
+                    List<SearchAfterHit<Historia>> hits = result.getT1();
+                    List<Historia> historias = new ArrayList<>();
+                    KeysetPaginationUtil.getPageContent(keyset, hits).forEach(hit -> historias.add(hit.getContent()));
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                hits,
+                                hit -> KeysetPageable.cursorOf(hit.getSortValues().toArray()),
+                                result.getT2()
+                            )
+                        )
+                        .body(historias);
+                }
+            );
+    }
+
+    /**
+     * {@code SEARCH  /_search/historias?query=:query} : stream all the historias corresponding to the query.
+     * <p>
+     * The hits are read through a scroll, as fast as the client consumes them.
+     *
+     * @param query the query of the historia search.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the result of the search in body, and the total
+     * number of hits in the {@code X-Total-Count} header.
+     */
+    @GetMapping(value = "/_search/historias", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Flux<Historia>>> searchHistoriasAsStream(@RequestParam String query) {
+        log.debug("REST request to stream the Historias for query {}", query);
+        return historiaSearchRepository
+            .countSearch(query)
+            .map(
+                total ->
+                    ResponseEntity
+                        .ok()
+                        .header(KeysetPaginationUtil.TOTAL_COUNT_HEADER, Long.toString(total))
+                        .body(historiaSearchRepository.search(query))
+            );
+    }
+
+    /**
+     * The {@code resultadoFile} of a historia is written by the upload of its resultado, the other writes may only keep
+     * or clear the reference of an uploaded file.
+     */
+    private static boolean isResultadoFileValid(Historia historia) {
+        return historia.getResultadoFile() == null || AttachmentStore.isReference(historia.getResultadoFile());
+    }
+
+    private static void validateResultadoFile(Historia historia) {
+        if (!isResultadoFileValid(historia)) {
+            throw new BadRequestAlertException(
+                "The resultadoFile is not the reference of an uploaded file",
+                ENTITY_NAME,
+                RESULTADO_FILE_INVALID
+            );
+        }
     }
 }
@@ -1,23 +1,46 @@
 package com.mycompany.myapp.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.myapp.domain.Paciente;
 import com.mycompany.myapp.repository.PacienteRepository;
 import com.mycompany.myapp.repository.search.PacienteSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
+import com.mycompany.myapp.service.BulkInserter;
+import com.mycompany.myapp.service.BulkResult;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.PacienteLookup;
+import com.mycompany.myapp.service.PacienteRutCache;
+import com.mycompany.myapp.service.PacienteSuggestion;
+import com.mycompany.myapp.service.PatientTimeline;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.RelationshipLoader;
+import com.mycompany.myapp.service.Rut;
+import com.mycompany.myapp.service.TimelineEntry;
+import com.mycompany.myapp.service.UniqueViolations;
+import com.mycompany.myapp.service.criteria.PacienteCriteria;
 import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import com.mycompany.myapp.web.rest.errors.ConflictAlertException;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import com.mycompany.myapp.web.rest.util.ProjectionUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -35,6 +58,8 @@ public class PacienteResource {
 
     private static final String ENTITY_NAME = "mavenPaciente";
 
+    private static final String RUT_INVALID = "rutinvalid";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -42,16 +67,44 @@ public class PacienteResource {
 
     private final PacienteSearchRepository pacienteSearchRepository;
 
-    public PacienteResource(PacienteRepository pacienteRepository, PacienteSearchRepository pacienteSearchRepository) {
+    private final BulkInserter bulkInserter;
+
+    private final ObjectMapper objectMapper;
+
+    private final RelationshipLoader relationshipLoader;
+
+    private final PatientTimeline patientTimeline;
+
+    private final PacienteLookup pacienteLookup;
+
+    private final PacienteRutCache pacienteRutCache;
+
+    public PacienteResource(
+        PacienteRepository pacienteRepository,
+        PacienteSearchRepository pacienteSearchRepository,
+        BulkInserter bulkInserter,
+        ObjectMapper objectMapper,
+        RelationshipLoader relationshipLoader,
+        PatientTimeline patientTimeline,
+        PacienteLookup pacienteLookup,
+        PacienteRutCache pacienteRutCache
+    ) {
         this.pacienteRepository = pacienteRepository;
         this.pacienteSearchRepository = pacienteSearchRepository;
+        this.bulkInserter = bulkInserter;
+        this.objectMapper = objectMapper;
+        this.relationshipLoader = relationshipLoader;
+        this.patientTimeline = patientTimeline;
+        this.pacienteLookup = pacienteLookup;
+        this.pacienteRutCache = pacienteRutCache;
     }
 
     /**
      * {@code POST  /pacientes} : Create a new paciente.
      *
      * @param paciente the paciente to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new paciente, or with status {@code 400 (Bad Request)} if the paciente has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new paciente, or with status {@code 400 (Bad Request)} if the paciente has already an ID,
+     * or if its rut is not valid, or with status {@code 409 (Conflict)} if another paciente has the same rut.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/pacientes")
@@ -60,9 +113,10 @@ public class PacienteResource {
         if (paciente.getId() != null) {
             throw new BadRequestAlertException("A new paciente cannot already have an ID", ENTITY_NAME, "idexists");
         }
+        validateRut(paciente);
         return pacienteRepository
             .save(paciente)
-            .flatMap(pacienteSearchRepository::save)
+            .onErrorMap(UniqueViolations::isUniqueViolation, PacienteResource::rutTaken)
             .map(
                 result -> {
                     try {
@@ -77,13 +131,40 @@ public class PacienteResource {
             );
     }
 
+    /**
+     * {@code POST  /pacientes/bulk} : Create new pacientes in batches.
+     *
+     * @param pacientes the pacientes to create, as a JSON array or as newline delimited JSON.
+     * @return the result of the creation of every paciente, in the order of the request, as newline delimited JSON.
+     */
+    @PostMapping(
+        value = "/pacientes/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkResult> createPacientes(@RequestBody Flux<Paciente> pacientes) {
+        log.debug("REST request to save Pacientes in bulk");
+        return bulkInserter.insertAll(
+            pacientes,
+            Paciente::getId,
+            paciente -> isRutValid(paciente) ? null : RUT_INVALID,
+            pacienteRepository::insertAll
+        );
+    }
+
     /**
      * {@code PUT  /pacientes/:id} : Updates an existing paciente.
+     * <p>
+     * The rut is normalized again, so the pacientes left without a normalized rut by the migration of the existing
+     * ones, as their rut is not valid or is the rut of another paciente, are rejected until their rut is corrected,
+     * or the duplicate paciente merged. Their other fields can be updated by a {@code PATCH} without rut.
      *
      * @param id the id of the paciente to save.
      * @param paciente the paciente to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated paciente,
      * or with status {@code 400 (Bad Request)} if the paciente is not valid,
+     * or with status {@code 409 (Conflict)} if another paciente has the same rut,
      * or with status {@code 500 (Internal Server Error)} if the paciente couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -99,6 +180,7 @@ public class PacienteResource {
         if (!Objects.equals(id, paciente.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
+        validateRut(paciente);
 
         return pacienteRepository
             .existsById(id)
@@ -110,7 +192,7 @@ public class PacienteResource {
 
                     return pacienteRepository
                         .save(paciente)
-                        .flatMap(pacienteSearchRepository::save)
+                        .onErrorMap(UniqueViolations::isUniqueViolation, PacienteResource::rutTaken)
                         .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
                         .map(
                             result ->
@@ -132,6 +214,7 @@ public class PacienteResource {
      * @param paciente the paciente to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated paciente,
      * or with status {@code 400 (Bad Request)} if the paciente is not valid,
+     * or with status {@code 409 (Conflict)} if another paciente has the same rut,
      * or with status {@code 404 (Not Found)} if the paciente is not found,
      * or with status {@code 500 (Internal Server Error)} if the paciente couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -149,67 +232,79 @@ public class PacienteResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
+        validateRut(paciente);
+
         return pacienteRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
+            .partialUpdate(paciente)
+            .onErrorMap(UniqueViolations::isUniqueViolation, PacienteResource::rutTaken)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
+            );
+    }
 
-                    Mono<Paciente> result = pacienteRepository
-                        .findById(paciente.getId())
-                        .map(
-                            existingPaciente -> {
-                                if (paciente.getNombre() != null) {
-                                    existingPaciente.setNombre(paciente.getNombre());
-                                }
-                                if (paciente.getApellidos() != null) {
-                                    existingPaciente.setApellidos(paciente.getApellidos());
-                                }
-                                if (paciente.getRut() != null) {
-                                    existingPaciente.setRut(paciente.getRut());
-                                }
-                                if (paciente.getFechaNacimiento() != null) {
-                                    existingPaciente.setFechaNacimiento(paciente.getFechaNacimiento());
-                                }
-
-                                return existingPaciente;
-                            }
+    /**
+     * {@code GET  /pacientes} : get a page of pacientes, ordered by id.
+     *
+     * @param cursor the cursor of the page, taken from the {@code next} link of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param fields the properties of the pacientes to return, or none for all of them.
+     * @param expand the relationships to load with the pacientes, e.g. {@code historias}.
+     * @param criteria the criteria which the requested entities should match.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the list of pacientes in body, and the total number of pacientes matching the criteria in the {@code X-Total-Count} header, see {@link com.mycompany.myapp.service.RowCounter}.
+     */
+    @GetMapping("/pacientes")
+    public Mono<ResponseEntity<List<?>>> getAllPacientes(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        @RequestParam(required = false) List<String> fields,
+        @RequestParam(required = false) List<String> expand,
+        PacienteCriteria criteria,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Pacientes by criteria: {}", criteria);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        Set<String> expansion = ProjectionUtil.createExpansion(expand, RelationshipLoader.PACIENTE_RELATIONSHIPS, ENTITY_NAME);
+        Projection projection = ProjectionUtil.createProjection(fields, Paciente.class, objectMapper, ENTITY_NAME).with(expansion);
+        return pacienteRepository
+            .findByCriteria(criteria, keyset, projection)
+            .collectList()
+            .flatMap(pacientes -> relationshipLoader.expandPacientes(pacientes, expansion))
+            .zipWhen(pacientes -> pacienteRepository.countTotalByCriteria(criteria))
+            .map(
+                page -> {
+                    List<Paciente> pacientes = page.getT1();
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                pacientes,
+                                paciente -> KeysetPageable.cursorOf(paciente.getId()),
+                                page.getT2()
+                            )
                         )
-                        .flatMap(pacienteRepository::save)
-                        .flatMap(
-                            savedPaciente -> {
-                                pacienteSearchRepository.save(savedPaciente);
-
-                                return Mono.just(savedPaciente);
-                            }
-                        );
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString())
-                                    )
-                                    .body(res)
-                        );
+                        .body(ProjectionUtil.project(objectMapper, KeysetPaginationUtil.getPageContent(keyset, pacientes), projection));
                 }
             );
     }
 
     /**
-     * {@code GET  /pacientes} : get all the pacientes.
+     * {@code GET  /pacientes/count} : count all the pacientes.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pacientes in body.
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
      */
-    @GetMapping("/pacientes")
-    public Mono<List<Paciente>> getAllPacientes() {
-        log.debug("REST request to get all Pacientes");
-        return pacienteRepository.findAll().collectList();
+    @GetMapping("/pacientes/count")
+    public Mono<ResponseEntity<Long>> countPacientes(PacienteCriteria criteria) {
+        log.debug("REST request to count Pacientes by criteria: {}", criteria);
+        return pacienteRepository.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
     }
 
     /**
@@ -217,24 +312,97 @@ public class PacienteResource {
      * @return the {@link Flux} of pacientes.
      */
     @GetMapping(value = "/pacientes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Flux<Paciente> getAllPacientesAsStream() {
         log.debug("REST request to get all Pacientes as a stream");
-        return pacienteRepository.findAll();
+        return pacienteRepository.streamAll();
     }
 
     /**
      * {@code GET  /pacientes/:id} : get the "id" paciente.
      *
      * @param id the id of the paciente to retrieve.
+     * @param expand the relationships to load with the paciente, e.g. {@code historias}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the paciente, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/pacientes/{id}")
-    public Mono<ResponseEntity<Paciente>> getPaciente(@PathVariable Long id) {
+    public Mono<ResponseEntity<Paciente>> getPaciente(@PathVariable Long id, @RequestParam(required = false) List<String> expand) {
         log.debug("REST request to get Paciente : {}", id);
-        Mono<Paciente> paciente = pacienteRepository.findById(id);
+        Set<String> expansion = ProjectionUtil.createExpansion(expand, RelationshipLoader.PACIENTE_RELATIONSHIPS, ENTITY_NAME);
+        Mono<Paciente> paciente = relationshipLoader.findPaciente(id, expansion);
         return ResponseUtil.wrapOrNotFound(paciente);
     }
 
+    /**
+     * {@code GET  /pacientes/by-rut/:rut} : get the paciente with the given rut.
+     *
+     * @param rut the rut of the paciente, with or without dots and dash, e.g. {@code 12.345.678-5} or {@code 123456785}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the paciente, or with status {@code 404 (Not Found)},
+     * or with status {@code 400 (Bad Request)} if the rut is not valid.
+     */
+    @GetMapping("/pacientes/by-rut/{rut}")
+    public Mono<ResponseEntity<Paciente>> getPacienteByRut(@PathVariable String rut) {
+        log.debug("REST request to get Paciente by rut : {}", rut);
+        String normalized = Rut.normalize(rut);
+        if (normalized == null) {
+            throw new BadRequestAlertException("Invalid rut", ENTITY_NAME, RUT_INVALID);
+        }
+        return ResponseUtil.wrapOrNotFound(pacienteRutCache.findByRut(normalized));
+    }
+
+    /**
+     * {@code GET  /pacientes/:id/timeline} : get a page of the historias and reservas of the "id" paciente, ordered by fecha.
+     * <p>
+     * The historias and reservas are read concurrently, each on its own connection, see {@link PatientTimeline}.
+     *
+     * @param id the id of the paciente.
+     * @param cursor the cursor of the page, taken from the {@code next} link of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the entries of the timeline in body, or with status {@code 404 (Not Found)} if the paciente doesn't exist.
+     */
+    @GetMapping("/pacientes/{id}/timeline")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<List<TimelineEntry>>> getPacienteTimeline(
+        @PathVariable Long id,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get the timeline of Paciente : {}", id);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        Flux<TimelineEntry> timeline;
+        try {
+            timeline = patientTimeline.getTimeline(id, keyset);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        return pacienteRepository
+            .existsById(id)
+            .flatMap(
+                exists -> {
+                    if (!exists) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND));
+                    }
+                    return timeline.collectList();
+                }
+            )
+            .map(
+                entries ->
+                    ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                entries,
+                                TimelineEntry::getCursor
+                            )
+                        )
+                        .body(KeysetPaginationUtil.getPageContent(keyset, entries))
+            );
+    }
+
     /**
      * {@code DELETE  /pacientes/:id} : delete the "id" paciente.
      *
@@ -247,7 +415,6 @@ public class PacienteResource {
         log.debug("REST request to delete Paciente : {}", id);
         return pacienteRepository
             .deleteById(id)
-            .then(pacienteSearchRepository.deleteById(id))
             .map(
                 result ->
                     ResponseEntity
@@ -258,15 +425,108 @@ public class PacienteResource {
     }
 
     /**
-     * {@code SEARCH  /_search/pacientes?query=:query} : search for the paciente corresponding
+     * {@code SEARCH  /_search/pacientes?query=:query} : search for a page of the pacientes corresponding
      * to the query.
+     * <p>
+     * The hits are sorted by relevance, and the next page is reachable through the {@code next} link, which resumes the
+     * search after the last hit of the page.
      *
      * @param query the query of the paciente search.
-     * @return the result of the search.
+     * @param cursor the cursor of the page, from the {@code next} link of the previous page.
+     * @param size the size of the page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the page of the result of the search in body, and
+     * the total number of hits in the {@code X-Total-Count} header.
      */
     @GetMapping("/_search/pacientes")
-    public Mono<List<Paciente>> searchPacientes(@RequestParam String query) {
-        log.debug("REST request to search Pacientes for query {}", query);
-        return pacienteSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Paciente>>> searchPacientes(
+        @RequestParam String query,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search a page of Pacientes for query {}", query);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        return Mono
+            .zip(
+                pacienteSearchRepository.search(query, keyset.getPageSize(), keyset.getAfter()).collectList(),
+                pacienteSearchRepository.countSearch(query)
+            )
+            .map(
+                result -> {
+                    List<SearchAfterHit<Paciente>> hits = result.getT1();
+                    List<Paciente> pacientes = new ArrayList<>();
+                    KeysetPaginationUtil.getPageContent(keyset, hits).forEach(hit -> pacientes.add(hit.getContent()));
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                hits,
+                                hit -> KeysetPageable.cursorOf(hit.getSortValues().toArray()),
+                                result.getT2()
+                            )
+                        )
+                        .body(pacientes);
+                }
+            );
+    }
+
+    /**
+     * {@code SEARCH  /_search/pacientes?query=:query} : stream all the pacientes corresponding to the query.
+     * <p>
+     * The hits are read through a scroll, as fast as the client consumes them.
+     *
+     * @param query the query of the paciente search.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the result of the search in body, and the total
+     * number of hits in the {@code X-Total-Count} header.
+     */
+    @GetMapping(value = "/_search/pacientes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Flux<Paciente>>> searchPacientesAsStream(@RequestParam String query) {
+        log.debug("REST request to stream the Pacientes for query {}", query);
+        return pacienteSearchRepository
+            .countSearch(query)
+            .map(
+                total ->
+                    ResponseEntity
+                        .ok()
+                        .header(KeysetPaginationUtil.TOTAL_COUNT_HEADER, Long.toString(total))
+                        .body(pacienteSearchRepository.search(query))
+            );
+    }
+
+    /**
+     * {@code GET  /_autocomplete/pacientes?query=:query} : propose the pacientes whose nombre, apellidos or rut start
+     * with the words typed so far.
+     *
+     * @param query the words typed so far, e.g. {@code "juan pe"} or {@code "12.345"}.
+     * @param size the maximum number of pacientes to propose.
+     * @return the proposed pacientes, or the status {@code 400 (Bad Request)} if the size is not between 1 and the
+     * {@code application.lookup.max-results} property.
+     */
+    @GetMapping("/_autocomplete/pacientes")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<List<PacienteSuggestion>> autocompletePacientes(@RequestParam String query, @RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to autocomplete the Pacientes for query {}", query);
+        if (size < 1 || size > pacienteLookup.getMaxResults()) {
+            throw new BadRequestAlertException("Invalid size", ENTITY_NAME, "sizeinvalid");
+        }
+        return pacienteLookup.lookup(query, size);
+    }
+
+    private static boolean isRutValid(Paciente paciente) {
+        return paciente.getRut() == null || Rut.normalize(paciente.getRut()) != null;
+    }
+
+    private static void validateRut(Paciente paciente) {
+        if (!isRutValid(paciente)) {
+            throw new BadRequestAlertException("Invalid rut", ENTITY_NAME, RUT_INVALID);
+        }
+    }
+
+    private static ConflictAlertException rutTaken(Throwable e) {
+        return new ConflictAlertException("A paciente already has this rut", ENTITY_NAME, "ruttaken");
     }
 }
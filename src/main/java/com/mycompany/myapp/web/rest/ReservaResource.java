@@ -1,23 +1,53 @@
 package com.mycompany.myapp.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
 import com.mycompany.myapp.repository.ReservaRepository;
 import com.mycompany.myapp.repository.search.ReservaSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
+import com.mycompany.myapp.service.BookingStatistics;
+import com.mycompany.myapp.service.BulkInserter;
+import com.mycompany.myapp.service.BulkResult;
+import com.mycompany.myapp.service.ExportColumn;
+import com.mycompany.myapp.service.ExportFormat;
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.service.ReservaBooker;
+import com.mycompany.myapp.service.RowExporter;
+import com.mycompany.myapp.service.SlotAvailability;
+import com.mycompany.myapp.service.SlotAvailabilityIndex;
+import com.mycompany.myapp.service.StatisticsBucket;
+import com.mycompany.myapp.service.UniqueViolations;
+import com.mycompany.myapp.service.criteria.ReservaCriteria;
 import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import com.mycompany.myapp.web.rest.errors.ConflictAlertException;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import com.mycompany.myapp.web.rest.util.ProjectionUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -35,6 +65,17 @@ public class ReservaResource {
 
     private static final String ENTITY_NAME = "mavenReserva";
 
+    private static final String HORA_INVALID = "horainvalid";
+
+    private static final List<ExportColumn> EXPORT_COLUMNS = List.of(
+        ExportColumn.of("id", Long.class),
+        ExportColumn.of("fecha", LocalDate.class),
+        ExportColumn.of("hora", Instant.class),
+        ExportColumn.of("especialidad", String.class),
+        ExportColumn.of("rut_id", Long.class),
+        ExportColumn.of("last_modified_date", Instant.class)
+    );
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -42,27 +83,59 @@ public class ReservaResource {
 
     private final ReservaSearchRepository reservaSearchRepository;
 
-    public ReservaResource(ReservaRepository reservaRepository, ReservaSearchRepository reservaSearchRepository) {
+    private final BulkInserter bulkInserter;
+
+    private final ObjectMapper objectMapper;
+
+    private final RowExporter rowExporter;
+
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+
+    private final ReservaBooker reservaBooker;
+
+    private final BookingStatistics bookingStatistics;
+
+    public ReservaResource(
+        ReservaRepository reservaRepository,
+        ReservaSearchRepository reservaSearchRepository,
+        BulkInserter bulkInserter,
+        ObjectMapper objectMapper,
+        SlotAvailabilityIndex slotAvailabilityIndex,
+        ReservaBooker reservaBooker,
+        BookingStatistics bookingStatistics,
+        RowExporter rowExporter
+    ) {
         this.reservaRepository = reservaRepository;
         this.reservaSearchRepository = reservaSearchRepository;
+        this.bulkInserter = bulkInserter;
+        this.objectMapper = objectMapper;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
+        this.reservaBooker = reservaBooker;
+        this.bookingStatistics = bookingStatistics;
+        this.rowExporter = rowExporter;
     }
 
     /**
      * {@code POST  /reservas} : Create a new reserva.
+     * <p>
+     * The reserva is committed in its own transaction, see {@link ReservaBooker}.
      *
      * @param reserva the reserva to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new reserva, or with status {@code 400 (Bad Request)} if the reserva has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new reserva, or with status {@code 400 (Bad Request)} if the reserva has already an ID,
+     * or if its hora is not the start of a slot, or with status {@code 409 (Conflict)} if its slot is already booked.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/reservas")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Reserva>> createReserva(@RequestBody Reserva reserva) throws URISyntaxException {
         log.debug("REST request to save Reserva : {}", reserva);
         if (reserva.getId() != null) {
             throw new BadRequestAlertException("A new reserva cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        return reservaRepository
-            .save(reserva)
-            .flatMap(reservaSearchRepository::save)
+        validateHora(reserva);
+        return reservaBooker
+            .book(reserva)
+            .onErrorMap(UniqueViolations::isUniqueViolation, ReservaResource::slotTaken)
             .map(
                 result -> {
                     try {
@@ -77,6 +150,31 @@ public class ReservaResource {
             );
     }
 
+    /**
+     * {@code POST  /reservas/bulk} : Create new reservas in batches.
+     *
+     * @param reservas the reservas to create, as a JSON array or as newline delimited JSON.
+     * @return the result of the creation of every reserva, in the order of the request, as newline delimited JSON.
+     */
+    @PostMapping(
+        value = "/reservas/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BulkResult> createReservas(@RequestBody Flux<Reserva> reservas) {
+        log.debug("REST request to save Reservas in bulk");
+        return bulkInserter.insertAll(
+            reservas,
+            Reserva::getId,
+            reserva -> isHoraValid(reserva) ? null : HORA_INVALID,
+            batch ->
+                reservaRepository
+                    .insertAll(batch)
+                    .concatMap(result -> slotAvailabilityIndex.occupy(result).then(bookingStatistics.add(result)).thenReturn(result))
+        );
+    }
+
     /**
      * {@code PUT  /reservas/:id} : Updates an existing reserva.
      *
@@ -84,6 +182,7 @@ public class ReservaResource {
      * @param reserva the reserva to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated reserva,
      * or with status {@code 400 (Bad Request)} if the reserva is not valid,
+     * or with status {@code 409 (Conflict)} if its new slot is already booked,
      * or with status {@code 500 (Internal Server Error)} if the reserva couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -100,18 +199,23 @@ public class ReservaResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
+        validateHora(reserva);
+
         return reservaRepository
-            .existsById(id)
+            .findById(id)
+            .switchIfEmpty(Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")))
             .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return reservaRepository
+                existingReserva ->
+                    reservaRepository
                         .save(reserva)
-                        .flatMap(reservaSearchRepository::save)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                        .flatMap(
+                            result ->
+                                slotAvailabilityIndex
+                                    .move(existingReserva, result)
+                                    .then(bookingStatistics.move(existingReserva, result))
+                                    .thenReturn(result)
+                        )
+                        .onErrorMap(UniqueViolations::isUniqueViolation, ReservaResource::slotTaken)
                         .map(
                             result ->
                                 ResponseEntity
@@ -120,8 +224,7 @@ public class ReservaResource {
                                         HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString())
                                     )
                                     .body(result)
-                        );
-                }
+                        )
             );
     }
 
@@ -133,6 +236,7 @@ public class ReservaResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated reserva,
      * or with status {@code 400 (Bad Request)} if the reserva is not valid,
      * or with status {@code 404 (Not Found)} if the reserva is not found,
+     * or with status {@code 409 (Conflict)} if its new slot is already booked,
      * or with status {@code 500 (Internal Server Error)} if the reserva couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -149,64 +253,163 @@ public class ReservaResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return reservaRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
+        validateHora(reserva);
 
-                    Mono<Reserva> result = reservaRepository
-                        .findById(reserva.getId())
-                        .map(
-                            existingReserva -> {
-                                if (reserva.getFecha() != null) {
-                                    existingReserva.setFecha(reserva.getFecha());
-                                }
-                                if (reserva.getHora() != null) {
-                                    existingReserva.setHora(reserva.getHora());
-                                }
-                                if (reserva.getEspecialidad() != null) {
-                                    existingReserva.setEspecialidad(reserva.getEspecialidad());
-                                }
-
-                                return existingReserva;
-                            }
-                        )
-                        .flatMap(reservaRepository::save)
-                        .flatMap(
-                            savedReserva -> {
-                                reservaSearchRepository.save(savedReserva);
-
-                                return Mono.just(savedReserva);
-                            }
-                        );
+        // the previous slot of the reserva is only needed if the patch moves it
+        Mono<Reserva> result = reserva.getFecha() == null && reserva.getHora() == null && reserva.getEspecialidad() == null
+            ? reservaRepository.partialUpdate(reserva)
+            : reservaRepository
+                .findById(id)
+                .flatMap(
+                    existingReserva ->
+                        reservaRepository
+                            .partialUpdate(reserva)
+                            .flatMap(
+                                updated ->
+                                    slotAvailabilityIndex
+                                        .move(existingReserva, updated)
+                                        .then(bookingStatistics.move(existingReserva, updated))
+                                        .thenReturn(updated)
+                            )
+                );
+        return result
+            .onErrorMap(UniqueViolations::isUniqueViolation, ReservaResource::slotTaken)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(
+                res ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
+                        .body(res)
+            );
+    }
 
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString())
-                                    )
-                                    .body(res)
-                        );
+    /**
+     * {@code GET  /reservas} : get a page of reservas, ordered by fecha, hora, id.
+     *
+     * @param cursor the cursor of the page, taken from the {@code next} link of the previous page, or none for the first page.
+     * @param size the size of the page.
+     * @param fields the properties of the reservas to return, or none for all of them.
+     * @param criteria the criteria which the requested entities should match.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the list of reservas in body, and the total number of reservas matching the criteria in the {@code X-Total-Count} header, see {@link com.mycompany.myapp.service.RowCounter}.
+     */
+    @GetMapping("/reservas")
+    public Mono<ResponseEntity<List<?>>> getAllReservas(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        @RequestParam(required = false) List<String> fields,
+        ReservaCriteria criteria,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Reservas by criteria: {}", criteria);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        Projection projection = ProjectionUtil.createProjection(fields, Reserva.class, objectMapper, ENTITY_NAME);
+        return reservaRepository
+            .findByCriteria(criteria, keyset, projection)
+            .collectList()
+            .zipWhen(reservas -> reservaRepository.countTotalByCriteria(criteria))
+            .map(
+                page -> {
+                    List<Reserva> reservas = page.getT1();
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                reservas,
+                                reserva -> KeysetPageable.cursorOf(reserva.getFecha(), reserva.getHora(), reserva.getId()),
+                                page.getT2()
+                            )
+                        )
+                        .body(ProjectionUtil.project(objectMapper, KeysetPaginationUtil.getPageContent(keyset, reservas), projection));
                 }
             );
     }
 
     /**
-     * {@code GET  /reservas} : get all the reservas.
+     * {@code GET  /reservas/count} : count all the reservas.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of reservas in body.
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
      */
-    @GetMapping("/reservas")
-    public Mono<List<Reserva>> getAllReservas() {
-        log.debug("REST request to get all Reservas");
-        return reservaRepository.findAll().collectList();
+    @GetMapping("/reservas/count")
+    public Mono<ResponseEntity<Long>> countReservas(ReservaCriteria criteria) {
+        log.debug("REST request to count Reservas by criteria: {}", criteria);
+        return reservaRepository.countByCriteria(criteria).map(count -> ResponseEntity.status(HttpStatus.OK).body(count));
+    }
+
+    /**
+     * {@code GET  /reservas/availability} : get the free slots of an especialidad on a day.
+     * <p>
+     * The slots are answered from an in-memory index, see {@link SlotAvailabilityIndex}.
+     *
+     * @param especialidad the especialidad of the slots.
+     * @param fecha the day of the slots.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the free slots in body.
+     */
+    @GetMapping("/reservas/availability")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<SlotAvailability>> getAvailability(@RequestParam Especialidad especialidad, @RequestParam LocalDate fecha) {
+        log.debug("REST request to get the free slots of {} on {}", especialidad, fecha);
+        return slotAvailabilityIndex.getAvailability(especialidad, fecha).map(availability -> ResponseEntity.ok().body(availability));
+    }
+
+    /**
+     * {@code GET  /reservas/export} : export the reservas, as CSV or as compressed columnar row groups.
+     * <p>
+     * The rows are streamed from a database cursor into the response, see {@link RowExporter}.
+     *
+     * @param format the format of the export, {@code csv} or {@code columnar}.
+     * @param criteria the criteria which the exported reservas should match, e.g. a range of {@code fecha}.
+     * @param response the response, whose buffers the export is written into.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the export in body, or with status {@code 400 (Bad Request)} if the format is unknown.
+     */
+    @GetMapping("/reservas/export")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<Flux<DataBuffer>> exportReservas(
+        @RequestParam(defaultValue = "csv") String format,
+        ReservaCriteria criteria,
+        ServerHttpResponse response
+    ) {
+        log.debug("REST request to export Reservas as {} by criteria: {}", format, criteria);
+        ExportFormat exportFormat = ExportFormat
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown export format", ENTITY_NAME, "formatinvalid"));
+        Flux<Object[]> rows = reservaRepository.exportByCriteria(criteria, rowExporter.values(EXPORT_COLUMNS));
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("reservas." + exportFormat.getExtension()).build().toString()
+            )
+            .body(rowExporter.export(exportFormat, EXPORT_COLUMNS, rows, response.bufferFactory()));
+    }
+
+    /**
+     * {@code GET  /reservas/statistics} : get the number of reservas by day, week or month, and by especialidad.
+     * <p>
+     * The counts are answered from in-memory counters, see {@link BookingStatistics}.
+     *
+     * @param bucket the span of the buckets, {@code day}, {@code week} or {@code month}.
+     * @param from the first day to count, if any.
+     * @param to the day after the last day to count, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the buckets which hold reservas in body, or with status {@code 400 (Bad Request)} if the bucket is unknown.
+     */
+    @GetMapping("/reservas/statistics")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<List<StatisticsBucket>> getReservaStatistics(
+        @RequestParam(defaultValue = "day") String bucket,
+        @RequestParam(required = false) LocalDate from,
+        @RequestParam(required = false) LocalDate to
+    ) {
+        log.debug("REST request to get the statistics of the Reservas by {} from {} to {}", bucket, from, to);
+        StatisticsBucket.Granularity granularity = StatisticsBucket.Granularity
+            .of(bucket)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown statistics bucket", ENTITY_NAME, "bucketinvalid"));
+        return ResponseEntity.ok().body(bookingStatistics.getReservas(granularity, from, to));
     }
 
     /**
@@ -214,9 +417,10 @@ public class ReservaResource {
      * @return the {@link Flux} of reservas.
      */
     @GetMapping(value = "/reservas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Flux<Reserva> getAllReservasAsStream() {
         log.debug("REST request to get all Reservas as a stream");
-        return reservaRepository.findAll();
+        return reservaRepository.streamAll();
     }
 
     /**
@@ -243,8 +447,9 @@ public class ReservaResource {
     public Mono<ResponseEntity<Void>> deleteReserva(@PathVariable Long id) {
         log.debug("REST request to delete Reserva : {}", id);
         return reservaRepository
-            .deleteById(id)
-            .then(reservaSearchRepository.deleteById(id))
+            .findById(id)
+            .flatMap(existingReserva -> slotAvailabilityIndex.release(existingReserva).then(bookingStatistics.remove(existingReserva)))
+            .then(reservaRepository.deleteById(id))
             .map(
                 result ->
                     ResponseEntity
@@ -255,15 +460,92 @@ public class ReservaResource {
     }
 
     /**
-     * {@code SEARCH  /_search/reservas?query=:query} : search for the reserva corresponding
+     * {@code SEARCH  /_search/reservas?query=:query} : search for a page of the reservas corresponding
      * to the query.
+     * <p>
+     * The hits are sorted by relevance, and the next page is reachable through the {@code next} link, which resumes the
+     * search after the last hit of the page.
      *
      * @param query the query of the reserva search.
-     * @return the result of the search.
+     * @param cursor the cursor of the page, from the {@code next} link of the previous page.
+     * @param size the size of the page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the page of the result of the search in body, and
+     * the total number of hits in the {@code X-Total-Count} header.
      */
     @GetMapping("/_search/reservas")
-    public Mono<List<Reserva>> searchReservas(@RequestParam String query) {
-        log.debug("REST request to search Reservas for query {}", query);
-        return reservaSearchRepository.search(query).collectList();
+    public Mono<ResponseEntity<List<Reserva>>> searchReservas(
+        @RequestParam String query,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPaginationUtil.DEFAULT_PAGE_SIZE) int size,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to search a page of Reservas for query {}", query);
+        KeysetPageable keyset = KeysetPaginationUtil.createKeysetPageable(cursor, size, ENTITY_NAME);
+        return Mono
+            .zip(
+                reservaSearchRepository.search(query, keyset.getPageSize(), keyset.getAfter()).collectList(),
+                reservaSearchRepository.countSearch(query)
+            )
+            .map(
+                result -> {
+                    List<SearchAfterHit<Reserva>> hits = result.getT1();
+                    List<Reserva> reservas = new ArrayList<>();
+                    KeysetPaginationUtil.getPageContent(keyset, hits).forEach(hit -> reservas.add(hit.getContent()));
+                    return ResponseEntity
+                        .ok()
+                        .headers(
+                            KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                                UriComponentsBuilder.fromHttpRequest(request),
+                                keyset,
+                                hits,
+                                hit -> KeysetPageable.cursorOf(hit.getSortValues().toArray()),
+                                result.getT2()
+                            )
+                        )
+                        .body(reservas);
+                }
+            );
+    }
+
+    /**
+     * {@code SEARCH  /_search/reservas?query=:query} : stream all the reservas corresponding to the query.
+     * <p>
+     * The hits are read through a scroll, as fast as the client consumes them.
+     *
+     * @param query the query of the reserva search.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the result of the search in body, and the total
+     * number of hits in the {@code X-Total-Count} header.
+     */
+    @GetMapping(value = "/_search/reservas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<ResponseEntity<Flux<Reserva>>> searchReservasAsStream(@RequestParam String query) {
+        log.debug("REST request to stream the Reservas for query {}", query);
+        return reservaSearchRepository
+            .countSearch(query)
+            .map(
+                total ->
+                    ResponseEntity
+                        .ok()
+                        .header(KeysetPaginationUtil.TOTAL_COUNT_HEADER, Long.toString(total))
+                        .body(reservaSearchRepository.search(query))
+            );
+    }
+
+    /**
+     * @return whether the hora of the reserva, if any, is the start of its slot, see {@link SlotAvailabilityIndex#isSlotStart(Instant)}.
+     */
+    private boolean isHoraValid(Reserva reserva) {
+        return slotAvailabilityIndex.isSlotStart(reserva.getHora());
+    }
+
+    private void validateHora(Reserva reserva) {
+        if (!isHoraValid(reserva)) {
+            throw new BadRequestAlertException("The hora of the reserva is not the start of a slot", ENTITY_NAME, HORA_INVALID);
+        }
+    }
+
+    private static ConflictAlertException slotTaken(Throwable e) {
+        return new ConflictAlertException("The slot of the reserva is already booked", ENTITY_NAME, "slottaken");
     }
 }
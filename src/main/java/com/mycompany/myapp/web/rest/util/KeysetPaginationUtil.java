@@ -0,0 +1,153 @@
+package com.mycompany.myapp.web.rest.util;
+
+import com.mycompany.myapp.service.KeysetPageable;
+import com.mycompany.myapp.service.RowCount;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (cursor based) pagination.
+ * <p>
+ * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>,
+ * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>: the next page is reachable through
+ * the {@code next} link, which carries an opaque {@code cursor} query parameter.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_COUNT_PRECISION_HEADER = "X-Total-Count-Precision";
+
+    private static final String HEADER_LINK_FORMAT = "<%s>; rel=\"%s\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Creates the page request from the request parameters.
+     * <p>
+     * One row more than the page size is requested: when it is returned, there is a next page, which avoids a count query.
+     *
+     * @param cursor the {@code cursor} request parameter, or null for the first page.
+     * @param size the {@code size} request parameter.
+     * @param entityName the name of the entity, for the error messages.
+     * @return the page request.
+     * @throws BadRequestAlertException if the size or the cursor is invalid.
+     */
+    public static KeysetPageable createKeysetPageable(@Nullable String cursor, int size, String entityName) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestAlertException("Page size must be between 1 and " + MAX_PAGE_SIZE, entityName, "pagesizeinvalid");
+        }
+        try {
+            return KeysetPageable.of(size + 1, cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+    }
+
+    /**
+     * Removes the extra row requested by {@link #createKeysetPageable(String, int, String)} from the page.
+     *
+     * @param keyset the page request.
+     * @param rows the rows returned for the page request.
+     * @param <T> the type of the rows.
+     * @return the rows of the page.
+     */
+    public static <T> List<T> getPageContent(KeysetPageable keyset, List<T> rows) {
+        return hasNextPage(keyset, rows) ? rows.subList(0, keyset.getPageSize() - 1) : rows;
+    }
+
+    /**
+     * Generates the pagination HTTP headers: the {@code first} link, and the {@code next} link if there is a next page.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param keyset the page request.
+     * @param rows the rows returned for the page request.
+     * @param cursorOf extracts the cursor from a row.
+     * @param <T> the type of the rows.
+     * @return the {@link HttpHeaders}.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        KeysetPageable keyset,
+        List<T> rows,
+        Function<T, String> cursorOf
+    ) {
+        int pageSize = keyset.getPageSize() - 1;
+        StringBuilder link = new StringBuilder();
+        if (hasNextPage(keyset, rows)) {
+            String cursor = cursorOf.apply(rows.get(pageSize - 1));
+            link.append(String.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, cursor, pageSize), "next")).append(",");
+        }
+        link.append(String.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, null, pageSize), "first"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    /**
+     * Generates the pagination HTTP headers, along with the total number of rows in the {@code X-Total-Count} header.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param keyset the page request.
+     * @param rows the rows returned for the page request.
+     * @param cursorOf extracts the cursor from a row.
+     * @param total the total number of rows of all the pages.
+     * @param <T> the type of the rows.
+     * @return the {@link HttpHeaders}.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        KeysetPageable keyset,
+        List<T> rows,
+        Function<T, String> cursorOf,
+        long total
+    ) {
+        HttpHeaders headers = generateKeysetPaginationHttpHeaders(uriBuilder, keyset, rows, cursorOf);
+        headers.add(TOTAL_COUNT_HEADER, Long.toString(total));
+        return headers;
+    }
+
+    /**
+     * Generates the pagination HTTP headers, along with the total number of rows in the {@code X-Total-Count} header,
+     * and how precise it is in the {@code X-Total-Count-Precision} header: {@code exact}, {@code cached} or
+     * {@code estimate}.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param keyset the page request.
+     * @param rows the rows returned for the page request.
+     * @param cursorOf extracts the cursor from a row.
+     * @param total the total number of rows of all the pages.
+     * @param <T> the type of the rows.
+     * @return the {@link HttpHeaders}.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        KeysetPageable keyset,
+        List<T> rows,
+        Function<T, String> cursorOf,
+        RowCount total
+    ) {
+        HttpHeaders headers = generateKeysetPaginationHttpHeaders(uriBuilder, keyset, rows, cursorOf, total.getTotal());
+        headers.add(TOTAL_COUNT_PRECISION_HEADER, total.getPrecision().getHeaderValue());
+        return headers;
+    }
+
+    private static boolean hasNextPage(KeysetPageable keyset, List<?> rows) {
+        return rows.size() >= keyset.getPageSize();
+    }
+
+    private static String preparePageUri(UriComponentsBuilder uriBuilder, @Nullable String cursor, int pageSize) {
+        UriComponentsBuilder builder = uriBuilder.cloneBuilder().replaceQueryParam("size", pageSize);
+        if (cursor != null) {
+            builder.replaceQueryParam("cursor", cursor);
+        } else {
+            builder.replaceQueryParam("cursor");
+        }
+        return builder.toUriString();
+    }
+}
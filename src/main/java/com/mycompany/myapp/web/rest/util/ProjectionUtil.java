@@ -0,0 +1,109 @@
+package com.mycompany.myapp.web.rest.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mycompany.myapp.service.Projection;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.lang.Nullable;
+
+/**
+ * Utility class for handling the {@code fields} request parameter, which selects the properties of the entities to
+ * return, e.g. {@code ?fields=id,fecha,hora}, and the {@code expand} request parameter, which selects the relationships
+ * to load with them.
+ */
+public final class ProjectionUtil {
+
+    private ProjectionUtil() {}
+
+    /**
+     * Creates the projection from the request parameter.
+     *
+     * @param fields the {@code fields} request parameter, or null to return all the properties.
+     * @param entityType the type of the entity.
+     * @param objectMapper the mapper which serializes the entity, which defines its properties.
+     * @param entityName the name of the entity, for the error messages.
+     * @return the projection.
+     * @throws BadRequestAlertException if a field is not a property of the entity.
+     */
+    public static Projection createProjection(
+        @Nullable List<String> fields,
+        Class<?> entityType,
+        ObjectMapper objectMapper,
+        String entityName
+    ) {
+        if (fields == null || fields.isEmpty()) {
+            return Projection.ALL;
+        }
+        Set<String> properties = new HashSet<>();
+        for (BeanPropertyDefinition property : objectMapper
+            .getSerializationConfig()
+            .introspect(objectMapper.constructType(entityType))
+            .findProperties()) {
+            properties.add(property.getName());
+        }
+        List<String> requested = new ArrayList<>();
+        for (String field : fields) {
+            String property = field.trim();
+            if (!property.isEmpty()) {
+                if (!properties.contains(property)) {
+                    throw new BadRequestAlertException("Unknown field " + property, entityName, "fieldinvalid");
+                }
+                requested.add(property);
+            }
+        }
+        return requested.isEmpty() ? Projection.ALL : Projection.of(requested);
+    }
+
+    /**
+     * Creates the relationships to load from the {@code expand} request parameter, e.g. {@code ?expand=historias}.
+     *
+     * @param expand the {@code expand} request parameter, or null to load no relationship.
+     * @param relationships the relationships of the entity which can be loaded.
+     * @param entityName the name of the entity, for the error messages.
+     * @return the relationships to load.
+     * @throws BadRequestAlertException if a relationship can't be loaded.
+     */
+    public static Set<String> createExpansion(@Nullable List<String> expand, Set<String> relationships, String entityName) {
+        if (expand == null || expand.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> expansion = new HashSet<>();
+        for (String field : expand) {
+            String relationship = field.trim();
+            if (!relationship.isEmpty()) {
+                if (!relationships.contains(relationship)) {
+                    throw new BadRequestAlertException("Unknown relationship " + relationship, entityName, "expandinvalid");
+                }
+                expansion.add(relationship);
+            }
+        }
+        return expansion;
+    }
+
+    /**
+     * Keeps only the properties of the projection in the JSON representation of the entities.
+     *
+     * @param objectMapper the mapper which serializes the entities.
+     * @param entities the entities read with the projection.
+     * @param projection the projection.
+     * @param <T> the type of the entities.
+     * @return the entities themselves if the projection has all the properties, their JSON representation otherwise.
+     */
+    public static <T> List<?> project(ObjectMapper objectMapper, List<T> entities, Projection projection) {
+        if (projection.isAll()) {
+            return entities;
+        }
+        List<ObjectNode> nodes = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            ObjectNode node = objectMapper.valueToTree(entity);
+            nodes.add(node.retain(projection.getProperties()));
+        }
+        return nodes;
+    }
+}
@@ -5,15 +5,38 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
 import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
 
 public class ReactiveSqlTestContainerExtension implements BeforeAllCallback {
 
     private static AtomicBoolean started = new AtomicBoolean(false);
 
+    private static Network network = Network.newNetwork();
+
     private static PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:13.3")
         .withDatabaseName("maven")
-        .withTmpFs(Collections.singletonMap("/testtmpfs", "rw"));
+        .withTmpFs(Collections.singletonMap("/testtmpfs", "rw"))
+        .withNetwork(network)
+        .withNetworkAliases("primary");
+
+    // a streaming replica of the container, cloned with pg_basebackup once the container accepts replication connections
+    private static GenericContainer<?> replica = new GenericContainer<>("postgres:13.3")
+        .withNetwork(network)
+        .withExposedPorts(PostgreSQLContainer.POSTGRESQL_PORT)
+        .withEnv("PGPASSWORD", container.getPassword())
+        .withCommand(
+            "bash",
+            "-c",
+            "until pg_basebackup -h primary -U " +
+            container.getUsername() +
+            " -D /tmp/replica -R -X stream; do sleep 1; done" +
+            " && chmod 700 /tmp/replica && chown -R postgres /tmp/replica" +
+            " && exec gosu postgres postgres -D /tmp/replica"
+        )
+        .waitingFor(Wait.forLogMessage(".*database system is ready to accept read only connections.*\\s", 1));
 
     @Override
     public void beforeAll(ExtensionContext extensionContext) throws Exception {
@@ -25,14 +48,49 @@ public class ReactiveSqlTestContainerExtension implements BeforeAllCallback {
             System.setProperty("spring.liquibase.url", container.getJdbcUrl());
             System.setProperty("spring.liquibase.user", container.getUsername());
             System.setProperty("spring.liquibase.password", container.getPassword());
+            if (useReplica()) {
+                startReplica();
+            }
             started.set(true);
         }
     }
 
+    private void startReplica() throws Exception {
+        container.execInContainer(
+            "bash",
+            "-c",
+            "echo 'host replication all all md5' >> \"$PGDATA/pg_hba.conf\" && psql -U " +
+            container.getUsername() +
+            " -d maven -c 'SELECT pg_reload_conf()'"
+        );
+        replica.start();
+        System.setProperty("application.replica.enabled", "true");
+        System.setProperty(
+            "application.replica.urls",
+            "r2dbc:postgresql://" +
+            replica.getHost() +
+            ":" +
+            replica.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) +
+            "/maven"
+        );
+        System.setProperty("application.replica.lag-check-interval", "200ms");
+    }
+
     private boolean useTestcontainers() {
+        return activeProfiles().contains("testcontainers");
+    }
+
+    /**
+     * The replica is started with the {@code replica} profile, e.g. {@code -Dspring.profiles.active=testcontainers,replica}.
+     */
+    private boolean useReplica() {
+        return activeProfiles().contains("replica");
+    }
+
+    private String activeProfiles() {
         String systemProperties = StringUtils.defaultIfBlank(System.getProperty("spring.profiles.active"), "");
         String environmentVariables = StringUtils.defaultIfBlank(System.getenv("SPRING_PROFILES_ACTIVE"), "");
 
-        return systemProperties.contains("testcontainers") || environmentVariables.contains("testcontainers");
+        return systemProperties + "," + environmentVariables;
     }
 }
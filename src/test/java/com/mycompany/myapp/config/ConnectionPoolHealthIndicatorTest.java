@@ -0,0 +1,45 @@
+package com.mycompany.myapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+class ConnectionPoolHealthIndicatorTest {
+
+    private static MeteredConnectionPool pool(int acquired, int pending) {
+        PoolMetrics metrics = mock(PoolMetrics.class);
+        when(metrics.acquiredSize()).thenReturn(acquired);
+        when(metrics.idleSize()).thenReturn(10 - acquired);
+        when(metrics.pendingAcquireSize()).thenReturn(pending);
+        when(metrics.getMaxAllocatedSize()).thenReturn(10);
+        ConnectionPool connectionPool = mock(ConnectionPool.class);
+        when(connectionPool.getMetrics()).thenReturn(Optional.of(metrics));
+        return new MeteredConnectionPool(ReplicaRoutingConnectionFactory.PRIMARY, connectionPool, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void isUpWhileTheAcquirersDontWaitTooMuch() {
+        Health health = new ConnectionPoolHealthIndicator(List.of(pool(10, 5)), 5).health().block();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails().get(ReplicaRoutingConnectionFactory.PRIMARY))
+            .isEqualTo(Map.of("acquired", 10, "idle", 0, "pending", 5, "max", 10, "utilization", 1.0));
+    }
+
+    @Test
+    void isOutOfServiceWhenThePoolIsSaturated() {
+        Health health = new ConnectionPoolHealthIndicator(List.of(pool(10, 6)), 5).health().block();
+
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+}
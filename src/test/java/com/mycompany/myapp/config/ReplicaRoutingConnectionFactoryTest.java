@@ -0,0 +1,88 @@
+package com.mycompany.myapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+class ReplicaRoutingConnectionFactoryTest {
+
+    private ReplicaRoutingConnectionFactory router;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties.Replica properties = new ApplicationProperties.Replica();
+        properties.setMaxLag(Duration.ofSeconds(1));
+        router =
+            new ReplicaRoutingConnectionFactory(
+                pool(ReplicaRoutingConnectionFactory.PRIMARY),
+                List.of(pool("replica-0"), pool("replica-1")),
+                properties
+            );
+        meterRegistry = new SimpleMeterRegistry();
+        router.bindTo(meterRegistry);
+    }
+
+    private static MeteredConnectionPool pool(String name) {
+        return new MeteredConnectionPool(name, mock(ConnectionPool.class), Duration.ofSeconds(1));
+    }
+
+    private Object readOnlyTarget() {
+        return router.determineCurrentLookupKey().contextWrite(ReplicaRoutingConnectionFactory::readOnly).block();
+    }
+
+    @Test
+    void routesTheOtherOperationsToThePrimary() {
+        router.setLagMillis("replica-0", 0);
+        router.setLagMillis("replica-1", 0);
+
+        assertThat(router.determineCurrentLookupKey().block()).isEqualTo(ReplicaRoutingConnectionFactory.PRIMARY);
+    }
+
+    @Test
+    void routesTheReadOnlyOperationsToTheReplicasInTurn() {
+        router.setLagMillis("replica-0", 0);
+        router.setLagMillis("replica-1", 100);
+
+        assertThat(List.of(readOnlyTarget(), readOnlyTarget(), readOnlyTarget()))
+            .containsExactly("replica-0", "replica-1", "replica-0");
+    }
+
+    @Test
+    void skipsTheReplicasWhichLagBehind() {
+        router.setLagMillis("replica-0", 5_000);
+        router.setLagMillis("replica-1", 100);
+
+        assertThat(List.of(readOnlyTarget(), readOnlyTarget())).containsOnly("replica-1");
+        assertThat(meterRegistry.get("db.replica.lag").tag("name", "replica-0").gauge().value()).isEqualTo(5_000);
+    }
+
+    @Test
+    void fallsBackToThePrimaryWithoutAvailableReplica() {
+        router.setLagMillis("replica-0", Long.MAX_VALUE);
+        router.setLagMillis("replica-1", 5_000);
+
+        assertThat(readOnlyTarget()).isEqualTo(ReplicaRoutingConnectionFactory.PRIMARY);
+        assertThat(meterRegistry.get("db.replica.fallbacks").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("db.replica.lag").tag("name", "replica-0").gauge().value()).isNaN();
+    }
+
+    @Test
+    void requiresTheUrlsOfTheReplicas() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getReplica().setEnabled(true);
+        DatabaseConfiguration configuration = new DatabaseConfiguration(new MockEnvironment());
+
+        assertThatThrownBy(() -> configuration.routingConnectionFactory(new R2dbcProperties(), properties))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.myapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.mycompany.myapp.IntegrationTest;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link ReplicaRoutingConnectionFactory}, with a streaming replica of the test database.
+ * <p>
+ * They only run with the {@code testcontainers} and {@code replica} profiles, e.g.
+ * {@code ./mvnw verify -Dspring.profiles.active=testcontainers,replica -Dit.test=ReplicaRoutingIT}.
+ */
+@IntegrationTest
+class ReplicaRoutingIT {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    private ReplicaRoutingConnectionFactory router;
+
+    @BeforeEach
+    void waitForTheReplica() {
+        assumeTrue(connectionFactory instanceof ReplicaRoutingConnectionFactory, "the database replica is not enabled");
+        router = (ReplicaRoutingConnectionFactory) connectionFactory;
+        Flux
+            .interval(Duration.ofMillis(100))
+            .filter(tick -> router.getLagMillis("replica-0") != Long.MAX_VALUE)
+            .blockFirst(Duration.ofSeconds(30));
+    }
+
+    private Mono<Boolean> isInRecovery() {
+        return r2dbcEntityTemplate.getDatabaseClient().sql("SELECT pg_is_in_recovery()").map(row -> row.get(0, Boolean.class)).one();
+    }
+
+    @Test
+    void routesTheReadOnlyOperationsToTheReplica() {
+        assertThat(isInRecovery().contextWrite(ReplicaRoutingConnectionFactory::readOnly).block()).isTrue();
+    }
+
+    @Test
+    void routesTheOtherOperationsToThePrimary() {
+        assertThat(isInRecovery().block()).isFalse();
+    }
+}
@@ -0,0 +1,99 @@
+package com.mycompany.myapp.repository.rowmapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.service.ColumnConverter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+    private static final LocalDateTime HORA = LocalDateTime.of(2026, 10, 20, 9, 30);
+
+    private ColumnConverter converter;
+    private ReservaRowMapper reservaMapper;
+    private PacienteRowMapper pacienteMapper;
+
+    @BeforeEach
+    void setup() {
+        converter = InMemoryRow.columnConverter();
+        reservaMapper = new ReservaRowMapper(converter);
+        pacienteMapper = new PacienteRowMapper(converter);
+    }
+
+    private static InMemoryRow.Metadata reservaMetadata() {
+        return new InMemoryRow.Metadata()
+            .column("e_id", Long.class)
+            .column("e_fecha", LocalDate.class)
+            .column("e_hora", LocalDateTime.class)
+            .column("e_especialidad", String.class)
+            .column("e_last_modified_date", LocalDateTime.class)
+            .column("e_rut_id", Long.class);
+    }
+
+    @Test
+    void mapsTheSameEntityAsTheMapperByName() {
+        InMemoryRow.Metadata metadata = reservaMetadata();
+        InMemoryRow row = new InMemoryRow(metadata, 1L, LocalDate.of(2026, 10, 20), HORA, "LABORATORIO", HORA, 2L);
+
+        Reserva compiled = reservaMapper.compile(metadata, "e").apply(row);
+        Reserva byName = reservaMapper.apply(row, "e");
+
+        assertThat(compiled).usingRecursiveComparison().isEqualTo(byName);
+        assertThat(compiled.getHora()).isEqualTo(HORA.toInstant(ZoneOffset.UTC));
+        assertThat(compiled.getEspecialidad()).isEqualTo(Especialidad.LABORATORIO);
+        assertThat(compiled.getRutId()).isEqualTo(2L);
+    }
+
+    @Test
+    void mapsTheNullValues() {
+        InMemoryRow.Metadata metadata = reservaMetadata();
+        InMemoryRow row = new InMemoryRow(metadata, 1L, null, null, null, null, null);
+
+        Reserva reserva = reservaMapper.compile(metadata, "e").apply(row);
+
+        assertThat(reserva.getId()).isEqualTo(1L);
+        assertThat(reserva.getHora()).isNull();
+        assertThat(reserva.getEspecialidad()).isNull();
+    }
+
+    @Test
+    void mapsOnlyTheSelectedColumns() {
+        InMemoryRow.Metadata metadata = new InMemoryRow.Metadata().column("e_id", Long.class).column("e_especialidad", String.class);
+        InMemoryRow row = new InMemoryRow(metadata, 1L, "MEDICINA_GENERAL");
+
+        Reserva reserva = reservaMapper.compile(metadata, "e").apply(row);
+
+        assertThat(reserva.getId()).isEqualTo(1L);
+        assertThat(reserva.getEspecialidad()).isEqualTo(Especialidad.MEDICINA_GENERAL);
+        assertThat(reserva.getFecha()).isNull();
+        assertThat(pacienteMapper.compile(metadata, "rut").isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsAnUnknownEnumConstant() {
+        InMemoryRow.Metadata metadata = new InMemoryRow.Metadata().column("e_id", Long.class).column("e_especialidad", String.class);
+        InMemoryRow row = new InMemoryRow(metadata, 1L, "CARDIOLOGIA");
+
+        CompiledRowMapper<Reserva> mapper = reservaMapper.compile(metadata, "e");
+
+        assertThatThrownBy(() -> mapper.apply(row)).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("CARDIOLOGIA");
+    }
+
+    @Test
+    void convertsTheColumnsOfUnknownDriverType() {
+        InMemoryRow.Metadata metadata = new InMemoryRow.Metadata().column("e_id", null).column("e_hora", null);
+        InMemoryRow row = new InMemoryRow(metadata, 1L, HORA);
+
+        Reserva reserva = reservaMapper.compile(metadata, "e").apply(row);
+
+        assertThat(reserva.getId()).isEqualTo(1L);
+        assertThat(reserva.getHora()).isEqualTo(HORA.toInstant(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,123 @@
+package com.mycompany.myapp.repository.rowmapper;
+
+import com.mycompany.myapp.config.DatabaseConfiguration;
+import com.mycompany.myapp.service.ColumnConverter;
+import io.r2dbc.spi.ColumnMetadata;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+/**
+ * A {@link Row} in memory, which decodes its values like the drivers: a value is only returned as its own type, or
+ * an {@link IllegalArgumentException} is thrown. The column labels are in upper case, as with H2.
+ */
+final class InMemoryRow implements Row {
+
+    static final class Column implements ColumnMetadata {
+
+        private final String name;
+        private final Class<?> javaType;
+
+        Column(String name, Class<?> javaType) {
+            this.name = name;
+            this.javaType = javaType;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Class<?> getJavaType() {
+            return javaType;
+        }
+    }
+
+    static final class Metadata implements RowMetadata {
+
+        private final List<Column> columns = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        Metadata column(String name, Class<?> javaType) {
+            indexes.put(name.toUpperCase(Locale.ROOT), columns.size());
+            columns.add(new Column(name.toUpperCase(Locale.ROOT), javaType));
+            return this;
+        }
+
+        int indexOf(String name) {
+            Integer index = indexes.get(name.toUpperCase(Locale.ROOT));
+            if (index == null) {
+                throw new NoSuchElementException("Column name '" + name + "' does not exist");
+            }
+            return index;
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(int index) {
+            return columns.get(index);
+        }
+
+        @Override
+        public ColumnMetadata getColumnMetadata(String name) {
+            return columns.get(indexOf(name));
+        }
+
+        @Override
+        public Iterable<? extends ColumnMetadata> getColumnMetadatas() {
+            return columns;
+        }
+
+        @Override
+        public Collection<String> getColumnNames() {
+            List<String> names = new ArrayList<>();
+            columns.forEach(column -> names.add(column.getName()));
+            return names;
+        }
+    }
+
+    private final Metadata metadata;
+    private final Object[] values;
+
+    InMemoryRow(Metadata metadata, Object... values) {
+        this.metadata = metadata;
+        this.values = values;
+    }
+
+    @Override
+    public <T> T get(int index, Class<T> type) {
+        Object value = values[index];
+        if (value == null || type == Object.class) {
+            return type.cast(value);
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Cannot decode value of type " + value.getClass().getName() + " to " + type.getName());
+        }
+        return type.cast(value);
+    }
+
+    @Override
+    public <T> T get(String name, Class<T> type) {
+        return get(metadata.indexOf(name), type);
+    }
+
+    /**
+     * @return a converter with the conversions of the application, without the Spring context.
+     */
+    static ColumnConverter columnConverter() {
+        R2dbcCustomConversions conversions = new R2dbcCustomConversions(
+            R2dbcCustomConversions.STORE_CONVERSIONS,
+            List.of(DatabaseConfiguration.InstantReadConverter.INSTANCE)
+        );
+        return new ColumnConverter(conversions, new MappingR2dbcConverter(new R2dbcMappingContext(), conversions));
+    }
+}
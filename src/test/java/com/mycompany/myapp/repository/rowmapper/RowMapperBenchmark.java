@@ -0,0 +1,93 @@
+package com.mycompany.myapp.repository.rowmapper;
+
+import com.mycompany.myapp.domain.Reserva;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the mapping of a page of reservas by column name, with {@link com.mycompany.myapp.service.ColumnConverter#fromRow},
+ * and with a {@link CompiledRowMapper}, compiled once for the page or reused from the cache.
+ * <p>
+ * The rows decode their values like H2: the timestamps as {@link LocalDateTime} and the enums as strings, which the
+ * mapper by name only converts after the driver has thrown.
+ * <p>
+ * Run it from the test classpath, e.g. {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.mycompany.myapp.repository.rowmapper.RowMapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @Param({ "20", "1000" })
+    private int rows;
+
+    private ReservaRowMapper reservaMapper;
+    private InMemoryRow.Metadata metadata;
+    private InMemoryRow[] page;
+    private CompiledRowMapper<Reserva> compiled;
+
+    @Setup
+    public void setup() {
+        reservaMapper = new ReservaRowMapper(InMemoryRow.columnConverter());
+        metadata =
+            new InMemoryRow.Metadata()
+                .column("e_id", Long.class)
+                .column("e_fecha", LocalDate.class)
+                .column("e_hora", LocalDateTime.class)
+                .column("e_especialidad", String.class)
+                .column("e_last_modified_date", LocalDateTime.class)
+                .column("e_rut_id", Long.class);
+        LocalDateTime now = LocalDateTime.of(2026, 10, 20, 9, 30);
+        page = new InMemoryRow[rows];
+        for (int i = 0; i < rows; i++) {
+            page[i] = new InMemoryRow(metadata, (long) i, now.toLocalDate(), now.plusMinutes(i), "LABORATORIO", now, (long) i % 7);
+        }
+        compiled = reservaMapper.compile(metadata, "e");
+    }
+
+    @Benchmark
+    public void byName(Blackhole blackhole) {
+        for (InMemoryRow row : page) {
+            blackhole.consume(reservaMapper.apply(row, "e"));
+        }
+    }
+
+    @Benchmark
+    public void compiledPerPage(Blackhole blackhole) {
+        CompiledRowMapper<Reserva> mapper = reservaMapper.compile(metadata, "e");
+        for (InMemoryRow row : page) {
+            blackhole.consume(mapper.apply(row));
+        }
+    }
+
+    @Benchmark
+    public void compiledCached(Blackhole blackhole) {
+        for (InMemoryRow row : page) {
+            blackhole.consume(compiled.apply(row));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+class AttachmentStoreTest {
+
+    // the sha-256 of "hello world"
+    private static final String HELLO_WORLD = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    @TempDir
+    Path directory;
+
+    private AttachmentStore store;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAttachments().setDirectory(directory.toString());
+        applicationProperties.getAttachments().setMaxSize(DataSize.ofBytes(16));
+        store = new AttachmentStore(applicationProperties);
+    }
+
+    private static Flux<DataBuffer> chunks(String... chunks) {
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        return Flux.just(chunks).map(chunk -> bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long countStoredFiles() throws IOException {
+        // the uploads are deleted in the background
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).filter(file -> !file.getParent().equals(directory.resolve("uploads"))).count();
+        }
+    }
+
+    @Test
+    void storesTheChunksUnderTheDigestOfTheContent() throws IOException {
+        String reference = store.store(chunks("hello", " ", "world")).block();
+
+        assertThat(reference).isEqualTo(HELLO_WORLD);
+        assertThat(AttachmentStore.isReference(reference)).isTrue();
+        Path file = directory.resolve("b9").resolve("4d").resolve(HELLO_WORLD);
+        assertThat(store.pathOf(reference)).isEqualTo(file);
+        assertThat(Files.readString(file)).isEqualTo("hello world");
+    }
+
+    @Test
+    void storesTheSameContentOnce() throws IOException {
+        store.store(chunks("hello world")).block();
+        String reference = store.store(chunks("hello ", "world")).block();
+
+        assertThat(reference).isEqualTo(HELLO_WORLD);
+        assertThat(countStoredFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsAFileAboveTheMaximumSize() throws IOException {
+        assertThatThrownBy(() -> store.store(chunks("0123456789", "0123456789")).block()).isInstanceOf(DataBufferLimitException.class);
+
+        assertThat(countStoredFiles()).isZero();
+    }
+
+    @Test
+    void findsTheStoredFilesOnly() {
+        String reference = store.store(chunks("hello world")).block();
+
+        FileSystemResource file = store.find(reference).block();
+        assertThat(file).isNotNull();
+        assertThat(file.getFile().length()).isEqualTo(11);
+        assertThat(store.find(HELLO_WORLD.replace('b', 'c')).blockOptional()).isEmpty();
+        assertThat(store.find("../../etc/passwd").blockOptional()).isEmpty();
+        assertThat(store.find(null).blockOptional()).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.mycompany.myapp.service;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures the bookings per second of the booking path of {@link ReservaBooker}, at increasing contention: the
+ * bookings of the benchmark threads go to a number of distinct slots, from a single slot, where they all conflict, to
+ * many slots, where they rarely do.
+ * <p>
+ * The transaction of a booking is emulated by a round trip to the database, after which the slot is booked if it is
+ * still free, as with the uniqueness constraint of the slots. The {@code booked} and {@code conflicts} counters split
+ * the attempts by outcome. The {@code unlocked} benchmark books without the {@link StripedLocks}, as the baseline of
+ * their overhead for the slots which don't conflict.
+ * <p>
+ * Run it from the test classpath, e.g. {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.mycompany.myapp.service.BookingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class BookingBenchmark {
+
+    private static final Duration ROUND_TRIP = Duration.ofNanos(250_000);
+
+    @Param({ "1", "16", "256", "65536" })
+    private int slots;
+
+    private StripedLocks locks;
+
+    private Set<Integer> bookedSlots;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+
+        public long booked;
+
+        public long conflicts;
+
+        void record(boolean booked) {
+            if (booked) {
+                this.booked++;
+            } else {
+                this.conflicts++;
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        locks = new StripedLocks(1_024);
+    }
+
+    @Setup(Level.Iteration)
+    public void freeTheSlots() {
+        bookedSlots = ConcurrentHashMap.newKeySet();
+    }
+
+    @Benchmark
+    public boolean locked(Outcomes outcomes) {
+        Integer slot = ThreadLocalRandom.current().nextInt(slots);
+        boolean booked = locks.withLock(slot, () -> commit(slot)).block();
+        outcomes.record(booked);
+        return booked;
+    }
+
+    @Benchmark
+    public boolean unlocked(Outcomes outcomes) {
+        Integer slot = ThreadLocalRandom.current().nextInt(slots);
+        boolean booked = commit(slot).block();
+        outcomes.record(booked);
+        return booked;
+    }
+
+    private Mono<Boolean> commit(Integer slot) {
+        return Mono.delay(ROUND_TRIP).map(tick -> bookedSlots.add(slot));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BookingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class BookingStatisticsTest {
+
+    // a monday
+    private static final LocalDate MONDAY = LocalDate.of(2030, 9, 30);
+
+    private ReservaRepository reservaRepository;
+    private HistoriaRepository historiaRepository;
+    private BookingStatistics statistics;
+
+    @BeforeEach
+    void setup() {
+        reservaRepository = mock(ReservaRepository.class);
+        historiaRepository = mock(HistoriaRepository.class);
+        when(reservaRepository.countByFechaAndEspecialidad())
+            .thenReturn(
+                Flux.just(
+                    new DailyCount(MONDAY, Especialidad.LABORATORIO, 3),
+                    new DailyCount(MONDAY, null, 1),
+                    new DailyCount(MONDAY.plusDays(1), Especialidad.MEDICINA_GENERAL, 2),
+                    new DailyCount(MONDAY.plusDays(7), Especialidad.LABORATORIO, 5)
+                )
+            );
+        when(historiaRepository.countByFecha()).thenReturn(Flux.just(new DailyCount(MONDAY.plusDays(2), null, 4)));
+        statistics = new BookingStatistics(reservaRepository, historiaRepository, new ApplicationProperties());
+        statistics.rebuild().block();
+    }
+
+    private static Reserva reserva(LocalDate fecha, Especialidad especialidad) {
+        return new Reserva().fecha(fecha).especialidad(especialidad);
+    }
+
+    @Test
+    void countsTheReservasByDay() {
+        assertThat(statistics.getReservas(StatisticsBucket.Granularity.DAY, null, null))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getTotal, StatisticsBucket::getEspecialidades)
+            .containsExactly(
+                tuple(MONDAY, 4L, Map.of(Especialidad.LABORATORIO, 3L)),
+                tuple(MONDAY.plusDays(1), 2L, Map.of(Especialidad.MEDICINA_GENERAL, 2L)),
+                tuple(MONDAY.plusDays(7), 5L, Map.of(Especialidad.LABORATORIO, 5L))
+            );
+    }
+
+    @Test
+    void sumsTheDaysOfTheWeeksAndMonths() {
+        assertThat(statistics.getReservas(StatisticsBucket.Granularity.WEEK, null, null))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getTotal)
+            .containsExactly(tuple(MONDAY, 6L), tuple(MONDAY.plusDays(7), 5L));
+        assertThat(statistics.getReservas(StatisticsBucket.Granularity.MONTH, null, null))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getTotal)
+            .containsExactly(tuple(LocalDate.of(2030, 9, 1), 4L), tuple(LocalDate.of(2030, 10, 1), 7L));
+    }
+
+    @Test
+    void countsTheDaysOfTheRange() {
+        assertThat(statistics.getReservas(StatisticsBucket.Granularity.WEEK, MONDAY.plusDays(1), MONDAY.plusDays(7)))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getTotal)
+            .containsExactly(tuple(MONDAY, 2L));
+    }
+
+    @Test
+    void countsTheHistoriasApart() {
+        assertThat(statistics.getHistorias(StatisticsBucket.Granularity.WEEK, null, null))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getTotal, StatisticsBucket::getEspecialidades)
+            .containsExactly(tuple(MONDAY, 4L, null));
+
+        statistics.remove(new Historia().fecha(MONDAY.plusDays(2))).block();
+        statistics.add(new Historia().fecha(MONDAY.plusDays(3))).block();
+
+        assertThat(statistics.getHistorias(StatisticsBucket.Granularity.DAY, null, null))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getTotal)
+            .containsExactly(tuple(MONDAY.plusDays(2), 3L), tuple(MONDAY.plusDays(3), 1L));
+    }
+
+    @Test
+    void followsTheWritesOfTheReservas() {
+        statistics.add(reserva(MONDAY.plusDays(1), Especialidad.LABORATORIO)).block();
+        statistics.remove(reserva(MONDAY.plusDays(7), Especialidad.LABORATORIO)).block();
+        statistics.move(reserva(MONDAY, Especialidad.LABORATORIO), reserva(MONDAY, Especialidad.MEDICINA_GENERAL)).block();
+        // neither the day nor the especialidad changes
+        statistics.move(reserva(MONDAY, null), reserva(MONDAY, null)).block();
+
+        assertThat(statistics.getReservas(StatisticsBucket.Granularity.WEEK, null, null))
+            .extracting(StatisticsBucket::getStart, StatisticsBucket::getEspecialidades)
+            .containsExactly(
+                tuple(MONDAY, Map.of(Especialidad.LABORATORIO, 3L, Especialidad.MEDICINA_GENERAL, 3L)),
+                tuple(MONDAY.plusDays(7), Map.of(Especialidad.LABORATORIO, 4L))
+            );
+    }
+
+    @Test
+    void replacesTheCountersOnRebuild() {
+        statistics.add(reserva(MONDAY, Especialidad.LABORATORIO)).block();
+        statistics.rebuild().block();
+
+        assertThat(statistics.getReservas(StatisticsBucket.Granularity.DAY, MONDAY, MONDAY.plusDays(1)))
+            .extracting(StatisticsBucket::getTotal)
+            .containsExactly(4L);
+        assertThat(statistics.getStatus().getRebuiltAt()).isNotNull();
+        assertThat(statistics.getStatus().getDays()).isEqualTo(4);
+    }
+}
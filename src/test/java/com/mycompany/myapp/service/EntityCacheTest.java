@@ -0,0 +1,106 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.config.ReplicaRoutingConnectionFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class EntityCacheTest {
+
+    private EntityCache<String> entityCache;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        entityCache = new EntityCache<>("test", new ApplicationProperties.Cache(10, 60));
+        meterRegistry = new SimpleMeterRegistry();
+        entityCache.bindTo(meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private Function<Long, Mono<String>> loader(String value) {
+        return id ->
+            Mono.fromSupplier(
+                () -> {
+                    loads.incrementAndGet();
+                    return value;
+                }
+            );
+    }
+
+    @Test
+    void loadsOnlyOnMiss() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(entityCache.get(1L, loader("one")).block()).isEqualTo("one");
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.load").functionTimer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.hit.ratio").gauge().value()).isEqualTo(2.0 / 3);
+    }
+
+    @Test
+    void doesNotCacheMissingEntities() {
+        assertThat(entityCache.get(1L, id -> Mono.<String>empty()).block()).isNull();
+
+        assertThat(entityCache.get(1L, loader("one")).block()).isEqualTo("one");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadsFromThePrimaryForTheReadOnlyCallers() {
+        Mono<String> get = entityCache.get(
+            1L,
+            id -> Mono.deferContextual(context -> Mono.just(context.isEmpty() ? "primary" : "replica"))
+        );
+
+        assertThat(get.contextWrite(ReplicaRoutingConnectionFactory::readOnly).block()).isEqualTo("primary");
+    }
+
+    @Test
+    void reloadsAfterEviction() {
+        entityCache.get(1L, loader("one")).block();
+        entityCache.evict(1L);
+
+        assertThat(entityCache.get(1L, loader("updated")).block()).isEqualTo("updated");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void sharesPendingLoads() {
+        Sinks.One<String> pending = Sinks.one();
+        Mono<String> first = entityCache.get(1L, id -> pending.asMono());
+        Mono<String> second = entityCache.get(1L, loader("other"));
+
+        first.subscribe();
+        String[] result = new String[1];
+        second.subscribe(value -> result[0] = value);
+        pending.tryEmitValue("one");
+
+        assertThat(result[0]).isEqualTo("one");
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void passesThroughWhenDisabled() {
+        ApplicationProperties.Cache properties = new ApplicationProperties.Cache(10, 60);
+        properties.setEnabled(false);
+        entityCache = new EntityCache<>("test", properties);
+
+        entityCache.get(1L, loader("one")).block();
+        entityCache.get(1L, loader("one")).block();
+
+        assertThat(loads).hasValue(2);
+        assertThat(entityCache.size()).isZero();
+    }
+}
@@ -0,0 +1,59 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class KeysetPageableTest {
+
+    @Test
+    void cursorRoundTrip() {
+        LocalDate fecha = LocalDate.of(2026, 10, 20);
+        Instant hora = Instant.parse("2026-10-20T09:30:00Z");
+
+        KeysetPageable keyset = KeysetPageable.of(20, KeysetPageable.cursorOf(fecha, hora, 42L));
+
+        assertThat(keyset.getPageSize()).isEqualTo(20);
+        assertThat(keyset.isFirst()).isFalse();
+        assertThat(keyset.getAfter()).containsExactly(fecha, hora, 42L);
+    }
+
+    @Test
+    void cursorRoundTripWithNullKeyValues() {
+        KeysetPageable keyset = KeysetPageable.of(20, KeysetPageable.cursorOf(null, "Pérez", 7L));
+
+        assertThat(keyset.getAfter()).containsExactly(null, "Pérez", 7L);
+    }
+
+    @Test
+    void cursorRoundTripWithSearchScore() {
+        KeysetPageable keyset = KeysetPageable.of(20, KeysetPageable.cursorOf(1.2345f, 7L));
+
+        assertThat(keyset.getAfter()).containsExactly(1.2345d, 7L);
+    }
+
+    @Test
+    void cursorRoundTripWithIntegerSortValues() {
+        KeysetPageable keyset = KeysetPageable.of(20, KeysetPageable.cursorOf(1.0f, 7));
+
+        assertThat(keyset.getAfter()).containsExactly(1.0d, 7L);
+    }
+
+    @Test
+    void missingCursorIsTheFirstPage() {
+        assertThat(KeysetPageable.of(20, null).isFirst()).isTrue();
+        assertThat(KeysetPageable.of(20, "").isFirst()).isTrue();
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> KeysetPageable.of(20, "not a cursor")).isInstanceOf(IllegalArgumentException.class);
+        String unknownType = Base64.getUrlEncoder().encodeToString("q42".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> KeysetPageable.of(20, unknownType)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,121 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.repository.PacienteRepository;
+import com.mycompany.myapp.repository.search.PacienteSearchRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+
+class PacienteLookupTest {
+
+    private PacienteRepository pacienteRepository;
+    private PacienteSearchRepository pacienteSearchRepository;
+    private SearchOutbox.Listener listener;
+    private PacienteLookup lookup;
+
+    @BeforeEach
+    void setup() {
+        pacienteRepository = mock(PacienteRepository.class);
+        pacienteSearchRepository = mock(PacienteSearchRepository.class);
+        SearchOutbox searchOutbox = mock(SearchOutbox.class);
+        when(pacienteRepository.streamAll())
+            .thenReturn(
+                Flux.just(
+                    paciente(1L, "José Ignacio", "Muñoz Pérez", "12.345.678-5"),
+                    paciente(2L, "Josefa", "Muñoz", "9.876.543-K"),
+                    paciente(3L, "Ana", "González", "11.111.111-1")
+                )
+            );
+        lookup = new PacienteLookup(pacienteRepository, pacienteSearchRepository, searchOutbox, new ApplicationProperties());
+        ArgumentCaptor<SearchOutbox.Listener> captor = ArgumentCaptor.forClass(SearchOutbox.Listener.class);
+        verify(searchOutbox).addListener(captor.capture());
+        listener = captor.getValue();
+    }
+
+    private static Paciente paciente(Long id, String nombre, String apellidos, String rut) {
+        return new Paciente().id(id).nombre(nombre).apellidos(apellidos).rut(rut);
+    }
+
+    private List<Long> idsOf(String query) {
+        List<Long> ids = new ArrayList<>();
+        lookup.lookup(query, 10).block().forEach(suggestion -> ids.add(suggestion.getId()));
+        return ids;
+    }
+
+    @Test
+    void searchesTheIndexUntilLoaded() {
+        when(pacienteSearchRepository.autocomplete("jos", 10)).thenReturn(Flux.just(paciente(2L, "Josefa", "Muñoz", "9.876.543-K")));
+
+        assertThat(idsOf("jos")).containsExactly(2L);
+
+        lookup.reload().block();
+        assertThat(idsOf("jos")).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void matchesThePrefixesOfTheWordsWithoutAccentsNorCase() {
+        lookup.reload().block();
+
+        assertThat(idsOf("MUN")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(idsOf("perez jose")).containsExactly(1L);
+        assertThat(idsOf("josé ig muñ")).containsExactly(1L);
+        assertThat(idsOf("gonzalez jose")).isEmpty();
+        assertThat(idsOf("  ")).isEmpty();
+        verify(pacienteSearchRepository, never()).autocomplete(any(), anyInt());
+    }
+
+    @Test
+    void matchesTheRutWithoutSeparators() {
+        lookup.reload().block();
+
+        assertThat(idsOf("12.345")).containsExactly(1L);
+        assertThat(idsOf("9876543-k")).containsExactly(2L);
+        assertThat(idsOf("11111111")).containsExactly(3L);
+    }
+
+    @Test
+    void limitsTheNumberOfPacientes() {
+        lookup.reload().block();
+
+        assertThat(lookup.lookup("mu", 1).block()).hasSize(1);
+    }
+
+    @Test
+    void followsTheCommittedChanges() {
+        lookup.reload().block();
+        when(pacienteRepository.findAllById(List.of(3L))).thenReturn(Flux.just(paciente(3L, "Ana María", "Soto", "11.111.111-1")));
+
+        listener.changed(Paciente.class, List.of(3L), SearchOperation.INDEX);
+        listener.changed(Paciente.class, List.of(2L), SearchOperation.DELETE);
+        listener.changed(Reserva.class, List.of(1L), SearchOperation.DELETE);
+
+        assertThat(idsOf("gonzalez")).isEmpty();
+        assertThat(idsOf("ana soto")).containsExactly(3L);
+        assertThat(idsOf("mu")).containsExactly(1L);
+    }
+
+    @Test
+    void removesThePacientesNoLongerFound() {
+        lookup.reload().block();
+        when(pacienteRepository.findAllById(List.of(1L))).thenReturn(Flux.empty());
+
+        listener.changed(Paciente.class, List.of(1L), SearchOperation.INDEX);
+
+        assertThat(idsOf("jose")).containsExactly(2L);
+    }
+}
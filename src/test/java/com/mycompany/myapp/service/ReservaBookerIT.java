@@ -0,0 +1,83 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mycompany.myapp.IntegrationTest;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.repository.ReservaRepository;
+import com.mycompany.myapp.web.rest.ReservaResourceIT;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link ReservaBooker} service.
+ */
+@IntegrationTest
+class ReservaBookerIT {
+
+    @Autowired
+    private ReservaBooker reservaBooker;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    public void initTest() {
+        ReservaResourceIT.deleteEntities(em);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ReservaResourceIT.deleteEntities(em);
+    }
+
+    @Test
+    void booksASlotOnceUnderConcurrentBookings() {
+        List<String> outcomes = Flux
+            .range(0, 16)
+            .flatMap(
+                i ->
+                    reservaBooker
+                        .book(ReservaResourceIT.createEntity(em))
+                        .map(booked -> "booked")
+                        .onErrorResume(DuplicateKeyException.class, e -> Mono.just("taken"))
+            )
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertThat(outcomes).containsOnlyOnce("booked").containsOnly("booked", "taken");
+        assertThat(reservaRepository.findAll().collectList().block()).hasSize(1);
+    }
+
+    @Test
+    void booksDistinctSlotsConcurrently() {
+        Reserva reserva = ReservaResourceIT.createEntity(em);
+        List<Reserva> booked = Flux
+            .range(0, 16)
+            .flatMap(i -> reservaBooker.book(ReservaResourceIT.createEntity(em).hora(reserva.getHora().plus(Duration.ofMinutes(30L * i)))))
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertThat(booked).hasSize(16);
+    }
+
+    @Test
+    void theDatabaseRejectsASecondReservaInTheSlot() {
+        reservaRepository.save(ReservaResourceIT.createEntity(em)).block();
+
+        Mono<Reserva> duplicate = reservaRepository.save(ReservaResourceIT.createEntity(em));
+
+        assertThatThrownBy(duplicate::block).matches(UniqueViolations::isUniqueViolation);
+    }
+}
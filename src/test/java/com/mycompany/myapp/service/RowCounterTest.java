@@ -0,0 +1,78 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Reserva;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class RowCounterTest {
+
+    private static final int THRESHOLD = 10;
+
+    private EntityManager entityManager;
+    private RowCounter rowCounter;
+
+    @BeforeEach
+    void setup() {
+        entityManager = mock(EntityManager.class);
+        when(entityManager.bindCriteria(any(), any())).thenReturn(BoundCriteria.EMPTY);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCount().setThreshold(THRESHOLD);
+        rowCounter = new RowCounter(entityManager, applicationProperties);
+    }
+
+    @Test
+    void countsExactlyBelowTheThreshold() {
+        when(entityManager.countAtMost(Reserva.class, BoundCriteria.EMPTY, THRESHOLD + 1)).thenReturn(Mono.just(7L));
+
+        RowCount count = rowCounter.count(Reserva.class, null).block();
+
+        assertThat(count.getTotal()).isEqualTo(7);
+        assertThat(count.getPrecision()).isEqualTo(RowCount.Precision.EXACT);
+        verify(entityManager, never()).estimateCount(any(), any());
+    }
+
+    @Test
+    void estimatesAboveTheThreshold() {
+        when(entityManager.countAtMost(Reserva.class, BoundCriteria.EMPTY, THRESHOLD + 1)).thenReturn(Mono.just(11L));
+        when(entityManager.estimateCount(Reserva.class, BoundCriteria.EMPTY)).thenReturn(Mono.just(5000L));
+
+        RowCount count = rowCounter.count(Reserva.class, null).block();
+
+        assertThat(count.getTotal()).isEqualTo(5000);
+        assertThat(count.getPrecision()).isEqualTo(RowCount.Precision.ESTIMATE);
+    }
+
+    @Test
+    void neverEstimatesBelowTheRowsCounted() {
+        when(entityManager.countAtMost(Reserva.class, BoundCriteria.EMPTY, THRESHOLD + 1)).thenReturn(Mono.just(11L));
+        when(entityManager.estimateCount(Reserva.class, BoundCriteria.EMPTY)).thenReturn(Mono.just(3L));
+
+        assertThat(rowCounter.count(Reserva.class, null).block().getTotal()).isEqualTo(11);
+    }
+
+    @Test
+    void cachesTheExactCountWithoutEstimate() {
+        when(entityManager.countAtMost(Reserva.class, BoundCriteria.EMPTY, THRESHOLD + 1)).thenReturn(Mono.just(11L));
+        when(entityManager.estimateCount(Reserva.class, BoundCriteria.EMPTY)).thenReturn(Mono.empty());
+        when(entityManager.count(eq(Reserva.class), any())).thenReturn(Mono.just(42L));
+
+        RowCount first = rowCounter.count(Reserva.class, null).block();
+        RowCount second = rowCounter.count(Reserva.class, null).block();
+
+        assertThat(first.getTotal()).isEqualTo(42);
+        assertThat(first.getPrecision()).isEqualTo(RowCount.Precision.CACHED);
+        assertThat(second.getTotal()).isEqualTo(42);
+        verify(entityManager, times(1)).count(eq(Reserva.class), any());
+    }
+}
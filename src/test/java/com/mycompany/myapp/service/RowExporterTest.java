@@ -0,0 +1,130 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.myapp.config.ApplicationProperties;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+class RowExporterTest {
+
+    private static final List<ExportColumn> COLUMNS = List.of(
+        ExportColumn.of("id", Long.class),
+        ExportColumn.of("fecha", LocalDate.class),
+        ExportColumn.of("diagnostico", String.class)
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RowExporter exporter;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getExport().setBatchSize(2);
+        exporter = new RowExporter(mock(ColumnConverter.class), objectMapper, applicationProperties);
+    }
+
+    private Flux<Object[]> rows() {
+        return Flux.just(
+            new Object[] { 1L, LocalDate.of(2031, 3, 3), "plain" },
+            new Object[] { 2L, null, "with, comma" },
+            new Object[] { 3L, LocalDate.of(2031, 3, 4), "with \"quotes\"\nand lines" }
+        );
+    }
+
+    private List<byte[]> export(ExportFormat format, Flux<Object[]> rows) {
+        return exporter
+            .export(format, COLUMNS, rows, new DefaultDataBufferFactory())
+            .map(
+                buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                }
+            )
+            .collectList()
+            .block();
+    }
+
+    private static byte[] concat(List<byte[]> buffers) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        buffers.forEach(bytes::writeBytes);
+        return bytes.toByteArray();
+    }
+
+    private List<JsonNode> gunzip(byte[] bytes) throws IOException {
+        List<JsonNode> groups = new ArrayList<>();
+        try (
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8)
+            )
+        ) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                groups.add(objectMapper.readTree(line));
+            }
+        }
+        return groups;
+    }
+
+    @Test
+    void writesTheCsvByBatches() {
+        List<byte[]> buffers = export(ExportFormat.CSV, rows());
+
+        // the header, then a buffer per batch of two rows
+        assertThat(buffers).hasSize(3);
+        assertThat(new String(concat(buffers), StandardCharsets.UTF_8))
+            .isEqualTo(
+                "id,fecha,diagnostico\r\n" +
+                "1,2031-03-03,plain\r\n" +
+                "2,,\"with, comma\"\r\n" +
+                "3,2031-03-04,\"with \"\"quotes\"\"\nand lines\"\r\n"
+            );
+    }
+
+    @Test
+    void writesTheColumnarRowGroups() throws IOException {
+        List<byte[]> buffers = export(ExportFormat.COLUMNAR, rows());
+
+        // a buffer per row group, then the end of the gzip stream
+        assertThat(buffers).hasSize(3);
+        List<JsonNode> groups = gunzip(concat(buffers));
+        assertThat(groups).hasSize(2);
+        assertThat(groups.get(0).toString())
+            .isEqualTo("{\"rows\":2,\"id\":[1,2],\"fecha\":[\"2031-03-03\",null],\"diagnostico\":[\"plain\",\"with, comma\"]}");
+        assertThat(groups.get(1).get("rows").asInt()).isEqualTo(1);
+        assertThat(groups.get(1).get("diagnostico").get(0).asText()).isEqualTo("with \"quotes\"\nand lines");
+    }
+
+    @Test
+    void writesAnEmptyColumnarExport() throws IOException {
+        List<byte[]> buffers = export(ExportFormat.COLUMNAR, Flux.empty());
+
+        assertThat(buffers).hasSize(1);
+        assertThat(gunzip(buffers.get(0))).isEmpty();
+    }
+
+    @Test
+    void parsesTheFormatsInAnyCase() {
+        assertThat(ExportFormat.of("Columnar")).contains(ExportFormat.COLUMNAR);
+        assertThat(ExportFormat.of("xlsx")).isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RutTest {
+
+    @Test
+    void normalizesTheSeparatorsAndLeadingZeros() {
+        assertThat(Rut.normalize("12.345.678-5")).isEqualTo("12345678-5");
+        assertThat(Rut.normalize("12345678-5")).isEqualTo("12345678-5");
+        assertThat(Rut.normalize("123456785")).isEqualTo("12345678-5");
+        assertThat(Rut.normalize(" 012.345.678 - 5 ")).isEqualTo("12345678-5");
+    }
+
+    @Test
+    void normalizesTheCheckDigitK() {
+        assertThat(Rut.normalize("10.000.013-k")).isEqualTo("10000013-K");
+        assertThat(Rut.checkDigitOf("10000013")).isEqualTo('K');
+        assertThat(Rut.checkDigitOf("10000004")).isEqualTo('0');
+    }
+
+    @Test
+    void rejectsTheWrongCheckDigits() {
+        assertThat(Rut.normalize("12.345.678-9")).isNull();
+        assertThat(Rut.normalize("12.345.678-K")).isNull();
+    }
+
+    @Test
+    void rejectsTheValuesWhichAreNotRuts() {
+        assertThat(Rut.normalize(null)).isNull();
+        assertThat(Rut.normalize("")).isNull();
+        assertThat(Rut.normalize("0-0")).isNull();
+        assertThat(Rut.normalize("AAAAAAAAAA")).isNull();
+        assertThat(Rut.normalize("12.345a678-5")).isNull();
+    }
+}
@@ -0,0 +1,161 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import com.mycompany.myapp.IntegrationTest;
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.domain.SearchOutboxEntry;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.repository.EspecialistaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
+import com.mycompany.myapp.repository.search.EspecialistaSearchRepository;
+import com.mycompany.myapp.web.rest.EspecialistaResourceIT;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link SearchIndexer} service.
+ */
+@IntegrationTest
+class SearchIndexerIT {
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private EspecialistaRepository especialistaRepository;
+
+    @Autowired
+    private EspecialistaSearchRepository mockEspecialistaSearchRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    @BeforeEach
+    public void initTest() {
+        EspecialistaResourceIT.deleteEntities(em);
+        searchOutboxRepository.deleteAll().block();
+        when(mockEspecialistaSearchRepository.saveAll(anyIterable())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(mockEspecialistaSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        EspecialistaResourceIT.deleteEntities(em);
+        searchOutboxRepository.deleteAll().block();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainCoalescesTheChangesOfAnEntity() {
+        Especialista especialista = especialistaRepository.save(EspecialistaResourceIT.createEntity(em)).block();
+        especialista.setNombre("updated");
+        especialistaRepository.save(especialista).block();
+
+        assertThat(searchIndexer.drain().block()).isEqualTo(2);
+
+        ArgumentCaptor<Iterable<Especialista>> indexed = ArgumentCaptor.forClass(Iterable.class);
+        verify(mockEspecialistaSearchRepository, times(1)).saveAll(indexed.capture());
+        assertThat(indexed.getValue()).extracting(Especialista::getNombre).containsExactly("updated");
+        verify(mockEspecialistaSearchRepository, never()).deleteById(anyLong());
+        assertThat(searchOutboxRepository.findAll().map(SearchOutboxEntry::getAppliedDate).collectList().block()).doesNotContainNull();
+    }
+
+    @Test
+    void drainRemovesDeletedEntities() {
+        Especialista especialista = especialistaRepository.save(EspecialistaResourceIT.createEntity(em)).block();
+        especialistaRepository.deleteById(especialista.getId()).block();
+
+        assertThat(searchIndexer.drain().block()).isEqualTo(2);
+
+        verify(mockEspecialistaSearchRepository, never()).saveAll(anyIterable());
+        verify(mockEspecialistaSearchRepository, times(1)).deleteById(especialista.getId());
+        assertThat(searchOutboxRepository.countPending(Integer.MAX_VALUE).block()).isZero();
+    }
+
+    @Test
+    void drainAllRemovesTheEntriesAppliedBeforeTheRetention() {
+        Instant appliedDate = Instant.now().minus(applicationProperties.getSearchIndexer().getRetention()).minusSeconds(1);
+        searchOutboxRepository
+            .save(
+                new SearchOutboxEntry()
+                    .entityType(Especialista.class.getSimpleName())
+                    .entityId(1L)
+                    .operation(SearchOperation.INDEX)
+                    .createdDate(appliedDate)
+                    .attempts(0)
+                    .appliedDate(appliedDate)
+            )
+            .block();
+
+        searchIndexer.drainAll().block();
+
+        assertThat(searchOutboxRepository.count().block()).isZero();
+    }
+
+    @Test
+    void drainKeepsTheEntriesWhenTheIndexFails() {
+        Especialista especialista = especialistaRepository.save(EspecialistaResourceIT.createEntity(em)).block();
+        when(mockEspecialistaSearchRepository.saveAll(anyIterable())).thenReturn(Flux.error(new IllegalStateException("unavailable")));
+
+        List<Long> before = searchOutboxRepository.findAll().map(entry -> entry.getEntityId()).collectList().block();
+        assertThat(before).containsExactly(especialista.getId());
+
+        assertThat(searchIndexer.drain().block()).isEqualTo(1);
+
+        assertThat(searchOutboxRepository.findAll().map(SearchOutboxEntry::getAttempts).collectList().block()).containsExactly(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainAppliesTheOtherEntitiesWhenOneFails() {
+        Especialista failing = especialistaRepository.save(EspecialistaResourceIT.createEntity(em)).block();
+        Especialista other = especialistaRepository.save(EspecialistaResourceIT.createEntity(em)).block();
+        when(mockEspecialistaSearchRepository.saveAll(anyIterable()))
+            .thenAnswer(
+                invocation -> {
+                    Iterable<Especialista> especialistas = invocation.getArgument(0);
+                    for (Especialista especialista : especialistas) {
+                        if (especialista.getId().equals(failing.getId())) {
+                            return Flux.error(new IllegalStateException("rejected"));
+                        }
+                    }
+                    return Flux.fromIterable(especialistas);
+                }
+            );
+
+        for (int attempt = 1; attempt <= applicationProperties.getSearchIndexer().getMaxAttempts(); attempt++) {
+            assertThat(searchIndexer.drain().block()).isEqualTo(attempt == 1 ? 2 : 1);
+        }
+
+        List<SearchOutboxEntry> entries = searchOutboxRepository
+            .findAll()
+            .filter(entry -> entry.getAppliedDate() == null)
+            .collectList()
+            .block();
+        assertThat(entries).extracting(SearchOutboxEntry::getEntityId).containsExactly(failing.getId());
+        assertThat(entries.get(0).getAttempts()).isEqualTo(applicationProperties.getSearchIndexer().getMaxAttempts());
+        // the dead letter is no longer drained
+        assertThat(searchIndexer.drain().block()).isZero();
+        ArgumentCaptor<Iterable<Especialista>> indexed = ArgumentCaptor.forClass(Iterable.class);
+        verify(mockEspecialistaSearchRepository, atLeastOnce()).saveAll(indexed.capture());
+        assertThat(indexed.getAllValues()).anySatisfy(especialistas -> assertThat(especialistas).containsExactly(other));
+    }
+}
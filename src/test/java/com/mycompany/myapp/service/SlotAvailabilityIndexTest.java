@@ -0,0 +1,143 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mycompany.myapp.config.ApplicationProperties;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.repository.ReservaRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class SlotAvailabilityIndexTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2030, 1, 7);
+
+    private ReservaRepository reservaRepository;
+    private ApplicationProperties applicationProperties;
+    private SlotAvailabilityIndex index;
+
+    @BeforeEach
+    void setup() {
+        reservaRepository = mock(ReservaRepository.class);
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Availability properties = applicationProperties.getAvailability();
+        properties.setTimeZone(ZoneOffset.UTC);
+        properties.setOpensAt(Duration.ofHours(8));
+        properties.setClosesAt(Duration.ofHours(12));
+        properties.setSlotDuration(Duration.ofMinutes(30));
+        index = new SlotAvailabilityIndex(reservaRepository, applicationProperties);
+    }
+
+    private static Instant at(int hour, int minute) {
+        return FECHA.atTime(hour, minute).toInstant(ZoneOffset.UTC);
+    }
+
+    private static Reserva reserva(Instant hora) {
+        return new Reserva().fecha(FECHA).hora(hora).especialidad(Especialidad.LABORATORIO);
+    }
+
+    private void givenHoras(Instant... horas) {
+        when(reservaRepository.findHorasByEspecialidadAndFecha(Especialidad.LABORATORIO, FECHA)).thenReturn(Flux.just(horas));
+    }
+
+    @Test
+    void mapsTheHorasToTheSlotsOfTheOpeningHours() {
+        assertThat(index.slotOf(at(7, 59))).isEqualTo(-1);
+        assertThat(index.slotOf(at(8, 0))).isZero();
+        assertThat(index.slotOf(at(9, 40))).isEqualTo(3);
+        assertThat(index.slotOf(at(11, 59))).isEqualTo(7);
+        assertThat(index.slotOf(at(12, 0))).isEqualTo(-1);
+        assertThat(index.slotOf(null)).isEqualTo(-1);
+        assertThat(index.startOf(FECHA, 3)).isEqualTo(at(9, 30));
+    }
+
+    @Test
+    void movesTheHorasToTheStartOfTheirSlot() {
+        assertThat(index.slotStartOf(at(9, 40))).isEqualTo(at(9, 30));
+        assertThat(index.slotStartOf(at(9, 30))).isEqualTo(at(9, 30));
+        assertThat(index.slotStartOf(at(7, 59))).isEqualTo(at(7, 59));
+        assertThat(index.slotStartOf(null)).isNull();
+        assertThat(index.isSlotStart(at(9, 30))).isTrue();
+        assertThat(index.isSlotStart(at(9, 40))).isFalse();
+        assertThat(index.isSlotStart(at(7, 59))).isTrue();
+        assertThat(index.isSlotStart(null)).isTrue();
+    }
+
+    @Test
+    void loadsTheDayOnce() {
+        givenHoras(at(9, 0), at(9, 40), at(7, 0));
+
+        for (int i = 0; i < 3; i++) {
+            SlotAvailability availability = index.getAvailability(Especialidad.LABORATORIO, FECHA).block();
+            assertThat(availability.getSlotMinutes()).isEqualTo(30);
+            assertThat(availability.getFree())
+                .containsExactly(at(8, 0), at(8, 30), at(10, 0), at(10, 30), at(11, 0), at(11, 30));
+        }
+        verify(reservaRepository, times(1)).findHorasByEspecialidadAndFecha(Especialidad.LABORATORIO, FECHA);
+    }
+
+    @Test
+    void occupiesTheSlotOfANewReservaInPlace() {
+        givenHoras();
+        index.getAvailability(Especialidad.LABORATORIO, FECHA).block();
+
+        index.occupy(reserva(at(10, 15))).block();
+
+        assertThat(index.getAvailability(Especialidad.LABORATORIO, FECHA).block().getFree()).hasSize(7).doesNotContain(at(10, 0));
+        verify(reservaRepository, times(1)).findHorasByEspecialidadAndFecha(Especialidad.LABORATORIO, FECHA);
+    }
+
+    @Test
+    void doesNotLoadTheDayOfANewReserva() {
+        index.occupy(reserva(at(10, 0))).block();
+
+        verify(reservaRepository, never()).findHorasByEspecialidadAndFecha(Especialidad.LABORATORIO, FECHA);
+    }
+
+    @Test
+    void reloadsTheDayOfAReleasedReserva() {
+        givenHoras(at(9, 0));
+        assertThat(index.getAvailability(Especialidad.LABORATORIO, FECHA).block().getFree()).doesNotContain(at(9, 0));
+
+        givenHoras();
+        index.release(reserva(at(9, 0))).block();
+
+        assertThat(index.getAvailability(Especialidad.LABORATORIO, FECHA).block().getFree()).contains(at(9, 0));
+        verify(reservaRepository, times(2)).findHorasByEspecialidadAndFecha(Especialidad.LABORATORIO, FECHA);
+    }
+
+    @Test
+    void movesAReservaToAnotherSlot() {
+        givenHoras(at(9, 0));
+        index.getAvailability(Especialidad.LABORATORIO, FECHA).block();
+
+        givenHoras(at(11, 0));
+        index.move(reserva(at(9, 0)), reserva(at(11, 0))).block();
+
+        assertThat(index.getAvailability(Especialidad.LABORATORIO, FECHA).block().getFree()).contains(at(9, 0)).doesNotContain(at(11, 0));
+    }
+
+    @Test
+    void indexesMoreSlotsThanAWord() {
+        applicationProperties.getAvailability().setClosesAt(Duration.ofHours(20));
+        applicationProperties.getAvailability().setSlotDuration(Duration.ofMinutes(5));
+        index = new SlotAvailabilityIndex(reservaRepository, applicationProperties);
+        givenHoras(at(13, 20), at(19, 55));
+
+        assertThat(index.getAvailability(Especialidad.LABORATORIO, FECHA).block().getFree())
+            .hasSize(142)
+            .doesNotContain(at(13, 20), at(19, 55))
+            .contains(at(13, 15), at(13, 25));
+    }
+}
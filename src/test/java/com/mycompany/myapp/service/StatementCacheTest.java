@@ -0,0 +1,65 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StatementCacheTest {
+
+    private StatementCache statementCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        statementCache = new StatementCache(Caffeine.newBuilder().executor(Runnable::run));
+        meterRegistry = new SimpleMeterRegistry();
+        statementCache.bindTo(meterRegistry);
+    }
+
+    @Test
+    void rendersOnlyOnMiss() {
+        AtomicInteger renderings = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            String statement = statementCache.get(
+                "reserva-by-id",
+                () -> {
+                    renderings.incrementAndGet();
+                    return "SELECT e.id FROM reserva e WHERE e.id = :id";
+                }
+            );
+            assertThat(statement).isEqualTo("SELECT e.id FROM reserva e WHERE e.id = :id");
+        }
+
+        assertThat(renderings).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsTheLeastUsedStatementsWhenFull() {
+        AtomicInteger renderings = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            statementCache.get(
+                "reserva-page",
+                () -> {
+                    renderings.incrementAndGet();
+                    return "SELECT e.id FROM reserva e LIMIT $1 OFFSET $2";
+                }
+            );
+        }
+
+        for (int i = 0; i < StatementCache.MAX_SIZE + 10; i++) {
+            statementCache.get("criteria-" + i, () -> "SELECT e.id FROM reserva e WHERE e.estado = $1");
+        }
+        statementCache.get("reserva-page", () -> "SELECT e.id FROM reserva e LIMIT $1 OFFSET $2" + renderings.incrementAndGet());
+
+        assertThat(statementCache.size()).isLessThanOrEqualTo(StatementCache.MAX_SIZE);
+        assertThat(renderings).hasValue(1);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.myapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class StripedLocksTest {
+
+    private final StripedLocks locks = new StripedLocks(16);
+
+    private final List<String> started = new ArrayList<>();
+
+    private Mono<String> operation(String name, Sinks.One<String> result) {
+        return Mono.defer(
+            () -> {
+                started.add(name);
+                return result.asMono();
+            }
+        );
+    }
+
+    @Test
+    void serializesTheOperationsOnAKey() {
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+
+        locks.withLock("slot", () -> operation("first", first)).subscribe();
+        locks.withLock("slot", () -> operation("second", second)).subscribe();
+        assertThat(started).containsExactly("first");
+
+        first.tryEmitValue("done");
+        assertThat(started).containsExactly("first", "second");
+    }
+
+    @Test
+    void releasesTheLockOnError() {
+        Sinks.One<String> first = Sinks.one();
+
+        locks.withLock("slot", () -> operation("first", first)).onErrorResume(e -> Mono.empty()).subscribe();
+        locks.withLock("slot", () -> operation("second", Sinks.one())).subscribe();
+
+        first.tryEmitError(new IllegalStateException());
+        assertThat(started).containsExactly("first", "second");
+    }
+
+    @Test
+    void doesNotSerializeTheOperationsOfOtherStripes() {
+        String other = "other";
+        while (locks.stripeOf(other) == locks.stripeOf("slot")) {
+            other += "'";
+        }
+
+        locks.withLock("slot", () -> operation("first", Sinks.one())).subscribe();
+        locks.withLock(other, () -> operation("second", Sinks.one())).subscribe();
+
+        assertThat(started).containsExactly("first", "second");
+    }
+
+    @Test
+    void skipsACancelledWaiter() {
+        Sinks.One<String> first = Sinks.one();
+
+        locks.withLock("slot", () -> operation("first", first)).subscribe();
+        Disposable cancelled = locks.withLock("slot", () -> operation("cancelled", Sinks.one())).subscribe();
+        locks.withLock("slot", () -> operation("third", Sinks.one())).subscribe();
+
+        cancelled.dispose();
+        assertThat(started).containsExactly("first");
+
+        first.tryEmitValue("done");
+        assertThat(started).containsExactly("first", "third");
+    }
+}
@@ -1,16 +1,22 @@
 package com.mycompany.myapp.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 import com.mycompany.myapp.IntegrationTest;
 import com.mycompany.myapp.domain.Especialista;
+import com.mycompany.myapp.domain.SearchOutboxEntry;
 import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
 import com.mycompany.myapp.repository.EspecialistaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
 import com.mycompany.myapp.repository.search.EspecialistaSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -76,6 +82,9 @@ class EspecialistaResourceIT {
     @Autowired
     private EspecialistaSearchRepository mockEspecialistaSearchRepository;
 
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -140,8 +149,6 @@ class EspecialistaResourceIT {
     @Test
     void createEspecialista() throws Exception {
         int databaseSizeBeforeCreate = especialistaRepository.findAll().collectList().block().size();
-        // Configure the mock search repository
-        when(mockEspecialistaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Create the Especialista
         webTestClient
             .post()
@@ -163,8 +170,10 @@ class EspecialistaResourceIT {
         assertThat(testEspecialista.getRegistroMedico()).isEqualTo(DEFAULT_REGISTRO_MEDICO);
         assertThat(testEspecialista.getEspecialidad()).isEqualTo(DEFAULT_ESPECIALIDAD);
 
-        // Validate the Especialista in Elasticsearch
-        verify(mockEspecialistaSearchRepository, times(1)).save(testEspecialista);
+        // Validate the Especialista is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Especialista", testEspecialista.getId(), SearchOperation.INDEX));
     }
 
     @Test
@@ -301,8 +310,6 @@ class EspecialistaResourceIT {
 
     @Test
     void putNewEspecialista() throws Exception {
-        // Configure the mock search repository
-        when(mockEspecialistaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         especialistaRepository.save(especialista).block();
 
@@ -338,8 +345,10 @@ class EspecialistaResourceIT {
         assertThat(testEspecialista.getRegistroMedico()).isEqualTo(UPDATED_REGISTRO_MEDICO);
         assertThat(testEspecialista.getEspecialidad()).isEqualTo(UPDATED_ESPECIALIDAD);
 
-        // Validate the Especialista in Elasticsearch
-        verify(mockEspecialistaSearchRepository).save(testEspecialista);
+        // Validate the Especialista is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Especialista", testEspecialista.getId(), SearchOperation.INDEX));
     }
 
     @Test
@@ -493,7 +502,7 @@ class EspecialistaResourceIT {
         int databaseSizeBeforeUpdate = especialistaRepository.findAll().collectList().block().size();
         especialista.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity isn't found by the update, so it returns 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, especialista.getId())
@@ -501,7 +510,7 @@ class EspecialistaResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(especialista))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Especialista in the database
         List<Especialista> especialistaList = especialistaRepository.findAll().collectList().block();
@@ -559,8 +568,6 @@ class EspecialistaResourceIT {
 
     @Test
     void deleteEspecialista() {
-        // Configure the mock search repository
-        when(mockEspecialistaSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
         // Initialize the database
         especialistaRepository.save(especialista).block();
 
@@ -579,17 +586,19 @@ class EspecialistaResourceIT {
         List<Especialista> especialistaList = especialistaRepository.findAll().collectList().block();
         assertThat(especialistaList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Especialista in Elasticsearch
-        verify(mockEspecialistaSearchRepository, times(1)).deleteById(especialista.getId());
+        // Validate the Especialista is queued for removal from Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Especialista", especialista.getId(), SearchOperation.DELETE));
     }
 
     @Test
     void searchEspecialista() {
-        // Configure the mock search repository
-        when(mockEspecialistaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         especialistaRepository.save(especialista).block();
-        when(mockEspecialistaSearchRepository.search("id:" + especialista.getId())).thenReturn(Flux.just(especialista));
+        when(mockEspecialistaSearchRepository.search("id:" + especialista.getId(), KeysetPaginationUtil.DEFAULT_PAGE_SIZE + 1, List.of()))
+            .thenReturn(Flux.just(new SearchAfterHit<>(especialista, List.of(1.0f, especialista.getId().intValue()))));
+        when(mockEspecialistaSearchRepository.countSearch("id:" + especialista.getId())).thenReturn(Mono.just(1L));
 
         // Search the especialista
         webTestClient
@@ -600,6 +609,8 @@ class EspecialistaResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(especialista.getId().intValue()))
@@ -616,4 +627,31 @@ class EspecialistaResourceIT {
             .jsonPath("$.[*].especialidad")
             .value(hasItem(DEFAULT_ESPECIALIDAD.toString()));
     }
+
+    @Test
+    void searchEspecialistasAsStream() {
+        // Initialize the database
+        especialistaRepository.save(especialista).block();
+        when(mockEspecialistaSearchRepository.search("id:" + especialista.getId())).thenReturn(Flux.just(especialista));
+        when(mockEspecialistaSearchRepository.countSearch("id:" + especialista.getId())).thenReturn(Mono.just(1L));
+
+        // Stream the search result
+        List<Especialista> especialistaList = webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=id:" + especialista.getId())
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
+            .returnResult(Especialista.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(especialistaList).extracting(Especialista::getId).containsExactly(especialista.getId());
+    }
 }
@@ -1,21 +1,35 @@
 package com.mycompany.myapp.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.myapp.IntegrationTest;
 import com.mycompany.myapp.domain.Historia;
+import com.mycompany.myapp.domain.SearchOutboxEntry;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
 import com.mycompany.myapp.repository.HistoriaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
 import com.mycompany.myapp.repository.search.HistoriaSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +38,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -49,8 +65,9 @@ class HistoriaResourceIT {
     private static final String DEFAULT_DESCRIPCION = "AAAAAAAAAA";
     private static final String UPDATED_DESCRIPCION = "BBBBBBBBBB";
 
-    private static final String DEFAULT_RESULTADO_FILE = "AAAAAAAAAA";
-    private static final String UPDATED_RESULTADO_FILE = "BBBBBBBBBB";
+    // the resultados are the references of uploaded files
+    private static final String DEFAULT_RESULTADO_FILE = "a".repeat(64);
+    private static final String UPDATED_RESULTADO_FILE = "b".repeat(64);
 
     private static final String ENTITY_API_URL = "/api/historias";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
@@ -62,6 +79,9 @@ class HistoriaResourceIT {
     @Autowired
     private HistoriaRepository historiaRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * This repository is mocked in the com.mycompany.myapp.repository.search test package.
      *
@@ -70,6 +90,9 @@ class HistoriaResourceIT {
     @Autowired
     private HistoriaSearchRepository mockHistoriaSearchRepository;
 
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -130,8 +153,6 @@ class HistoriaResourceIT {
     @Test
     void createHistoria() throws Exception {
         int databaseSizeBeforeCreate = historiaRepository.findAll().collectList().block().size();
-        // Configure the mock search repository
-        when(mockHistoriaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Create the Historia
         webTestClient
             .post()
@@ -151,8 +172,10 @@ class HistoriaResourceIT {
         assertThat(testHistoria.getDescripcion()).isEqualTo(DEFAULT_DESCRIPCION);
         assertThat(testHistoria.getResultadoFile()).isEqualTo(DEFAULT_RESULTADO_FILE);
 
-        // Validate the Historia in Elasticsearch
-        verify(mockHistoriaSearchRepository, times(1)).save(testHistoria);
+        // Validate the Historia is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Historia", testHistoria.getId(), SearchOperation.INDEX));
     }
 
     @Test
@@ -180,6 +203,23 @@ class HistoriaResourceIT {
         verify(mockHistoriaSearchRepository, times(0)).save(historia);
     }
 
+    @Test
+    void createHistoriaWithAResultadoFileWhichIsNotAReference() throws Exception {
+        historia.setResultadoFile("AAAAAAAAAA");
+        int databaseSizeBeforeCreate = historiaRepository.findAll().collectList().block().size();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(historia))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        assertThat(historiaRepository.findAll().collectList().block()).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     void getAllHistoriasAsStream() {
         // Initialize the database
@@ -209,6 +249,95 @@ class HistoriaResourceIT {
         assertThat(testHistoria.getResultadoFile()).isEqualTo(DEFAULT_RESULTADO_FILE);
     }
 
+    @Test
+    void exportHistoriasAsColumnarByFecha() throws Exception {
+        // Initialize the database
+        historiaRepository.save(historia).block();
+        Historia other = historiaRepository.save(createUpdatedEntity(em)).block();
+
+        byte[] export = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export?format=columnar&fecha.lessThan=" + DEFAULT_FECHA.plusDays(1))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType("application/gzip")
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+
+        List<JsonNode> groups = new ArrayList<>();
+        try (
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(export)), StandardCharsets.UTF_8)
+            )
+        ) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                groups.add(objectMapper.readTree(line));
+            }
+        }
+        assertThat(groups).hasSize(1);
+        JsonNode group = groups.get(0);
+        assertThat(group.get("rows").asInt()).isEqualTo(group.get("id").size());
+        List<Long> ids = new ArrayList<>();
+        group.get("id").forEach(id -> ids.add(id.asLong()));
+        assertThat(ids).contains(historia.getId()).doesNotContain(other.getId());
+        assertThat(group.get("diagnostico").get(ids.indexOf(historia.getId())).asText()).isEqualTo(DEFAULT_DIAGNOSTICO);
+    }
+
+    @Test
+    void uploadAndDownloadResultado() {
+        // Initialize the database
+        historiaRepository.save(historia).block();
+        byte[] resultado = "hemoglobina: 14.2 g/dL".getBytes(StandardCharsets.UTF_8);
+
+        Historia updated = webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID + "/resultado", historia.getId())
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .bodyValue(resultado)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Historia.class)
+            .returnResult()
+            .getResponseBody();
+        assertThat(updated.getResultadoFile()).matches("[0-9a-f]{64}");
+        assertThat(historiaRepository.findById(historia.getId()).block().getResultadoFile()).isEqualTo(updated.getResultadoFile());
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/resultado", historia.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .expectBody(byte[].class)
+            .isEqualTo(resultado);
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/resultado", historia.getId())
+            .header(HttpHeaders.RANGE, "bytes=0-10")
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.PARTIAL_CONTENT)
+            .expectHeader()
+            .valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 0-10/" + resultado.length)
+            .expectBody(String.class)
+            .isEqualTo("hemoglobina");
+    }
+
+    @Test
+    void getResultadoOfAHistoriaWithoutUpload() {
+        // Initialize the database
+        historiaRepository.save(historia).block();
+
+        webTestClient.get().uri(ENTITY_API_URL_ID + "/resultado", historia.getId()).exchange().expectStatus().isNotFound();
+    }
+
     @Test
     void getAllHistorias() {
         // Initialize the database
@@ -279,8 +408,6 @@ class HistoriaResourceIT {
 
     @Test
     void putNewHistoria() throws Exception {
-        // Configure the mock search repository
-        when(mockHistoriaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         historiaRepository.save(historia).block();
 
@@ -312,8 +439,10 @@ class HistoriaResourceIT {
         assertThat(testHistoria.getDescripcion()).isEqualTo(UPDATED_DESCRIPCION);
         assertThat(testHistoria.getResultadoFile()).isEqualTo(UPDATED_RESULTADO_FILE);
 
-        // Validate the Historia in Elasticsearch
-        verify(mockHistoriaSearchRepository).save(testHistoria);
+        // Validate the Historia is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Historia", testHistoria.getId(), SearchOperation.INDEX));
     }
 
     @Test
@@ -458,7 +587,7 @@ class HistoriaResourceIT {
         int databaseSizeBeforeUpdate = historiaRepository.findAll().collectList().block().size();
         historia.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity isn't found by the update, so it returns 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, historia.getId())
@@ -466,7 +595,7 @@ class HistoriaResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(historia))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Historia in the database
         List<Historia> historiaList = historiaRepository.findAll().collectList().block();
@@ -476,6 +605,24 @@ class HistoriaResourceIT {
         verify(mockHistoriaSearchRepository, times(0)).save(historia);
     }
 
+    @Test
+    void patchHistoriaWithAResultadoFileWhichIsNotAReference() throws Exception {
+        historiaRepository.save(historia).block();
+
+        Historia partialUpdatedHistoria = new Historia().id(historia.getId()).resultadoFile("BBBBBBBBBB");
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedHistoria.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedHistoria))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        assertThat(historiaRepository.findById(historia.getId()).block().getResultadoFile()).isEqualTo(DEFAULT_RESULTADO_FILE);
+    }
+
     @Test
     void patchWithIdMismatchHistoria() throws Exception {
         int databaseSizeBeforeUpdate = historiaRepository.findAll().collectList().block().size();
@@ -524,8 +671,6 @@ class HistoriaResourceIT {
 
     @Test
     void deleteHistoria() {
-        // Configure the mock search repository
-        when(mockHistoriaSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
         // Initialize the database
         historiaRepository.save(historia).block();
 
@@ -544,17 +689,19 @@ class HistoriaResourceIT {
         List<Historia> historiaList = historiaRepository.findAll().collectList().block();
         assertThat(historiaList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Historia in Elasticsearch
-        verify(mockHistoriaSearchRepository, times(1)).deleteById(historia.getId());
+        // Validate the Historia is queued for removal from Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Historia", historia.getId(), SearchOperation.DELETE));
     }
 
     @Test
     void searchHistoria() {
-        // Configure the mock search repository
-        when(mockHistoriaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         historiaRepository.save(historia).block();
-        when(mockHistoriaSearchRepository.search("id:" + historia.getId())).thenReturn(Flux.just(historia));
+        when(mockHistoriaSearchRepository.search("id:" + historia.getId(), KeysetPaginationUtil.DEFAULT_PAGE_SIZE + 1, List.of()))
+            .thenReturn(Flux.just(new SearchAfterHit<>(historia, List.of(1.0f, historia.getId().intValue()))));
+        when(mockHistoriaSearchRepository.countSearch("id:" + historia.getId())).thenReturn(Mono.just(1L));
 
         // Search the historia
         webTestClient
@@ -565,6 +712,8 @@ class HistoriaResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(historia.getId().intValue()))
@@ -577,4 +726,31 @@ class HistoriaResourceIT {
             .jsonPath("$.[*].resultadoFile")
             .value(hasItem(DEFAULT_RESULTADO_FILE.toString()));
     }
+
+    @Test
+    void searchHistoriasAsStream() {
+        // Initialize the database
+        historiaRepository.save(historia).block();
+        when(mockHistoriaSearchRepository.search("id:" + historia.getId())).thenReturn(Flux.just(historia));
+        when(mockHistoriaSearchRepository.countSearch("id:" + historia.getId())).thenReturn(Mono.just(1L));
+
+        // Stream the search result
+        List<Historia> historiaList = webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=id:" + historia.getId())
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
+            .returnResult(Historia.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(historiaList).extracting(Historia::getId).containsExactly(historia.getId());
+    }
 }
@@ -1,15 +1,30 @@
 package com.mycompany.myapp.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 
 import com.mycompany.myapp.IntegrationTest;
+import com.mycompany.myapp.domain.Historia;
 import com.mycompany.myapp.domain.Paciente;
+import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.SearchOutboxEntry;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
+import com.mycompany.myapp.repository.HistoriaRepository;
 import com.mycompany.myapp.repository.PacienteRepository;
+import com.mycompany.myapp.repository.ReservaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
 import com.mycompany.myapp.repository.search.PacienteSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.service.PacienteLookup;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import java.net.URI;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -24,6 +39,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -45,8 +62,8 @@ class PacienteResourceIT {
     private static final String DEFAULT_APELLIDOS = "AAAAAAAAAA";
     private static final String UPDATED_APELLIDOS = "BBBBBBBBBB";
 
-    private static final String DEFAULT_RUT = "AAAAAAAAAA";
-    private static final String UPDATED_RUT = "BBBBBBBBBB";
+    private static final String DEFAULT_RUT = "11.111.111-1";
+    private static final String UPDATED_RUT = "22.222.222-2";
 
     private static final LocalDate DEFAULT_FECHA_NACIMIENTO = LocalDate.ofEpochDay(0L);
     private static final LocalDate UPDATED_FECHA_NACIMIENTO = LocalDate.now(ZoneId.systemDefault());
@@ -61,6 +78,12 @@ class PacienteResourceIT {
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private HistoriaRepository historiaRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
     /**
      * This repository is mocked in the com.mycompany.myapp.repository.search test package.
      *
@@ -69,6 +92,12 @@ class PacienteResourceIT {
     @Autowired
     private PacienteSearchRepository mockPacienteSearchRepository;
 
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private PacienteLookup pacienteLookup;
+
     @Autowired
     private EntityManager em;
 
@@ -117,6 +146,8 @@ class PacienteResourceIT {
 
     @AfterEach
     public void cleanup() {
+        HistoriaResourceIT.deleteEntities(em);
+        ReservaResourceIT.deleteEntities(em);
         deleteEntities(em);
     }
 
@@ -129,8 +160,6 @@ class PacienteResourceIT {
     @Test
     void createPaciente() throws Exception {
         int databaseSizeBeforeCreate = pacienteRepository.findAll().collectList().block().size();
-        // Configure the mock search repository
-        when(mockPacienteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Create the Paciente
         webTestClient
             .post()
@@ -150,8 +179,10 @@ class PacienteResourceIT {
         assertThat(testPaciente.getRut()).isEqualTo(DEFAULT_RUT);
         assertThat(testPaciente.getFechaNacimiento()).isEqualTo(DEFAULT_FECHA_NACIMIENTO);
 
-        // Validate the Paciente in Elasticsearch
-        verify(mockPacienteSearchRepository, times(1)).save(testPaciente);
+        // Validate the Paciente is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Paciente", testPaciente.getId(), SearchOperation.INDEX));
     }
 
     @Test
@@ -236,6 +267,32 @@ class PacienteResourceIT {
             .value(hasItem(DEFAULT_FECHA_NACIMIENTO.toString()));
     }
 
+    @Test
+    void countPacientesByNombreContains() {
+        // Initialize the database
+        pacienteRepository.save(paciente.nombre("Ana_Maria")).block();
+
+        // The contains filter ignores the case
+        assertPacienteCount("nombre.contains=ana_maria", 1L);
+
+        // The wildcards of the contains filter are matched literally
+        assertPacienteCount("nombre.contains=Ana%", 0L);
+        assertPacienteCount("nombre.contains=a_a", 0L);
+        assertPacienteCount("nombre.doesNotContain=a_m", 0L);
+    }
+
+    private void assertPacienteCount(String filter, long count) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/count?" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(count);
+    }
+
     @Test
     void getPaciente() {
         // Initialize the database
@@ -264,6 +321,284 @@ class PacienteResourceIT {
             .value(is(DEFAULT_FECHA_NACIMIENTO.toString()));
     }
 
+    @Test
+    void getPacienteWithHistorias() {
+        // Initialize the database
+        pacienteRepository.save(paciente).block();
+        Historia historia = HistoriaResourceIT.createEntity(em);
+        historia.setRutId(paciente.getId());
+        historiaRepository.save(historia).block();
+
+        // Get the paciente with its historias
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "?expand=historias", paciente.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(paciente.getId().intValue()))
+            .jsonPath("$.historias.length()")
+            .isEqualTo(1)
+            .jsonPath("$.historias[0].id")
+            .value(is(historia.getId().intValue()));
+    }
+
+    @Test
+    void getAllPacientesWithHistorias() {
+        // Initialize the database
+        Paciente other = pacienteRepository.save(createUpdatedEntity(em)).block();
+        pacienteRepository.save(paciente).block();
+        for (int i = 0; i < 2; i++) {
+            Historia historia = HistoriaResourceIT.createEntity(em);
+            historia.setRutId(paciente.getId());
+            historiaRepository.save(historia).block();
+        }
+
+        // Get all the pacientes, with their historias loaded by a single query
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?expand=historias")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[?(@.id == " + paciente.getId() + ")].historias[*].id")
+            .value(hasSize(2))
+            .jsonPath("$[?(@.id == " + other.getId() + ")].historias[*].id")
+            .isEmpty();
+    }
+
+    private Historia saveHistoria(LocalDate fecha, Paciente paciente) {
+        Historia historia = HistoriaResourceIT.createEntity(em).fecha(fecha);
+        historia.setRutId(paciente.getId());
+        return historiaRepository.save(historia).block();
+    }
+
+    private Reserva saveReserva(LocalDate fecha, Paciente paciente) {
+        Reserva reserva = ReservaResourceIT.createEntity(em).fecha(fecha);
+        reserva.setRutId(paciente.getId());
+        return reservaRepository.save(reserva).block();
+    }
+
+    @Test
+    void getPacienteTimeline() {
+        // Initialize the database
+        Paciente other = pacienteRepository.save(createUpdatedEntity(em)).block();
+        pacienteRepository.save(paciente).block();
+        LocalDate day = LocalDate.of(2033, 3, 1);
+        Historia lastHistoria = saveHistoria(day.plusDays(2), paciente);
+        Historia firstHistoria = saveHistoria(day, paciente);
+        Reserva secondReserva = saveReserva(day.plusDays(1), paciente);
+        Reserva firstReserva = saveReserva(day, paciente);
+        saveReserva(day.plusDays(3), other);
+
+        // Get the first page, the historias come before the reservas of the same day
+        List<String> links = webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "/timeline?size=3", paciente.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueMatches(HttpHeaders.LINK, ".*rel=\"next\".*")
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(3)
+            .jsonPath("$.[*].type")
+            .isEqualTo(List.of("HISTORIA", "RESERVA", "RESERVA"))
+            .jsonPath("$.[0].historia.id")
+            .isEqualTo(firstHistoria.getId().intValue())
+            .jsonPath("$.[1].reserva.id")
+            .isEqualTo(firstReserva.getId().intValue())
+            .jsonPath("$.[2].reserva.id")
+            .isEqualTo(secondReserva.getId().intValue())
+            .returnResult()
+            .getResponseHeaders()
+            .get(HttpHeaders.LINK);
+        String next = links.get(0).substring(links.get(0).indexOf('<') + 1, links.get(0).indexOf('>'));
+
+        // Get the last page, without the reserva of the other paciente
+        webTestClient
+            .get()
+            .uri(URI.create(next))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.LINK, not(containsString("rel=\"next\"")))
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].fecha")
+            .isEqualTo(day.plusDays(2).toString())
+            .jsonPath("$.[0].historia.id")
+            .isEqualTo(lastHistoria.getId().intValue());
+    }
+
+    @Test
+    void getTimelineOfANonExistingPaciente() {
+        webTestClient.get().uri(ENTITY_API_URL_ID + "/timeline", Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void getPacienteByRut() {
+        pacienteRepository.save(paciente.rut("12.345.678-5")).block();
+        assertThat(paciente.getRutNormalizado()).isEqualTo("12345678-5");
+
+        for (String rut : List.of("12.345.678-5", "123456785", "012345678-5")) {
+            webTestClient
+                .get()
+                .uri(ENTITY_API_URL + "/by-rut/{rut}", rut)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.id")
+                .isEqualTo(paciente.getId().intValue());
+        }
+
+        // the former rut of the paciente is no longer found, even if cached
+        pacienteRepository.save(paciente.rut("9.876.543-3")).block();
+        webTestClient.get().uri(ENTITY_API_URL + "/by-rut/{rut}", "12345678-5").exchange().expectStatus().isNotFound();
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/by-rut/{rut}", "9876543-3")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .isEqualTo(paciente.getId().intValue());
+    }
+
+    @Test
+    void getPacienteByAnInvalidRut() {
+        webTestClient.get().uri(ENTITY_API_URL + "/by-rut/{rut}", "12.345.678-9").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void createPacienteWithATakenRut() throws Exception {
+        pacienteRepository.save(paciente.rut("12.345.678-5")).block();
+        Paciente other = createEntity(em).rut("12345678-5");
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(other))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void createPacienteWithAnInvalidRut() throws Exception {
+        int databaseSizeBeforeCreate = pacienteRepository.findAll().collectList().block().size();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(paciente.rut("12.345.678-9")))
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.rutinvalid");
+
+        // Validate the Paciente in the database
+        List<Paciente> pacienteList = pacienteRepository.findAll().collectList().block();
+        assertThat(pacienteList).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    void patchPacienteWithAnInvalidRut() throws Exception {
+        // Initialize the database
+        pacienteRepository.save(paciente).block();
+
+        Paciente partialUpdatedPaciente = new Paciente();
+        partialUpdatedPaciente.setId(paciente.getId());
+        partialUpdatedPaciente.rut("AAAAAAAAAA");
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedPaciente.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedPaciente))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Validate the Paciente in the database
+        assertThat(pacienteRepository.findById(paciente.getId()).block().getRut()).isEqualTo(DEFAULT_RUT);
+    }
+
+    @Test
+    void autocompletePacientes() {
+        pacienteRepository.save(new Paciente().nombre("José Ignacio").apellidos("Muñoz Pérez").rut("12.345.678-5")).block();
+        pacienteRepository.save(new Paciente().nombre("Josefa").apellidos("Muñoz").rut("9.876.543-K")).block();
+        pacienteLookup.reload().block();
+
+        webTestClient
+            .get()
+            .uri("/api/_autocomplete/pacientes?query=jose mun")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2);
+        webTestClient
+            .get()
+            .uri("/api/_autocomplete/pacientes?query=perez jo")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].nombre")
+            .isEqualTo("José Ignacio");
+        webTestClient
+            .get()
+            .uri("/api/_autocomplete/pacientes?query=9876543k")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].rut")
+            .isEqualTo("9.876.543-K");
+    }
+
+    @Test
+    void autocompletePacientesWithAnInvalidSize() {
+        webTestClient.get().uri("/api/_autocomplete/pacientes?query=jose&size=0").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getPacienteWithUnknownRelationship() {
+        // Initialize the database
+        pacienteRepository.save(paciente).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID + "?expand=especialistas", paciente.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getNonExistingPaciente() {
         // Get the paciente
@@ -278,8 +613,6 @@ class PacienteResourceIT {
 
     @Test
     void putNewPaciente() throws Exception {
-        // Configure the mock search repository
-        when(mockPacienteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         pacienteRepository.save(paciente).block();
 
@@ -307,8 +640,10 @@ class PacienteResourceIT {
         assertThat(testPaciente.getRut()).isEqualTo(UPDATED_RUT);
         assertThat(testPaciente.getFechaNacimiento()).isEqualTo(UPDATED_FECHA_NACIMIENTO);
 
-        // Validate the Paciente in Elasticsearch
-        verify(mockPacienteSearchRepository).save(testPaciente);
+        // Validate the Paciente is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Paciente", testPaciente.getId(), SearchOperation.INDEX));
     }
 
     @Test
@@ -453,7 +788,7 @@ class PacienteResourceIT {
         int databaseSizeBeforeUpdate = pacienteRepository.findAll().collectList().block().size();
         paciente.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity isn't found by the update, so it returns 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, paciente.getId())
@@ -461,7 +796,7 @@ class PacienteResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(paciente))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Paciente in the database
         List<Paciente> pacienteList = pacienteRepository.findAll().collectList().block();
@@ -519,8 +854,6 @@ class PacienteResourceIT {
 
     @Test
     void deletePaciente() {
-        // Configure the mock search repository
-        when(mockPacienteSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
         // Initialize the database
         pacienteRepository.save(paciente).block();
 
@@ -539,17 +872,19 @@ class PacienteResourceIT {
         List<Paciente> pacienteList = pacienteRepository.findAll().collectList().block();
         assertThat(pacienteList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Paciente in Elasticsearch
-        verify(mockPacienteSearchRepository, times(1)).deleteById(paciente.getId());
+        // Validate the Paciente is queued for removal from Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Paciente", paciente.getId(), SearchOperation.DELETE));
     }
 
     @Test
     void searchPaciente() {
-        // Configure the mock search repository
-        when(mockPacienteSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         pacienteRepository.save(paciente).block();
-        when(mockPacienteSearchRepository.search("id:" + paciente.getId())).thenReturn(Flux.just(paciente));
+        when(mockPacienteSearchRepository.search("id:" + paciente.getId(), KeysetPaginationUtil.DEFAULT_PAGE_SIZE + 1, List.of()))
+            .thenReturn(Flux.just(new SearchAfterHit<>(paciente, List.of(1.0f, paciente.getId().intValue()))));
+        when(mockPacienteSearchRepository.countSearch("id:" + paciente.getId())).thenReturn(Mono.just(1L));
 
         // Search the paciente
         webTestClient
@@ -560,6 +895,8 @@ class PacienteResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(paciente.getId().intValue()))
@@ -572,4 +909,31 @@ class PacienteResourceIT {
             .jsonPath("$.[*].fechaNacimiento")
             .value(hasItem(DEFAULT_FECHA_NACIMIENTO.toString()));
     }
+
+    @Test
+    void searchPacientesAsStream() {
+        // Initialize the database
+        pacienteRepository.save(paciente).block();
+        when(mockPacienteSearchRepository.search("id:" + paciente.getId())).thenReturn(Flux.just(paciente));
+        when(mockPacienteSearchRepository.countSearch("id:" + paciente.getId())).thenReturn(Mono.just(1L));
+
+        // Stream the search result
+        List<Paciente> pacienteList = webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=id:" + paciente.getId())
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
+            .returnResult(Paciente.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(pacienteList).extracting(Paciente::getId).containsExactly(paciente.getId());
+    }
 }
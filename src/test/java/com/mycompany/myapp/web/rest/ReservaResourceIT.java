@@ -1,22 +1,33 @@
 package com.mycompany.myapp.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 
 import com.mycompany.myapp.IntegrationTest;
 import com.mycompany.myapp.domain.Reserva;
+import com.mycompany.myapp.domain.SearchOutboxEntry;
 import com.mycompany.myapp.domain.enumeration.Especialidad;
+import com.mycompany.myapp.domain.enumeration.SearchOperation;
 import com.mycompany.myapp.repository.ReservaRepository;
+import com.mycompany.myapp.repository.SearchOutboxRepository;
 import com.mycompany.myapp.repository.search.ReservaSearchRepository;
+import com.mycompany.myapp.repository.search.SearchAfterHit;
 import com.mycompany.myapp.service.EntityManager;
+import com.mycompany.myapp.web.rest.util.KeysetPaginationUtil;
+import java.net.URI;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.AfterEach;
@@ -27,6 +38,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -46,7 +59,7 @@ class ReservaResourceIT {
     private static final LocalDate UPDATED_FECHA = LocalDate.now(ZoneId.systemDefault());
 
     private static final Instant DEFAULT_HORA = Instant.ofEpochMilli(0L);
-    private static final Instant UPDATED_HORA = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    private static final Instant UPDATED_HORA = Instant.now().truncatedTo(ChronoUnit.HOURS);
 
     private static final Especialidad DEFAULT_ESPECIALIDAD = Especialidad.MEDICINA_GENERAL;
     private static final Especialidad UPDATED_ESPECIALIDAD = Especialidad.LABORATORIO;
@@ -69,6 +82,9 @@ class ReservaResourceIT {
     @Autowired
     private ReservaSearchRepository mockReservaSearchRepository;
 
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -121,8 +137,6 @@ class ReservaResourceIT {
     @Test
     void createReserva() throws Exception {
         int databaseSizeBeforeCreate = reservaRepository.findAll().collectList().block().size();
-        // Configure the mock search repository
-        when(mockReservaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Create the Reserva
         webTestClient
             .post()
@@ -141,8 +155,34 @@ class ReservaResourceIT {
         assertThat(testReserva.getHora()).isEqualTo(DEFAULT_HORA);
         assertThat(testReserva.getEspecialidad()).isEqualTo(DEFAULT_ESPECIALIDAD);
 
-        // Validate the Reserva in Elasticsearch
-        verify(mockReservaSearchRepository, times(1)).save(testReserva);
+        // Validate the Reserva is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Reserva", testReserva.getId(), SearchOperation.INDEX));
+    }
+
+    @Test
+    void createReservaInABookedSlot() throws Exception {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+        int databaseSizeBeforeCreate = reservaRepository.findAll().collectList().block().size();
+
+        // Book the same slot again
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(createEntity(em)))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT)
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.slottaken");
+
+        // Validate the Reserva is not in the database
+        List<Reserva> reservaList = reservaRepository.findAll().collectList().block();
+        assertThat(reservaList).hasSize(databaseSizeBeforeCreate);
     }
 
     @Test
@@ -170,6 +210,72 @@ class ReservaResourceIT {
         verify(mockReservaSearchRepository, times(0)).save(reserva);
     }
 
+    @Test
+    void createReservaWithAHoraWhichIsNotASlotStart() throws Exception {
+        reserva.setHora(DEFAULT_FECHA.atTime(10, 7).atZone(ZoneId.systemDefault()).toInstant());
+
+        int databaseSizeBeforeCreate = reservaRepository.findAll().collectList().block().size();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(reserva))
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.horainvalid");
+
+        // Validate the Reserva in the database
+        List<Reserva> reservaList = reservaRepository.findAll().collectList().block();
+        assertThat(reservaList).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    void createReservasInBulk() throws Exception {
+        int databaseSizeBeforeCreate = reservaRepository.findAll().collectList().block().size();
+        Reserva withId = createEntity(em);
+        withId.setId(1L);
+        String body =
+            new String(TestUtil.convertObjectToJsonBytes(reserva)) +
+            "\n" +
+            new String(TestUtil.convertObjectToJsonBytes(withId)) +
+            "\n" +
+            new String(TestUtil.convertObjectToJsonBytes(createUpdatedEntity(em))) +
+            "\n";
+
+        // Create the Reservas
+        List<Map> results = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(Map.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(results).extracting(result -> result.get("status")).containsExactly("CREATED", "REJECTED", "CREATED");
+        assertThat(results.get(1).get("error")).isEqualTo("idexists");
+
+        // Validate the Reservas in the database
+        List<Reserva> reservaList = reservaRepository.findAll().collectList().block();
+        assertThat(reservaList).hasSize(databaseSizeBeforeCreate + 2);
+        Long firstId = ((Number) results.get(0).get("id")).longValue();
+        Long lastId = ((Number) results.get(2).get("id")).longValue();
+        assertThat(reservaList).extracting(Reserva::getId).contains(firstId, lastId);
+
+        // Validate the Reservas are queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Reserva", firstId, SearchOperation.INDEX), tuple("Reserva", lastId, SearchOperation.INDEX));
+    }
+
     @Test
     void getAllReservasAsStream() {
         // Initialize the database
@@ -198,6 +304,35 @@ class ReservaResourceIT {
         assertThat(testReserva.getEspecialidad()).isEqualTo(DEFAULT_ESPECIALIDAD);
     }
 
+    @Test
+    void getAllReservasAsStreamInBatches() {
+        // Initialize the database with more reservas than the fetch size of the stream, in distinct slots
+        List<Reserva> reservas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            reservas.add(createEntity(em).hora(DEFAULT_HORA.plusSeconds(i)));
+        }
+        List<Long> ids = reservaRepository
+            .insertAll(reservas)
+            .map(Reserva::getId)
+            .collectList()
+            .block();
+
+        List<Long> streamedIds = webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(Reserva.class)
+            .getResponseBody()
+            .map(Reserva::getId)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(streamedIds).containsAll(ids);
+    }
+
     @Test
     void getAllReservas() {
         // Initialize the database
@@ -224,6 +359,232 @@ class ReservaResourceIT {
             .value(hasItem(DEFAULT_ESPECIALIDAD.toString()));
     }
 
+    @Test
+    void getAllReservasByCursor() {
+        // Initialize the database
+        for (int i = 0; i < 3; i++) {
+            reservaRepository.save(createEntity(em).fecha(DEFAULT_FECHA.plusDays(i))).block();
+        }
+
+        // Get the first page, which links to the next one
+        List<String> links = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueMatches(HttpHeaders.LINK, ".*rel=\"next\".*")
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2)
+            .jsonPath("$.[0].fecha")
+            .isEqualTo(DEFAULT_FECHA.toString())
+            .jsonPath("$.[1].fecha")
+            .isEqualTo(DEFAULT_FECHA.plusDays(1).toString())
+            .returnResult()
+            .getResponseHeaders()
+            .get(HttpHeaders.LINK);
+        String next = links.get(0).substring(links.get(0).indexOf('<') + 1, links.get(0).indexOf('>'));
+
+        // Get the last page
+        webTestClient
+            .get()
+            .uri(URI.create(next))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value(HttpHeaders.LINK, not(containsString("rel=\"next\"")))
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].fecha")
+            .isEqualTo(DEFAULT_FECHA.plusDays(2).toString());
+    }
+
+    @Test
+    void getAllReservasByFechaIsEqualToSomething() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Get all the reservaList where fecha equals to DEFAULT_FECHA
+        defaultReservaShouldBeFound("fecha.equals=" + DEFAULT_FECHA);
+
+        // Get all the reservaList where fecha equals to UPDATED_FECHA
+        defaultReservaShouldNotBeFound("fecha.equals=" + UPDATED_FECHA);
+    }
+
+    @Test
+    void getAllReservasByFechaIsInRange() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Get all the reservaList where fecha is between DEFAULT_FECHA and UPDATED_FECHA
+        defaultReservaShouldBeFound("fecha.greaterThanOrEqual=" + DEFAULT_FECHA + "&fecha.lessThan=" + UPDATED_FECHA);
+
+        // Get all the reservaList where fecha is after DEFAULT_FECHA
+        defaultReservaShouldNotBeFound("fecha.greaterThan=" + DEFAULT_FECHA);
+    }
+
+    @Test
+    void getAllReservasByHoraIsLessThanSomething() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Get all the reservaList where hora is less than UPDATED_HORA
+        defaultReservaShouldBeFound("hora.lessThan=" + UPDATED_HORA);
+
+        // Get all the reservaList where hora is less than DEFAULT_HORA
+        defaultReservaShouldNotBeFound("hora.lessThan=" + DEFAULT_HORA);
+    }
+
+    @Test
+    void getAllReservasByEspecialidadIsInShouldWork() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Get all the reservaList where especialidad in DEFAULT_ESPECIALIDAD or UPDATED_ESPECIALIDAD
+        defaultReservaShouldBeFound("especialidad.in=" + DEFAULT_ESPECIALIDAD + "," + UPDATED_ESPECIALIDAD);
+
+        // Get all the reservaList where especialidad equals to UPDATED_ESPECIALIDAD
+        defaultReservaShouldNotBeFound("especialidad.in=" + UPDATED_ESPECIALIDAD);
+    }
+
+    @Test
+    void getAllReservasByRutIdIsSpecified() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Get all the reservaList where rutId is null
+        defaultReservaShouldBeFound("rutId.specified=false");
+
+        // Get all the reservaList where rutId is not null
+        defaultReservaShouldNotBeFound("rutId.specified=true");
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultReservaShouldBeFound(String filter) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_PRECISION_HEADER, "exact")
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(reserva.getId().intValue()))
+            .jsonPath("$.[*].fecha")
+            .value(hasItem(DEFAULT_FECHA.toString()))
+            .jsonPath("$.[*].hora")
+            .value(hasItem(DEFAULT_HORA.toString()))
+            .jsonPath("$.[*].especialidad")
+            .value(hasItem(DEFAULT_ESPECIALIDAD.toString()));
+
+        // Check, that the count call also returns 1
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/count?" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(1L);
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultReservaShouldNotBeFound(String filter) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "0")
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_PRECISION_HEADER, "exact")
+            .expectBody()
+            .jsonPath("$")
+            .isArray()
+            .jsonPath("$")
+            .isEmpty();
+
+        // Check, that the count call also returns 0
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/count?" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Long.class)
+            .isEqualTo(0L);
+    }
+
+    @Test
+    void getAllReservasWithFields() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Get only the especialidad, with the id which is always returned
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=especialidad")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(reserva.getId().intValue()))
+            .jsonPath("$.[*].especialidad")
+            .value(hasItem(DEFAULT_ESPECIALIDAD.toString()))
+            .jsonPath("$.[0].fecha")
+            .doesNotExist()
+            .jsonPath("$.[0].hora")
+            .doesNotExist()
+            .jsonPath("$.[0].rut")
+            .doesNotExist();
+    }
+
+    @Test
+    void getAllReservasWithUnknownField() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=especialidad,unknown")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getAllReservasWithInvalidCursor() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?cursor=not-a-cursor")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getReserva() {
         // Initialize the database
@@ -264,8 +625,6 @@ class ReservaResourceIT {
 
     @Test
     void putNewReserva() throws Exception {
-        // Configure the mock search repository
-        when(mockReservaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         reservaRepository.save(reserva).block();
 
@@ -292,8 +651,31 @@ class ReservaResourceIT {
         assertThat(testReserva.getHora()).isEqualTo(UPDATED_HORA);
         assertThat(testReserva.getEspecialidad()).isEqualTo(UPDATED_ESPECIALIDAD);
 
-        // Validate the Reserva in Elasticsearch
-        verify(mockReservaSearchRepository).save(testReserva);
+        // Validate the Reserva is queued for Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Reserva", testReserva.getId(), SearchOperation.INDEX));
+    }
+
+    @Test
+    void putReservaWithAHoraWhichIsNotASlotStart() throws Exception {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        Reserva updatedReserva = reservaRepository.findById(reserva.getId()).block();
+        updatedReserva.hora(UPDATED_FECHA.atTime(10, 7).atZone(ZoneId.systemDefault()).toInstant());
+
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, updatedReserva.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedReserva))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Validate the Reserva in the database
+        assertThat(reservaRepository.findById(reserva.getId()).block().getHora()).isEqualTo(DEFAULT_HORA);
     }
 
     @Test
@@ -396,6 +778,41 @@ class ReservaResourceIT {
         assertThat(testReserva.getEspecialidad()).isEqualTo(UPDATED_ESPECIALIDAD);
     }
 
+    @Test
+    void partialUpdateReservaWithPatchKeepsTheOtherFields() throws Exception {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+
+        // Update only the especialidad of the reserva
+        Reserva partialUpdatedReserva = new Reserva();
+        partialUpdatedReserva.setId(reserva.getId());
+        partialUpdatedReserva.especialidad(UPDATED_ESPECIALIDAD);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedReserva.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(partialUpdatedReserva))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(reserva.getId().intValue()))
+            .jsonPath("$.fecha")
+            .value(is(DEFAULT_FECHA.toString()))
+            .jsonPath("$.hora")
+            .value(is(DEFAULT_HORA.toString()))
+            .jsonPath("$.especialidad")
+            .value(is(UPDATED_ESPECIALIDAD.toString()));
+
+        // Validate the Reserva in the database
+        Reserva testReserva = reservaRepository.findById(reserva.getId()).block();
+        assertThat(testReserva.getFecha()).isEqualTo(DEFAULT_FECHA);
+        assertThat(testReserva.getHora()).isEqualTo(DEFAULT_HORA);
+        assertThat(testReserva.getEspecialidad()).isEqualTo(UPDATED_ESPECIALIDAD);
+    }
+
     @Test
     void fullUpdateReservaWithPatch() throws Exception {
         // Initialize the database
@@ -432,7 +849,7 @@ class ReservaResourceIT {
         int databaseSizeBeforeUpdate = reservaRepository.findAll().collectList().block().size();
         reserva.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity isn't found by the update, so it returns 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, reserva.getId())
@@ -440,7 +857,7 @@ class ReservaResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(reserva))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Reserva in the database
         List<Reserva> reservaList = reservaRepository.findAll().collectList().block();
@@ -498,8 +915,6 @@ class ReservaResourceIT {
 
     @Test
     void deleteReserva() {
-        // Configure the mock search repository
-        when(mockReservaSearchRepository.deleteById(anyLong())).thenReturn(Mono.empty());
         // Initialize the database
         reservaRepository.save(reserva).block();
 
@@ -518,17 +933,150 @@ class ReservaResourceIT {
         List<Reserva> reservaList = reservaRepository.findAll().collectList().block();
         assertThat(reservaList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Reserva in Elasticsearch
-        verify(mockReservaSearchRepository, times(1)).deleteById(reserva.getId());
+        // Validate the Reserva is queued for removal from Elasticsearch
+        assertThat(searchOutboxRepository.findAll().collectList().block())
+            .extracting(SearchOutboxEntry::getEntityType, SearchOutboxEntry::getEntityId, SearchOutboxEntry::getOperation)
+            .contains(tuple("Reserva", reserva.getId(), SearchOperation.DELETE));
+    }
+
+    @Test
+    void getAvailabilityFollowsTheReservas() {
+        LocalDate fecha = LocalDate.of(2031, 3, 3);
+        Instant hora = fecha.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant();
+        String availabilityUrl = ENTITY_API_URL + "/availability?especialidad=" + UPDATED_ESPECIALIDAD + "&fecha=" + fecha;
+
+        // Load the day
+        webTestClient
+            .get()
+            .uri(availabilityUrl)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.slotMinutes")
+            .value(is(30))
+            .jsonPath("$.free")
+            .value(hasItem(hora.toString()));
+
+        // Book the slot
+        Reserva created = webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new Reserva().fecha(fecha).hora(hora).especialidad(UPDATED_ESPECIALIDAD)))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(Reserva.class)
+            .returnResult()
+            .getResponseBody();
+
+        webTestClient
+            .get()
+            .uri(availabilityUrl)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.free")
+            .value(not(hasItem(hora.toString())));
+
+        // Cancel it
+        webTestClient.delete().uri(ENTITY_API_URL_ID, created.getId()).exchange().expectStatus().isNoContent();
+
+        webTestClient
+            .get()
+            .uri(availabilityUrl)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.free")
+            .value(hasItem(hora.toString()));
+    }
+
+    @Test
+    void exportReservasAsCsvByFecha() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+        Reserva other = reservaRepository
+            .save(new Reserva().fecha(UPDATED_FECHA).hora(UPDATED_HORA).especialidad(UPDATED_ESPECIALIDAD))
+            .block();
+        String byFecha = "fecha.greaterThanOrEqual=" + DEFAULT_FECHA + "&fecha.lessThan=" + DEFAULT_FECHA.plusDays(1);
+
+        String csv = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export?format=csv&" + byFecha)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith("text", "csv")
+            .expectHeader()
+            .value(HttpHeaders.CONTENT_DISPOSITION, containsString("reservas.csv"))
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+
+        String exported = reserva.getId() + "," + DEFAULT_FECHA + "," + DEFAULT_HORA + "," + DEFAULT_ESPECIALIDAD + ",";
+        assertThat(csv.split("\r\n"))
+            .startsWith("id,fecha,hora,especialidad,rut_id,last_modified_date")
+            .anyMatch(line -> line.startsWith(exported))
+            .noneMatch(line -> line.startsWith(other.getId() + ","));
+    }
+
+    @Test
+    void exportReservasInAnUnknownFormat() {
+        webTestClient.get().uri(ENTITY_API_URL + "/export?format=xlsx").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getStatisticsFollowsTheReservas() {
+        LocalDate fecha = LocalDate.of(2032, 2, 10);
+        Instant hora = fecha.atTime(11, 0).atZone(ZoneId.systemDefault()).toInstant();
+        String statisticsUrl = ENTITY_API_URL + "/statistics?bucket=month&from=2032-02-01&to=2032-03-01";
+
+        webTestClient.get().uri(statisticsUrl).exchange().expectStatus().isOk().expectBody().jsonPath("$.length()").isEqualTo(0);
+
+        Reserva created = webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(new Reserva().fecha(fecha).hora(hora).especialidad(UPDATED_ESPECIALIDAD)))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(Reserva.class)
+            .returnResult()
+            .getResponseBody();
+
+        webTestClient
+            .get()
+            .uri(statisticsUrl)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$[0].start")
+            .isEqualTo("2032-02-01")
+            .jsonPath("$[0].total")
+            .isEqualTo(1)
+            .jsonPath("$[0].especialidades." + UPDATED_ESPECIALIDAD)
+            .isEqualTo(1);
+
+        webTestClient.delete().uri(ENTITY_API_URL_ID, created.getId()).exchange().expectStatus().isNoContent();
+
+        webTestClient.get().uri(statisticsUrl).exchange().expectStatus().isOk().expectBody().jsonPath("$.length()").isEqualTo(0);
+        webTestClient.get().uri(ENTITY_API_URL + "/statistics?bucket=year").exchange().expectStatus().isBadRequest();
     }
 
     @Test
     void searchReserva() {
-        // Configure the mock search repository
-        when(mockReservaSearchRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
         // Initialize the database
         reservaRepository.save(reserva).block();
-        when(mockReservaSearchRepository.search("id:" + reserva.getId())).thenReturn(Flux.just(reserva));
+        when(mockReservaSearchRepository.search("id:" + reserva.getId(), KeysetPaginationUtil.DEFAULT_PAGE_SIZE + 1, List.of()))
+            .thenReturn(Flux.just(new SearchAfterHit<>(reserva, List.of(1.0f, reserva.getId().intValue()))));
+        when(mockReservaSearchRepository.countSearch("id:" + reserva.getId())).thenReturn(Mono.just(1L));
 
         // Search the reserva
         webTestClient
@@ -539,6 +1087,8 @@ class ReservaResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(reserva.getId().intValue()))
@@ -549,4 +1099,62 @@ class ReservaResourceIT {
             .jsonPath("$.[*].especialidad")
             .value(hasItem(DEFAULT_ESPECIALIDAD.toString()));
     }
+
+    @Test
+    void searchReservaByPages() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+        Reserva other = reservaRepository.save(createUpdatedEntity(em)).block();
+        // the search engine returns the ids which fit in an int as integers
+        when(mockReservaSearchRepository.search("especialidad:*", 2, List.of()))
+            .thenReturn(
+                Flux.just(
+                    new SearchAfterHit<>(reserva, List.of(1.0f, reserva.getId().intValue())),
+                    new SearchAfterHit<>(other, List.of(1.0f, other.getId().intValue()))
+                )
+            );
+        when(mockReservaSearchRepository.countSearch("especialidad:*")).thenReturn(Mono.just(2L));
+
+        // Search the first page
+        webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=especialidad:*&size=1")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueMatches(HttpHeaders.LINK, ".*rel=\"next\".*")
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$[0].id")
+            .isEqualTo(reserva.getId().intValue());
+    }
+
+    @Test
+    void searchReservasAsStream() {
+        // Initialize the database
+        reservaRepository.save(reserva).block();
+        when(mockReservaSearchRepository.search("id:" + reserva.getId())).thenReturn(Flux.just(reserva));
+        when(mockReservaSearchRepository.countSearch("id:" + reserva.getId())).thenReturn(Mono.just(1L));
+
+        // Stream the search result
+        List<Reserva> reservaList = webTestClient
+            .get()
+            .uri(ENTITY_SEARCH_API_URL + "?query=id:" + reserva.getId())
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .expectHeader()
+            .valueEquals(KeysetPaginationUtil.TOTAL_COUNT_HEADER, "1")
+            .returnResult(Reserva.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(reservaList).extracting(Reserva::getId).containsExactly(reserva.getId());
+    }
 }